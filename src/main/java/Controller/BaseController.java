@@ -1,10 +1,11 @@
 package Controller;
 
+import Model.LogEntry;
 import Model.Report;
 import Util.DatabaseConnection;
+import Util.Log;
+import Util.Tracing;
 import java.io.File;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.io.IOException;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -15,7 +16,11 @@ import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -25,17 +30,84 @@ import javafx.stage.FileChooser;
 
 public class BaseController {
 
-    private static final String SERVER_HOST = DatabaseConnection.getServerHost();
-    private static final int SERVER_PORT = DatabaseConnection.getServerPort();
-    private static final int TIMEOUT = DatabaseConnection.getTimeout();
+    // Communication log entries shown at once; older ones are only read for the PDF
+    protected static final int LOG_PAGE_SIZE = 100;
 
+    // Reads the liveness monitor's cached state; never opens a socket.
     protected boolean isServerRunning() {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(SERVER_HOST, SERVER_PORT), TIMEOUT);
-            return true;
-        } catch (IOException e) {
-            return false;
+        return Tracing.inSpan(Tracing.child("isServerRunning"), () -> DatabaseConnection.isServerRunning());
+    }
+
+    /**
+     * Runs a user action, traced if sampled. The SQL it runs on the calling
+     * thread is recorded beneath it.
+     *
+     * @param action The action's name, e.g. the handler method.
+     * @param body The action.
+     */
+    protected void traceAction(String action, Runnable body) {
+        Tracing.inSpan(Tracing.startAction("ui " + getClass().getSimpleName() + "." + action), body);
+    }
+
+    /**
+     * Fills in the fields a report list leaves out, such as the disaster
+     * specific fields and the resources needed, for the selected report.
+     *
+     * @param report A report read for a list.
+     * @return The same report.
+     */
+    protected Report loadReportDetail(Report report) {
+        try {
+            Report detail = DatabaseConnection.getReportDetail(report.getId());
+            if (detail != null) {
+                report.copyDetailsFrom(detail);
+            }
+        } catch (SQLException e) {
+            Log.error("Error loading report details: {}", e.getMessage());
+        }
+        return report;
+    }
+
+    /**
+     * Reads the newest page of a report's communication log and keeps it in
+     * the report, for showing in the log area.
+     *
+     * @param report The report.
+     * @return The log text, oldest shown entry first.
+     */
+    protected String loadCommunicationLog(Report report) {
+        try {
+            List<LogEntry> entries = DatabaseConnection.getLogEntries(report.getId(), null, LOG_PAGE_SIZE);
+            String log = LogEntry.render(entries);
+            if (entries.size() == LOG_PAGE_SIZE) {
+                log = "(earlier entries not shown)\n" + log;
+            }
+            report.setCommunicationLog(log);
+        } catch (SQLException e) {
+            Log.error("Error loading communication log: {}", e.getMessage());
+        }
+        return report.getCommunicationLog();
+    }
+
+    /**
+     * Reads a report's whole communication log, a page at a time.
+     *
+     * @param report The report.
+     * @return The entries, oldest first.
+     * @throws SQLException If a database access error occurs.
+     */
+    private List<LogEntry> loadAllLogEntries(Report report) throws SQLException {
+        List<LogEntry> entries = new ArrayList<>();
+        List<LogEntry> page = DatabaseConnection.getLogEntries(report.getId(), null, LOG_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            entries.addAll(page);
+            if (page.size() < LOG_PAGE_SIZE) {
+                break;
+            }
+            page = DatabaseConnection.getLogEntries(report.getId(), page.get(page.size() - 1), LOG_PAGE_SIZE);
         }
+        Collections.reverse(entries);
+        return entries;
     }
 
     protected void showAlert(String title, String message) {
@@ -75,6 +147,7 @@ public class BaseController {
     }
 
     public void createPDF(Report report) {
+        loadReportDetail(report);
         PDDocument document = new PDDocument();
         PDPage page = new PDPage(PDRectangle.LETTER);
         document.addPage(page);
@@ -205,10 +278,17 @@ public class BaseController {
 
         contentStream.showText("Communication Log:");
         contentStream.newLineAtOffset(0, -leading);
-        String[] logLines = report.getCommunicationLog().split("\n");
-        for (String line : logLines) {
-            contentStream.showText(line);
-            contentStream.newLineAtOffset(0, -leading);
+        List<LogEntry> entries;
+        try {
+            entries = loadAllLogEntries(report);
+        } catch (SQLException e) {
+            throw new IOException("Error loading communication log", e);
+        }
+        for (LogEntry entry : entries) {
+            for (String line : entry.toString().split("\n")) {
+                contentStream.showText(line);
+                contentStream.newLineAtOffset(0, -leading);
+            }
         }
     }
 }
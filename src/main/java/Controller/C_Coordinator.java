@@ -5,8 +5,6 @@ import Model.*;
 import Util.DatabaseConnection;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -219,14 +217,14 @@ public class C_Coordinator extends BaseController {
     private void setupEventListeners() {
         reportTableView.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
-                showReportDetails(newSelection);
+                showReportDetails(loadReportDetail(newSelection));
             }
         });
 
         reportTableView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && reportTableView.getSelectionModel().getSelectedItem() != null) {
                 Report selectedReport = reportTableView.getSelectionModel().getSelectedItem();
-                openEditReportWindow(selectedReport);
+                openEditReportWindow(loadReportDetail(selectedReport));
             }
         });
 
@@ -272,15 +270,17 @@ public class C_Coordinator extends BaseController {
      */
     @FXML
     public void refreshReports() throws SQLException {
-        if (!isServerRunning()) {
+        traceAction("refreshReports", () -> {
+            if (!isServerRunning()) {
+                loadDataFromModel();
+                showAlert("Server Connection Error", "Server connection is not established.");
+                clearAllFields();  // Add this line to clear all fields
+                return;
+            }
             loadDataFromModel();
-            showAlert("Server Connection Error", "Server connection is not established.");
-            clearAllFields();  // Add this line to clear all fields
-            return;
-        }
-        loadDataFromModel();
-        showAlert("Report", "Report page has been updated succesfully.");
-        System.out.println("Report page has been updated succesfully.");
+            showAlert("Report", "Report page has been updated succesfully.");
+            System.out.println("Report page has been updated succesfully.");
+        });
     }
 
     /**
@@ -288,12 +288,14 @@ public class C_Coordinator extends BaseController {
      */
     @FXML
     private void refreshDisasterStatus() {
-        if (!isServerRunning()) {
-            showAlert("Server Connection Error", "Server connection is not established.");
-            model.loadDisasterStatusReports();
-            updateUI();
-            return;
-        }
+        traceAction("refreshDisasterStatus", () -> {
+            if (!isServerRunning()) {
+                showAlert("Server Connection Error", "Server connection is not established.");
+                model.loadDisasterStatusReports();
+                updateUI();
+                return;
+            }
+        });
     }
 
     /**
@@ -309,12 +311,7 @@ public class C_Coordinator extends BaseController {
         details.append("Reporter: ").append(report.getReporterName()).append("\n");
         details.append("Contact: ").append(report.getContactInfo()).append("\n\n");
 
-        String communicationLog = report.getCommunicationLog();
-        if (communicationLog != null) {
-            communicationLogArea.setText(communicationLog);
-        } else {
-            communicationLogArea.clear();
-        }
+        communicationLogArea.setText(loadCommunicationLog(report));
 
         switch (report.getDisasterType()) {
             case "Wildfire":
@@ -351,7 +348,7 @@ public class C_Coordinator extends BaseController {
         detailsTextArea.setText(details.toString());
         responseStatusComboBox.setValue(report.getResponseStatus());
         resourcesNeededArea.setText(report.getResourcesNeeded());
-        communicationLogArea.setText(report.getCommunicationLog());
+        communicationLogArea.setText(loadCommunicationLog(report));
         priorityLevelComboBox.setValue(report.getPriorityLevel());
 
         if (report.getLatitude() != 0 && report.getLongitude() != 0) {
@@ -525,18 +522,13 @@ public class C_Coordinator extends BaseController {
             return;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String timestamp = now.format(formatter);
-        String logEntry = String.format("[%s] Coordinator: %s", timestamp, log);
-
-        model.addCommunicationLog(selectedReport, logEntry);
+        model.addCommunicationLog(selectedReport, currentUser, log);
         updateCommunicationLog(selectedReport);
         updateUI();
     }
 
     private void updateCommunicationLog(Report report) {
-        communicationLogArea.setText(report.getCommunicationLog());
+        communicationLogArea.setText(loadCommunicationLog(report));
     }
 
     /**
@@ -721,8 +713,6 @@ public class C_Coordinator extends BaseController {
         }
 
         selectedReport.setResponseStatus(responseStatusComboBox.getValue());
-        selectedReport.setResourcesNeeded(resourcesNeededArea.getText());
-        selectedReport.setCommunicationLog(communicationLogArea.getText());
         selectedReport.setPriorityLevel(priorityLevelComboBox.getValue());
 
         showAlert("Update", "Report updated succesfully.");
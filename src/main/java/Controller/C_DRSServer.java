@@ -1,10 +1,18 @@
 package Controller;
 
 import Server.DRSServer;
+import Util.LatencyHistogram;
+import Util.Metrics;
+import java.util.HashMap;
+import java.util.Map;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
 import javafx.application.Platform;
+import javafx.util.Duration;
 
 public class C_DRSServer {
 
@@ -17,14 +25,68 @@ public class C_DRSServer {
     @FXML
     private Label statusLabel;
 
+    @FXML
+    private Label throughputLabel;
+
+    @FXML
+    private TextArea commandStatsArea;
+
+    private static final String COMMAND_PREFIX = "command.";
+
     private DRSServer server;
     private Thread serverThread; // Declared serverThread
     private String currentUser;
 
+    // Histograms at the previous refresh, so each refresh shows the last second only
+    private Map<String, LatencyHistogram.Snapshot> lastStats = new HashMap<>();
+    private long lastStatsNanos = System.nanoTime();
+
     @FXML
     private void initialize() {
         stopButton.setDisable(true);
         updateStatus("Server is stopped");
+        Timeline statsTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> refreshStats()));
+        statsTimeline.setCycleCount(Timeline.INDEFINITE);
+        statsTimeline.play();
+    }
+
+    /**
+     * Shows the requests per second and the p50/p99/p999 latencies since the
+     * last refresh, for all commands together and for each command.
+     */
+    private void refreshStats() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastStatsNanos) / 1e9);
+        Map<String, LatencyHistogram.Snapshot> current = Metrics.histograms();
+        LatencyHistogram.Snapshot total = LatencyHistogram.emptySnapshot();
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : current.entrySet()) {
+            if (!entry.getKey().startsWith(COMMAND_PREFIX)) {
+                continue;
+            }
+            LatencyHistogram.Snapshot previous = lastStats.get(entry.getKey());
+            LatencyHistogram.Snapshot interval = previous == null ? entry.getValue() : entry.getValue().minus(previous);
+            total = total.plus(interval);
+            lines.append(String.format("%-22s %s%n", entry.getKey().substring(COMMAND_PREFIX.length()),
+                    describe(interval, seconds)));
+        }
+        lastStats = current;
+        lastStatsNanos = now;
+        throughputLabel.setText("All commands: " + describe(total, seconds));
+        commandStatsArea.setText(lines.toString());
+    }
+
+    private static String describe(LatencyHistogram.Snapshot interval, double seconds) {
+        return String.format("%8.1f req/s   p50 %s   p99 %s   p999 %s", interval.getCount() / seconds,
+                formatLatency(interval.percentile(0.5)), formatLatency(interval.percentile(0.99)),
+                formatLatency(interval.percentile(0.999)));
+    }
+
+    private static String formatLatency(long nanos) {
+        if (nanos >= 1_000_000) {
+            return String.format("%7.1f ms", nanos / 1e6);
+        }
+        return String.format("%7.1f us", nanos / 1e3);
     }
 
     @FXML
@@ -45,7 +107,7 @@ public class C_DRSServer {
         // Immediately update the UI after starting the server
         startButton.setDisable(true);
         stopButton.setDisable(false);
-        statusLabel.setText("Server Status: Running on port " + DRSServer.getPORT()); // Use getter
+        statusLabel.setText("Server Status: Running on port " + DRSServer.getPORT() + " (" + server.getMode() + ")"); // Use getter
     }
 
     @FXML
@@ -9,8 +9,6 @@ import javafx.scene.control.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.cell.PropertyValueFactory;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.beans.property.SimpleStringProperty;
@@ -135,6 +133,7 @@ public class C_Fire extends BaseController {
         reportTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
                 selectedReport = newSelection;
+                loadReportDetail(newSelection);
                 try {
                     updateReportDetails(newSelection);
                 } catch (SQLException ex) {
@@ -241,13 +240,7 @@ public class C_Fire extends BaseController {
             return;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String timestamp = now.format(formatter);
-
-        String logEntry = String.format("[%s] Fire Department: %s", timestamp, newEntry);
-
-        fireDepartment.addCommunicationLogEntry(selectedReport, logEntry);
+        fireDepartment.addCommunicationLogEntry(selectedReport, currentUser, newEntry);
         updateCommunicationLog(selectedReport);
         System.out.println("Log added successfully.");
         newLogEntryField.clear();
@@ -259,7 +252,7 @@ public class C_Fire extends BaseController {
      * @param report The report whose communication log should be displayed
      */
     private void updateCommunicationLog(Report report) {
-        communicationLogArea.setText(report.getCommunicationLog());
+        communicationLogArea.setText(loadCommunicationLog(report));
     }
 
     /**
@@ -276,18 +269,20 @@ public class C_Fire extends BaseController {
      */
     @FXML
     private void handleRefreshReports() {
-        if (!isServerRunning()) {
-            showAlert("Server Connection Error", "Server connection is not established.");
-            // Clear the table to show an empty view
-            activeReports.clear();
-            reportTable.setItems(FXCollections.observableArrayList());
-            System.out.println("Cannot refresh reports: Server is not running.");
-            clearAllFields();
-            return;
-        }
-        loadActiveReports();
-        reportTable.refresh();
-        System.out.println("Reports refreshed successfully.");
+        traceAction("handleRefreshReports", () -> {
+            if (!isServerRunning()) {
+                showAlert("Server Connection Error", "Server connection is not established.");
+                // Clear the table to show an empty view
+                activeReports.clear();
+                reportTable.setItems(FXCollections.observableArrayList());
+                System.out.println("Cannot refresh reports: Server is not running.");
+                clearAllFields();
+                return;
+            }
+            loadActiveReports();
+            reportTable.refresh();
+            System.out.println("Reports refreshed successfully.");
+        });
     }
 
     /**
@@ -8,8 +8,6 @@ import javafx.scene.control.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.cell.PropertyValueFactory;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import javafx.event.ActionEvent;
 
 /**
@@ -123,6 +121,7 @@ public class C_Geoscience extends BaseController {
         reportTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
                 selectedReport = newSelection;
+                loadReportDetail(newSelection);
                 updateReportDetails(newSelection);
                 fetchAndDisplayGeoscienceData(newSelection);
                 updateCommunicationLog(newSelection);
@@ -311,16 +310,18 @@ public class C_Geoscience extends BaseController {
      */
     @FXML
     private void handleRefreshReports() {
-        if (!isServerRunning()) {
-            showAlert("Server Connection Error", "Server connection is not established.");
-            activeReports.clear();
-            reportTable.setItems(FXCollections.observableArrayList());
-            System.out.println("Cannot refresh reports: Server is not running.");
-            clearAllFields();
-            return;
-        }
-        loadActiveReports();
-        System.out.println("Reports refreshed successfully.");
+        traceAction("handleRefreshReports", () -> {
+            if (!isServerRunning()) {
+                showAlert("Server Connection Error", "Server connection is not established.");
+                activeReports.clear();
+                reportTable.setItems(FXCollections.observableArrayList());
+                System.out.println("Cannot refresh reports: Server is not running.");
+                clearAllFields();
+                return;
+            }
+            loadActiveReports();
+            System.out.println("Reports refreshed successfully.");
+        });
     }
 
     /**
@@ -334,7 +335,7 @@ public class C_Geoscience extends BaseController {
             System.out.println("Cannot save geoscience data: Server is not running.");
             return;
         }
-        communicationLogArea.setText(report.getCommunicationLog());
+        communicationLogArea.setText(loadCommunicationLog(report));
     }
 
     /**
@@ -358,13 +359,7 @@ public class C_Geoscience extends BaseController {
             return;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String timestamp = now.format(formatter);
-
-        String logEntry = String.format("[%s] Geoscience: %s", timestamp, newEntry);
-
-        gis.addCommunicationLogEntry(selectedReport, logEntry);
+        gis.addCommunicationLogEntry(selectedReport, currentUser, newEntry);
         updateCommunicationLog(selectedReport);
 
         newLogEntryField.clear();
@@ -10,8 +10,6 @@ import javafx.scene.control.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.cell.PropertyValueFactory;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.event.ActionEvent;
 
@@ -131,6 +129,7 @@ public class C_Health extends BaseController {
         reportTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
                 selectedReport = newSelection;
+                loadReportDetail(newSelection);
                 updateReportDetails(newSelection);
                 updateCommunicationLog(newSelection);
                 updateResourcesNeeded(newSelection);
@@ -228,13 +227,7 @@ public class C_Health extends BaseController {
             return;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String timestamp = now.format(formatter);
-
-        String logEntry = String.format("[%s] Health Department: %s", timestamp, newEntry);
-
-        healthDepartment.addCommunicationLogEntry(selectedReport, logEntry);
+        healthDepartment.addCommunicationLogEntry(selectedReport, currentUser, newEntry);
         updateCommunicationLog(selectedReport);
 
         newLogEntryField.clear();
@@ -246,7 +239,7 @@ public class C_Health extends BaseController {
      * @param report The report whose communication log should be displayed
      */
     private void updateCommunicationLog(Report report) {
-        communicationLogArea.setText(report.getCommunicationLog());
+        communicationLogArea.setText(loadCommunicationLog(report));
     }
 
     /**
@@ -263,17 +256,19 @@ public class C_Health extends BaseController {
      */
     @FXML
     private void handleRefreshReports() {
-        if (!isServerRunning()) {
-            showAlert("Server Connection Error", "Server connection is not established.");
-            activeReports.clear();
-            reportTable.setItems(FXCollections.observableArrayList());
-            clearAllFields();
-            System.out.println("Cannot refresh reports: Server is not running.");
-            return;
-        }
-        loadActiveReports();
-        reportTable.refresh();
-        System.out.println("Reports refreshed successfully.");
+        traceAction("handleRefreshReports", () -> {
+            if (!isServerRunning()) {
+                showAlert("Server Connection Error", "Server connection is not established.");
+                activeReports.clear();
+                reportTable.setItems(FXCollections.observableArrayList());
+                clearAllFields();
+                System.out.println("Cannot refresh reports: Server is not running.");
+                return;
+            }
+            loadActiveReports();
+            reportTable.refresh();
+            System.out.println("Reports refreshed successfully.");
+        });
     }
 
     /**
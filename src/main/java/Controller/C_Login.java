@@ -67,13 +67,15 @@ public class C_Login {
             return;
         }
 
-        String loginResult = DatabaseConnection.validateLogin(username, password, selectedRole.toString());
+        String loginResult = DatabaseConnection.checkLogin(username, password, selectedRole.toString());
         System.out.println("Login result: " + loginResult); // Debug print
 
+        if (loginResult.startsWith("LOGIN_SUCCESS|")) {
+            // The stored role comes back with the check, so no second lookup is needed
+            handleSuccessfulLogin(username, selectedRole, loginResult.substring("LOGIN_SUCCESS|".length()));
+            return;
+        }
         switch (loginResult) {
-            case "LOGIN_SUCCESS":
-                handleSuccessfulLogin(username, selectedRole);
-                break;
             case "INCORRECT_PASSWORD":
                 showAlert(Alert.AlertType.ERROR, "Login Failed", "Incorrect password. Please try again.");
                 break;
@@ -96,8 +98,7 @@ public class C_Login {
         }
     }
 
-    private void handleSuccessfulLogin(String username, UserRole selectedRole) {
-        String storedRole = DatabaseConnection.getUserRole(username);
+    private void handleSuccessfulLogin(String username, UserRole selectedRole, String storedRole) {
         System.out.println("Stored role: " + storedRole); // Debug print
         System.out.println("Selected role: " + selectedRole); // Debug print
 
@@ -112,16 +113,6 @@ public class C_Login {
         }
     }
 
-    /**
-     * Retrieves the user's role from the database.
-     *
-     * @param username The username of the user
-     * @return The user's role
-     */
-    private String getUserRole(String username) {
-        return DatabaseConnection.getUserRole(username);
-    }
-
     /**
      * Opens the appropriate department interface based on the user's role.
      *
@@ -9,8 +9,6 @@ import javafx.scene.control.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.cell.PropertyValueFactory;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import javafx.event.ActionEvent;
 
 /**
@@ -130,6 +128,7 @@ public class C_Meteorology extends BaseController {
         reportTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
                 selectedReport = newSelection;
+                loadReportDetail(newSelection);
                 updateReportDetails(newSelection);
                 fetchAndDisplayWeatherData(newSelection);
                 updateCommunicationLog(newSelection);
@@ -268,16 +267,18 @@ public class C_Meteorology extends BaseController {
      */
     @FXML
     private void handleRefreshReports() {
-        if (!isServerRunning()) {
-            showAlert("Server Connection Error", "Server connection is not established.");
-            activeReports.clear();
-            reportTable.setItems(FXCollections.observableArrayList());
-            clearAllFields();
-            System.out.println("Cannot refresh reports: Server is not running.");
-            return;
-        }
-        loadActiveReports();
-        System.out.println("Reports refreshed successfully.");
+        traceAction("handleRefreshReports", () -> {
+            if (!isServerRunning()) {
+                showAlert("Server Connection Error", "Server connection is not established.");
+                activeReports.clear();
+                reportTable.setItems(FXCollections.observableArrayList());
+                clearAllFields();
+                System.out.println("Cannot refresh reports: Server is not running.");
+                return;
+            }
+            loadActiveReports();
+            System.out.println("Reports refreshed successfully.");
+        });
     }
 
     /**
@@ -286,7 +287,7 @@ public class C_Meteorology extends BaseController {
      * @param report The selected report
      */
     private void updateCommunicationLog(Report report) {
-        communicationLogArea.setText(report.getCommunicationLog());
+        communicationLogArea.setText(loadCommunicationLog(report));
     }
 
     /**
@@ -310,13 +311,7 @@ public class C_Meteorology extends BaseController {
             return;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String timestamp = now.format(formatter);
-
-        String logEntry = String.format("[%s] Meteorology: %s", timestamp, newEntry);
-
-        Meteorology.addCommunicationLogEntry(selectedReport, logEntry);
+        Meteorology.addCommunicationLogEntry(selectedReport, currentUser, newEntry);
         updateCommunicationLog(selectedReport);
         System.out.println("Log added successfully.");
 
@@ -1,6 +1,7 @@
 package Controller;
 
 import Util.DatabaseConnection;
+import Util.Log;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -8,8 +9,6 @@ import java.time.LocalDate;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -302,7 +301,7 @@ public class C_ReportDisaster extends BaseController {
     private void handleSubmitReport() {
         if (!isServerRunning()) {
             showAlert("Server Connection Error", "Server connection is not established.");
-            System.out.println("Cannot submit report: Server is not running.");
+            Log.warn("Cannot submit report: Server is not running.");
             return;
         }
         LocalDate date = datePicker.getValue();
@@ -313,19 +312,15 @@ public class C_ReportDisaster extends BaseController {
         }
 
         Map<String, Object> columnValueMap = new HashMap<>();
-        System.out.println("\nReport is creating...");
 
         // Populate the columnValueMap with common fields
         columnValueMap.put("disaster_type", disasterTypeComboBox.getValue());
-        System.out.println("   " + disasterTypeComboBox.getValue());
 
         columnValueMap.put("location", locationField.getText());
-        System.out.println("   " + locationField.getText());
 
         columnValueMap.put("date_time", java.sql.Date.valueOf(date));
 
         columnValueMap.put("reporter_name", reporterNameField.getText());
-        System.out.println("   " + reporterNameField.getText());
 
         columnValueMap.put("priority_level", "Low");
         columnValueMap.put("response_status", "Pending");
@@ -335,15 +330,13 @@ public class C_ReportDisaster extends BaseController {
         // Remove spaces from contact info before storing
         String contactInfo = contactInfoField.getText().replaceAll("\\s+", "");
         columnValueMap.put("contact_info", contactInfo);
-        System.out.println("   " + contactInfo);
-        System.out.println("   ...");
 
         // Add disaster-specific fields to the columnValueMap
         addDisasterSpecificFields(columnValueMap);
 
         // Insert the report into the database
+        Log.info("Submitting {} report for {}", columnValueMap.get("disaster_type"), columnValueMap.get("location"));
         insertReportIntoDatabase(columnValueMap);
-        System.out.println("Report submitted successfully.");
     }
 
     /**
@@ -408,15 +401,15 @@ public class C_ReportDisaster extends BaseController {
                 int rowsAffected = pstmt.executeUpdate();
                 if (rowsAffected > 0) {
                     showAlert("Success", "Report submitted successfully!");
-                    System.out.println("Report submitted.\n");
+                    Log.info("Report submitted.");
                     clearFields();
                 } else {
                     showAlert("Error", "Failed to submit report. Please try again.");
-                    System.out.println("Failed to submit report.\n");
+                    Log.warn("Failed to submit report.");
                 }
             }
         } catch (SQLException ex) {
-            Logger.getLogger(C_ReportDisaster.class.getName()).log(Level.SEVERE, null, ex);
+            Log.error("Failed to submit report", ex);
             showAlert("Error", "An error occurred while submitting the report: " + ex.getMessage());
         }
     }
@@ -10,8 +10,6 @@ import javafx.scene.control.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.cell.PropertyValueFactory;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.event.ActionEvent;
@@ -118,6 +116,7 @@ public class C_UtilityCompanies extends BaseController {
         reportTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
                 selectedReport = newSelection;
+                loadReportDetail(newSelection);
                 updateReportDetails(newSelection);
                 updateCommunicationLog(newSelection);
                 updateResourcesNeeded(newSelection);
@@ -189,13 +188,7 @@ public class C_UtilityCompanies extends BaseController {
             return;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String timestamp = now.format(formatter);
-
-        String logEntry = String.format("[%s] %s: %s", timestamp, currentSubDepartment.getDisplayName(), newEntry);
-
-        utilityCompanies.addCommunicationLogEntry(selectedReport, logEntry);
+        utilityCompanies.addCommunicationLogEntry(selectedReport, currentSubDepartment, currentUser, newEntry);
         updateCommunicationLog(selectedReport);
 
         newLogEntryField.clear();
@@ -223,7 +216,7 @@ public class C_UtilityCompanies extends BaseController {
     }
 
     private void updateCommunicationLog(Report report) {
-        communicationLogArea.setText(report.getCommunicationLog());
+        communicationLogArea.setText(loadCommunicationLog(report));
     }
 
     private void updateResourcesNeeded(Report report) {
@@ -232,17 +225,19 @@ public class C_UtilityCompanies extends BaseController {
 
     @FXML
     private void handleRefreshReports() {
-        if (!isServerRunning()) {
-            showAlert("Server Connection Error", "Server connection is not established.");
-            activeReports.clear();
-            reportTable.setItems(FXCollections.observableArrayList());
-            clearAllFields();
-            System.out.println("Cannot refresh reports: Server is not running.");
-            return;
-        }
-        loadActiveReports();
-        reportTable.refresh();
-        System.out.println("Reports refreshed successfully.");
+        traceAction("handleRefreshReports", () -> {
+            if (!isServerRunning()) {
+                showAlert("Server Connection Error", "Server connection is not established.");
+                activeReports.clear();
+                reportTable.setItems(FXCollections.observableArrayList());
+                clearAllFields();
+                System.out.println("Cannot refresh reports: Server is not running.");
+                return;
+            }
+            loadActiveReports();
+            reportTable.refresh();
+            System.out.println("Reports refreshed successfully.");
+        });
     }
 
     public void setCurrentUser(String username) {
@@ -20,6 +20,9 @@ public class Coordinator {
     private List<Report> disasterStatusReports;
     private Map<String, Object> departments;
     private Geoscience gisService;
+    private final ReportSync allReports = new ReportSync(null, DatabaseConnection::createReportSummary);
+    private final ReportSync activeReports = new ReportSync(
+            "response_status IN ('Pending', 'In Progress')", DatabaseConnection::createReportSummary);
 
     /**
      * Constructs a new Coordinator object and initializes its fields.
@@ -32,14 +35,16 @@ public class Coordinator {
     }
 
     /**
-     * Loads all reports from the database into the reports list.
+     * Loads all reports from the database into the reports list. After the
+     * first call only the reports changed since the previous one are read.
      */
     public void loadReportsFromDatabase() {
         try {
+            List<Report> loaded = allReports.refresh();
             reports.clear();
-            reports.addAll(DatabaseConnection.getAllReports());
+            reports.addAll(loaded);
         } catch (SQLException e) {
-            System.out.println("Error loading reports: " + e.getMessage());
+            Log.error("Error loading reports: {}", e.getMessage());
         }
     }
 
@@ -49,10 +54,11 @@ public class Coordinator {
      */
     public void loadDisasterStatusReports() {
         try {
+            List<Report> loaded = activeReports.refresh();
             disasterStatusReports.clear();
-            disasterStatusReports.addAll(DatabaseConnection.getDisasterStatusReports());
+            disasterStatusReports.addAll(loaded);
         } catch (SQLException e) {
-            System.out.println("Error loading disaster status reports: " + e.getMessage());
+            Log.error("Error loading disaster status reports: {}", e.getMessage());
         }
     }
 
@@ -73,8 +79,7 @@ public class Coordinator {
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error updating department assignments: " + e.getMessage());
+            Log.error("Error updating department assignments", e);
         }
     }
 
@@ -87,8 +92,7 @@ public class Coordinator {
         try {
             DatabaseConnection.updateReport(report);
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error updating report: " + e.getMessage());
+            Log.error("Error updating report", e);
         }
     }
 
@@ -96,18 +100,14 @@ public class Coordinator {
      * Adds a new communication log entry to a report and updates the database.
      *
      * @param report The report to update
-     * @param log The new log entry to add
+     * @param author The user writing the entry
+     * @param logEntry The new log entry to add
      */
-    public void addCommunicationLog(Report report, String logEntry) {
-        String currentLog = report.getCommunicationLog();
-        String updatedLog = (currentLog == null || currentLog.isEmpty()) ? logEntry : currentLog + "\n" + logEntry;
-        report.setCommunicationLog(updatedLog);
-
+    public void addCommunicationLog(Report report, String author, String logEntry) {
         try {
-            DatabaseConnection.updateCommunicationLog(report.getId(), updatedLog);
+            report.addLogEntry(DatabaseConnection.appendLogEntry(report.getId(), LogEntry.COORDINATOR, author, logEntry));
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error updating communication log: " + e.getMessage());
+            Log.error("Error adding communication log entry", e);
         }
     }
 
@@ -118,15 +118,13 @@ public class Coordinator {
      * @param resource The new resource to add
      */
     public void addResourceNeeded(Report report, String resource) {
-        String currentResources = report.getResourcesNeeded();
-        String updatedResources = (currentResources == null || currentResources.isEmpty()) ? resource : currentResources + "\n" + resource;
-        report.setResourcesNeeded(updatedResources);
-
         try {
-            DatabaseConnection.updateResourcesNeeded(report.getId(), updatedResources);
+            if (DatabaseConnection.addResourceNeeded(report.getId(), resource) > 0) {
+                String currentResources = report.getResourcesNeeded();
+                report.setResourcesNeeded((currentResources == null || currentResources.isEmpty()) ? resource : currentResources + "\n" + resource);
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error updating resources needed: " + e.getMessage());
+            Log.error("Error adding resource needed", e);
         }
     }
 
@@ -145,8 +143,7 @@ public class Coordinator {
         try {
             DatabaseConnection.updateCoordinates(report.getId(), latitude, longitude);
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error updating coordinates: " + e.getMessage());
+            Log.error("Error updating coordinates", e);
         }
     }
 
@@ -371,7 +368,7 @@ public class Coordinator {
             //System.out.println("Weather Impact Analysis:\n" + impact.toString());
             return impact;
         }
-        System.out.println("Weather Impact Analysis: Unable to retrieve weather data.");
+        Log.warn("Weather Impact Analysis: Unable to retrieve weather data.");
         return null;
     }
 
@@ -22,6 +22,8 @@ public class Fire implements Actioner {
 
     private DisasterType currentDisaster;
     private String departmentName;
+    private final ReportSync activeReports = new ReportSync(
+            DatabaseConnection.activeReportsCondition(Department.FIRE_DEPARTMENT), DatabaseConnection::createReportSummary);
 
     /**
      * Constructs a new Fire department instance. Initializes the department
@@ -70,25 +72,24 @@ public class Fire implements Actioner {
      * updates both the report object and the database.
      *
      * @param report The report to which the log entry will be added.
-     * @param entry The new log entry to be added.
+     * @param author The user writing the entry.
+     * @param text The new log entry to be added.
      * @throws SQLException If there's an error updating the database.
      */
-    public void addCommunicationLogEntry(Report report, String entry) throws SQLException {
-        String currentLog = report.getCommunicationLog();
-        String updatedLog = currentLog + "\n" + entry;
-        report.setCommunicationLog(updatedLog);
-        // Update the database
-        DatabaseConnection.updateCommunicationLog(report.getId(), updatedLog);
+    public void addCommunicationLogEntry(Report report, String author, String text) throws SQLException {
+        LogEntry entry = DatabaseConnection.appendLogEntry(report.getId(), Department.FIRE_DEPARTMENT.name(), author, text);
+        report.addLogEntry(entry);
     }
 
     /**
-     * Loads active reports from the database.
+     * Loads active reports from the database. After the first call only the
+     * reports changed since the previous one are read.
      *
      * @return A list of active reports for the Fire Department.
      * @throws SQLException If there's an error querying the database.
      */
     public List<Report> getActiveReports() throws SQLException {
-        return DatabaseConnection.getActiveReportsForDepartment(Department.FIRE_DEPARTMENT);
+        return activeReports.refresh();
     }
 
     /**
@@ -98,7 +99,7 @@ public class Fire implements Actioner {
      * @param report The report containing the disaster information
      */
     public void appendDisasterSpecificDetails(StringBuilder details, Report report) throws SQLException {
-        Report fullReport = DatabaseConnection.getReportById(report.getId());
+        Report fullReport = DatabaseConnection.getReportDetail(report.getId());
         switch (fullReport.getDisasterType()) {
             case "Wildfire":
                 details.append("Fire Intensity: ").append(fullReport.getFireIntensity()).append("\n");
@@ -2,8 +2,11 @@ package Model;
 
 import java.util.ArrayList;
 import java.util.List;
+import ENUM.Department;
 import ENUM.DisasterType;
 import Util.DatabaseConnection;
+import Util.Log;
+import Util.ReportSync;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -26,6 +29,7 @@ public class Geoscience {
     private List<Double> depths;
     private List<Boolean> aftershocksExpected;
     private DisasterType currentDisaster;
+    private final ReportSync activeReports = new ReportSync("response_status IN ('Pending', 'In Progress')", DatabaseConnection::createReportSummary);
 
     /**
      * Constructs a new Geoscience object with the specified disaster type.
@@ -60,8 +64,7 @@ public class Geoscience {
                 aftershocksExpected.add(rs.getBoolean("aftershocks_expected"));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error loading data from database: " + e.getMessage());
+            Log.error("Error loading data from database", e);
         }
     }
 
@@ -196,7 +199,7 @@ public class Geoscience {
                 );
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Failed to load geoscience data", e);
         }
         return null;
     }
@@ -225,11 +228,10 @@ public class Geoscience {
             if (affectedRows > 0) {
                 //out.println("Geoscience data saved successfully. Affected rows: " + affectedRows);
             } else {
-                System.out.println("No rows affected. Data might not have been saved.");
+                Log.warn("No rows affected. Data might not have been saved.");
             }
         } catch (SQLException e) {
-            System.out.println("SQL Error saving geoscience data: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("SQL Error saving geoscience data", e);
         }
     }
 
@@ -263,33 +265,13 @@ public class Geoscience {
      * @return A list of active reports for the Fire Department.
      * @throws SQLException If there's an error querying the database.
      */
-    public List<Report> getActiveReports() throws SQLException  {
-        List<Report> activeReports = new ArrayList<>();
-        String sql = "SELECT * FROM reports WHERE response_status IN ('Pending', 'In Progress')";
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Report report = new Report(
-                        rs.getInt("id"),
-                        rs.getString("disaster_type"),
-                        rs.getString("location"),
-                        rs.getDouble("latitude"),
-                        rs.getDouble("longitude"),
-                        rs.getString("date_time"),
-                        rs.getString("reporter_name"),
-                        rs.getString("contact_info"),
-                        rs.getString("response_status")
-                );
-                report.setCommunicationLog(rs.getString("communication_log"));
-                report.setPriorityLevel(rs.getString("priority_level"));
-                activeReports.add(report);
-            }
+    public List<Report> getActiveReports() throws SQLException {
+        try {
+            return activeReports.refresh();
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error loading active reports: " + e.getMessage());
+            Log.error("Error loading active reports", e);
         }
-        return activeReports;
+        return new ArrayList<>();
     }
 
     /**
@@ -310,13 +292,12 @@ public class Geoscience {
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows > 0) {
-                System.out.println("Coordinates updated successfully in the database.");
+                Log.info("Coordinates updated successfully in the database.");
             } else {
-                System.out.println("Failed to update coordinates in the database.");
+                Log.warn("Failed to update coordinates in the database.");
             }
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error updating coordinates: " + e.getMessage());
+            Log.error("Error updating coordinates", e);
         }
     }
 
@@ -325,29 +306,14 @@ public class Geoscience {
      * the database.
      *
      * @param report The report to update
+     * @param author The user writing the entry
      * @param logEntry The new log entry to add
      */
-    public void addCommunicationLogEntry(Report report, String logEntry) {
-        String currentLog = report.getCommunicationLog();
-        String updatedLog = currentLog.isEmpty() ? logEntry : currentLog + "\n" + logEntry;
-        report.setCommunicationLog(updatedLog);
-
-        String sql = "UPDATE reports SET communication_log = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, updatedLog);
-            pstmt.setInt(2, report.getId());
-
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                System.out.println("Communication log updated successfully in the database.");
-            } else {
-                System.out.println("Failed to update communication log in the database.");
-            }
+    public void addCommunicationLogEntry(Report report, String author, String logEntry) {
+        try {
+            report.addLogEntry(DatabaseConnection.appendLogEntry(report.getId(), Department.GEOSCIENCE.name(), author, logEntry));
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Error updating communication log: " + e.getMessage());
+            Log.error("Error adding communication log entry", e);
         }
     }
 
@@ -22,6 +22,9 @@ public class Health implements Actioner {
 
     private DisasterType currentDisaster;
     private String departmentName;
+    private final ReportSync activeReports = new ReportSync("response_status IN ('Pending', 'In Progress') "
+            + "AND (assigned_department LIKE '%Health Department%' OR health_department_status IS NOT NULL) "
+            + "AND (health_department_status IS NULL OR health_department_status <> 'NOT_RESPONSIBLE')", this::createReportFromResultSet);
 
     /**
      * Constructs a new Health object. Initializes the department name to
@@ -69,14 +72,15 @@ public class Health implements Actioner {
      * updates the communication log in the database.
      *
      * @param report The report to update.
-     * @param entry The new log entry to add.
+     * @param author The user writing the entry.
+     * @param text The new log entry to add.
      */
-    public void addCommunicationLogEntry(Report report, String entry) {
-        String currentLog = report.getCommunicationLog();
-        String updatedLog = currentLog + "\n" + entry;
-        report.setCommunicationLog(updatedLog);
-        // Update the database
-        updateCommunicationLogInDatabase(report.getId(), updatedLog);
+    public void addCommunicationLogEntry(Report report, String author, String text) {
+        try {
+            report.addLogEntry(DatabaseConnection.appendLogEntry(report.getId(), Department.HEALTH_DEPARTMENT.name(), author, text));
+        } catch (SQLException e) {
+            Log.error("Failed to add communication log entry", e);
+        }
     }
 
     /**
@@ -93,50 +97,23 @@ public class Health implements Actioner {
             pstmt.setInt(2, reportId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Updates the communication log for a specific report in the database.
-     *
-     * @param reportId The ID of the report to update.
-     * @param log The updated communication log.
-     */
-    private void updateCommunicationLogInDatabase(int reportId, String log) {
-        String sql = "UPDATE reports SET communication_log = ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, log);
-            pstmt.setInt(2, reportId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Failed to update report status", e);
         }
     }
 
     /**
-     * Loads active reports from the database.
+     * Loads active reports from the database. After the first call only the
+     * reports changed since the previous one are read.
      *
      * @return A list of active reports for the Health Department.
      */
     public List<Report> getActiveReports() throws SQLException {
-        List<Report> activeReports = new ArrayList<>();
-        String sql = "SELECT * FROM reports WHERE response_status IN ('Pending', 'In Progress') "
-                + "AND (assigned_department LIKE '%Health Department%' OR health_department_status IS NOT NULL)";
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Report report = createReportFromResultSet(rs);
-                if (report.getDepartmentStatus(Department.HEALTH_DEPARTMENT) != ResponseStatus.NOT_RESPONSIBLE) {
-                    activeReports.add(report);
-                }
-            }
+        try {
+            return activeReports.refresh();
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to load active reports: " + e.getMessage());
+            Log.error("Failed to load active reports", e);
         }
-        return activeReports;
+        return new ArrayList<>();
     }
 
     /**
@@ -158,8 +135,6 @@ public class Health implements Actioner {
                 rs.getString("contact_info"),
                 rs.getString("response_status")
         );
-        report.setCommunicationLog(rs.getString("communication_log"));
-        report.setResourcesNeeded(rs.getString("resources_needed"));
         report.setPriorityLevel(rs.getString("priority_level"));
 
         String healthStatus = rs.getString("health_department_status");
@@ -217,8 +192,7 @@ public class Health implements Actioner {
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to fetch report details: " + e.getMessage());
+            Log.error("Failed to fetch report details", e);
         }
     }
 }
@@ -22,6 +22,9 @@ public class LawEnforcement implements Actioner {
 
     private DisasterType currentDisaster;
     private String departmentName;
+    private final ReportSync activeReports = new ReportSync("response_status IN ('Pending', 'In Progress') "
+            + "AND (assigned_department LIKE '%Law Enforcement%' OR law_enforcement_status IS NOT NULL) "
+            + "AND (law_enforcement_status IS NULL OR law_enforcement_status <> 'NOT_RESPONSIBLE')", this::createReportFromResultSet);
 
     /**
      * Constructs a new LawEnforcement object. Initializes the department name
@@ -68,14 +71,15 @@ public class LawEnforcement implements Actioner {
      * Adds a new entry to the communication log of a given report.
      *
      * @param report The report to update.
-     * @param entry The new log entry to add.
+     * @param author The user writing the entry.
+     * @param text The new log entry to add.
      */
-    public void addCommunicationLogEntry(Report report, String entry) {
-        String currentLog = report.getCommunicationLog();
-        String updatedLog = currentLog + "\n" + entry;
-        report.setCommunicationLog(updatedLog);
-        // Update the database
-        updateCommunicationLogInDatabase(report.getId(), updatedLog);
+    public void addCommunicationLogEntry(Report report, String author, String text) {
+        try {
+            report.addLogEntry(DatabaseConnection.appendLogEntry(report.getId(), Department.LAW_ENFORCEMENT.name(), author, text));
+        } catch (SQLException e) {
+            Log.error("Failed to add communication log entry", e);
+        }
     }
 
     /**
@@ -91,50 +95,23 @@ public class LawEnforcement implements Actioner {
             pstmt.setInt(2, reportId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Updates the communication log for a report in the database.
-     *
-     * @param reportId The ID of the report to update.
-     * @param log The new communication log content.
-     */
-    private void updateCommunicationLogInDatabase(int reportId, String log) {
-        String sql = "UPDATE reports SET communication_log = ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, log);
-            pstmt.setInt(2, reportId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Failed to update report status", e);
         }
     }
 
     /**
-     * Loads active reports from the database.
+     * Loads active reports from the database. After the first call only the
+     * reports changed since the previous one are read.
      *
      * @return A list of active reports for Law Enforcement.
      */
     public List<Report> getActiveReports() throws SQLException {
-        List<Report> activeReports = new ArrayList<>();
-        String sql = "SELECT * FROM reports WHERE response_status IN ('Pending', 'In Progress') "
-                + "AND (assigned_department LIKE '%Law Enforcement%' OR law_enforcement_status IS NOT NULL)";
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Report report = createReportFromResultSet(rs);
-                if (report.getDepartmentStatus(Department.LAW_ENFORCEMENT) != ResponseStatus.NOT_RESPONSIBLE) {
-                    activeReports.add(report);
-                }
-            }
+        try {
+            return activeReports.refresh();
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to load active reports: " + e.getMessage());
+            Log.error("Failed to load active reports", e);
         }
-        return activeReports;
+        return new ArrayList<>();
     }
 
     /**
@@ -156,8 +133,6 @@ public class LawEnforcement implements Actioner {
                 rs.getString("contact_info"),
                 rs.getString("response_status")
         );
-        report.setCommunicationLog(rs.getString("communication_log"));
-        report.setResourcesNeeded(rs.getString("resources_needed"));
         report.setPriorityLevel(rs.getString("priority_level"));
 
         String lawEnforcementStatus = rs.getString("law_enforcement_status");
@@ -215,8 +190,7 @@ public class LawEnforcement implements Actioner {
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to fetch report details: " + e.getMessage());
+            Log.error("Failed to fetch report details", e);
         }
     }
 }
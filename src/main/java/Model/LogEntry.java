@@ -0,0 +1,193 @@
+package Model;
+
+import ENUM.Department;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One entry of a report's communication log, as stored in the append-only
+ * report_log_entries table. Entries render as
+ * {@code [yyyy-MM-dd HH:mm:ss] Department: text}, the format the log used
+ * when it was kept as one TEXT column.
+ *
+ * @author 12223508
+ */
+public final class LogEntry {
+
+    /**
+     * The department value of entries written by the coordinator.
+     */
+    public static final String COORDINATOR = "COORDINATOR";
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern LEGACY_LINE = Pattern.compile("\\[(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2})\\] (.*)", Pattern.DOTALL);
+
+    private final long id;
+    private final int reportId;
+    private final LocalDateTime timestamp;
+    private final String department;
+    private final String author;
+    private final String text;
+
+    /**
+     * Creates an entry.
+     *
+     * @param id The entry's id, or 0 if it has not been stored yet.
+     * @param reportId The report the entry belongs to.
+     * @param timestamp When the entry was written.
+     * @param department A Department constant name, {@link #COORDINATOR}, or
+     * null if not known.
+     * @param author The user who wrote it, or null if not known.
+     * @param text The entry itself.
+     */
+    public LogEntry(long id, int reportId, LocalDateTime timestamp, String department, String author, String text) {
+        this.id = id;
+        this.reportId = reportId;
+        this.timestamp = timestamp;
+        this.department = department;
+        this.author = author;
+        this.text = text;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getReportId() {
+        return reportId;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the name the entry is signed with: the department's display name,
+     * or "Coordinator".
+     *
+     * @return The label, or null if the department is not known.
+     */
+    public String getLabel() {
+        if (department == null) {
+            return null;
+        }
+        if (department.equals(COORDINATOR)) {
+            return "Coordinator";
+        }
+        try {
+            return Department.valueOf(department).getDisplayName();
+        } catch (IllegalArgumentException e) {
+            return department;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String label = getLabel();
+        return "[" + timestamp.format(TIMESTAMP) + "] " + (label == null ? "" : label + ": ") + text;
+    }
+
+    /**
+     * Renders entries as the communication log text, one entry per line.
+     *
+     * @param newestFirst Entries as returned by a page query, newest first.
+     * @return The log, oldest entry first.
+     */
+    public static String render(List<LogEntry> newestFirst) {
+        StringBuilder log = new StringBuilder();
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            log.append(newestFirst.get(i));
+            if (i > 0) {
+                log.append('\n');
+            }
+        }
+        return log.toString();
+    }
+
+    /**
+     * Splits a communication log kept in the old TEXT column into entries,
+     * for moving it to the report_log_entries table. A line starting with a
+     * timestamp starts an entry; other lines continue the one before. Entries
+     * signed with a known department keep it, and lines without a timestamp
+     * before the first entry get the fallback time.
+     *
+     * @param reportId The report the log belongs to.
+     * @param log The old log text.
+     * @param fallback The time for text that carries none, e.g. the time the
+     * report was made.
+     * @return The entries, oldest first, without ids.
+     */
+    public static List<LogEntry> parseLegacyLog(int reportId, String log, LocalDateTime fallback) {
+        List<LogEntry> entries = new ArrayList<>();
+        LocalDateTime time = null;
+        StringBuilder text = null;
+        for (String line : log.split("\r?\n")) {
+            Matcher matcher = LEGACY_LINE.matcher(line);
+            LocalDateTime lineTime = null;
+            if (matcher.matches()) {
+                try {
+                    lineTime = LocalDateTime.parse(matcher.group(1), TIMESTAMP);
+                } catch (DateTimeParseException e) {
+                    lineTime = null;
+                }
+            }
+            if (lineTime != null) {
+                addLegacyEntry(entries, reportId, time, text);
+                time = lineTime;
+                text = new StringBuilder(matcher.group(2));
+            } else if (text != null) {
+                text.append('\n').append(line);
+            } else if (!line.isBlank()) {
+                time = fallback;
+                text = new StringBuilder(line);
+            }
+        }
+        addLegacyEntry(entries, reportId, time, text);
+        return entries;
+    }
+
+    private static void addLegacyEntry(List<LogEntry> entries, int reportId, LocalDateTime time, StringBuilder text) {
+        if (text == null) {
+            return;
+        }
+        String body = text.toString();
+        String department = null;
+        int colon = body.indexOf(": ");
+        if (colon > 0) {
+            department = departmentOf(body.substring(0, colon));
+            if (department != null) {
+                body = body.substring(colon + 2);
+            }
+        }
+        entries.add(new LogEntry(0, reportId, time, department, null, body));
+    }
+
+    private static String departmentOf(String label) {
+        if (label.equals("Coordinator")) {
+            return COORDINATOR;
+        }
+        for (Department department : Department.values()) {
+            if (department.getDisplayName().equals(label)) {
+                return department.name();
+            }
+        }
+        return null;
+    }
+}
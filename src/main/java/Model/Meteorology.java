@@ -1,6 +1,9 @@
 package Model;
 
+import ENUM.Department;
 import Util.DatabaseConnection;
+import Util.Log;
+import Util.ReportSync;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +15,9 @@ import java.util.List;
  */
 public class Meteorology {
 
+    private static final ReportSync ACTIVE_REPORTS = new ReportSync(
+            "response_status IN ('Pending', 'In Progress', '')", DatabaseConnection::createReportSummary);
+
     private int id;
     private String location;
     private double latitude;
@@ -157,9 +163,9 @@ public class Meteorology {
                 return weather;
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Failed to load weather data", e);
         }
-        System.out.println("No weather data found for coordinates: " + latitude + ", " + longitude);
+        Log.warn("No weather data found for coordinates: {}, {}", latitude, longitude);
         return null;
     }
 
@@ -186,7 +192,7 @@ public class Meteorology {
             pstmt.setString(8, weather.getWindDirection());
             pstmt.executeUpdate();
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Failed to save weather data", e);
         }
     }
 
@@ -207,7 +213,7 @@ public class Meteorology {
                 return rs.getInt(1) > 0;
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Failed to check for weather data", e);
         }
         return false;
     }
@@ -218,31 +224,12 @@ public class Meteorology {
      * @return A list of active reports.
      */
     public static List<Report> getActiveReports() throws SQLException {
-        List<Report> activeReports = new ArrayList<>();
-        String sql = "SELECT * FROM reports WHERE response_status IN ('Pending', 'In Progress', '')";
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Report report = new Report(
-                        rs.getInt("id"),
-                        rs.getString("disaster_type"),
-                        rs.getString("location"),
-                        rs.getDouble("latitude"),
-                        rs.getDouble("longitude"),
-                        rs.getString("date_time"),
-                        rs.getString("reporter_name"),
-                        rs.getString("contact_info"),
-                        rs.getString("response_status")
-                );
-                report.setCommunicationLog(rs.getString("communication_log"));
-                activeReports.add(report);
-            }
+        try {
+            return ACTIVE_REPORTS.refresh();
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to load active reports: " + e.getMessage());
+            Log.error("Failed to load active reports", e);
         }
-        return activeReports;
+        return new ArrayList<>();
     }
 
     /**
@@ -263,13 +250,12 @@ public class Meteorology {
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows > 0) {
-                System.out.println("Coordinates updated successfully in the database.");
+                Log.info("Coordinates updated successfully in the database.");
             } else {
-                System.out.println("Failed to update coordinates in the database.");
+                Log.warn("Failed to update coordinates in the database.");
             }
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to update coordinates: " + e.getMessage());
+            Log.error("Failed to update coordinates", e);
         }
     }
 
@@ -278,29 +264,14 @@ public class Meteorology {
      * database.
      *
      * @param report The report to update
+     * @param author The user writing the entry
      * @param logEntry The new log entry to add
      */
-    public static void addCommunicationLogEntry(Report report, String logEntry) {
-        String currentLog = report.getCommunicationLog();
-        String updatedLog = currentLog.isEmpty() ? logEntry : currentLog + "\n" + logEntry;
-        report.setCommunicationLog(updatedLog);
-
-        String sql = "UPDATE reports SET communication_log = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, updatedLog);
-            pstmt.setInt(2, report.getId());
-
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                System.out.println("Communication log updated successfully in the database.");
-            } else {
-                System.out.println("Failed to update communication log in the database.");
-            }
+    public static void addCommunicationLogEntry(Report report, String author, String logEntry) {
+        try {
+            report.addLogEntry(DatabaseConnection.appendLogEntry(report.getId(), Department.METEOROLOGY.name(), author, logEntry));
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to update communication log: " + e.getMessage());
+            Log.error("Failed to add communication log entry", e);
         }
     }
 
@@ -58,6 +58,7 @@ public class Report {
     private final StringProperty responseStatus;
     private final StringProperty assignedDepartment;
     private final StringProperty resourcesNeeded;
+    private long resourcesVersion;
     private final StringProperty communicationLog;
     private final StringProperty priorityLevel;
 
@@ -725,6 +726,21 @@ public class Report {
         return resourcesNeeded;
     }
 
+    /**
+     * @return The version of the resources needed as loaded, which a save
+     * checks so that it does not overwrite resources added since
+     */
+    public long getResourcesVersion() {
+        return resourcesVersion;
+    }
+
+    /**
+     * @param value The version of the resources needed as loaded
+     */
+    public void setResourcesVersion(long value) {
+        resourcesVersion = value;
+    }
+
     /**
      * @return The communication log
      */
@@ -739,6 +755,50 @@ public class Report {
         communicationLog.set(value);
     }
 
+    /**
+     * Adds an entry that was just stored to the end of the communication log
+     * kept in this object. The database is not touched.
+     *
+     * @param entry The new log entry, or null if none was stored
+     */
+    public void addLogEntry(LogEntry entry) {
+        if (entry == null) {
+            return;
+        }
+        String log = communicationLog.get();
+        communicationLog.set(log == null || log.isEmpty() ? entry.toString() : log + "\n" + entry);
+    }
+
+    /**
+     * Fills in the fields a report list leaves out, such as the disaster
+     * specific fields and the resources needed, from a fully loaded copy of
+     * this report.
+     *
+     * @param detail The same report with all its fields
+     */
+    public void copyDetailsFrom(Report detail) {
+        setCreatedAt(detail.getCreatedAt());
+        setFireIntensity(detail.getFireIntensity());
+        setAffectedAreaSize(detail.getAffectedAreaSize());
+        setNearbyInfrastructure(detail.getNearbyInfrastructure());
+        setWindSpeed(detail.getWindSpeed());
+        setFloodRisk(detail.getFloodRisk());
+        setEvacuationStatus(detail.getEvacuationStatus());
+        setMagnitude(detail.getMagnitude());
+        setDepth(detail.getDepth());
+        setAftershocksExpected(detail.getAftershocksExpected());
+        setWaterLevel(detail.getWaterLevel());
+        setFloodEvacuationStatus(detail.getFloodEvacuationStatus());
+        setInfrastructureDamage(detail.getInfrastructureDamage());
+        setSlopeStability(detail.getSlopeStability());
+        setBlockedRoads(detail.getBlockedRoads());
+        setCasualtiesInjuries(detail.getCasualtiesInjuries());
+        setDisasterDescription(detail.getDisasterDescription());
+        setEstimatedImpact(detail.getEstimatedImpact());
+        setResourcesNeeded(detail.getResourcesNeeded());
+        setResourcesVersion(detail.getResourcesVersion());
+    }
+
     /**
      * @return The StringProperty for the communication log
      */
@@ -25,6 +25,8 @@ public class UtilityCompanies implements Actioner {
     private DisasterType currentDisaster;
     private String departmentName;
     private Map<Department, ResponseStatus> subDepartmentStatuses;
+    private final ReportSync activeReports = new ReportSync("response_status IN ('Pending', 'In Progress') "
+            + "AND (assigned_department LIKE '%Utility Companies%' OR utility_companies_status IS NOT NULL)", this::createReportFromResultSet);
 
     /**
      * Constructs a new UtilityCompanies object. Initializes the department name
@@ -100,13 +102,16 @@ public class UtilityCompanies implements Actioner {
      * Adds a new entry to the communication log of a report.
      *
      * @param report The Report object to update.
-     * @param entry The new log entry to add.
+     * @param subDepartment The utility sub-department writing the entry.
+     * @param author The user writing the entry.
+     * @param text The new log entry to add.
      */
-    public void addCommunicationLogEntry(Report report, String entry) {
-        String currentLog = report.getCommunicationLog();
-        String updatedLog = currentLog + "\n" + entry;
-        report.setCommunicationLog(updatedLog);
-        updateCommunicationLogInDatabase(report.getId(), updatedLog);
+    public void addCommunicationLogEntry(Report report, Department subDepartment, String author, String text) {
+        try {
+            report.addLogEntry(DatabaseConnection.appendLogEntry(report.getId(), subDepartment.name(), author, text));
+        } catch (SQLException e) {
+            Log.error("Failed to add communication log entry", e);
+        }
     }
 
     /**
@@ -124,24 +129,7 @@ public class UtilityCompanies implements Actioner {
             pstmt.setInt(2, reportId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Updates the communication log for a report in the database.
-     *
-     * @param reportId The ID of the report to update.
-     * @param log The updated communication log.
-     */
-    private void updateCommunicationLogInDatabase(int reportId, String log) {
-        String sql = "UPDATE reports SET communication_log = ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, log);
-            pstmt.setInt(2, reportId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Failed to update report status", e);
         }
     }
 
@@ -173,26 +161,18 @@ public class UtilityCompanies implements Actioner {
     }
 
     /**
-     * Loads active reports from the database.
+     * Loads active reports from the database. After the first call only the
+     * reports changed since the previous one are read.
      *
      * @return A list of active reports for Utility Companies.
      */
-    public List<Report> getActiveReports()  throws SQLException {
-        List<Report> activeReports = new ArrayList<>();
-        String sql = "SELECT * FROM reports WHERE response_status IN ('Pending', 'In Progress') "
-                + "AND (assigned_department LIKE '%Utility Companies%' OR utility_companies_status IS NOT NULL)";
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Report report = createReportFromResultSet(rs);
-                activeReports.add(report);
-            }
+    public List<Report> getActiveReports() throws SQLException {
+        try {
+            return activeReports.refresh();
         } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("Failed to load active reports: " + e.getMessage());
+            Log.error("Failed to load active reports", e);
         }
-        return activeReports;
+        return new ArrayList<>();
     }
 
     /**
@@ -214,8 +194,6 @@ public class UtilityCompanies implements Actioner {
                 rs.getString("contact_info"),
                 rs.getString("response_status")
         );
-        report.setCommunicationLog(rs.getString("communication_log"));
-        report.setResourcesNeeded(rs.getString("resources_needed"));
         report.setPriorityLevel(rs.getString("priority_level"));
 
         for (Department dept : Department.values()) {
@@ -0,0 +1,186 @@
+package Server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed pool of worker threads in front of a bounded queue. Once the queue
+ * is full, new work is turned away straight away with a {@link Busy}
+ * exception instead of piling up, so the caller can answer
+ * {@code BUSY|retryAfterMs} and the client knows to back off. The suggested
+ * delay is the time the workers need to drain the current queue, estimated
+ * from recent task durations.
+ * <p>
+ * With virtual threads, every task gets its own virtual thread instead and a
+ * semaphore with one permit per worker bounds how many run at once; the
+ * rest wait for a permit, parked, and count as queued.
+ *
+ * @author 12223508
+ */
+public final class AdmissionControl implements Executor {
+
+    public static final int DEFAULT_QUEUE_LIMIT = 1000;
+
+    private static final long MIN_RETRY_AFTER_MILLIS = 10;
+    private static final long MAX_RETRY_AFTER_MILLIS = 5000;
+    // Weight of the newest task in the running average duration, as a shift: 1/8.
+    private static final int AVERAGE_SHIFT = 3;
+
+    /**
+     * Thrown by {@link #execute} when the queue is full.
+     */
+    public static final class Busy extends RejectedExecutionException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterMillis;
+
+        Busy(long retryAfterMillis) {
+            super("Work queue full, retry after " + retryAfterMillis + " ms");
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+    private final ExecutorService pool;
+    // Null for a platform pool, whose own threads bound the concurrency
+    private final Semaphore permits;
+    private final int threads;
+    private final int queueLimit;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    // Racy updates only make the estimate slightly less smooth.
+    private volatile long averageTaskNanos;
+
+    /**
+     * Creates the pool.
+     *
+     * @param name Prefix for the worker thread names.
+     * @param threads The number of worker threads.
+     * @param queueLimit The most tasks allowed to wait for a worker.
+     */
+    public AdmissionControl(String name, int threads, int queueLimit) {
+        this(name, threads, queueLimit, false);
+    }
+
+    /**
+     * Creates the pool on platform or virtual threads.
+     *
+     * @param name Prefix for the worker thread names.
+     * @param threads The most tasks running at once.
+     * @param queueLimit The most tasks allowed to wait for a worker.
+     * @param virtual true to run every task on its own virtual thread.
+     */
+    public AdmissionControl(String name, int threads, int queueLimit, boolean virtual) {
+        this.threads = threads;
+        this.queueLimit = queueLimit;
+        if (virtual) {
+            this.pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+            this.permits = new Semaphore(threads, true);
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueLimit), runnable -> new Thread(runnable, name + threadNumber.getAndIncrement()),
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.permits = null;
+        }
+    }
+
+    /**
+     * Queues a task for a worker.
+     *
+     * @param task The task.
+     * @throws Busy If the queue is full.
+     * @throws RejectedExecutionException If the pool has been shut down.
+     */
+    @Override
+    public void execute(Runnable task) {
+        try {
+            // The platform pool's own queue enforces the limit
+            if (queued.incrementAndGet() > queueLimit && permits != null && !pool.isShutdown()) {
+                throw new RejectedExecutionException();
+            }
+            pool.execute(() -> timed(task));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            if (pool.isShutdown()) {
+                throw e;
+            }
+            rejected.increment();
+            throw new Busy(retryAfterMillis());
+        }
+    }
+
+    private void timed(Runnable task) {
+        if (permits != null) {
+            permits.acquireUninterruptibly();
+        }
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+            long elapsed = System.nanoTime() - start;
+            long average = averageTaskNanos;
+            averageTaskNanos = average == 0 ? elapsed : average + ((elapsed - average) >> AVERAGE_SHIFT);
+            completed.increment();
+        }
+    }
+
+    /**
+     * Estimates how long a turned-away client should wait before retrying.
+     *
+     * @return The delay in milliseconds.
+     */
+    public long retryAfterMillis() {
+        long drainNanos = (queued.get() + 1) * averageTaskNanos / threads;
+        long millis = TimeUnit.NANOSECONDS.toMillis(drainNanos);
+        return Math.max(MIN_RETRY_AFTER_MILLIS, Math.min(MAX_RETRY_AFTER_MILLIS, millis));
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public int getQueueLimit() {
+        return queueLimit;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,80 @@
+package Server;
+
+/**
+ * Constants for the binary DRS protocol.
+ * <p>
+ * A binary client opens with a 4 byte preamble: {@code 0xD5 'D' 'R'} and the
+ * protocol version it speaks. Text commands always start with an ASCII
+ * letter, so the first byte tells the server which protocol a connection
+ * uses. The server answers with the same preamble carrying the version it
+ * accepted, or version 0 followed by a close if it cannot speak the
+ * requested one.
+ * <p>
+ * After the preamble every message is a frame:
+ * <pre>
+ * int32  length       bytes that follow this field
+ * byte   frameType    REQUEST, RESPONSE, ROW, END, ERROR or EVENT
+ * int32  requestId    chosen by the client, echoed in every reply frame
+ * byte   opcode       Command opcode
+ * int16  fieldCount
+ * fields              each a tag byte followed by its payload
+ * </pre>
+ * Field payloads: NULL has none, INT32 4 bytes, INT64 8 bytes, DOUBLE 8 bytes,
+ * BOOL 1 byte and STRING an int32 byte length followed by UTF-8 bytes. All
+ * integers are big-endian.
+ *
+ * @author 12223508
+ */
+public final class BinaryProtocol {
+
+    public static final byte MAGIC_0 = (byte) 0xD5;
+    public static final byte MAGIC_1 = 'D';
+    public static final byte MAGIC_2 = 'R';
+    public static final int PREAMBLE_LENGTH = 4;
+    public static final byte VERSION_1 = 1;
+    public static final byte CURRENT_VERSION = VERSION_1;
+
+    public static final byte FRAME_REQUEST = 1;
+    public static final byte FRAME_RESPONSE = 2;
+    public static final byte FRAME_ROW = 3;
+    public static final byte FRAME_END = 4;
+    public static final byte FRAME_ERROR = 5;
+    public static final byte FRAME_EVENT = 6;
+
+    public static final byte FIELD_NULL = 0;
+    public static final byte FIELD_INT32 = 1;
+    public static final byte FIELD_INT64 = 2;
+    public static final byte FIELD_DOUBLE = 3;
+    public static final byte FIELD_BOOL = 4;
+    public static final byte FIELD_STRING = 5;
+
+    /**
+     * Size of the header that follows the length prefix: type, request id,
+     * opcode and field count.
+     */
+    public static final int HEADER_LENGTH = 1 + 4 + 1 + 2;
+    public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Builds the preamble for a version.
+     *
+     * @param version The protocol version, or 0 to refuse.
+     * @return The 4 preamble bytes.
+     */
+    public static byte[] preamble(byte version) {
+        return new byte[]{MAGIC_0, MAGIC_1, MAGIC_2, version};
+    }
+
+    /**
+     * Checks whether the server can speak a requested version.
+     *
+     * @param version The version from the client's preamble.
+     * @return true if supported.
+     */
+    public static boolean isSupported(byte version) {
+        return version == VERSION_1;
+    }
+}
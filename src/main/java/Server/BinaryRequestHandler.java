@@ -0,0 +1,196 @@
+package Server;
+
+import Util.Log;
+import Util.ReportQuery;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Answers binary request frames. Each request gets a RESPONSE frame carrying
+ * the status and typed values of the command's reply, except GET_REPORTS,
+ * which sends one ROW frame per report followed by an END frame, a page at a
+ * time, so that a large report list never has to be held in memory at once. Its
+ * optional fields are the same as in the text protocol: continuation token,
+ * page size and {@code key=value} filters.
+ *
+ * @author 12223508
+ */
+final class BinaryRequestHandler {
+
+    private static final ThreadLocal<FrameReader> FRAME_READERS = ThreadLocal.withInitial(FrameReader::new);
+
+    private final RequestDispatcher dispatcher;
+
+    BinaryRequestHandler(RequestDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Parses and runs a request frame that was copied out of the connection's
+     * input, so that it can run on any worker thread alongside the
+     * connection's other requests.
+     *
+     * @param frame The frame body, without its length prefix.
+     * @param out Where the reply frames go.
+     * @param client The connection's context.
+     * @return true if the connection should close: the client asked to, or
+     * the frame was malformed.
+     * @throws IOException If the reply could not be sent.
+     */
+    boolean handle(byte[] frame, FrameOutput out, ClientContext client) throws IOException {
+        FrameReader reader = FRAME_READERS.get();
+        try {
+            reader.reset(ByteBuffer.wrap(frame));
+        } catch (IllegalArgumentException e) {
+            Log.warn("Closing client: malformed frame: {}", e.getMessage());
+            return true;
+        }
+        return handle(reader, new FrameWriter(), out, client);
+    }
+
+    /**
+     * Decides how a request frame must be ordered against the connection's
+     * other requests.
+     *
+     * @param request The parsed request.
+     * @return The ordering key for the request pipeline.
+     */
+    static String orderingKey(FrameReader request) {
+        Command command = Command.fromOpcode(request.getOpcode());
+        if (command == null || request.getFrameType() != BinaryProtocol.FRAME_REQUEST) {
+            return null;
+        }
+        try {
+            return RequestDispatcher.orderingKey(command, request);
+        } catch (RuntimeException e) {
+            // Bad arguments are reported when the request runs
+            return null;
+        }
+    }
+
+    /**
+     * Runs one request frame and sends its reply frames.
+     *
+     * @param request The request, already validated by FrameReader.reset.
+     * @param writer An empty writer to build the reply in.
+     * @param out Where the reply frames go.
+     * @param client The connection's context.
+     * @return true if the client asked to close the connection.
+     * @throws IOException If the reply could not be sent.
+     */
+    boolean handle(FrameReader request, FrameWriter writer, FrameOutput out, ClientContext client) throws IOException {
+        int requestId = request.getRequestId();
+        int opcode = request.getOpcode();
+        if (request.getFrameType() != BinaryProtocol.FRAME_REQUEST) {
+            sendError(writer, out, requestId, opcode, "EXPECTED_REQUEST");
+            return false;
+        }
+        Command command = Command.fromOpcode(opcode);
+        if (command == null) {
+            sendError(writer, out, requestId, opcode, "Unknown command");
+            return false;
+        }
+        if (command == Command.GET_REPORTS) {
+            ReportQuery query;
+            try {
+                query = RequestDispatcher.reportQuery(request);
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                sendError(writer, out, requestId, opcode, "INVALID_REQUEST");
+                return false;
+            }
+            CommandEvent event = new CommandEvent();
+            event.begin();
+            long start = System.nanoTime();
+            RequestPriority priority = RequestPriority.of(command, client.getRole());
+            String status = "SERVER_ERROR";
+            try {
+                status = streamReports(query, priority, writer, out, requestId, opcode);
+            } finally {
+                RequestDispatcher.recordCommand(command, start, status);
+                event.complete(command, priority, 0, status);
+            }
+            return false;
+        }
+
+        Reply reply = dispatcher.execute(command, request, client);
+        writer.begin(BinaryProtocol.FRAME_RESPONSE, requestId, opcode).putString(reply.getStatus());
+        for (Object value : reply.getValues()) {
+            writer.putValue(value);
+        }
+        out.send(writer.end());
+        return command == Command.EXIT;
+    }
+
+    /**
+     * Builds the reply to a request frame that the server is too busy to
+     * run: a RESPONSE frame with status BUSY and the suggested retry delay.
+     *
+     * @param frame The frame body, without its length prefix.
+     * @param retryAfterMillis How long the client should wait.
+     * @return The reply, or null if the frame is malformed.
+     */
+    static ByteBuffer busy(byte[] frame, long retryAfterMillis) {
+        FrameReader reader = FRAME_READERS.get();
+        try {
+            reader.reset(ByteBuffer.wrap(frame));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new FrameWriter()
+                .begin(BinaryProtocol.FRAME_RESPONSE, reader.getRequestId(), reader.getOpcode())
+                .putString("BUSY")
+                .putLong(retryAfterMillis)
+                .end()
+                .drain();
+    }
+
+    /**
+     * Sends the report list. Each page is read into the writer under a
+     * database permit and only sent once the permit and its connection are
+     * given back, so a client that stops reading holds up nothing but its own
+     * connection. Pages are capped at {@link ReportQuery#MAX_PAGE_SIZE} rows;
+     * the unpaged form is read page by page in the same way.
+     */
+    private String streamReports(ReportQuery query, RequestPriority priority, FrameWriter writer, FrameOutput out,
+            int requestId, int opcode) throws IOException {
+        boolean unpaged = query.getLimit() == 0;
+        ReportQuery page = unpaged ? query.next(null, ReportQuery.MAX_PAGE_SIZE) : query;
+        int[] rows = new int[1];
+        while (true) {
+            Reply result = dispatcher.streamReports(page, priority, rs -> {
+                writer.begin(BinaryProtocol.FRAME_ROW, requestId, opcode)
+                        .putInt(rs.getInt(1))
+                        .putString(rs.getString(2))
+                        .putString(rs.getString(3))
+                        .putString(rs.getString(4))
+                        .putString(rs.getString(5))
+                        .putString(rs.getString(6))
+                        .end();
+                rows[0]++;
+            });
+            if (!result.getStatus().equals("OK")) {
+                // Rows of a page that failed part way are dropped, as is a half-built row
+                writer.clear();
+                sendError(writer, out, requestId, opcode, result.getStatus());
+                return result.getStatus();
+            }
+            out.send(writer);
+            Object token = result.getValues()[0];
+            if (!unpaged || token == null) {
+                // END carries the status, the row count and the next page's token (NULL after the last page)
+                out.send(writer.begin(BinaryProtocol.FRAME_END, requestId, opcode)
+                        .putString(result.getStatus())
+                        .putInt(rows[0])
+                        .putValue(token)
+                        .end());
+                return result.getStatus();
+            }
+            page = page.next((String) token, ReportQuery.MAX_PAGE_SIZE);
+        }
+    }
+
+    private static void sendError(FrameWriter writer, FrameOutput out, int requestId, int opcode, String status)
+            throws IOException {
+        out.send(writer.begin(BinaryProtocol.FRAME_ERROR, requestId, opcode).putString(status).end());
+    }
+}
@@ -0,0 +1,104 @@
+package Server;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link AdmissionControl} pool per {@link CommandClass}. Requests run on
+ * the pool of their command's class, so each class is limited to its own
+ * threads and queue and a full queue in one class answers BUSY without
+ * affecting the others. Platform worker threads are started on first use.
+ *
+ * @author 12223508
+ */
+public final class Bulkheads {
+
+    private final Map<CommandClass, AdmissionControl> pools = new EnumMap<>(CommandClass.class);
+
+    /**
+     * Creates platform thread pools with the configured sizes.
+     */
+    public Bulkheads() {
+        this(ExecutionMode.PLATFORM_POOL);
+    }
+
+    /**
+     * Creates the pools with the configured sizes. When connections run on
+     * virtual threads, so do their requests, and the configured thread count
+     * only limits how many of a class run at once.
+     *
+     * @param mode How the server maps connections onto threads.
+     */
+    public Bulkheads(ExecutionMode mode) {
+        for (CommandClass commandClass : CommandClass.values()) {
+            pools.put(commandClass, new AdmissionControl("drs-" + commandClass.name().toLowerCase() + "-",
+                    commandClass.threads(), commandClass.queueLimit(), mode == ExecutionMode.VIRTUAL_THREADS));
+        }
+    }
+
+    /**
+     * Gets the pool for a command. Requests that name no known command are
+     * only answered with an error, so they go to the ADMIN pool.
+     *
+     * @param command The command, or null if unknown.
+     * @return The pool to run the request on.
+     */
+    public AdmissionControl forCommand(Command command) {
+        return forClass(command == null ? CommandClass.ADMIN : command.getCommandClass());
+    }
+
+    public AdmissionControl forClass(CommandClass commandClass) {
+        return pools.get(commandClass);
+    }
+
+    /**
+     * Gets the number of requests waiting for a worker across all classes.
+     *
+     * @return The total queue depth.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (AdmissionControl pool : pools.values()) {
+            depth += pool.getQueueDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets the number of requests answered BUSY across all classes.
+     *
+     * @return The total rejection count.
+     */
+    public long getRejectedCount() {
+        long rejected = 0;
+        for (AdmissionControl pool : pools.values()) {
+            rejected += pool.getRejectedCount();
+        }
+        return rejected;
+    }
+
+    public void shutdown() {
+        for (AdmissionControl pool : pools.values()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Waits for every pool to finish its running and queued requests after
+     * {@link #shutdown}.
+     *
+     * @param timeout The longest time to wait in total.
+     * @param unit The unit of the timeout.
+     * @return true if all pools terminated in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+        for (AdmissionControl pool : pools.values()) {
+            terminated &= pool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        return terminated;
+    }
+}
@@ -0,0 +1,478 @@
+package Server;
+
+import Util.Log;
+import Util.ReportChange;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State for one non-blocking client connection owned by a SelectorLoop.
+ * Incoming bytes are split into requests on the I/O thread (text lines, or
+ * binary frames if the client opened with the binary preamble); only complete
+ * requests are handed to the worker pool through the connection's
+ * RequestPipeline. Untagged text requests are processed one at a time so
+ * that responses keep the order of the requests; tagged text requests and
+ * binary requests may run concurrently. Each request runs on the bulkhead
+ * pool of its command class; one that pool has no room for is answered with
+ * {@code BUSY|retryAfterMs}.
+ *
+ * @author 12223508
+ */
+final class ChannelSession implements FrameOutput {
+
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+    private static final int MAX_PENDING_REQUESTS = 256;
+    // A sender waits once this much output is queued for a slow client.
+    private static final int OUTBOUND_HIGH_WATER = 256 * 1024;
+    // How long a sender waits for a client that reads nothing before dropping it
+    private static final long OUTBOUND_STALL_MILLIS = 30_000;
+
+    private enum Protocol {
+        UNKNOWN, TEXT, BINARY
+    }
+
+    private final SocketChannel channel;
+    private final SelectorLoop loop;
+    private final RequestDispatcher dispatcher;
+    private final BinaryRequestHandler binaryHandler;
+    private final RequestPipeline pipeline;
+    private SelectionKey key;
+
+    // Only touched by the I/O thread.
+    private Protocol protocol = Protocol.UNKNOWN;
+    private byte[] pendingInput = new byte[0];
+    private int pendingInputLength;
+    private final FrameReader headerReader = new FrameReader();
+
+    // Guarded by this.
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private int outboundBytes;
+    private boolean readsSuspended;
+    private boolean writeScheduled;
+    private boolean closeAfterFlush;
+
+    private volatile boolean closed;
+    // Set on the I/O thread once the protocol is known, before any request is dispatched.
+    private volatile ClientContext client;
+
+    ChannelSession(SocketChannel channel, SelectorLoop loop, RequestDispatcher dispatcher) {
+        this.channel = channel;
+        this.loop = loop;
+        this.dispatcher = dispatcher;
+        this.binaryHandler = new BinaryRequestHandler(dispatcher);
+        this.pipeline = new RequestPipeline(dispatcher.getBulkheads().forClass(CommandClass.ADMIN), this::requestFinished);
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Reads whatever is available and dispatches every complete request.
+     * Called on the I/O thread with the loop's shared read buffer; bytes are
+     * only copied into the session when a request spans several reads.
+     *
+     * @param readBuffer A heap buffer shared by all sessions of the loop.
+     */
+    void onReadable(ByteBuffer readBuffer) {
+        readBuffer.clear();
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        if (read < 0) {
+            close();
+            return;
+        }
+
+        byte[] data;
+        int length;
+        if (pendingInputLength == 0) {
+            data = readBuffer.array();
+            length = read;
+        } else {
+            appendPendingInput(readBuffer.array(), 0, read);
+            data = pendingInput;
+            length = pendingInputLength;
+        }
+
+        int consumed = consume(data, length);
+        if (closed) {
+            return;
+        }
+        int remainder = length - consumed;
+        if (data == pendingInput) {
+            System.arraycopy(pendingInput, consumed, pendingInput, 0, remainder);
+            pendingInputLength = remainder;
+        } else if (remainder > 0) {
+            appendPendingInput(data, consumed, remainder);
+        }
+        if (protocol != Protocol.BINARY && pendingInputLength > MAX_LINE_LENGTH) {
+            Log.warn("Closing client: request line exceeds {} bytes", MAX_LINE_LENGTH);
+            close();
+        }
+    }
+
+    /**
+     * Consumes complete requests from the front of the data.
+     *
+     * @return The number of bytes consumed.
+     */
+    private int consume(byte[] data, int length) {
+        int offset = 0;
+        if (protocol == Protocol.UNKNOWN) {
+            if (length == 0) {
+                return 0;
+            }
+            if (data[0] != BinaryProtocol.MAGIC_0) {
+                protocol = Protocol.TEXT;
+                client = new ClientContext(dispatcher.getSubscriptions().newSubscriber(this::sendTextEvents));
+            } else if (length < BinaryProtocol.PREAMBLE_LENGTH) {
+                return 0;
+            } else if (!negotiateBinary(data)) {
+                return length;
+            } else {
+                protocol = Protocol.BINARY;
+                client = new ClientContext(dispatcher.getSubscriptions().newSubscriber(this::sendFrameEvents));
+                offset = BinaryProtocol.PREAMBLE_LENGTH;
+            }
+        }
+        return protocol == Protocol.TEXT ? consumeLines(data, offset, length) : consumeFrames(data, offset, length);
+    }
+
+    private boolean negotiateBinary(byte[] data) {
+        byte version = data[3];
+        if (data[1] != BinaryProtocol.MAGIC_1 || data[2] != BinaryProtocol.MAGIC_2
+                || !BinaryProtocol.isSupported(version)) {
+            enqueueOutput(ByteBuffer.wrap(BinaryProtocol.preamble((byte) 0)), true);
+            return false;
+        }
+        enqueueOutput(ByteBuffer.wrap(BinaryProtocol.preamble(version)), false);
+        return true;
+    }
+
+    private int consumeLines(byte[] data, int offset, int length) {
+        int lineStart = offset;
+        for (int i = offset; i < length && !closed; i++) {
+            if (data[i] == '\n') {
+                TextRequest request = TextRequest.parse(decodeLine(data, lineStart, i - lineStart));
+                lineStart = i + 1;
+                enqueueRequest(request.getOrderingKey(), request.getCommand(), lineTask(request));
+            }
+        }
+        return lineStart;
+    }
+
+    private int consumeFrames(byte[] data, int offset, int length) {
+        while (length - offset >= 4 && !closed) {
+            int frameLength = ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                    | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+            if (frameLength < BinaryProtocol.HEADER_LENGTH || frameLength > BinaryProtocol.MAX_FRAME_LENGTH) {
+                Log.warn("Closing client: invalid frame length {}", frameLength);
+                close();
+                return length;
+            }
+            if (length - offset - 4 < frameLength) {
+                break;
+            }
+            byte[] frame = new byte[frameLength];
+            System.arraycopy(data, offset + 4, frame, 0, frameLength);
+            offset += 4 + frameLength;
+            String orderingKey;
+            Command command;
+            try {
+                headerReader.reset(ByteBuffer.wrap(frame));
+                orderingKey = BinaryRequestHandler.orderingKey(headerReader);
+                command = Command.fromOpcode(headerReader.getOpcode());
+            } catch (IllegalArgumentException e) {
+                // Let the worker report it once the requests before it have run
+                orderingKey = RequestPipeline.BARRIER;
+                command = null;
+            }
+            enqueueRequest(orderingKey, command, frameTask(frame));
+        }
+        return offset;
+    }
+
+    private void appendPendingInput(byte[] data, int offset, int length) {
+        if (pendingInputLength + length > pendingInput.length) {
+            byte[] grown = new byte[Math.max(pendingInput.length * 2, pendingInputLength + length)];
+            System.arraycopy(pendingInput, 0, grown, 0, pendingInputLength);
+            pendingInput = grown;
+        }
+        System.arraycopy(data, offset, pendingInput, pendingInputLength, length);
+        pendingInputLength += length;
+    }
+
+    private static String decodeLine(byte[] data, int offset, int length) {
+        if (length > 0 && data[offset + length - 1] == '\r') {
+            length--;
+        }
+        return new String(data, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private RequestPipeline.Task lineTask(TextRequest request) {
+        return new RequestPipeline.Task() {
+            @Override
+            public boolean run() {
+                return handleLine(request);
+            }
+
+            @Override
+            public boolean reject(long retryAfterMillis) {
+                if (request.isExit()) {
+                    // Saying goodbye needs no worker
+                    return handleLine(request);
+                }
+                send(request.busy(retryAfterMillis), false);
+                return false;
+            }
+        };
+    }
+
+    private RequestPipeline.Task frameTask(byte[] frame) {
+        return new RequestPipeline.Task() {
+            @Override
+            public boolean run() {
+                return handleFrame(frame);
+            }
+
+            @Override
+            public boolean reject(long retryAfterMillis) {
+                ByteBuffer busy = BinaryRequestHandler.busy(frame, retryAfterMillis);
+                if (busy == null) {
+                    return true;
+                }
+                // Queued without waiting for capacity, as this may be the I/O thread
+                enqueueOutput(busy, false);
+                return false;
+            }
+        };
+    }
+
+    private boolean handleLine(TextRequest request) {
+        String response;
+        try {
+            response = request.process(dispatcher, client);
+        } catch (RuntimeException e) {
+            Log.error("Error processing request: {}", e.getMessage());
+            response = "SERVER_ERROR";
+        }
+        send(request.respond(response), false);
+        return request.isExit();
+    }
+
+    private boolean handleFrame(byte[] frame) {
+        try {
+            return binaryHandler.handle(frame, this, client);
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private void enqueueRequest(String orderingKey, Command command, RequestPipeline.Task request) {
+        synchronized (this) {
+            if (closeAfterFlush) {
+                return;
+            }
+        }
+        if (!pipeline.submit(orderingKey, dispatcher.executorFor(command, client), request)) {
+            return;
+        }
+        synchronized (this) {
+            if (pipeline.size() >= MAX_PENDING_REQUESTS && !readsSuspended) {
+                readsSuspended = true;
+                setInterest(SelectionKey.OP_READ, false);
+            }
+        }
+    }
+
+    /**
+     * Called on a worker thread after each request: resumes reading once the
+     * backlog has drained, and starts the close once EXIT has been answered.
+     */
+    private void requestFinished() {
+        boolean closing = pipeline.isClosing();
+        synchronized (this) {
+            if (closing) {
+                closeAfterFlush = true;
+            } else if (readsSuspended && pipeline.size() < MAX_PENDING_REQUESTS / 2) {
+                readsSuspended = false;
+                loop.execute(() -> setInterest(SelectionKey.OP_READ, true));
+            }
+        }
+        if (closing) {
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Queues a text response line for writing. Safe to call from any thread.
+     *
+     * @param response The response line, without the trailing newline.
+     * @param closeAfter Whether to close the connection once it is written.
+     */
+    void send(String response, boolean closeAfter) {
+        enqueueOutput(ByteBuffer.wrap((response + "\n").getBytes(StandardCharsets.UTF_8)), closeAfter);
+    }
+
+    /**
+     * Queues binary frames for writing, waiting first if a slow client has let
+     * too much output pile up.
+     */
+    @Override
+    public void send(FrameWriter frames) throws IOException {
+        ByteBuffer buffer = frames.drain();
+        awaitOutboundCapacity();
+        enqueueOutput(buffer, false);
+    }
+
+    private void sendTextEvents(List<ReportChange> changes, boolean resync) throws IOException {
+        awaitOutboundCapacity();
+        send(EventSink.toText(changes, resync), false);
+    }
+
+    private void sendFrameEvents(List<ReportChange> changes, boolean resync) throws IOException {
+        FrameWriter frames = new FrameWriter();
+        EventSink.toFrames(frames, changes, resync);
+        send(frames);
+    }
+
+    /**
+     * Waits while more than the high water mark of output is queued. A client
+     * that reads nothing for {@link #OUTBOUND_STALL_MILLIS} is disconnected,
+     * so that the thread sending to it is not held forever.
+     */
+    private void awaitOutboundCapacity() throws IOException {
+        boolean stalled = false;
+        synchronized (this) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(OUTBOUND_STALL_MILLIS);
+            while (outboundBytes > OUTBOUND_HIGH_WATER && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    stalled = true;
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the client to read", e);
+                }
+            }
+            if (closed) {
+                throw new IOException("Connection closed");
+            }
+        }
+        if (stalled) {
+            Log.warn("Closing client that has not read for {} ms", OUTBOUND_STALL_MILLIS);
+            close();
+            throw new IOException("Client stopped reading");
+        }
+    }
+
+    private void enqueueOutput(ByteBuffer buffer, boolean closeAfter) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            outbound.add(buffer);
+            outboundBytes += buffer.remaining();
+            closeAfterFlush |= closeAfter;
+        }
+        scheduleWrite();
+    }
+
+    private void scheduleWrite() {
+        synchronized (this) {
+            if (writeScheduled || closed) {
+                return;
+            }
+            writeScheduled = true;
+        }
+        loop.execute(this::onWritable);
+    }
+
+    /**
+     * Writes as much queued output as the socket accepts. Called on the I/O
+     * thread, either from a write task or when the key becomes writable.
+     */
+    void onWritable() {
+        boolean finished;
+        synchronized (this) {
+            writeScheduled = false;
+            if (closed) {
+                return;
+            }
+            try {
+                ByteBuffer head;
+                while ((head = outbound.peek()) != null) {
+                    outboundBytes -= channel.write(head);
+                    if (head.hasRemaining()) {
+                        break;
+                    }
+                    outbound.poll();
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            notifyAll();
+            finished = outbound.isEmpty();
+            setInterest(SelectionKey.OP_WRITE, !finished);
+            if (!finished || !closeAfterFlush || pipeline.size() > 0) {
+                return;
+            }
+        }
+        close();
+    }
+
+    private void setInterest(int op, boolean enabled) {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        int ops = key.interestOps();
+        key.interestOps(enabled ? ops | op : ops & ~op);
+    }
+
+    /**
+     * Closes the connection and drops any queued output.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            outbound.clear();
+            outboundBytes = 0;
+            notifyAll();
+        }
+        pipeline.close();
+        if (client != null) {
+            dispatcher.getSubscriptions().disconnect(client.getSubscriber());
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closing; nothing useful to report.
+        }
+        loop.sessionClosed();
+    }
+}
@@ -0,0 +1,48 @@
+package Server;
+
+import ENUM.UserRole;
+
+/**
+ * What the server knows about one connection while it serves its requests:
+ * the subscriber that pushed events go to and, once the client has logged
+ * in or resumed a session, that session.
+ *
+ * @author 12223508
+ */
+final class ClientContext {
+
+    private final Subscriber subscriber;
+    private volatile Session session;
+
+    ClientContext(Subscriber subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    Subscriber getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * Gets the role of the logged in client.
+     *
+     * @return The role, or null before a successful LOGIN.
+     */
+    UserRole getRole() {
+        Session current = session;
+        return current == null ? null : current.getRole();
+    }
+
+    /**
+     * Gets the connection's session.
+     *
+     * @return The session, or null if the client has not logged in or its
+     * session has ended.
+     */
+    Session getSession() {
+        return session;
+    }
+
+    void setSession(Session session) {
+        this.session = session;
+    }
+}
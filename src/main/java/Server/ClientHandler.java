@@ -2,62 +2,256 @@
 
 package Server;
 
+import Util.Log;
 import java.io.*;
 import java.net.*;
-import Util.DatabaseConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
 
+/**
+ * Serves one client socket with blocking I/O. The first byte decides whether
+ * the client speaks the text or the binary protocol. A reader thread reads
+ * and parses requests and hands them to the connection's pipeline, which
+ * runs each on the bulkhead pool of its command class; untagged text
+ * requests still run one at a time. Responses and pushed events are queued
+ * in the connection's outbox and written by the calling thread, so no
+ * bulkhead worker ever blocks on the socket.
+ */
 public class ClientHandler implements Runnable {
+    private static final int MAX_PENDING_REQUESTS = 256;
+
     private Socket clientSocket;
-    private DatabaseConnection dbManager;
+    private RequestDispatcher dispatcher;
+
+    /**
+     * Reads requests until the client is done and submits them to the
+     * pipeline.
+     */
+    private interface RequestReader {
+        void readAll(RequestPipeline pipeline) throws IOException;
+    }
 
-    public ClientHandler(Socket socket) {
+    /**
+     * Creates a handler for one connection.
+     *
+     * @param socket The client's socket.
+     * @param dispatcher The server's dispatcher, shared by every connection
+     * and shut down with the server.
+     */
+    public ClientHandler(Socket socket, RequestDispatcher dispatcher) {
         this.clientSocket = socket;
-        this.dbManager = new DatabaseConnection();
+        this.dispatcher = dispatcher;
     }
 
     @Override
     public void run() {
         try (
-            BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)
+            BufferedInputStream in = new BufferedInputStream(clientSocket.getInputStream());
+            BufferedOutputStream out = new BufferedOutputStream(clientSocket.getOutputStream())
         ) {
-            String inputLine;
-            while ((inputLine = in.readLine()) != null) {
-                String response = processRequest(inputLine);
-                out.println(response);
-                if (inputLine.equals("EXIT")) {
-                    break;
-                }
+            in.mark(1);
+            int first = in.read();
+            if (first < 0) {
+                return;
+            }
+            in.reset();
+            if ((byte) first == BinaryProtocol.MAGIC_0) {
+                serveBinary(new DataInputStream(in), out);
+            } else {
+                serveText(in, out);
             }
         } catch (IOException e) {
-            System.err.println("Client handler exception: " + e.getMessage());
-            e.printStackTrace();
+            if (!clientSocket.isClosed()) {
+                Log.error("Client handler exception", e);
+            }
         } finally {
             try {
                 clientSocket.close();
             } catch (IOException e) {
-                e.printStackTrace();
+                Log.error("Could not close client socket", e);
+            }
+        }
+    }
+
+    private void serveText(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Outbox outbox = new Outbox(clientSocket);
+        ClientContext client = new ClientContext(dispatcher.getSubscriptions().newSubscriber(
+                (changes, resync) -> outbox.send(line(EventSink.toText(changes, resync)))));
+        serve(out, outbox, client, pipeline -> {
+            String inputLine;
+            while ((inputLine = reader.readLine()) != null) {
+                TextRequest request = TextRequest.parse(inputLine);
+                RequestPipeline.Task task = new RequestPipeline.Task() {
+                    @Override
+                    public boolean run() {
+                        try {
+                            outbox.send(line(request.respond(request.process(dispatcher, client))));
+                            return request.isExit();
+                        } catch (IOException e) {
+                            return true;
+                        }
+                    }
+
+                    @Override
+                    public boolean reject(long retryAfterMillis) {
+                        if (request.isExit()) {
+                            // Saying goodbye needs no worker
+                            return run();
+                        }
+                        try {
+                            outbox.send(line(request.busy(retryAfterMillis)));
+                            return false;
+                        } catch (IOException e) {
+                            return true;
+                        }
+                    }
+                };
+                if (!submit(pipeline, request.getOrderingKey(), dispatcher.executorFor(request.getCommand(), client), task)
+                        || request.isExit()) {
+                    return;
+                }
+            }
+        });
+    }
+
+    private static ByteBuffer line(String text) {
+        return ByteBuffer.wrap((text + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads requests on a new virtual thread while the calling thread writes
+     * whatever the requests and the client's subscriptions queue, until the
+     * client is done and every response has been written.
+     */
+    private void serve(OutputStream out, Outbox outbox, ClientContext client, RequestReader requests)
+            throws IOException {
+        RequestPipeline pipeline = new RequestPipeline(dispatcher.getBulkheads().forClass(CommandClass.ADMIN), () -> { });
+        Thread reader = Thread.ofVirtual().name("drs-client-reader").start(() -> {
+            try {
+                requests.readAll(pipeline);
+                awaitIdle(pipeline);
+            } catch (IOException e) {
+                if (!clientSocket.isClosed()) {
+                    Log.error("Client handler exception", e);
+                }
+            } finally {
+                outbox.finish();
             }
+        });
+        try {
+            outbox.drainTo(out);
+        } finally {
+            pipeline.close();
+            // Unblocks the reader if writing failed
+            clientSocket.close();
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatcher.getSubscriptions().disconnect(client.getSubscriber());
+        }
+    }
+
+    /**
+     * Hands a request to the pipeline once fewer than MAX_PENDING_REQUESTS
+     * are outstanding, so a client that never reads its responses cannot
+     * queue work without bound.
+     *
+     * @return false if the connection should stop reading.
+     */
+    private static boolean submit(RequestPipeline pipeline, String orderingKey, Executor executor,
+            RequestPipeline.Task task) {
+        try {
+            pipeline.awaitBelow(MAX_PENDING_REQUESTS);
+            return pipeline.submit(orderingKey, executor, task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitIdle(RequestPipeline pipeline) {
+        try {
+            pipeline.awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serveBinary(DataInputStream in, BufferedOutputStream out) throws IOException {
+        byte[] preamble = new byte[BinaryProtocol.PREAMBLE_LENGTH];
+        in.readFully(preamble);
+        byte version = preamble[3];
+        if (preamble[1] != BinaryProtocol.MAGIC_1 || preamble[2] != BinaryProtocol.MAGIC_2
+                || !BinaryProtocol.isSupported(version)) {
+            out.write(BinaryProtocol.preamble((byte) 0));
+            out.flush();
+            return;
         }
+        out.write(BinaryProtocol.preamble(version));
+        out.flush();
+
+        BinaryRequestHandler handler = new BinaryRequestHandler(dispatcher);
+        Outbox outbox = new Outbox(clientSocket);
+        FrameOutput output = frames -> outbox.send(frames.drain());
+        ClientContext client = new ClientContext(dispatcher.getSubscriptions().newSubscriber((changes, resync) -> {
+            FrameWriter events = new FrameWriter();
+            EventSink.toFrames(events, changes, resync);
+            outbox.send(events.drain());
+        }));
+        serve(out, outbox, client, pipeline -> serveFrames(in, handler, output, outbox, client, pipeline));
     }
 
-    private String processRequest(String request) {
-        String[] parts = request.split("\\|");
-        String command = parts[0];
-
-        switch (command) {
-            case "LOGIN":
-                return dbManager.validateLogin(parts[1], parts[2], parts[3]);
-            case "ADD_REPORT":
-                return dbManager.addReport(parts[1], parts[2], parts[3], parts[4], parts[5]);
-            case "GET_REPORTS":
-                return dbManager.getReports();
-            case "UPDATE_REPORT":
-                return dbManager.updateReport(parts[1], parts[2], parts[3]);
-            case "EXIT":
-                return "Goodbye!";
-            default:
-                return "Unknown command";
+    private void serveFrames(DataInputStream in, BinaryRequestHandler handler, FrameOutput output, Outbox outbox,
+            ClientContext client, RequestPipeline pipeline) throws IOException {
+        FrameReader header = new FrameReader();
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            if (length < BinaryProtocol.HEADER_LENGTH || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+                Log.warn("Closing client: invalid frame length {}", length);
+                return;
+            }
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            try {
+                header.reset(ByteBuffer.wrap(frame));
+            } catch (IllegalArgumentException e) {
+                Log.warn("Closing client: malformed frame: {}", e.getMessage());
+                return;
+            }
+            RequestPipeline.Task task = new RequestPipeline.Task() {
+                @Override
+                public boolean run() {
+                    try {
+                        return handler.handle(frame, output, client);
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean reject(long retryAfterMillis) {
+                    try {
+                        outbox.send(BinaryRequestHandler.busy(frame, retryAfterMillis));
+                        return false;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+            };
+            Command command = Command.fromOpcode(header.getOpcode());
+            if (!submit(pipeline, BinaryRequestHandler.orderingKey(header), dispatcher.executorFor(command, client), task)
+                    || command == Command.EXIT) {
+                return;
+            }
         }
     }
-}
\ No newline at end of file
+}
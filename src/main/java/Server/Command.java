@@ -0,0 +1,86 @@
+package Server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The commands understood by the DRS server. Text clients send the command
+ * name as the first '|' separated field; binary clients send the opcode.
+ *
+ * @author 12223508
+ */
+public enum Command {
+    LOGIN(1, CommandClass.AUTH),
+    ADD_REPORT(2, CommandClass.INTAKE),
+    GET_REPORTS(3, CommandClass.BULK_READ),
+    UPDATE_REPORT(4, CommandClass.INTAKE),
+    PING(5, CommandClass.ADMIN),
+    EXIT(6, CommandClass.ADMIN),
+    SUBSCRIBE(7, CommandClass.ADMIN),
+    UNSUBSCRIBE(8, CommandClass.ADMIN),
+    ADD_REPORTS_BATCH(9, CommandClass.INTAKE),
+    UPDATE_REPORTS_BATCH(10, CommandClass.INTAKE),
+    STATS(11, CommandClass.ADMIN),
+    RESUME(12, CommandClass.AUTH),
+    LOGOUT(13, CommandClass.AUTH),
+    APPEND_LOG(14, CommandClass.INTAKE),
+    ADD_RESOURCE(15, CommandClass.INTAKE),
+    SYNC_REPORTS(16, CommandClass.BULK_READ);
+
+    private static final Map<String, Command> BY_NAME = new HashMap<>();
+    private static final Command[] BY_OPCODE = new Command[256];
+
+    static {
+        for (Command command : values()) {
+            BY_NAME.put(command.name(), command);
+            BY_OPCODE[command.opcode] = command;
+        }
+    }
+
+    private final int opcode;
+    private final CommandClass commandClass;
+
+    Command(int opcode, CommandClass commandClass) {
+        this.opcode = opcode;
+        this.commandClass = commandClass;
+    }
+
+    /**
+     * Gets the opcode used for this command in binary frames.
+     *
+     * @return The opcode, 1-255.
+     */
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * Gets the class of work this command belongs to, which decides the
+     * workers it runs on.
+     *
+     * @return The command class.
+     */
+    public CommandClass getCommandClass() {
+        return commandClass;
+    }
+
+    /**
+     * Looks up a command by its text protocol name.
+     *
+     * @param name The command name, e.g. "LOGIN".
+     * @return The command, or null if unknown.
+     */
+    public static Command fromName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Looks up a command by its binary opcode.
+     *
+     * @param opcode The opcode from a request frame.
+     * @return The command, or null if unknown.
+     */
+    public static Command fromOpcode(int opcode) {
+        return opcode >= 0 && opcode < BY_OPCODE.length ? BY_OPCODE[opcode] : null;
+    }
+}
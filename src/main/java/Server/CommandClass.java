@@ -0,0 +1,59 @@
+package Server;
+
+/**
+ * Groups commands by the kind of work they do, so that each group gets its
+ * own workers and queue. A burst of slow report list reads then only ever
+ * occupies the bulk read workers, and logins and new reports keep moving.
+ * <p>
+ * The defaults can be overridden per class with
+ * {@code -Ddrs.bulkhead.<class>.threads} and
+ * {@code -Ddrs.bulkhead.<class>.queueLimit}, for example
+ * {@code -Ddrs.bulkhead.bulk_read.threads=2}.
+ *
+ * @author 12223508
+ */
+public enum CommandClass {
+    /** Logins: short and latency sensitive. */
+    AUTH(4, 1000),
+    /** New reports and report updates from the public and from staff. */
+    INTAKE(8, 1000),
+    /** Report lists, which may scan the whole table. */
+    BULK_READ(4, 100),
+    /**
+     * Connection housekeeping such as PING, EXIT and subscriptions. Every
+     * open console sends heartbeat PINGs, so the queue is long but each
+     * entry is cheap.
+     */
+    ADMIN(2, 4096);
+
+    private final int defaultThreads;
+    private final int defaultQueueLimit;
+
+    CommandClass(int defaultThreads, int defaultQueueLimit) {
+        this.defaultThreads = defaultThreads;
+        this.defaultQueueLimit = defaultQueueLimit;
+    }
+
+    /**
+     * Gets the configured number of worker threads for this class.
+     *
+     * @return The thread count.
+     */
+    public int threads() {
+        return ServerConfig.intProperty(propertyPrefix() + "threads", defaultThreads);
+    }
+
+    /**
+     * Gets the configured number of requests of this class that may wait
+     * for a worker.
+     *
+     * @return The queue limit.
+     */
+    public int queueLimit() {
+        return ServerConfig.intProperty(propertyPrefix() + "queueLimit", defaultQueueLimit);
+    }
+
+    private String propertyPrefix() {
+        return ServerConfig.BULKHEAD_PREFIX + name().toLowerCase() + ".";
+    }
+}
@@ -0,0 +1,55 @@
+package Server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for one DRS command, from the start of its
+ * execution to its reply. SQL statements it runs on the same thread show up
+ * as {@code drs.Sql} events nested inside it. While no recording is running,
+ * creating and ending the event costs next to nothing and nothing is
+ * committed.
+ *
+ * @author 12223508
+ */
+@Name("drs.Command")
+@Label("DRS Command")
+@Category({"DRS", "Server"})
+@Description("A command run for a client, with the report it touched and its reply status")
+final class CommandEvent extends Event {
+
+    @Label("Command")
+    String command;
+
+    @Label("Report Id")
+    @Description("The report the command added or changed, or 0")
+    long reportId;
+
+    @Label("Status")
+    String status;
+
+    @Label("Priority")
+    String priority;
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param command The command that ran.
+     * @param priority The priority it ran at.
+     * @param reportId The report it touched, or 0.
+     * @param status The status it replied with.
+     */
+    void complete(Command command, RequestPriority priority, long reportId, String status) {
+        end();
+        if (shouldCommit()) {
+            this.command = command.name();
+            this.priority = priority.name();
+            this.reportId = reportId;
+            this.status = status;
+            commit();
+        }
+    }
+}
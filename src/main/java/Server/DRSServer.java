@@ -1,67 +1,377 @@
 package Server;
 
+import Util.DatabaseConnection;
+import Util.Log;
+import Util.ServerLivenessMonitor;
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DRSServer {
     private static final int PORT = 5000;
     private static final int THREAD_POOL_SIZE = 10;
-   
-    private ServerSocket serverSocket;
+    private static final int IO_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final int PRUNE_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+    private final int port;
+    private final ExecutionMode mode;
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private SelectorLoop[] ioLoops;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final Set<Socket> blockingClients = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch started = new CountDownLatch(1);
 
     public static int getPORT() {
         return PORT;
     }
+    // Connection threads: one virtual thread each, or a bounded platform pool.
     private ExecutorService executor;
+    private AdmissionControl workers;
+    private RequestDispatcher dispatcher;
+    private MetricsEndpoint metricsEndpoint;
+    private ScheduledExecutorService housekeeping;
     private volatile boolean running;
-    
+
+    public DRSServer() {
+        this(PORT);
+    }
+
+    /**
+     * Creates a server listening on the given port. Port 0 picks a free port,
+     * which is what the tests use, and a free metrics port as well.
+     *
+     * @param port The TCP port to listen on.
+     */
+    public DRSServer(int port) {
+        this(port, ServerConfig.executionMode());
+    }
+
+    /**
+     * Creates a server with an explicit execution mode.
+     *
+     * @param port The TCP port to listen on.
+     * @param mode How connections are mapped onto threads.
+     */
+    public DRSServer(int port, ExecutionMode mode) {
+        this.port = port;
+        this.mode = mode;
+    }
+
     public static void main(String[] args) {
         DRSServer newServer = new DRSServer();
         newServer.start();
     }
 
+    /**
+     * Runs the server until {@link #stop()} is called, using the execution
+     * mode chosen at construction.
+     */
     public void start() {
-        executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+        dispatcher = new RequestDispatcher(new SessionStore(), mode);
+        metricsEndpoint = new MetricsEndpoint(this, dispatcher);
+        metricsEndpoint.start(port == 0);
+        long pruneInterval = ServerConfig.intProperty(ServerConfig.PRUNE_INTERVAL_MILLIS, PRUNE_INTERVAL_MILLIS);
+        housekeeping = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "drs-housekeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeping.scheduleWithFixedDelay(this::pruneReportVersions, pruneInterval, pruneInterval, TimeUnit.MILLISECONDS);
         running = true;
-        
+        if (mode == ExecutionMode.SELECTOR) {
+            runSelector(dispatcher);
+        } else {
+            runBlocking(dispatcher);
+        }
+    }
+
+    /**
+     * Deletes the report versions no report list sync needs any more, which
+     * would otherwise grow by one row for every report write.
+     */
+    private void pruneReportVersions() {
         try {
-            serverSocket = new ServerSocket(PORT);
-            System.out.println("DRS Server is running on port " + PORT);
-            
+            int pruned = DatabaseConnection.pruneReportVersions();
+            if (pruned > 0) {
+                Log.info("Pruned {} report versions", pruned);
+            }
+        } catch (SQLException e) {
+            Log.warn("Could not prune report versions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The calling thread accepts connections; a few selector threads do all
+     * socket reads and writes, and the dispatcher's bulkhead pools only ever
+     * see complete requests, so idle consoles cost a registered channel
+     * rather than a thread.
+     */
+    private void runSelector(RequestDispatcher dispatcher) {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+            serverChannel.configureBlocking(false);
+            acceptSelector = Selector.open();
+            serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+            ioLoops = new SelectorLoop[IO_THREADS];
+            for (int i = 0; i < ioLoops.length; i++) {
+                ioLoops[i] = new SelectorLoop("drs-io-" + i, openConnections);
+                ioLoops[i].start();
+            }
+            Log.info("DRS Server is running on port {} ({})", getLocalPort(), mode);
+            ServerLivenessMonitor.serverStateChanged(getLocalPort(), true);
+            started.countDown();
+
+            int nextLoop = 0;
             while (running) {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+                SocketChannel clientChannel;
+                while ((clientChannel = serverChannel.accept()) != null) {
+                    clientChannel.configureBlocking(false);
+                    clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    SelectorLoop loop = ioLoops[nextLoop];
+                    nextLoop = (nextLoop + 1) % ioLoops.length;
+                    loop.register(new ChannelSession(clientChannel, loop, dispatcher));
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                Log.error("Accept loop failed", e);
+            }
+        } finally {
+            started.countDown();
+        }
+    }
+
+    /**
+     * The calling thread accepts connections and each one gets a blocking
+     * ClientHandler, either queued on a fixed platform pool or on its own
+     * virtual thread. The connection thread writes the responses, a reader
+     * thread reads and parses, and requests run on the dispatcher's bulkhead
+     * pools, which are virtual threads too in VIRTUAL_THREADS mode.
+     */
+    private void runBlocking(RequestDispatcher dispatcher) {
+        if (mode == ExecutionMode.VIRTUAL_THREADS) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("drs-client-", 0).factory());
+        } else {
+            workers = new AdmissionControl("drs-client-",
+                    ServerConfig.intProperty(ServerConfig.WORKER_THREADS, THREAD_POOL_SIZE),
+                    ServerConfig.intProperty(ServerConfig.QUEUE_LIMIT, AdmissionControl.DEFAULT_QUEUE_LIMIT));
+        }
+        Executor connections = executor != null ? executor : workers;
+
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+            Log.info("DRS Server is running on port {} ({})", getLocalPort(), mode);
+            ServerLivenessMonitor.serverStateChanged(getLocalPort(), true);
+            started.countDown();
+
+            while (running) {
+                Socket clientSocket = serverChannel.accept().socket();
+                blockingClients.add(clientSocket);
+                openConnections.incrementAndGet();
+                ClientHandler handler = new ClientHandler(clientSocket, dispatcher);
                 try {
-                    Socket clientSocket = serverSocket.accept();
-                    executor.execute(new ClientHandler(clientSocket));
-                } catch (SocketException e) {
-                    if (!running) break;
+                    connections.execute(() -> {
+                        try {
+                            handler.run();
+                        } finally {
+                            blockingClients.remove(clientSocket);
+                            openConnections.decrementAndGet();
+                        }
+                    });
+                } catch (AdmissionControl.Busy e) {
+                    turnAway(clientSocket, e.getRetryAfterMillis());
                 }
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            if (running) {
+                Log.error("Accept loop failed", e);
+            }
+        } finally {
+            started.countDown();
+        }
+    }
+
+    /**
+     * Tells a client that could not be queued when to come back, and closes
+     * its connection. The reply is a single short line, so the write does
+     * not block the accepting thread.
+     */
+    private void turnAway(Socket clientSocket, long retryAfterMillis) {
+        try {
+            OutputStream out = clientSocket.getOutputStream();
+            out.write(("BUSY|" + retryAfterMillis + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            // The client has gone already.
         } finally {
-            //stop();
+            blockingClients.remove(clientSocket);
+            openConnections.decrementAndGet();
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                Log.error("Could not close turned away client", e);
+            }
         }
     }
 
     public void stop() {
         running = false;
+        ServerLivenessMonitor.serverStateChanged(getLocalPort(), false);
         try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
+            if (acceptSelector != null) {
+                acceptSelector.wakeup();
+            }
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
+            }
+            if (acceptSelector != null) {
+                acceptSelector.close();
+            }
+            if (ioLoops != null) {
+                for (SelectorLoop loop : ioLoops) {
+                    if (loop != null) {
+                        loop.shutdown();
+                    }
+                }
+            }
+            for (Socket clientSocket : blockingClients) {
+                clientSocket.close();
             }
             if (executor != null) {
                 executor.shutdown();
                 executor.awaitTermination(5, TimeUnit.SECONDS);
             }
+            if (workers != null) {
+                workers.shutdown();
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            if (metricsEndpoint != null) {
+                metricsEndpoint.stop();
+            }
+            if (housekeeping != null) {
+                housekeeping.shutdownNow();
+            }
+            if (dispatcher != null) {
+                dispatcher.getBulkheads().shutdown();
+                dispatcher.getBulkheads().awaitTermination(5, TimeUnit.SECONDS);
+                dispatcher.shutdown();
+            }
         } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+            Log.error("Error while stopping the server", e);
         }
-        System.out.println("Server stopped");
+        Log.info("Server stopped");
     }
 
     public boolean isRunning() {
         return running;
     }
-}
\ No newline at end of file
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Waits until the listening socket is bound (or startup has failed).
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return true if the server started listening within the timeout.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitStartup(long timeout, TimeUnit unit) throws InterruptedException {
+        return started.await(timeout, unit) && serverChannel != null && serverChannel.isOpen();
+    }
+
+    /**
+     * Returns the port actually bound, which differs from the configured one
+     * when the server was created with port 0.
+     *
+     * @return The bound port, or the configured port if not yet bound.
+     */
+    public int getLocalPort() {
+        try {
+            if (serverChannel != null && serverChannel.isOpen()) {
+                return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+            }
+        } catch (IOException e) {
+            // Fall through to the configured port.
+        }
+        return port;
+    }
+
+    /**
+     * Returns the port of the Prometheus metrics endpoint.
+     *
+     * @return The port, or -1 if the endpoint is disabled or not running.
+     */
+    public int getMetricsPort() {
+        return metricsEndpoint != null ? metricsEndpoint.getPort() : -1;
+    }
+
+    /**
+     * Returns the number of client connections currently open.
+     *
+     * @return The open connection count.
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * Returns the number of requests waiting for a bulkhead worker plus, in
+     * PLATFORM_POOL mode, the connections waiting for a thread.
+     *
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        int depth = dispatcher != null ? dispatcher.getBulkheads().getQueueDepth() : 0;
+        return depth + (workers != null ? workers.getQueueDepth() : 0);
+    }
+
+    /**
+     * Returns how often requests or connections were turned away with BUSY
+     * because a queue was full.
+     *
+     * @return The rejection count since the server started.
+     */
+    public long getRejectedCount() {
+        long rejected = dispatcher != null ? dispatcher.getBulkheads().getRejectedCount() : 0;
+        return rejected + (workers != null ? workers.getRejectedCount() : 0);
+    }
+
+    /**
+     * Lists the requests shed under overload since the server started, as
+     * {@code COMMAND|role|PRIORITY|count} lines.
+     *
+     * @return The shed report; empty if nothing was shed.
+     */
+    public List<String> getShedReport() {
+        return dispatcher != null ? dispatcher.getLoadShedder().getReport() : List.of();
+    }
+
+    /**
+     * Returns the number of logged in sessions that have not expired.
+     *
+     * @return The session count; 0 before the server starts.
+     */
+    public int getSessionCount() {
+        return dispatcher != null ? dispatcher.getSessions().size() : 0;
+    }
+}
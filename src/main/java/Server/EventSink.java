@@ -0,0 +1,81 @@
+package Server;
+
+import Util.ReportChange;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes change events to one subscribed connection, in that connection's
+ * protocol.
+ *
+ * @author 12223508
+ */
+interface EventSink {
+
+    /**
+     * Sends a batch of events. May block while the client is slow to read;
+     * only the subscriber's own delivery thread waits.
+     *
+     * @param changes The coalesced changes, at most one per report.
+     * @param resync true if events were dropped before this batch and the
+     * client should re-read its report list.
+     * @throws IOException If the connection has failed or been closed.
+     */
+    void send(List<ReportChange> changes, boolean resync) throws IOException;
+
+    /**
+     * Renders events for the text protocol, one line each:
+     * {@code EVENT|INSERT|id|field=value|field} where a field without a value
+     * changed but is too large to include, preceded by {@code EVENT|RESYNC}
+     * if events were dropped.
+     *
+     * @param changes The changes.
+     * @param resync Whether to ask the client to resync first.
+     * @return The lines, without a trailing newline.
+     */
+    static String toText(List<ReportChange> changes, boolean resync) {
+        StringBuilder text = new StringBuilder();
+        if (resync) {
+            text.append("EVENT|RESYNC");
+        }
+        for (ReportChange change : changes) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append("EVENT|").append(change.isInserted() ? "INSERT" : "UPDATE").append('|').append(change.getReportId());
+            for (Map.Entry<String, String> field : change.getFields().entrySet()) {
+                text.append('|').append(field.getKey());
+                if (field.getValue() != null) {
+                    text.append('=').append(field.getValue());
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes events as binary EVENT frames with request id 0: the kind
+     * (INSERT, UPDATE or RESYNC), the report id as INT32, then a name and a
+     * value (STRING or NULL) per changed field.
+     *
+     * @param writer The writer to add the frames to.
+     * @param changes The changes.
+     * @param resync Whether to ask the client to resync first.
+     */
+    static void toFrames(FrameWriter writer, List<ReportChange> changes, boolean resync) {
+        int opcode = Command.SUBSCRIBE.getOpcode();
+        if (resync) {
+            writer.begin(BinaryProtocol.FRAME_EVENT, 0, opcode).putString("RESYNC").end();
+        }
+        for (ReportChange change : changes) {
+            writer.begin(BinaryProtocol.FRAME_EVENT, 0, opcode)
+                    .putString(change.isInserted() ? "INSERT" : "UPDATE")
+                    .putInt(change.getReportId());
+            for (Map.Entry<String, String> field : change.getFields().entrySet()) {
+                writer.putString(field.getKey()).putString(field.getValue());
+            }
+            writer.end();
+        }
+    }
+}
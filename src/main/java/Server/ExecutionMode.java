@@ -0,0 +1,24 @@
+package Server;
+
+/**
+ * How DRSServer maps client connections onto threads.
+ *
+ * @author 12223508
+ */
+public enum ExecutionMode {
+    /**
+     * A few selector threads multiplex every connection and a fixed worker
+     * pool runs complete requests.
+     */
+    SELECTOR,
+    /**
+     * One blocking ClientHandler per connection on a fixed platform-thread
+     * pool. Connections beyond the pool size wait in the queue.
+     */
+    PLATFORM_POOL,
+    /**
+     * One blocking ClientHandler per connection, each on its own virtual
+     * thread.
+     */
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,23 @@
+package Server;
+
+import java.io.IOException;
+
+/**
+ * Where a binary connection's outgoing frames go. The selector front-end
+ * queues them for its I/O thread; blocking handlers write them to the socket
+ * stream directly.
+ *
+ * @author 12223508
+ */
+interface FrameOutput {
+
+    /**
+     * Sends every finished frame in the writer and clears it. May block while
+     * the client is slow to read, which is how streamed results get
+     * backpressure.
+     *
+     * @param frames The frames to send.
+     * @throws IOException If the connection has failed or been closed.
+     */
+    void send(FrameWriter frames) throws IOException;
+}
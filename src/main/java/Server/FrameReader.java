@@ -0,0 +1,254 @@
+package Server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable, allocation-free view over one binary frame. {@link #reset}
+ * validates the frame and records where each field starts; the typed getters
+ * then read straight from the buffer. Only {@link #getString} creates an
+ * object, and only for the field that is asked for.
+ * <p>
+ * A reader is not thread-safe. Keep one per thread or per connection and
+ * reset it for each frame.
+ *
+ * @author 12223508
+ */
+public final class FrameReader implements RequestArgs {
+
+    private ByteBuffer buffer;
+    private byte frameType;
+    private int requestId;
+    private int opcode;
+    private int fieldCount;
+    private int[] fieldOffsets = new int[16];
+
+    /**
+     * Points the reader at a frame body. The buffer's position must be at the
+     * frame type byte (just after the length prefix) and its limit at the end
+     * of the frame. The buffer is not modified.
+     *
+     * @param frame The frame body.
+     * @throws IllegalArgumentException If the frame is malformed.
+     */
+    public void reset(ByteBuffer frame) {
+        int base = frame.position();
+        int end = frame.limit();
+        if (end - base < BinaryProtocol.HEADER_LENGTH) {
+            throw new IllegalArgumentException("Frame shorter than its header");
+        }
+        buffer = frame;
+        frameType = frame.get(base);
+        requestId = frame.getInt(base + 1);
+        opcode = frame.get(base + 5) & 0xFF;
+        fieldCount = frame.getShort(base + 6) & 0xFFFF;
+        if (fieldOffsets.length < fieldCount) {
+            fieldOffsets = new int[Math.max(fieldCount, fieldOffsets.length * 2)];
+        }
+
+        int offset = base + BinaryProtocol.HEADER_LENGTH;
+        for (int i = 0; i < fieldCount; i++) {
+            if (offset >= end) {
+                throw new IllegalArgumentException("Frame ends before field " + i);
+            }
+            fieldOffsets[i] = offset;
+            offset += 1 + payloadLength(frame, offset, end);
+            if (offset > end) {
+                throw new IllegalArgumentException("Field " + i + " runs past the end of the frame");
+            }
+        }
+        if (offset != end) {
+            throw new IllegalArgumentException("Trailing bytes after the last field");
+        }
+    }
+
+    private static int payloadLength(ByteBuffer frame, int tagOffset, int end) {
+        switch (frame.get(tagOffset)) {
+            case BinaryProtocol.FIELD_NULL:
+                return 0;
+            case BinaryProtocol.FIELD_BOOL:
+                return 1;
+            case BinaryProtocol.FIELD_INT32:
+                return 4;
+            case BinaryProtocol.FIELD_INT64:
+            case BinaryProtocol.FIELD_DOUBLE:
+                return 8;
+            case BinaryProtocol.FIELD_STRING:
+                if (tagOffset + 5 > end) {
+                    throw new IllegalArgumentException("Truncated string length");
+                }
+                int length = frame.getInt(tagOffset + 1);
+                if (length < 0 || length > end - tagOffset - 5) {
+                    throw new IllegalArgumentException("Invalid string length " + length);
+                }
+                return 4 + length;
+            default:
+                throw new IllegalArgumentException("Unknown field tag " + frame.get(tagOffset));
+        }
+    }
+
+    public byte getFrameType() {
+        return frameType;
+    }
+
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    @Override
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets the tag of a field.
+     *
+     * @param index The field index.
+     * @return One of the BinaryProtocol.FIELD_* constants.
+     */
+    public byte getFieldType(int index) {
+        return buffer.get(offsetOf(index));
+    }
+
+    public boolean isNull(int index) {
+        return getFieldType(index) == BinaryProtocol.FIELD_NULL;
+    }
+
+    @Override
+    public int getInt(int index) {
+        int offset = offsetOf(index);
+        switch (buffer.get(offset)) {
+            case BinaryProtocol.FIELD_INT32:
+                return buffer.getInt(offset + 1);
+            case BinaryProtocol.FIELD_INT64:
+                return Math.toIntExact(buffer.getLong(offset + 1));
+            case BinaryProtocol.FIELD_STRING:
+                return Math.toIntExact(parseInt(offset));
+            default:
+                throw new NumberFormatException("Field " + index + " is not an integer");
+        }
+    }
+
+    public long getLong(int index) {
+        int offset = offsetOf(index);
+        switch (buffer.get(offset)) {
+            case BinaryProtocol.FIELD_INT64:
+                return buffer.getLong(offset + 1);
+            case BinaryProtocol.FIELD_INT32:
+                return buffer.getInt(offset + 1);
+            case BinaryProtocol.FIELD_STRING:
+                return parseInt(offset);
+            default:
+                throw new NumberFormatException("Field " + index + " is not an integer");
+        }
+    }
+
+    public double getDouble(int index) {
+        int offset = offsetOf(index);
+        switch (buffer.get(offset)) {
+            case BinaryProtocol.FIELD_DOUBLE:
+                return buffer.getDouble(offset + 1);
+            case BinaryProtocol.FIELD_INT32:
+                return buffer.getInt(offset + 1);
+            case BinaryProtocol.FIELD_INT64:
+                return buffer.getLong(offset + 1);
+            default:
+                throw new NumberFormatException("Field " + index + " is not a number");
+        }
+    }
+
+    public boolean getBoolean(int index) {
+        int offset = offsetOf(index);
+        if (buffer.get(offset) != BinaryProtocol.FIELD_BOOL) {
+            throw new IllegalArgumentException("Field " + index + " is not a boolean");
+        }
+        return buffer.get(offset + 1) != 0;
+    }
+
+    /**
+     * Gets a field as text, decoding a STRING field or formatting any other
+     * type. This is the only accessor that allocates.
+     *
+     * @param index The field index.
+     * @return The text, or null for a NULL field.
+     */
+    @Override
+    public String getString(int index) {
+        int offset = offsetOf(index);
+        switch (buffer.get(offset)) {
+            case BinaryProtocol.FIELD_NULL:
+                return null;
+            case BinaryProtocol.FIELD_STRING:
+                int length = buffer.getInt(offset + 1);
+                if (buffer.hasArray()) {
+                    return new String(buffer.array(), buffer.arrayOffset() + offset + 5, length, StandardCharsets.UTF_8);
+                }
+                byte[] bytes = new byte[length];
+                buffer.get(offset + 5, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case BinaryProtocol.FIELD_INT32:
+                return Integer.toString(buffer.getInt(offset + 1));
+            case BinaryProtocol.FIELD_INT64:
+                return Long.toString(buffer.getLong(offset + 1));
+            case BinaryProtocol.FIELD_DOUBLE:
+                return Double.toString(buffer.getDouble(offset + 1));
+            case BinaryProtocol.FIELD_BOOL:
+                return Boolean.toString(buffer.get(offset + 1) != 0);
+            default:
+                throw new IllegalStateException("Unknown field tag");
+        }
+    }
+
+    /**
+     * Compares a STRING field with ASCII text without decoding it.
+     *
+     * @param index The field index.
+     * @param ascii The ASCII text to compare with.
+     * @return true if the field is a STRING with exactly that content.
+     */
+    public boolean stringEquals(int index, String ascii) {
+        int offset = offsetOf(index);
+        if (buffer.get(offset) != BinaryProtocol.FIELD_STRING) {
+            return false;
+        }
+        int length = buffer.getInt(offset + 1);
+        if (length != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + 5 + i) != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseInt(int offset) {
+        int length = buffer.getInt(offset + 1);
+        int start = offset + 5;
+        if (length == 0) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = buffer.get(start) == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            int digit = buffer.get(start + i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private int offsetOf(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        return fieldOffsets[index];
+    }
+}
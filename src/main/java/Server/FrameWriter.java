@@ -0,0 +1,230 @@
+package Server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Builds binary frames into a growable buffer. Several frames can be written
+ * back to back and sent in one go, which is how row streams are batched.
+ * Strings are encoded straight into the buffer without an intermediate byte
+ * array.
+ *
+ * @author 12223508
+ */
+public final class FrameWriter {
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private int frameStart = -1;
+    private int fieldCount;
+
+    /**
+     * Starts a new frame after any frames already written.
+     *
+     * @param frameType One of the BinaryProtocol.FRAME_* constants.
+     * @param requestId The request id the frame belongs to.
+     * @param opcode The command opcode.
+     * @return This writer.
+     */
+    public FrameWriter begin(byte frameType, int requestId, int opcode) {
+        if (frameStart >= 0) {
+            throw new IllegalStateException("Previous frame not finished");
+        }
+        ensure(4 + BinaryProtocol.HEADER_LENGTH);
+        frameStart = buffer.position();
+        buffer.putInt(0);
+        buffer.put(frameType);
+        buffer.putInt(requestId);
+        buffer.put((byte) opcode);
+        buffer.putShort((short) 0);
+        fieldCount = 0;
+        return this;
+    }
+
+    /**
+     * Finishes the current frame by filling in its length and field count.
+     *
+     * @return This writer.
+     */
+    public FrameWriter end() {
+        if (frameStart < 0) {
+            throw new IllegalStateException("No frame in progress");
+        }
+        int length = buffer.position() - frameStart - 4;
+        if (length > BinaryProtocol.MAX_FRAME_LENGTH) {
+            throw new IllegalStateException("Frame of " + length + " bytes exceeds the protocol limit");
+        }
+        buffer.putInt(frameStart, length);
+        buffer.putShort(frameStart + 4 + 1 + 4 + 1, (short) fieldCount);
+        frameStart = -1;
+        return this;
+    }
+
+    public FrameWriter putNull() {
+        field(BinaryProtocol.FIELD_NULL, 0);
+        return this;
+    }
+
+    public FrameWriter putInt(int value) {
+        field(BinaryProtocol.FIELD_INT32, 4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    public FrameWriter putLong(long value) {
+        field(BinaryProtocol.FIELD_INT64, 8);
+        buffer.putLong(value);
+        return this;
+    }
+
+    public FrameWriter putDouble(double value) {
+        field(BinaryProtocol.FIELD_DOUBLE, 8);
+        buffer.putDouble(value);
+        return this;
+    }
+
+    public FrameWriter putBoolean(boolean value) {
+        field(BinaryProtocol.FIELD_BOOL, 1);
+        buffer.put((byte) (value ? 1 : 0));
+        return this;
+    }
+
+    /**
+     * Writes a STRING field, or a NULL field if the value is null.
+     *
+     * @param value The text to write.
+     * @return This writer.
+     */
+    public FrameWriter putString(String value) {
+        if (value == null) {
+            return putNull();
+        }
+        field(BinaryProtocol.FIELD_STRING, 4 + value.length() * 3);
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        int start = buffer.position();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        buffer.putInt(lengthPosition, buffer.position() - start);
+        return this;
+    }
+
+    /**
+     * Writes a value of any supported type: String, Integer, Long, Double,
+     * Boolean or null. Anything else is written as its toString().
+     *
+     * @param value The value to write.
+     * @return This writer.
+     */
+    public FrameWriter putValue(Object value) {
+        if (value == null) {
+            return putNull();
+        } else if (value instanceof Integer) {
+            return putInt((Integer) value);
+        } else if (value instanceof Long) {
+            return putLong((Long) value);
+        } else if (value instanceof Double) {
+            return putDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            return putBoolean((Boolean) value);
+        }
+        return putString(value.toString());
+    }
+
+    private void field(byte tag, int maxPayload) {
+        if (frameStart < 0) {
+            throw new IllegalStateException("No frame in progress");
+        }
+        if (fieldCount == 0xFFFF) {
+            throw new IllegalStateException("Too many fields in one frame");
+        }
+        ensure(1 + maxPayload);
+        buffer.put(tag);
+        fieldCount++;
+    }
+
+    private void ensure(int extra) {
+        if (buffer.remaining() >= extra) {
+            return;
+        }
+        int needed = buffer.position() + extra;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(needed, buffer.capacity() * 2));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    /**
+     * Gets the number of bytes of finished and in-progress frames.
+     *
+     * @return The buffered size in bytes.
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Copies the finished frames into a new buffer ready for writing and
+     * clears this writer for reuse.
+     *
+     * @return A buffer positioned at 0 holding the frames.
+     */
+    public ByteBuffer drain() {
+        checkFinished();
+        ByteBuffer frames = ByteBuffer.allocate(buffer.position());
+        buffer.flip();
+        frames.put(buffer);
+        frames.flip();
+        buffer.clear();
+        return frames;
+    }
+
+    /**
+     * Writes the finished frames to a stream and clears this writer for reuse.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        checkFinished();
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    /**
+     * Discards everything written so far, including a frame in progress.
+     */
+    public void clear() {
+        buffer.clear();
+        frameStart = -1;
+        fieldCount = 0;
+    }
+
+    private void checkFinished() {
+        if (frameStart >= 0) {
+            throw new IllegalStateException("Frame not finished");
+        }
+    }
+}
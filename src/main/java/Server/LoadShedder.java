@@ -0,0 +1,197 @@
+package Server;
+
+import ENUM.UserRole;
+import Util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Decides whether to turn away low priority requests while the server is
+ * overloaded. Load is the number of requests waiting, either for a worker or
+ * for the database. Once it has stayed at or above the low watermark for the
+ * sustain period, LOW requests are shed; at or above the high watermark,
+ * NORMAL requests are shed as well. Shedding stops as soon as the load drops
+ * below half the low watermark. CRITICAL and HIGH requests are never shed
+ * here.
+ * <p>
+ * Every shed request is counted by command, role and priority. When an
+ * overload episode ends, a summary is printed, and the totals since start-up
+ * are available from {@link #getReport()} for review after an incident.
+ *
+ * @author 12223508
+ */
+public final class LoadShedder {
+
+    public static final int DEFAULT_LOW_WATERMARK = 200;
+    public static final int DEFAULT_HIGH_WATERMARK = 800;
+    public static final int DEFAULT_SUSTAIN_MILLIS = 250;
+
+    private static final long MIN_RETRY_AFTER_MILLIS = 100;
+    private static final long MAX_RETRY_AFTER_MILLIS = 5000;
+
+    private final IntSupplier load;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final long sustainNanos;
+
+    // 0 = admit everything, 1 = shed LOW, 2 = shed NORMAL and LOW. Written under this.
+    private volatile int level;
+    // The highest level the load has been over since overSince, without the level being raised yet.
+    private volatile int overLevel;
+    private long overSince;
+    private long episodeStart;
+    private long episodeShed;
+    private int episodePeakLoad;
+
+    private final Map<String, LongAdder> shed = new ConcurrentHashMap<>();
+    private final LongAdder totalShed = new LongAdder();
+    private final LongAdder episodes = new LongAdder();
+
+    /**
+     * Creates a shedder.
+     *
+     * @param load Reports the current number of waiting requests.
+     * @param lowWatermark The load at which LOW requests are shed.
+     * @param highWatermark The load at which NORMAL requests are shed too.
+     * @param sustainMillis How long the load must stay over a watermark
+     * before shedding starts.
+     */
+    public LoadShedder(IntSupplier load, int lowWatermark, int highWatermark, long sustainMillis) {
+        this.load = load;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = Math.max(lowWatermark, highWatermark);
+        this.sustainNanos = sustainMillis * 1_000_000L;
+    }
+
+    /**
+     * Decides whether a request may be queued, and records it if not.
+     *
+     * @param priority The request's priority.
+     * @param command The command, or null if unknown.
+     * @param role The client's role, or null if it has not logged in.
+     * @return true to queue the request, false to shed it.
+     */
+    public boolean admit(RequestPriority priority, Command command, UserRole role) {
+        if (!priority.isSheddable()) {
+            return true;
+        }
+        int current = updateLevel(load.getAsInt());
+        boolean admitted = current == 0 || (current == 1 && priority != RequestPriority.LOW);
+        if (!admitted) {
+            String key = (command == null ? "UNKNOWN" : command.name()) + "|"
+                    + (role == null ? "anonymous" : role.name()) + "|" + priority.name();
+            shed.computeIfAbsent(key, k -> new LongAdder()).increment();
+            totalShed.increment();
+            synchronized (this) {
+                episodeShed++;
+            }
+        }
+        return admitted;
+    }
+
+    private int updateLevel(int current) {
+        int target = current >= highWatermark ? 2 : current >= lowWatermark ? 1 : 0;
+        int now = level;
+        if (target == now && overLevel == target && (now == 0 || current >= lowWatermark / 2)) {
+            // The common case, decided without the lock
+            return now;
+        }
+        synchronized (this) {
+            long time = System.nanoTime();
+            if (level > 0) {
+                episodePeakLoad = Math.max(episodePeakLoad, current);
+            }
+            if (target > level) {
+                if (overLevel < target) {
+                    overLevel = target;
+                    overSince = time;
+                }
+                if (time - overSince >= sustainNanos) {
+                    if (level == 0) {
+                        startEpisode(time, current);
+                    }
+                    level = target;
+                }
+            } else {
+                overLevel = target;
+                overSince = time;
+                if (level > 0 && current < lowWatermark / 2) {
+                    level = 0;
+                    endEpisode(time);
+                } else if (level == 2 && target < 2) {
+                    level = 1;
+                }
+            }
+            return level;
+        }
+    }
+
+    private void startEpisode(long time, int current) {
+        episodes.increment();
+        episodeStart = time;
+        episodeShed = 0;
+        episodePeakLoad = current;
+        Log.info("Load shedding started: {} requests waiting (watermarks {}/{})",
+                current, lowWatermark, highWatermark);
+    }
+
+    private void endEpisode(long time) {
+        Log.info("Load shedding ended after {} ms: shed {} requests, peak {} waiting",
+                (time - episodeStart) / 1_000_000, episodeShed, episodePeakLoad);
+        for (String line : getReport()) {
+            Log.info("  shed since start-up: {}", line);
+        }
+    }
+
+    /**
+     * Suggests how long a shed client should wait before retrying: longer
+     * the further the load is over the low watermark.
+     *
+     * @return The delay in milliseconds.
+     */
+    public long retryAfterMillis() {
+        long over = Math.max(1, load.getAsInt() - lowWatermark / 2);
+        return Math.max(MIN_RETRY_AFTER_MILLIS, Math.min(MAX_RETRY_AFTER_MILLIS, over * 2));
+    }
+
+    /**
+     * Gets the current shedding level.
+     *
+     * @return 0 when admitting everything, 1 when shedding LOW requests, 2
+     * when shedding NORMAL ones as well.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public long getShedCount() {
+        return totalShed.sum();
+    }
+
+    public long getEpisodeCount() {
+        return episodes.sum();
+    }
+
+    /**
+     * Lists what has been shed since start-up, one line per command, role
+     * and priority, as {@code COMMAND|role|PRIORITY|count}.
+     *
+     * @return The report lines in name order.
+     */
+    public List<String> getReport() {
+        Map<String, Long> sorted = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : shed.entrySet()) {
+            sorted.put(entry.getKey(), entry.getValue().sum());
+        }
+        List<String> lines = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, Long> entry : sorted.entrySet()) {
+            lines.add(entry.getKey() + "|" + entry.getValue());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,374 @@
+package Server;
+
+import Util.ConnectionPool;
+import Util.DatabaseConnection;
+import Util.LatencyHistogram;
+import Util.Log;
+import Util.Metrics;
+import Util.SlowQueryLog;
+import Util.SqlStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@code GET /metrics} in the Prometheus text exposition format on a
+ * loopback port, using the JDK's built-in HTTP server. A scrape reads the
+ * {@link Metrics} registry and the server's pools and queues at that moment;
+ * nothing is computed between scrapes.
+ * <p>
+ * The port is {@code drs.metrics.port} (9464 by default), and
+ * {@code -Ddrs.metrics.enabled=false} turns the endpoint off. A DRS server
+ * started on port 0 serves its metrics on a free port too. If the port is
+ * taken, the DRS server still starts, without the endpoint.
+ *
+ * @author 12223508
+ */
+public final class MetricsEndpoint {
+
+    public static final int DEFAULT_PORT = 9464;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final int SQL_TEMPLATES = 20;
+
+    private final DRSServer server;
+    private final RequestDispatcher dispatcher;
+    private HttpServer http;
+    private ExecutorService scrapes;
+
+    /**
+     * Creates an endpoint for a running server.
+     *
+     * @param server The server whose connections are reported.
+     * @param dispatcher The server's dispatcher, whose pools are reported.
+     */
+    public MetricsEndpoint(DRSServer server, RequestDispatcher dispatcher) {
+        this.server = server;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Starts serving on the configured port, unless disabled by
+     * configuration.
+     *
+     * @return true if the endpoint is listening.
+     */
+    public boolean start() {
+        return start(false);
+    }
+
+    /**
+     * Starts serving, unless disabled by configuration.
+     *
+     * @param anyPort Whether to pick a free port instead of the configured
+     * one, as for a DRS server started on port 0.
+     * @return true if the endpoint is listening.
+     */
+    public boolean start(boolean anyPort) {
+        if (!Boolean.parseBoolean(System.getProperty(ServerConfig.METRICS_ENABLED, "true"))) {
+            return false;
+        }
+        return start(anyPort ? 0 : ServerConfig.intProperty(ServerConfig.METRICS_PORT, DEFAULT_PORT));
+    }
+
+    /**
+     * Starts serving on a given loopback port.
+     *
+     * @param port The port; 0 picks a free one.
+     * @return true if the endpoint is listening.
+     */
+    public boolean start(int port) {
+        try {
+            http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            Log.error("Metrics endpoint not started on port {}: {}", port, e.getMessage());
+            return false;
+        }
+        scrapes = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "drs-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        http.setExecutor(scrapes);
+        http.createContext("/metrics", this::handle);
+        http.start();
+        Log.info("Metrics endpoint is running on http://localhost:{}/metrics", getPort());
+        return true;
+    }
+
+    /**
+     * Stops serving. Called when the DRS server stops.
+     */
+    public void stop() {
+        if (http != null) {
+            http.stop(0);
+            scrapes.shutdown();
+            http = null;
+        }
+    }
+
+    /**
+     * Gets the port the endpoint listens on.
+     *
+     * @return The bound port, or -1 if not running.
+     */
+    public int getPort() {
+        return http != null ? http.getAddress().getPort() : -1;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            Log.error("Could not render metrics", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Renders every metric in the Prometheus text format.
+     *
+     * @return The scrape body.
+     */
+    String render() {
+        StringBuilder out = new StringBuilder(8192);
+        Map<String, LatencyHistogram.Snapshot> histograms = Metrics.histograms();
+        Map<String, Long> counters = Metrics.counters();
+
+        header(out, "drs_requests_total", "counter", "Requests completed, by command.");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : histograms.entrySet()) {
+            if (entry.getKey().startsWith("command.")) {
+                sample(out, "drs_requests_total", label("command", entry.getKey().substring(8)), entry.getValue().getCount());
+            }
+        }
+        header(out, "drs_request_errors_total", "counter", "Requests that failed, by command.");
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            String name = entry.getKey();
+            if (name.startsWith("command.") && name.endsWith(".errors")) {
+                sample(out, "drs_request_errors_total", label("command", name.substring(8, name.length() - 7)), entry.getValue());
+            }
+        }
+        summaries(out, histograms, "command.", "drs_request_duration_seconds", "command",
+                "Time from starting a request to its reply.");
+        summaries(out, histograms, "db.", "drs_db_duration_seconds", "method",
+                "Time spent in DatabaseConnection methods.");
+
+        header(out, "drs_open_connections", "gauge", "Client connections currently open.");
+        sample(out, "drs_open_connections", "", server.getOpenConnections());
+        header(out, "drs_queue_depth", "gauge", "Requests and connections waiting for a thread, all pools together.");
+        sample(out, "drs_queue_depth", "", server.getQueueDepth());
+        header(out, "drs_rejected_total", "counter", "Requests and connections answered BUSY, all pools together.");
+        sample(out, "drs_rejected_total", "", server.getRejectedCount());
+        poolMetrics(out);
+
+        LoadShedder shedder = dispatcher.getLoadShedder();
+        header(out, "drs_shed_total", "counter", "Requests shed under overload.");
+        sample(out, "drs_shed_total", "", shedder.getShedCount());
+        header(out, "drs_shed_level", "gauge", "0 when admitting everything, 1 when shedding LOW, 2 when shedding NORMAL too.");
+        sample(out, "drs_shed_level", "", shedder.getLevel());
+
+        header(out, "drs_db_permits_available", "gauge", "Database calls that could start right now.");
+        sample(out, "drs_db_permits_available", "", dispatcher.getAvailableDbPermits());
+        header(out, "drs_db_permits_waiting", "gauge", "Requests waiting for a database permit.");
+        sample(out, "drs_db_permits_waiting", "", dispatcher.getDbQueueLength());
+        connectionPoolMetrics(out);
+        sqlMetrics(out);
+
+        header(out, "drs_sessions", "gauge", "Logged in sessions that have not expired.");
+        sample(out, "drs_sessions", "", dispatcher.getSessions().size());
+
+        SubscriptionHub subscriptions = dispatcher.getSubscriptions();
+        header(out, "drs_subscribers", "gauge", "Connections subscribed to report changes.");
+        sample(out, "drs_subscribers", "", subscriptions.getSubscriberCount());
+        header(out, "drs_events_published_total", "counter", "Report change events pushed to subscribers.");
+        sample(out, "drs_events_published_total", "", subscriptions.getPublishedCount());
+        header(out, "drs_events_dropped_total", "counter", "Report change events dropped for slow subscribers.");
+        sample(out, "drs_events_dropped_total", "", subscriptions.getDroppedCount());
+
+        jvmMetrics(out);
+        return out.toString();
+    }
+
+    private void poolMetrics(StringBuilder out) {
+        Bulkheads bulkheads = dispatcher.getBulkheads();
+        header(out, "drs_pool_queue_depth", "gauge", "Requests waiting for a worker, by pool.");
+        for (CommandClass commandClass : CommandClass.values()) {
+            sample(out, "drs_pool_queue_depth", poolLabel(commandClass), bulkheads.forClass(commandClass).getQueueDepth());
+        }
+        header(out, "drs_pool_queue_limit", "gauge", "Most requests a pool queues before answering BUSY.");
+        for (CommandClass commandClass : CommandClass.values()) {
+            sample(out, "drs_pool_queue_limit", poolLabel(commandClass), bulkheads.forClass(commandClass).getQueueLimit());
+        }
+        header(out, "drs_pool_active_threads", "gauge", "Workers running a request, by pool.");
+        for (CommandClass commandClass : CommandClass.values()) {
+            sample(out, "drs_pool_active_threads", poolLabel(commandClass), bulkheads.forClass(commandClass).getActiveCount());
+        }
+        header(out, "drs_pool_completed_total", "counter", "Requests run to completion, by pool.");
+        for (CommandClass commandClass : CommandClass.values()) {
+            sample(out, "drs_pool_completed_total", poolLabel(commandClass), bulkheads.forClass(commandClass).getCompletedCount());
+        }
+        header(out, "drs_pool_rejected_total", "counter", "Requests answered BUSY because the pool was full.");
+        for (CommandClass commandClass : CommandClass.values()) {
+            sample(out, "drs_pool_rejected_total", poolLabel(commandClass), bulkheads.forClass(commandClass).getRejectedCount());
+        }
+    }
+
+    private static String poolLabel(CommandClass commandClass) {
+        return label("pool", commandClass.name().toLowerCase(Locale.ROOT));
+    }
+
+    private static void connectionPoolMetrics(StringBuilder out) {
+        ConnectionPool pool = DatabaseConnection.peekConnectionPool();
+        if (pool == null) {
+            return;
+        }
+        header(out, "drs_db_connections", "gauge", "Pooled database connections, by state.");
+        sample(out, "drs_db_connections", label("state", "active"), pool.getActiveConnections());
+        sample(out, "drs_db_connections", label("state", "idle"), pool.getIdleConnections());
+        header(out, "drs_db_connections_max", "gauge", "Most database connections the pool opens.");
+        sample(out, "drs_db_connections_max", "", pool.getMaxSize());
+        header(out, "drs_db_pool_waiting_threads", "gauge", "Threads waiting to borrow a connection.");
+        sample(out, "drs_db_pool_waiting_threads", "", pool.getWaitingThreads());
+        header(out, "drs_db_pool_borrows_total", "counter", "Connections borrowed from the pool.");
+        sample(out, "drs_db_pool_borrows_total", "", pool.getBorrowCount());
+        header(out, "drs_db_pool_timeouts_total", "counter", "Borrows that timed out waiting for a connection.");
+        sample(out, "drs_db_pool_timeouts_total", "", pool.getTimeoutCount());
+    }
+
+    /**
+     * Writes the SQL templates that took the most time altogether.
+     */
+    private static void sqlMetrics(StringBuilder out) {
+        Iterable<SqlStats.TemplateStats> top = SqlStats.top(SQL_TEMPLATES);
+        header(out, "drs_sql_duration_seconds", "summary", "Time per SQL statement template, including reading rows.");
+        for (SqlStats.TemplateStats sql : top) {
+            LatencyHistogram.Snapshot latency = sql.getLatency();
+            String template = label("template", sql.getTemplate());
+            for (double quantile : QUANTILES) {
+                sample(out, "drs_sql_duration_seconds", template + ",quantile=\"" + quantile + "\"",
+                        latency.percentile(quantile) / 1e9);
+            }
+            sample(out, "drs_sql_duration_seconds_sum", template, latency.getSum() / 1e9);
+            sample(out, "drs_sql_duration_seconds_count", template, latency.getCount());
+        }
+        header(out, "drs_sql_rows_total", "counter", "Rows read or changed, by SQL statement template.");
+        for (SqlStats.TemplateStats sql : top) {
+            sample(out, "drs_sql_rows_total", label("template", sql.getTemplate()), sql.getRows());
+        }
+        header(out, "drs_sql_slow_total", "counter", "Statements over the slow query threshold, by template.");
+        for (SqlStats.TemplateStats sql : top) {
+            sample(out, "drs_sql_slow_total", label("template", sql.getTemplate()), sql.getSlowCount());
+        }
+        header(out, "drs_slow_query_log_dropped_total", "counter", "Slow statements not logged because the writer fell behind.");
+        sample(out, "drs_slow_query_log_dropped_total", "", SlowQueryLog.getDroppedCount());
+        header(out, "drs_log_dropped_total", "counter", "Log messages dropped because the log writer fell behind.");
+        sample(out, "drs_log_dropped_total", "", Log.getDroppedCount());
+        header(out, "drs_log_suppressed_total", "counter", "Repeated warnings and errors suppressed by the log rate limit.");
+        sample(out, "drs_log_suppressed_total", "", Log.getSuppressedCount());
+    }
+
+    private static void jvmMetrics(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        header(out, "jvm_memory_bytes_used", "gauge", "Used bytes of a JVM memory area.");
+        sample(out, "jvm_memory_bytes_used", label("area", "heap"), heap.getUsed());
+        sample(out, "jvm_memory_bytes_used", label("area", "nonheap"), nonHeap.getUsed());
+        header(out, "jvm_memory_bytes_committed", "gauge", "Committed bytes of a JVM memory area.");
+        sample(out, "jvm_memory_bytes_committed", label("area", "heap"), heap.getCommitted());
+        sample(out, "jvm_memory_bytes_committed", label("area", "nonheap"), nonHeap.getCommitted());
+        header(out, "jvm_memory_bytes_max", "gauge", "Max bytes of a JVM memory area, -1 if unbounded.");
+        sample(out, "jvm_memory_bytes_max", label("area", "heap"), heap.getMax());
+        sample(out, "jvm_memory_bytes_max", label("area", "nonheap"), nonHeap.getMax());
+
+        header(out, "jvm_memory_pool_bytes_used", "gauge", "Used bytes of a JVM memory pool.");
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            sample(out, "jvm_memory_pool_bytes_used", label("pool", pool.getName()), pool.getUsage().getUsed());
+        }
+
+        header(out, "jvm_gc_collection_seconds_count", "counter", "Garbage collections, by collector.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collection_seconds_count", label("gc", gc.getName()), Math.max(0, gc.getCollectionCount()));
+        }
+        header(out, "jvm_gc_collection_seconds_sum", "counter", "Time spent in garbage collection, by collector.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collection_seconds_sum", label("gc", gc.getName()), Math.max(0, gc.getCollectionTime()) / 1000.0);
+        }
+
+        header(out, "jvm_threads_current", "gauge", "Live JVM platform threads.");
+        sample(out, "jvm_threads_current", "", ManagementFactory.getThreadMXBean().getThreadCount());
+        header(out, "process_uptime_seconds", "gauge", "Seconds since the JVM started.");
+        sample(out, "process_uptime_seconds", "", ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    /**
+     * Writes every histogram whose name starts with the prefix as one
+     * summary, labelled with the rest of the name.
+     */
+    private static void summaries(StringBuilder out, Map<String, LatencyHistogram.Snapshot> histograms, String prefix,
+            String metric, String labelName, String help) {
+        header(out, metric, "summary", help);
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : histograms.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            String name = entry.getKey().substring(prefix.length());
+            LatencyHistogram.Snapshot snapshot = entry.getValue();
+            for (double quantile : QUANTILES) {
+                sample(out, metric, label(labelName, name) + ",quantile=\"" + quantile + "\"",
+                        snapshot.percentile(quantile) / 1e9);
+            }
+            sample(out, metric + "_sum", label(labelName, name), snapshot.getSum() / 1e9);
+            sample(out, metric + "_count", label(labelName, name), snapshot.getCount());
+        }
+    }
+
+    private static void header(StringBuilder out, String metric, String type, String help) {
+        out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String metric, String labels, long value) {
+        out.append(metric);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String metric, String labels, double value) {
+        out.append(metric);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+}
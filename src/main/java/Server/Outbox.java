@@ -0,0 +1,151 @@
+package Server;
+
+import Util.Log;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The output of one blocking connection, queued for the connection's own
+ * thread to write. Request workers and subscriber threads only add to it, so
+ * a client that is slow to read holds up its connection thread rather than a
+ * bulkhead worker.
+ *
+ * @author 12223508
+ */
+final class Outbox {
+
+    // A sender waits once this much output is queued for a slow client.
+    private static final int HIGH_WATER = 256 * 1024;
+    // How long a sender waits for a client that reads nothing before dropping it
+    private static final long STALL_MILLIS = 30_000;
+
+    private final Closeable connection;
+    private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+    private int queuedBytes;
+    private boolean finished;
+    private boolean failed;
+
+    /**
+     * Creates an empty outbox.
+     *
+     * @param connection Closed when a sender gives up on the client, so that
+     * the thread blocked writing to it is released.
+     */
+    Outbox(Closeable connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Queues bytes for writing. Waits while more than the high water mark is
+     * queued; a client that reads nothing for {@link #STALL_MILLIS} is
+     * disconnected.
+     *
+     * @param bytes The bytes, from position to limit. Not copied.
+     * @throws IOException If the connection has failed or been closed.
+     */
+    void send(ByteBuffer bytes) throws IOException {
+        boolean stalled = false;
+        synchronized (this) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS);
+            while (queuedBytes > HIGH_WATER && !failed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    stalled = true;
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the client to read");
+                }
+            }
+            if (failed || finished) {
+                throw new IOException("Connection closed");
+            }
+            if (!stalled) {
+                queue.add(bytes);
+                queuedBytes += bytes.remaining();
+                notifyAll();
+                return;
+            }
+        }
+        Log.warn("Closing client that has not read for {} ms", STALL_MILLIS);
+        close();
+        throw new IOException("Client stopped reading");
+    }
+
+    /**
+     * Writes queued output until {@link #finish} has been called and the
+     * queue is empty, flushing whenever it runs dry. Called on the
+     * connection's own thread.
+     *
+     * @param out The socket stream.
+     * @throws IOException If writing fails; nothing more is accepted then.
+     */
+    void drainTo(OutputStream out) throws IOException {
+        try {
+            while (true) {
+                ByteBuffer bytes;
+                boolean more;
+                synchronized (this) {
+                    while (queue.isEmpty() && !finished && !failed) {
+                        wait();
+                    }
+                    if (failed) {
+                        throw new IOException("Connection closed");
+                    }
+                    if (queue.isEmpty()) {
+                        // Flushed when the last bytes were written
+                        return;
+                    }
+                    bytes = queue.poll();
+                    queuedBytes -= bytes.remaining();
+                    more = !queue.isEmpty();
+                    notifyAll();
+                }
+                out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                if (!more) {
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail();
+            throw new InterruptedIOException("Interrupted while writing to the client");
+        } catch (IOException e) {
+            fail();
+            throw e;
+        }
+    }
+
+    /**
+     * Accepts no more output; {@link #drainTo} returns once what is queued
+     * has been written.
+     */
+    synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    private synchronized void fail() {
+        failed = true;
+        queue.clear();
+        queuedBytes = 0;
+        notifyAll();
+    }
+
+    private void close() {
+        fail();
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // Closing only releases the writer; there is nothing else to do.
+        }
+    }
+}
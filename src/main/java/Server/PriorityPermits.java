@@ -0,0 +1,89 @@
+package Server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A counting semaphore that hands free permits to the highest priority
+ * waiter first, and to waiters of equal priority in arrival order. Under
+ * overload, report lists therefore wait for the database while new reports
+ * and status updates go ahead of them.
+ *
+ * @author 12223508
+ */
+final class PriorityPermits {
+
+    // Guarded by this. One queue of waiting callers per priority, highest first.
+    private int available;
+    private final List<ArrayDeque<Object>> waiters = new ArrayList<>();
+
+    PriorityPermits(int permits) {
+        this.available = permits;
+        for (int i = 0; i < RequestPriority.values().length; i++) {
+            waiters.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Takes a permit, waiting while none is free or a more important or
+     * earlier request is waiting for one.
+     *
+     * @param priority The priority of the caller's request.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    synchronized void acquire(RequestPriority priority) throws InterruptedException {
+        if (available > 0 && nextWaiter() == null) {
+            available--;
+            return;
+        }
+        ArrayDeque<Object> queue = waiters.get(priority.ordinal());
+        Object waiter = new Object();
+        queue.add(waiter);
+        try {
+            while (available == 0 || nextWaiter() != waiter) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            queue.remove(waiter);
+            notifyAll();
+            throw e;
+        }
+        queue.poll();
+        available--;
+        if (available > 0) {
+            notifyAll();
+        }
+    }
+
+    private Object nextWaiter() {
+        for (ArrayDeque<Object> queue : waiters) {
+            if (!queue.isEmpty()) {
+                return queue.peek();
+            }
+        }
+        return null;
+    }
+
+    synchronized void release() {
+        available++;
+        notifyAll();
+    }
+
+    synchronized int availablePermits() {
+        return available;
+    }
+
+    /**
+     * Gets the number of callers waiting for a permit.
+     *
+     * @return The waiting count across all priorities.
+     */
+    synchronized int getQueueLength() {
+        int total = 0;
+        for (ArrayDeque<Object> queue : waiters) {
+            total += queue.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,63 @@
+package Server;
+
+/**
+ * The result of a command: a status code such as "REPORT_ADDED" plus any
+ * values that go with it. The text protocol renders it as
+ * {@code STATUS|value|value}; the binary protocol sends the status and each
+ * value as typed fields.
+ *
+ * @author 12223508
+ */
+public final class Reply {
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private final String status;
+    private final Object[] values;
+
+    private Reply(String status, Object[] values) {
+        this.status = status;
+        this.values = values;
+    }
+
+    /**
+     * Creates a reply.
+     *
+     * @param status The status code.
+     * @param values Values of type String, Integer, Long, Double, Boolean or
+     * null.
+     * @return The reply.
+     */
+    public static Reply of(String status, Object... values) {
+        return new Reply(status, values.length == 0 ? NO_VALUES : values);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    /**
+     * Renders the reply as a text protocol response line.
+     *
+     * @return The status followed by '|' separated values.
+     */
+    public String toText() {
+        if (values.length == 0) {
+            return status;
+        }
+        StringBuilder text = new StringBuilder(status);
+        for (Object value : values) {
+            text.append('|').append(value);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
@@ -0,0 +1,61 @@
+package Server;
+
+/**
+ * Positional arguments of a request, independent of the wire protocol they
+ * arrived in. Index 0 is the first argument after the command.
+ *
+ * @author 12223508
+ */
+public interface RequestArgs {
+
+    /**
+     * Gets the number of arguments.
+     *
+     * @return The argument count.
+     */
+    int size();
+
+    /**
+     * Gets an argument as text.
+     *
+     * @param index The argument index.
+     * @return The argument, or null for a null binary field.
+     * @throws IndexOutOfBoundsException If the argument is missing.
+     */
+    String getString(int index);
+
+    /**
+     * Gets an argument as an int.
+     *
+     * @param index The argument index.
+     * @return The argument value.
+     * @throws IndexOutOfBoundsException If the argument is missing.
+     * @throws NumberFormatException If the argument is not a number.
+     */
+    int getInt(int index);
+
+    /**
+     * Wraps the fields of a split text request line.
+     *
+     * @param parts The fields, including the command name at index 0.
+     * @return The arguments after the command name.
+     */
+    static RequestArgs ofText(String[] parts) {
+        return new RequestArgs() {
+            @Override
+            public int size() {
+                return parts.length - 1;
+            }
+
+            @Override
+            public String getString(int index) {
+                return parts[index + 1];
+            }
+
+            @Override
+            public int getInt(int index) {
+                return Integer.parseInt(parts[index + 1].trim());
+            }
+        };
+    }
+}
@@ -0,0 +1,1010 @@
+package Server;
+
+import ENUM.Department;
+import ENUM.ResponseStatus;
+import ENUM.UserRole;
+import Model.LogEntry;
+import Model.Report;
+import Util.DatabaseConnection;
+import Util.LatencyHistogram;
+import Util.Log;
+import Util.Metrics;
+import Util.ReportQuery;
+import Util.SqlStats;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Runs DRS commands for both the text and the binary protocol. The dispatcher
+ * holds no per-connection state, so one instance is shared by every
+ * connection and may be called from any worker thread.
+ * <p>
+ * Commands that reach the database run under a semaphore. That keeps the
+ * number of concurrent JDBC calls bounded even when connections themselves are
+ * not, as with one virtual thread per connection. Waiting requests get the
+ * database in {@link RequestPriority} order, and report lists are shed by the
+ * {@link LoadShedder} while the server is overloaded.
+ * <p>
+ * Every command is timed into the {@link Metrics} histogram
+ * {@code command.<NAME>}, and failed ones are counted in
+ * {@code command.<NAME>.errors}. STATS returns them to the client. Each
+ * command is also a {@link CommandEvent} in Java Flight Recorder recordings.
+ *
+ * @author 12223508
+ */
+public class RequestDispatcher {
+
+    private static final int DEFAULT_DB_CONCURRENCY = 10;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    private static final int ADD_BATCH_FIELDS = 5;
+    private static final int UPDATE_BATCH_FIELDS = 3;
+    private static final int STATS_SQL_TEMPLATES = 10;
+    private static final String NOT_AUTHORISED = "NOT_AUTHORISED";
+
+    private final DatabaseConnection dbManager;
+    private final PriorityPermits dbPermits;
+    private final SubscriptionHub subscriptions;
+    private final Bulkheads bulkheads;
+    private final LoadShedder shedder;
+    private final SessionStore sessions;
+    private final int maxBatchSize = ServerConfig.intProperty(ServerConfig.MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE);
+
+    /**
+     * Creates a dispatcher backed by a new DatabaseConnection, allowing as
+     * many concurrent database calls as {@code drs.db.maxConcurrency}.
+     */
+    public RequestDispatcher() {
+        this(new SessionStore());
+    }
+
+    /**
+     * Creates a dispatcher that keeps its logged in sessions in the given
+     * store.
+     *
+     * @param sessions The session store; shut down with the dispatcher.
+     */
+    public RequestDispatcher(SessionStore sessions) {
+        this(sessions, ExecutionMode.PLATFORM_POOL);
+    }
+
+    /**
+     * Creates a dispatcher for a server running in the given execution mode,
+     * which decides whether requests run on platform or virtual threads.
+     *
+     * @param sessions The session store; shut down with the dispatcher.
+     * @param mode How the server maps connections onto threads.
+     */
+    public RequestDispatcher(SessionStore sessions, ExecutionMode mode) {
+        this(ServerConfig.intProperty(ServerConfig.DB_CONCURRENCY, DEFAULT_DB_CONCURRENCY), sessions, mode);
+    }
+
+    /**
+     * Creates a dispatcher with an explicit database concurrency limit.
+     *
+     * @param dbConcurrency The maximum number of concurrent database calls.
+     */
+    public RequestDispatcher(int dbConcurrency) {
+        this(dbConcurrency, new SessionStore(), ExecutionMode.PLATFORM_POOL);
+    }
+
+    private RequestDispatcher(int dbConcurrency, SessionStore sessions, ExecutionMode mode) {
+        this.sessions = sessions;
+        this.bulkheads = new Bulkheads(mode);
+        this.dbManager = new DatabaseConnection();
+        this.dbPermits = new PriorityPermits(dbConcurrency);
+        this.shedder = new LoadShedder(() -> bulkheads.getQueueDepth() + dbPermits.getQueueLength(),
+                ServerConfig.intProperty(ServerConfig.SHED_LOW_WATERMARK, LoadShedder.DEFAULT_LOW_WATERMARK),
+                ServerConfig.intProperty(ServerConfig.SHED_HIGH_WATERMARK, LoadShedder.DEFAULT_HIGH_WATERMARK),
+                ServerConfig.intProperty(ServerConfig.SHED_SUSTAIN_MILLIS, LoadShedder.DEFAULT_SUSTAIN_MILLIS));
+        this.subscriptions = new SubscriptionHub();
+        DatabaseConnection.addReportChangeListener(subscriptions);
+    }
+
+    /**
+     * Processes one request line and returns the response to write back.
+     *
+     * @param request The raw request line, fields separated by '|'.
+     * @return The response line.
+     */
+    public String process(String request) {
+        return process(request, null);
+    }
+
+    /**
+     * Processes one request line for a connection that can receive pushed
+     * events.
+     *
+     * @param request The raw request line, fields separated by '|'.
+     * @param client The connection's context, or null if it cannot
+     * subscribe.
+     * @return The response line.
+     */
+    String process(String request, ClientContext client) {
+        String[] parts = request.split("\\|");
+        Command command = Command.fromName(parts[0]);
+        if (command == null) {
+            return "Unknown command";
+        }
+        return execute(command, RequestArgs.ofText(parts), client).toText();
+    }
+
+    /**
+     * Runs a command with already parsed arguments. Used by both the text and
+     * the binary protocol.
+     *
+     * @param command The command to run.
+     * @param args The command's arguments.
+     * @return The reply.
+     */
+    public Reply execute(Command command, RequestArgs args) {
+        return execute(command, args, null);
+    }
+
+    /**
+     * Runs a command for a connection that can receive pushed events.
+     *
+     * @param command The command to run.
+     * @param args The command's arguments.
+     * @param client The connection's context, or null if it cannot
+     * subscribe.
+     * @return The reply.
+     */
+    Reply execute(Command command, RequestArgs args, ClientContext client) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        if (client != null) {
+            keepAlive(client);
+        }
+        Reply reply = run(command, args, client);
+        recordCommand(command, start, reply.getStatus());
+        if (event.isEnabled()) {
+            event.complete(command, RequestPriority.of(command, client == null ? null : client.getRole()),
+                    reportId(command, args, reply), reply.getStatus());
+        }
+        return reply;
+    }
+
+    /**
+     * Extends the connection's session, or forgets it if it has expired, so
+     * that the request runs with the role it is still entitled to. This
+     * needs no database access.
+     */
+    private void keepAlive(ClientContext client) {
+        Session session = client.getSession();
+        if (session != null && !sessions.touch(session)) {
+            client.setSession(null);
+        }
+    }
+
+    /**
+     * Finds the report a command added or changed, for its flight recorder
+     * event.
+     */
+    private static long reportId(Command command, RequestArgs args, Reply reply) {
+        if (command == Command.ADD_REPORT && reply.getValues().length > 0 && reply.getValues()[0] instanceof Long) {
+            return (Long) reply.getValues()[0];
+        }
+        if ((command == Command.UPDATE_REPORT || command == Command.APPEND_LOG || command == Command.ADD_RESOURCE) && args.size() > 0) {
+            String id = args.getString(0);
+            return isReportId(id) ? Long.parseLong(id.trim()) : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Records the time a command took and whether it failed.
+     *
+     * @param command The command.
+     * @param startNanos A {@link System#nanoTime()} taken when it started.
+     * @param status The status it replied with.
+     */
+    static void recordCommand(Command command, long startNanos, String status) {
+        String name = "command." + command.name();
+        Metrics.record(name, startNanos);
+        if (isError(status)) {
+            Metrics.counter(name + ".errors").increment();
+        }
+    }
+
+    private static boolean isError(String status) {
+        return status.startsWith("DATABASE_ERROR") || status.equals("INVALID_REQUEST") || status.equals("SERVER_BUSY")
+                || status.equals("SERVER_ERROR") || status.equals("SERVER_NOT_RUNNING");
+    }
+
+    private Reply run(Command command, RequestArgs args, ClientContext client) {
+        RequestPriority priority = RequestPriority.of(command, client == null ? null : client.getRole());
+        Subscriber subscriber = client == null ? null : client.getSubscriber();
+        try {
+            switch (command) {
+                case LOGIN:
+                    return login(args, client);
+                case RESUME:
+                    return resume(args, client);
+                case LOGOUT:
+                    return logout(client);
+                case ADD_REPORT:
+                    return addReport(args);
+                case GET_REPORTS:
+                    if (args.size() == 0) {
+                        return Reply.of(withDbPermit(priority, dbManager::getReports));
+                    }
+                    return reportPage(reportQuery(args), priority);
+                case SYNC_REPORTS:
+                    return syncReports(args, priority);
+                case ADD_REPORTS_BATCH:
+                    return addReportsBatch(args);
+                case UPDATE_REPORTS_BATCH:
+                    return updateReportsBatch(args, client);
+                case UPDATE_REPORT:
+                    return updateReport(args, client, priority);
+                case APPEND_LOG:
+                    return appendLog(args, client, priority);
+                case ADD_RESOURCE:
+                    return addResource(args, client, priority);
+                case PING:
+                    return Reply.of("PONG");
+                case EXIT:
+                    return Reply.of("Goodbye!");
+                case SUBSCRIBE:
+                    if (subscriber == null) {
+                        return Reply.of("SUBSCRIBE_UNSUPPORTED");
+                    }
+                    return subscribe(subscriber, args, client.getSession());
+                case UNSUBSCRIBE:
+                    if (subscriber != null) {
+                        subscriptions.unsubscribe(subscriber);
+                    }
+                    return Reply.of("UNSUBSCRIBED");
+                case STATS:
+                    return isAdmin(client) ? stats() : Reply.of(NOT_AUTHORISED);
+                default:
+                    return Reply.of("Unknown command");
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            return Reply.of("INVALID_REQUEST");
+        }
+    }
+
+    private static boolean isAdmin(ClientContext client) {
+        Session session = sessionOf(client);
+        return session != null && session.isAdmin();
+    }
+
+    private static Session sessionOf(ClientContext client) {
+        return client == null ? null : client.getSession();
+    }
+
+    private static boolean isCoordinator(Session session) {
+        return session.isAdmin() || session.getRole() == UserRole.Coordinator;
+    }
+
+    /**
+     * Checks that a session may set a report column: the coordinator and
+     * admins any, a department only its own status column.
+     */
+    private static boolean mayWriteColumn(Session session, String column) {
+        if (isCoordinator(session)) {
+            return true;
+        }
+        Department department = session.getDepartment();
+        return department != null && (department.name().toLowerCase() + "_status").equals(column);
+    }
+
+    /**
+     * Checks that a session may write to a report: the coordinator and
+     * admins to any, a department only to the reports it is responsible
+     * for. Reports are read through the report detail cache.
+     *
+     * @return Whether it may, or null if the report could not be read.
+     */
+    private Boolean mayWriteReport(Session session, String reportId, RequestPriority priority) {
+        if (isCoordinator(session)) {
+            return true;
+        }
+        Department department = session.getDepartment();
+        if (department == null || !isReportId(reportId)) {
+            return false;
+        }
+        return withDbPermit(priority, () -> {
+            try {
+                Report report = DatabaseConnection.getReportDetail(Integer.parseInt(reportId.trim()));
+                // A missing report is left to the write, which replies that it was not found
+                return report == null || report.getDepartmentStatus(department) != ResponseStatus.NOT_RESPONSIBLE;
+            } catch (SQLException e) {
+                Log.error("Could not read report {}: {}", reportId, e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Refuses a write to a report unless the session may make it.
+     *
+     * @return null if the write may go ahead, else the reply to send.
+     */
+    private Reply refuseReportWrite(Session session, String reportId, RequestPriority priority) {
+        if (session == null) {
+            return Reply.of(NOT_AUTHORISED);
+        }
+        Boolean allowed = mayWriteReport(session, reportId, priority);
+        if (allowed == null) {
+            return Reply.of("DATABASE_ERROR");
+        }
+        return allowed ? null : Reply.of(NOT_AUTHORISED);
+    }
+
+    /**
+     * Subscribes a connection to the topics named in the request, as far as
+     * its session may follow them: the coordinator and admins may follow
+     * any, a department only its own, and a connection without a session
+     * none. A department that names no topic follows its own department.
+     */
+    private Reply subscribe(Subscriber subscriber, RequestArgs args, Session session) {
+        if (session == null) {
+            return Reply.of(NOT_AUTHORISED);
+        }
+        if (isCoordinator(session)) {
+            return subscriptions.subscribe(subscriber, args);
+        }
+        Department department = session.getDepartment();
+        if (department == null) {
+            return Reply.of(NOT_AUTHORISED);
+        }
+        for (int i = 0; i < args.size(); i++) {
+            if (!department.name().equals(args.getString(i))) {
+                return Reply.of(NOT_AUTHORISED);
+            }
+        }
+        return subscriptions.subscribe(subscriber, false, EnumSet.of(department));
+    }
+
+    /**
+     * Builds the STATS reply, one line per metric:
+     * <pre>
+     * STATS|uptimeMillis
+     * COUNT|name|value
+     * LATENCY|name|count|p50|p99|p999|max
+     * SQL|count|p50|p99|p999|max|rows|slow|template
+     * END
+     * </pre>
+     * Latencies are in microseconds. The COUNT lines include the error
+     * counters, the server's queue depth, rejections and shed requests, and
+     * the number of live sessions.
+     * The SQL lines are the statement templates that took the most time
+     * altogether, most first. Only admin sessions may ask for it.
+     */
+    private Reply stats() {
+        StringBuilder text = new StringBuilder("STATS|").append(Metrics.uptimeMillis()).append('\n');
+        Map<String, Long> counters = Metrics.counters();
+        counters.put("server.queueDepth", (long) bulkheads.getQueueDepth());
+        counters.put("server.rejected", bulkheads.getRejectedCount());
+        counters.put("server.shed", shedder.getShedCount());
+        counters.put("server.dbPermitsAvailable", (long) dbPermits.availablePermits());
+        counters.put("server.dbWaiting", (long) dbPermits.getQueueLength());
+        counters.put("server.sessions", (long) sessions.size());
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            text.append("COUNT|").append(counter.getKey()).append('|').append(counter.getValue()).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : Metrics.histograms().entrySet()) {
+            LatencyHistogram.Snapshot latency = entry.getValue();
+            text.append("LATENCY|").append(entry.getKey())
+                    .append('|').append(latency.getCount())
+                    .append('|').append(latency.percentile(0.5) / 1000)
+                    .append('|').append(latency.percentile(0.99) / 1000)
+                    .append('|').append(latency.percentile(0.999) / 1000)
+                    .append('|').append(latency.getMax() / 1000)
+                    .append('\n');
+        }
+        for (SqlStats.TemplateStats sql : SqlStats.top(STATS_SQL_TEMPLATES)) {
+            LatencyHistogram.Snapshot latency = sql.getLatency();
+            text.append("SQL|").append(latency.getCount())
+                    .append('|').append(latency.percentile(0.5) / 1000)
+                    .append('|').append(latency.percentile(0.99) / 1000)
+                    .append('|').append(latency.percentile(0.999) / 1000)
+                    .append('|').append(latency.getMax() / 1000)
+                    .append('|').append(sql.getRows())
+                    .append('|').append(sql.getSlowCount())
+                    .append('|').append(sql.getTemplate())
+                    .append('\n');
+        }
+        return Reply.of(text.append("END").toString());
+    }
+
+    /**
+     * Checks a login and, if it succeeds, starts a session with the user's
+     * role and department and binds it to the connection, so that its later
+     * requests are ranked, and authorised, without reading the users table.
+     * Replies {@code LOGIN_SUCCESS|token|role}; the token lets another
+     * connection RESUME the session.
+     */
+    private Reply login(RequestArgs args, ClientContext client) {
+        String username = args.getString(0);
+        String role = args.getString(2);
+        String result = withDbPermit(RequestPriority.HIGH, () -> DatabaseConnection.checkLogin(username, args.getString(1), role));
+        String success = "LOGIN_SUCCESS|";
+        if (!result.startsWith(success)) {
+            return Reply.of(result);
+        }
+        String storedRole = result.substring(success.length());
+        UserRole sessionRole = storedRole.startsWith("Utility_") ? userRole(storedRole) : userRole(role);
+        Session session = sessions.create(username, sessionRole, storedRole.equalsIgnoreCase("admin"));
+        if (client != null) {
+            client.setSession(session);
+        }
+        return Reply.of("LOGIN_SUCCESS", session.getToken(), sessionRole == null ? null : sessionRole.name());
+    }
+
+    /**
+     * Binds an existing session to the connection, e.g. after reconnecting.
+     * Replies {@code SESSION_RESUMED|username|role}, or
+     * {@code SESSION_EXPIRED} if the token is unknown or has expired.
+     */
+    private Reply resume(RequestArgs args, ClientContext client) {
+        Session session = sessions.get(args.getString(0));
+        if (session == null) {
+            return Reply.of("SESSION_EXPIRED");
+        }
+        if (client != null) {
+            client.setSession(session);
+        }
+        return Reply.of("SESSION_RESUMED", session.getUsername(),
+                session.getRole() == null ? null : session.getRole().name());
+    }
+
+    private Reply logout(ClientContext client) {
+        Session session = client == null ? null : client.getSession();
+        if (session != null) {
+            sessions.remove(session);
+            client.setSession(null);
+        }
+        return Reply.of("LOGGED_OUT");
+    }
+
+    private static UserRole userRole(String name) {
+        for (UserRole role : UserRole.values()) {
+            if (role.name().equalsIgnoreCase(name)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    private Reply addReport(RequestArgs args) {
+        String result = withDbPermit(RequestPriority.CRITICAL, () -> dbManager.addReport(args.getString(0), args.getString(1),
+                args.getString(2), args.getString(3), args.getString(4)));
+        String added = "REPORT_ADDED|";
+        if (result.startsWith(added)) {
+            return Reply.of("REPORT_ADDED", Long.parseLong(result.substring(added.length())));
+        }
+        return Reply.of(result);
+    }
+
+    /**
+     * Sets one column of a report: {@code UPDATE_REPORT|reportId|column|value}.
+     * Needs a session; a department may only set its own status column on
+     * reports it is responsible for.
+     */
+    private Reply updateReport(RequestArgs args, ClientContext client, RequestPriority priority) {
+        Session session = sessionOf(client);
+        if (session == null || !mayWriteColumn(session, args.getString(1))) {
+            return Reply.of(NOT_AUTHORISED);
+        }
+        Reply refused = refuseReportWrite(session, args.getString(0), priority);
+        if (refused != null) {
+            return refused;
+        }
+        return Reply.of(withDbPermit(priority, () -> dbManager.updateReport(args.getString(0), args.getString(1), args.getString(2))));
+    }
+
+    /**
+     * Appends an entry to a report's communication log:
+     * {@code APPEND_LOG|reportId|text}. The entry is signed with the
+     * session's user and department, or the coordinator's. Replies
+     * {@code LOG_APPENDED|entryId|entry} with the entry as shown in the log;
+     * entry ids increase, so the id is also the log's version. The reply
+     * carries only the new entry, however long the log is. Needs a session;
+     * a department may only append to reports it is responsible for.
+     */
+    private Reply appendLog(RequestArgs args, ClientContext client, RequestPriority priority) {
+        Session session = sessionOf(client);
+        if (session == null) {
+            return Reply.of(NOT_AUTHORISED);
+        }
+        int reportId = args.getInt(0);
+        String text = rest(args, 1);
+        if (reportId < 1 || isBlank(text)) {
+            return Reply.of("INVALID_REQUEST");
+        }
+        Reply refused = refuseReportWrite(session, args.getString(0), priority);
+        if (refused != null) {
+            return refused;
+        }
+        String author = session.getUsername();
+        String department = null;
+        if (session.getDepartment() != null) {
+            department = session.getDepartment().name();
+        } else if (isCoordinator(session)) {
+            department = LogEntry.COORDINATOR;
+        }
+        String signedBy = department;
+        return withDbPermit(priority, () -> {
+            try {
+                LogEntry entry = DatabaseConnection.appendLogEntry(reportId, signedBy, author, text.trim());
+                return entry == null ? Reply.of("REPORT_NOT_FOUND") : Reply.of("LOG_APPENDED", entry.getId(), entry.toString());
+            } catch (SQLException e) {
+                Log.error("Could not append to communication log: {}", e.getMessage());
+                return Reply.of("DATABASE_ERROR");
+            }
+        });
+    }
+
+    /**
+     * Adds a resource to a report's resources needed:
+     * {@code ADD_RESOURCE|reportId|resource}. Replies
+     * {@code RESOURCE_ADDED|version|resource}, where version counts the
+     * additions to the report's resources, so a client that holds the
+     * previous version can apply the resource without reading the rest.
+     * Needs a session; a department may only add to reports it is
+     * responsible for.
+     */
+    private Reply addResource(RequestArgs args, ClientContext client, RequestPriority priority) {
+        Session session = sessionOf(client);
+        if (session == null) {
+            return Reply.of(NOT_AUTHORISED);
+        }
+        int reportId = args.getInt(0);
+        String resource = rest(args, 1);
+        if (reportId < 1 || isBlank(resource)) {
+            return Reply.of("INVALID_REQUEST");
+        }
+        Reply refused = refuseReportWrite(session, args.getString(0), priority);
+        if (refused != null) {
+            return refused;
+        }
+        return withDbPermit(priority, () -> {
+            try {
+                long version = DatabaseConnection.addResourceNeeded(reportId, resource.trim());
+                return version == 0 ? Reply.of("REPORT_NOT_FOUND") : Reply.of("RESOURCE_ADDED", version, resource.trim());
+            } catch (SQLException e) {
+                Log.error("Could not add resource: {}", e.getMessage());
+                return Reply.of("DATABASE_ERROR");
+            }
+        });
+    }
+
+    /**
+     * Joins the arguments from an index on, so that free text keeps the '|'
+     * characters the text protocol split it at.
+     */
+    private static String rest(RequestArgs args, int from) {
+        if (args.size() <= from) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder(args.getString(from));
+        for (int i = from + 1; i < args.size(); i++) {
+            text.append('|').append(args.getString(i));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Inserts several reports in one transaction. Arguments are the item count
+     * followed by five fields per report, as for ADD_REPORT. The reply is
+     * {@code BATCH_DONE|count} followed by one result per item: the new id,
+     * INVALID_ITEM if a required field was empty, or INSERT_FAILED if the
+     * database rejected the row.
+     */
+    private Reply addReportsBatch(RequestArgs args) {
+        int count = batchCount(args, ADD_BATCH_FIELDS);
+        Object[] results = new Object[count + 1];
+        results[0] = count;
+        List<String[]> rows = new ArrayList<>(count);
+        int[] rowItems = new int[count];
+        for (int item = 0; item < count; item++) {
+            String[] row = batchItem(args, item, ADD_BATCH_FIELDS);
+            if (isBlank(row[0]) || isBlank(row[1]) || isBlank(row[2]) || isBlank(row[3])) {
+                results[item + 1] = "INVALID_ITEM";
+            } else {
+                rowItems[rows.size()] = item;
+                rows.add(row);
+            }
+        }
+        if (!rows.isEmpty()) {
+            long[] ids = withDbPermit(RequestPriority.CRITICAL, () -> {
+                try {
+                    return dbManager.addReports(rows);
+                } catch (SQLException e) {
+                    Log.error("Batch insert failed: {}", e.getMessage());
+                    return null;
+                }
+            });
+            if (ids == null) {
+                return Reply.of("DATABASE_ERROR");
+            }
+            for (int i = 0; i < ids.length; i++) {
+                results[rowItems[i] + 1] = ids[i] != 0 ? (Object) ids[i] : "INSERT_FAILED";
+            }
+        }
+        return Reply.of("BATCH_DONE", results);
+    }
+
+    /**
+     * Applies several single-column updates in one transaction. Arguments are
+     * the item count followed by report id, column and value per update, as
+     * for UPDATE_REPORT. The reply is {@code BATCH_DONE|count} followed by one
+     * result per item: REPORT_UPDATED, UPDATE_FAILED if the report does not
+     * exist, INVALID_ITEM for a bad id or column, NOT_AUTHORISED for an
+     * update the session may not make (see UPDATE_REPORT), or DATABASE_ERROR
+     * if the database rejected that update. Needs a session.
+     */
+    private Reply updateReportsBatch(RequestArgs args, ClientContext client) {
+        Session session = sessionOf(client);
+        if (session == null) {
+            return Reply.of(NOT_AUTHORISED);
+        }
+        int count = batchCount(args, UPDATE_BATCH_FIELDS);
+        Object[] results = new Object[count + 1];
+        results[0] = count;
+        List<String[]> updates = new ArrayList<>(count);
+        int[] updateItems = new int[count];
+        for (int item = 0; item < count; item++) {
+            String[] update = batchItem(args, item, UPDATE_BATCH_FIELDS);
+            if (!isReportId(update[0]) || !DatabaseConnection.isUpdatableReportColumn(update[1])) {
+                results[item + 1] = "INVALID_ITEM";
+                continue;
+            }
+            Reply refused = mayWriteColumn(session, update[1])
+                    ? refuseReportWrite(session, update[0], RequestPriority.HIGH) : Reply.of(NOT_AUTHORISED);
+            if (refused != null) {
+                results[item + 1] = refused.getStatus();
+                continue;
+            }
+            update[0] = update[0].trim();
+            updateItems[updates.size()] = item;
+            updates.add(update);
+        }
+        if (!updates.isEmpty()) {
+            int[] counts = withDbPermit(RequestPriority.HIGH, () -> {
+                try {
+                    return dbManager.updateReports(updates);
+                } catch (SQLException e) {
+                    Log.error("Batch update failed: {}", e.getMessage());
+                    return null;
+                }
+            });
+            if (counts == null) {
+                return Reply.of("DATABASE_ERROR");
+            }
+            for (int i = 0; i < counts.length; i++) {
+                results[updateItems[i] + 1] = counts[i] > 0 ? "REPORT_UPDATED" : counts[i] == 0 ? "UPDATE_FAILED" : "DATABASE_ERROR";
+            }
+        }
+        return Reply.of("BATCH_DONE", results);
+    }
+
+    private int batchCount(RequestArgs args, int fieldsPerItem) {
+        int count = args.getInt(0);
+        if (count < 1 || count > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + maxBatchSize);
+        }
+        if (args.size() != 1 + count * fieldsPerItem) {
+            throw new IllegalArgumentException("Expected " + count * fieldsPerItem + " batch fields");
+        }
+        return count;
+    }
+
+    private static String[] batchItem(RequestArgs args, int item, int fieldsPerItem) {
+        String[] fields = new String[fieldsPerItem];
+        for (int i = 0; i < fieldsPerItem; i++) {
+            fields[i] = args.getString(1 + item * fieldsPerItem + i);
+        }
+        return fields;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static boolean isReportId(String value) {
+        if (value == null) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(value.trim()) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the paging arguments of GET_REPORTS: a continuation token (empty
+     * or null for the first page), a page size (empty or null for the
+     * default) and any number of {@code key=value} filters on status, type
+     * and department. With no arguments at all the whole list is returned.
+     *
+     * @param args The GET_REPORTS arguments.
+     * @return The query.
+     * @throws IllegalArgumentException If an argument is invalid.
+     */
+    static ReportQuery reportQuery(RequestArgs args) {
+        if (args.size() == 0) {
+            return ReportQuery.ALL;
+        }
+        String limitText = args.size() > 1 ? args.getString(1) : null;
+        int limit = limitText == null || limitText.isEmpty() ? ReportQuery.DEFAULT_PAGE_SIZE : args.getInt(1);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        String[] filters = new String[Math.max(0, args.size() - 2)];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = args.getString(i + 2);
+        }
+        return ReportQuery.parse(args.getString(0), limit, filters);
+    }
+
+    /**
+     * Builds a text page: one REPORT line per row followed by
+     * {@code END|rowCount|nextToken}, where the token is empty on the last
+     * page. The page size is capped, so the response stays small however
+     * large the table is.
+     */
+    private Reply reportPage(ReportQuery query, RequestPriority priority) {
+        StringBuilder page = new StringBuilder();
+        int[] rows = new int[1];
+        Reply result;
+        try {
+            result = streamReports(query, priority, rs -> {
+                page.append("REPORT|").append(rs.getInt(1));
+                for (int column = 2; column <= 6; column++) {
+                    page.append('|').append(rs.getString(column));
+                }
+                page.append('\n');
+                rows[0]++;
+            });
+        } catch (IOException e) {
+            // Appending to a StringBuilder cannot fail
+            throw new UncheckedIOException(e);
+        }
+        if (!result.getStatus().equals("OK")) {
+            return result;
+        }
+        Object token = result.getValues()[0];
+        return Reply.of(page.append("END|").append(rows[0]).append('|').append(token == null ? "" : token).toString());
+    }
+
+    /**
+     * Sends the reports changed since a version: {@code SYNC_REPORTS|since},
+     * where since is the version from the last sync, or 0 (or nothing) for
+     * the whole list. The reply is one REPORT line per added or changed
+     * report, as in a GET_REPORTS page, one {@code DELETED|id} line per
+     * deleted report, and {@code END|count|version}, where version is the one
+     * to send next time.
+     */
+    private Reply syncReports(RequestArgs args, RequestPriority priority) {
+        String sinceText = args.size() > 0 ? args.getString(0) : null;
+        long since = sinceText == null || sinceText.isEmpty() ? 0 : Long.parseLong(sinceText.trim());
+        if (since < 0) {
+            return Reply.of("INVALID_REQUEST");
+        }
+        return withDbPermit(priority, () -> {
+            DatabaseConnection.ReportDelta delta;
+            try {
+                delta = DatabaseConnection.getReportsChangedSince(since);
+            } catch (SQLException e) {
+                Log.error("Syncing reports failed: {}", e.getMessage());
+                return Reply.of("DATABASE_ERROR");
+            }
+            StringBuilder lines = new StringBuilder();
+            for (Report report : delta.getChanged()) {
+                lines.append("REPORT|").append(report.getId())
+                        .append('|').append(report.getDisasterType())
+                        .append('|').append(report.getLocation())
+                        .append('|').append(report.getReporterName())
+                        .append('|').append(report.getContactInfo())
+                        .append('|').append(report.getResponseStatus())
+                        .append('\n');
+            }
+            for (Integer id : delta.getRemoved()) {
+                lines.append("DELETED|").append(id).append('\n');
+            }
+            int count = delta.getChanged().size() + delta.getRemoved().size();
+            return Reply.of(lines.append("END|").append(count).append('|').append(delta.getVersion()).toString());
+        });
+    }
+
+    /**
+     * Streams one page of the report list row by row under a database
+     * permit.
+     *
+     * @param query The page and filters to read.
+     * @param priority The priority of the request, which decides its place
+     * in the queue for the database.
+     * @param handler Receives each row.
+     * @return "OK" with the next continuation token (null after the last
+     * page), or an error status if the query failed.
+     * @throws IOException If the handler could not pass a row on to the client.
+     */
+    public Reply streamReports(ReportQuery query, RequestPriority priority, DatabaseConnection.ReportRowHandler handler)
+            throws IOException {
+        try {
+            dbPermits.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Reply.of("SERVER_BUSY");
+        }
+        try {
+            return Reply.of("OK", dbManager.streamReports(query, handler));
+        } catch (SQLException e) {
+            Log.error("Streaming reports failed: {}", e.getMessage());
+            return Reply.of("DATABASE_ERROR");
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    private <T> T withDbPermit(RequestPriority priority, Supplier<T> call) {
+        try {
+            dbPermits.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the database", e);
+        }
+        try {
+            return call.get();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    /**
+     * Gets the hub that pushes report changes to subscribed connections.
+     *
+     * @return The subscription hub.
+     */
+    public SubscriptionHub getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * Gets the store of logged in sessions.
+     *
+     * @return The session store.
+     */
+    public SessionStore getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Stops pushing report changes and ends every session. Called when the
+     * server stops.
+     */
+    public void shutdown() {
+        sessions.shutdown();
+        DatabaseConnection.removeReportChangeListener(subscriptions);
+        subscriptions.shutdown();
+        bulkheads.shutdown();
+    }
+
+    /**
+     * Gets the executor a request should run on: the bulkhead pool of its
+     * command class, behind the load shedder for requests that may be shed.
+     * The client's role is read when the request is started, so a LOGIN
+     * pipelined just before it still counts.
+     *
+     * @param command The command, or null if unknown.
+     * @param client The connection's context.
+     * @return The executor; it throws {@link AdmissionControl.Busy} if the
+     * request is shed or its pool is full.
+     */
+    Executor executorFor(Command command, ClientContext client) {
+        AdmissionControl pool = bulkheads.forCommand(command);
+        if (!RequestPriority.of(command, null).isSheddable()) {
+            return pool;
+        }
+        return task -> {
+            UserRole role = client == null ? null : client.getRole();
+            if (!shedder.admit(RequestPriority.of(command, role), command, role)) {
+                throw new AdmissionControl.Busy(shedder.retryAfterMillis());
+            }
+            pool.execute(task);
+        };
+    }
+
+    /**
+     * Gets the load shedder, whose report lists what was shed.
+     *
+     * @return The load shedder.
+     */
+    public LoadShedder getLoadShedder() {
+        return shedder;
+    }
+
+    /**
+     * Gets the per command class worker pools that connections run their
+     * requests on.
+     *
+     * @return The bulkheads.
+     */
+    public Bulkheads getBulkheads() {
+        return bulkheads;
+    }
+
+    /**
+     * Gets the number of database calls that could start right now.
+     *
+     * @return The available database permits.
+     */
+    public int getAvailableDbPermits() {
+        return dbPermits.availablePermits();
+    }
+
+    /**
+     * Gets the number of requests waiting for a database permit.
+     *
+     * @return The waiting count across all priorities.
+     */
+    public int getDbQueueLength() {
+        return dbPermits.getQueueLength();
+    }
+
+    /**
+     * Decides how a pipelined request must be ordered against the other
+     * requests of its connection. Writes to one report keep their order,
+     * subscription changes keep theirs and EXIT waits for everything before
+     * it; all other requests may run concurrently.
+     *
+     * @param command The command.
+     * @param args Its arguments.
+     * @return null, RequestPipeline.BARRIER or a key shared by requests that
+     * must not overlap.
+     */
+    static String orderingKey(Command command, RequestArgs args) {
+        switch (command) {
+            case UPDATE_REPORTS_BATCH:
+                // Touches many reports, so it must not overlap any other write
+                return RequestPipeline.BARRIER;
+            case UPDATE_REPORT:
+            case APPEND_LOG:
+            case ADD_RESOURCE:
+                String reportId = args.size() > 0 ? args.getString(0) : null;
+                return reportId == null ? null : "report:" + reportId.trim();
+            case SUBSCRIBE:
+            case UNSUBSCRIBE:
+                return "subscription";
+            case EXIT:
+                return RequestPipeline.BARRIER;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Decides how a pipelined text request must be ordered.
+     *
+     * @param request The request line without its tag.
+     * @return The ordering key, as for {@link #orderingKey(Command, RequestArgs)}.
+     */
+    static String orderingKey(String request) {
+        String[] parts = request.split("\\|", 3);
+        Command command = Command.fromName(parts[0]);
+        return command == null ? null : orderingKey(command, RequestArgs.ofText(parts));
+    }
+
+    /**
+     * Checks whether a request asks the server to close the connection.
+     *
+     * @param request The raw request line.
+     * @return true if the request is EXIT.
+     */
+    public static boolean isExit(String request) {
+        return request.equals("EXIT");
+    }
+}
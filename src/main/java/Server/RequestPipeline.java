@@ -0,0 +1,280 @@
+package Server;
+
+import Util.Log;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Schedules the requests of one connection on a worker pool. Requests are
+ * started in the order they arrived, subject to three rules:
+ * <ul>
+ * <li>requests without an ordering key run concurrently with anything;</li>
+ * <li>requests with the same key (writes to the same report) run one after
+ * another;</li>
+ * <li>a {@link #BARRIER} request waits for everything before it and holds
+ * back everything after it. Untagged text requests and EXIT are barriers,
+ * which keeps the strict request/response order older clients rely
+ * on.</li>
+ * </ul>
+ * When a request asks for the connection to close, queued requests are
+ * dropped and no more are accepted. A request the worker pool turns away
+ * because it is full is answered with {@link Task#reject} instead of being
+ * run.
+ *
+ * @author 12223508
+ */
+final class RequestPipeline {
+
+    /**
+     * Ordering key for requests that must run alone.
+     */
+    static final String BARRIER = "*";
+
+    /**
+     * A request waiting to run.
+     */
+    interface Task {
+
+        /**
+         * Runs the request and sends its response.
+         *
+         * @return true if the connection should close afterwards.
+         */
+        boolean run();
+
+        /**
+         * Answers the request without running it because the worker pool
+         * is full. Called on whichever thread tried to start it, which may
+         * be a selector's I/O thread, so it must not wait for the client.
+         *
+         * @param retryAfterMillis How long the client should wait before
+         * retrying.
+         * @return true if the connection should close afterwards.
+         */
+        default boolean reject(long retryAfterMillis) {
+            return true;
+        }
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final Executor executor;
+        final Task task;
+
+        Entry(String key, Executor executor, Task task) {
+            this.key = key;
+            this.executor = executor;
+            this.task = task;
+        }
+    }
+
+    private final Executor workers;
+    private final Runnable onTaskFinished;
+
+    // Guarded by this.
+    private final ArrayDeque<Entry> waiting = new ArrayDeque<>();
+    private final Set<String> runningKeys = new HashSet<>();
+    private int running;
+    private boolean barrierRunning;
+    private boolean closing;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param workers Runs requests submitted without an executor of their own.
+     * @param onTaskFinished Called on the worker thread after each request,
+     * outside the pipeline's lock.
+     */
+    RequestPipeline(Executor workers, Runnable onTaskFinished) {
+        this.workers = workers;
+        this.onTaskFinished = onTaskFinished;
+    }
+
+    /**
+     * Queues a request and starts it if the ordering rules allow.
+     *
+     * @param key null, {@link #BARRIER} or a key such as "report:42".
+     * @param task The request.
+     * @return false if the pipeline is closing and the request was dropped.
+     */
+    boolean submit(String key, Task task) {
+        return submit(key, workers, task);
+    }
+
+    /**
+     * Queues a request that runs on the given executor rather than the
+     * pipeline's default one, such as the pool of its command class.
+     *
+     * @param key null, {@link #BARRIER} or a key such as "report:42".
+     * @param executor Runs the request once the ordering rules allow.
+     * @param task The request.
+     * @return false if the pipeline is closing and the request was dropped.
+     */
+    boolean submit(String key, Executor executor, Task task) {
+        List<Entry> ready;
+        synchronized (this) {
+            if (closing) {
+                return false;
+            }
+            waiting.add(new Entry(key, executor, task));
+            ready = takeReady();
+        }
+        start(ready);
+        return true;
+    }
+
+    private List<Entry> takeReady() {
+        List<Entry> ready = new ArrayList<>();
+        if (barrierRunning) {
+            return ready;
+        }
+        Set<String> blockedKeys = null;
+        Iterator<Entry> it = waiting.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (BARRIER.equals(entry.key)) {
+                if (running == 0 && ready.isEmpty() && blockedKeys == null) {
+                    it.remove();
+                    barrierRunning = true;
+                    running++;
+                    ready.add(entry);
+                }
+                break;
+            }
+            if (entry.key != null) {
+                if (runningKeys.contains(entry.key) || (blockedKeys != null && blockedKeys.contains(entry.key))) {
+                    if (blockedKeys == null) {
+                        blockedKeys = new HashSet<>();
+                    }
+                    blockedKeys.add(entry.key);
+                    continue;
+                }
+                runningKeys.add(entry.key);
+            }
+            it.remove();
+            running++;
+            ready.add(entry);
+        }
+        return ready;
+    }
+
+    private void start(List<Entry> ready) {
+        for (Entry entry : ready) {
+            try {
+                entry.executor.execute(() -> run(entry));
+            } catch (AdmissionControl.Busy e) {
+                finish(entry, reject(entry, e.getRetryAfterMillis()));
+            } catch (RejectedExecutionException e) {
+                // The server is stopping; behave as if the client had asked to close.
+                finish(entry, true);
+            }
+        }
+    }
+
+    private void run(Entry entry) {
+        boolean close;
+        try {
+            close = entry.task.run();
+        } catch (RuntimeException e) {
+            Log.error("Error processing request: {}", e.getMessage());
+            close = true;
+        }
+        finish(entry, close);
+    }
+
+    private static boolean reject(Entry entry, long retryAfterMillis) {
+        try {
+            return entry.task.reject(retryAfterMillis);
+        } catch (RuntimeException e) {
+            Log.error("Error rejecting request: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void finish(Entry entry, boolean close) {
+        List<Entry> ready;
+        synchronized (this) {
+            running--;
+            if (BARRIER.equals(entry.key)) {
+                barrierRunning = false;
+            } else if (entry.key != null) {
+                runningKeys.remove(entry.key);
+            }
+            if (close) {
+                closing = true;
+                waiting.clear();
+            }
+            ready = closing ? List.of() : takeReady();
+            notifyAll();
+        }
+        start(ready);
+        onTaskFinished.run();
+    }
+
+    /**
+     * Gets the number of requests queued or running.
+     *
+     * @return The pending request count.
+     */
+    synchronized int size() {
+        return waiting.size() + running;
+    }
+
+    /**
+     * Checks whether a request has asked for the connection to close.
+     *
+     * @return true once closing.
+     */
+    synchronized boolean isClosing() {
+        return closing;
+    }
+
+    /**
+     * Checks whether the pipeline is closing and every request has finished.
+     *
+     * @return true if the connection can be closed now.
+     */
+    synchronized boolean isClosed() {
+        return closing && running == 0;
+    }
+
+    /**
+     * Waits until fewer than the given number of requests are pending.
+     *
+     * @param limit The pending request limit.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    synchronized void awaitBelow(int limit) throws InterruptedException {
+        while (waiting.size() + running >= limit) {
+            wait();
+        }
+    }
+
+    /**
+     * Waits until every queued and running request has finished.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    synchronized void awaitIdle() throws InterruptedException {
+        while (!waiting.isEmpty() || running > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Drops queued requests and accepts no more. Requests already running
+     * finish normally.
+     */
+    synchronized void close() {
+        closing = true;
+        waiting.clear();
+        notifyAll();
+    }
+}
@@ -0,0 +1,54 @@
+package Server;
+
+import ENUM.UserRole;
+
+/**
+ * How much a request matters when the server is overloaded, highest first.
+ * New disaster reports come first, then status updates, logins and
+ * connection housekeeping; report lists come last and are what gets shed.
+ * A coordinator's list refresh ranks above anybody else's.
+ *
+ * @author 12223508
+ */
+public enum RequestPriority {
+    /** Intake of new reports. Never shed. */
+    CRITICAL,
+    /** Report and department status updates, logins, PING and EXIT. Never shed. */
+    HIGH,
+    /** Report lists for coordinators and administrators. */
+    NORMAL,
+    /** Report lists for everybody else. Shed first. */
+    LOW;
+
+    /**
+     * Ranks a request.
+     *
+     * @param command The command, or null if unknown.
+     * @param role The client's role, or null if it has not logged in.
+     * @return The priority.
+     */
+    public static RequestPriority of(Command command, UserRole role) {
+        if (command == null) {
+            return HIGH;
+        }
+        switch (command) {
+            case ADD_REPORT:
+            case ADD_REPORTS_BATCH:
+                return CRITICAL;
+            case GET_REPORTS:
+            case SYNC_REPORTS:
+                return role == UserRole.Coordinator || role == UserRole.Admin ? NORMAL : LOW;
+            default:
+                return HIGH;
+        }
+    }
+
+    /**
+     * Checks whether requests of this priority may be shed at all.
+     *
+     * @return true for NORMAL and LOW.
+     */
+    public boolean isSheddable() {
+        return this == NORMAL || this == LOW;
+    }
+}
@@ -0,0 +1,133 @@
+package Server;
+
+import Util.Log;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One I/O thread multiplexing many client channels over a single Selector.
+ * Other threads never touch the selector directly; they queue tasks with
+ * {@link #execute(Runnable)} and the loop runs them between selects.
+ *
+ * @author 12223508
+ */
+final class SelectorLoop implements Runnable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector selector;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger openSessions;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    SelectorLoop(String name, AtomicInteger openSessions) throws IOException {
+        this.selector = Selector.open();
+        this.openSessions = openSessions;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Hands a freshly accepted channel to this loop.
+     *
+     * @param session The session wrapping the channel.
+     */
+    void register(ChannelSession session) {
+        openSessions.incrementAndGet();
+        execute(() -> {
+            try {
+                SelectionKey key = session.channel().register(selector, SelectionKey.OP_READ, session);
+                session.attach(key);
+            } catch (IOException e) {
+                session.close();
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the I/O thread.
+     *
+     * @param task The task to run.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    void sessionClosed() {
+        openSessions.decrementAndGet();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                runTasks();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    ChannelSession session = (ChannelSession) key.attachment();
+                    if (key.isValid() && key.isReadable()) {
+                        session.onReadable(readBuffer);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        session.onWritable();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                Log.error("Selector loop failed: {}", e.getMessage());
+            }
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void closeAll() {
+        try {
+            runTasks();
+            for (SelectionKey key : selector.keys()) {
+                Object attachment = key.attachment();
+                if (attachment instanceof ChannelSession) {
+                    ((ChannelSession) attachment).close();
+                }
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            // Shutting down anyway.
+        }
+        tasks.clear();
+    }
+
+    /**
+     * Stops the loop and closes every channel it owns.
+     */
+    void shutdown() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        thread.join(5000);
+    }
+}
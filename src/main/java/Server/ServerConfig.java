@@ -0,0 +1,68 @@
+package Server;
+
+import Util.Log;
+
+/**
+ * Reads DRS server settings from system properties (for example
+ * {@code -Ddrs.server.mode=VIRTUAL_THREADS}), falling back to the defaults
+ * below when a property is missing or malformed.
+ *
+ * @author 12223508
+ */
+public final class ServerConfig {
+
+    public static final String EXECUTION_MODE = "drs.server.mode";
+    public static final String WORKER_THREADS = "drs.server.workers";
+    public static final String DB_CONCURRENCY = "drs.db.maxConcurrency";
+    public static final String MAX_BATCH_SIZE = "drs.server.maxBatchSize";
+    public static final String QUEUE_LIMIT = "drs.server.queueLimit";
+    public static final String BULKHEAD_PREFIX = "drs.bulkhead.";
+    public static final String SHED_LOW_WATERMARK = "drs.shed.lowWatermark";
+    public static final String SHED_HIGH_WATERMARK = "drs.shed.highWatermark";
+    public static final String SHED_SUSTAIN_MILLIS = "drs.shed.sustainMillis";
+    public static final String METRICS_ENABLED = "drs.metrics.enabled";
+    public static final String METRICS_PORT = "drs.metrics.port";
+    public static final String SESSION_TTL_MILLIS = "drs.session.ttlMillis";
+    public static final String PRUNE_INTERVAL_MILLIS = "drs.db.pruneIntervalMillis";
+
+    private ServerConfig() {
+    }
+
+    /**
+     * Gets the configured execution mode.
+     *
+     * @return The execution mode, SELECTOR by default.
+     */
+    public static ExecutionMode executionMode() {
+        String value = System.getProperty(EXECUTION_MODE);
+        if (value != null) {
+            try {
+                return ExecutionMode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Log.warn("Ignoring unknown {}: {}", EXECUTION_MODE, value);
+            }
+        }
+        return ExecutionMode.SELECTOR;
+    }
+
+    /**
+     * Reads a positive integer property.
+     *
+     * @param name The property name.
+     * @param defaultValue The value used when the property is absent or invalid.
+     * @return The configured value.
+     */
+    public static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            Log.warn("Ignoring invalid {}: {}", name, value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package Server;
+
+import ENUM.Department;
+import ENUM.UserRole;
+
+/**
+ * A logged in user, as remembered by the server between requests. The role
+ * and department are looked up once at LOGIN, so that requests made under
+ * the session need not read the users table again.
+ *
+ * @author 12223508
+ */
+final class Session {
+
+    private final String token;
+    private final String username;
+    private final UserRole role;
+    private final boolean admin;
+    private final Department department;
+    private volatile long expiresAt;
+
+    Session(String token, String username, UserRole role, boolean admin, long expiresAt) {
+        this.token = token;
+        this.username = username;
+        this.role = role;
+        this.admin = admin;
+        this.department = departmentOf(role);
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the department whose reports a role works on.
+     *
+     * @param role The role.
+     * @return The department, or null for roles that see every report.
+     */
+    static Department departmentOf(UserRole role) {
+        if (role == null) {
+            return null;
+        }
+        switch (role) {
+            case FireDepartment:
+                return Department.FIRE_DEPARTMENT;
+            case HealthDepartment:
+                return Department.HEALTH_DEPARTMENT;
+            case LawEnforcement:
+                return Department.LAW_ENFORCEMENT;
+            case Meteorology:
+                return Department.METEOROLOGY;
+            case Geoscience:
+                return Department.GEOSCIENCE;
+            case UtilityCompanies:
+                return Department.UTILITY_COMPANIES;
+            case Utility_Electricity:
+                return Department.UTILITY_ELECTRICITY;
+            case Utility_Water:
+                return Department.UTILITY_WATER;
+            case Utility_Gas:
+                return Department.UTILITY_GAS;
+            case Utility_Telecommunications:
+                return Department.UTILITY_TELECOMMUNICATIONS;
+            default:
+                return null;
+        }
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the role the user logged in as.
+     *
+     * @return The role, or null if the selected role is not a known one.
+     */
+    UserRole getRole() {
+        return role;
+    }
+
+    /**
+     * Checks whether the user is an administrator, who may act in any role.
+     *
+     * @return true for admin accounts.
+     */
+    boolean isAdmin() {
+        return admin;
+    }
+
+    /**
+     * Gets the department the session works for.
+     *
+     * @return The department, or null for the coordinator and admins.
+     */
+    Department getDepartment() {
+        return department;
+    }
+
+    long getExpiresAt() {
+        return expiresAt;
+    }
+
+    boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * Extends the session after use. The store's sweep notices the new
+     * expiry when it next comes across the session, so this is only a write
+     * to one field.
+     */
+    void touch(long now, long ttlMillis) {
+        expiresAt = now + ttlMillis;
+    }
+}
@@ -0,0 +1,183 @@
+package Server;
+
+import ENUM.UserRole;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The server's logged in sessions, by token. A session expires once it has
+ * not been used for the time to live ({@code drs.session.ttlMillis}, 30
+ * minutes by default).
+ * <p>
+ * Expiry uses a hashed timing wheel: each session sits in the slot for the
+ * tick in which it was due to expire, and a sweeper thread visits one slot
+ * per tick. Using a session only moves its expiry time forward; the sweeper
+ * moves it to a later slot when it finds it still in use. Expiring sessions
+ * therefore costs a look at the sessions due in each tick, rather than a scan
+ * of every session or a reschedule on every request.
+ *
+ * @author 12223508
+ */
+public final class SessionStore {
+
+    private static final int TOKEN_BYTES = 16;
+    private static final int WHEEL_SLOTS = 512;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<Set<Session>> wheel;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService sweeper;
+    private long lastSweptTick;
+
+    /**
+     * Creates a store with the configured time to live and starts its
+     * sweeper.
+     */
+    public SessionStore() {
+        this(ServerConfig.intProperty(ServerConfig.SESSION_TTL_MILLIS, 30 * 60 * 1000), 1000);
+    }
+
+    /**
+     * Creates a store and starts its sweeper.
+     *
+     * @param ttlMillis How long an unused session lives.
+     * @param tickMillis How often the sweeper runs; sessions expire up to
+     * two ticks later than due.
+     */
+    public SessionStore(long ttlMillis, long tickMillis) {
+        this.ttlMillis = ttlMillis;
+        this.tickMillis = tickMillis;
+        this.wheel = new ArrayList<>(WHEEL_SLOTS);
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(ConcurrentHashMap.newKeySet());
+        }
+        this.lastSweptTick = System.currentTimeMillis() / tickMillis - 1;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "drs-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a session for a user who has just logged in.
+     *
+     * @param username The user.
+     * @param role The role the user logged in as.
+     * @param admin Whether the user is an administrator.
+     * @return The new session.
+     */
+    Session create(String username, UserRole role, boolean admin) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Session session = new Session(token, username, role, admin, System.currentTimeMillis() + ttlMillis);
+        sessions.put(token, session);
+        schedule(session);
+        return session;
+    }
+
+    /**
+     * Looks up a session and extends it.
+     *
+     * @param token The session's token.
+     * @return The session, or null if the token is unknown or has expired.
+     */
+    Session get(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        return session != null && touch(session) ? session : null;
+    }
+
+    /**
+     * Extends a session that is in use.
+     *
+     * @param session The session.
+     * @return false if it had already expired or was ended.
+     */
+    boolean touch(Session session) {
+        long now = System.currentTimeMillis();
+        if (session.isExpired(now) || sessions.get(session.getToken()) != session) {
+            return false;
+        }
+        session.touch(now, ttlMillis);
+        return true;
+    }
+
+    /**
+     * Ends a session, e.g. on LOGOUT.
+     *
+     * @param session The session.
+     */
+    void remove(Session session) {
+        sessions.remove(session.getToken(), session);
+        wheel.get(slot(session.getExpiresAt())).remove(session);
+    }
+
+    /**
+     * Gets the number of live sessions.
+     *
+     * @return The session count.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Stops the sweeper. Sessions are not kept across restarts.
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+        sessions.clear();
+    }
+
+    private int slot(long time) {
+        return (int) ((time / tickMillis) & (WHEEL_SLOTS - 1));
+    }
+
+    private void schedule(Session session) {
+        wheel.get(slot(session.getExpiresAt())).add(session);
+    }
+
+    /**
+     * Visits the slots of every tick that has ended since the last sweep.
+     * Sessions due in a tick that has ended are past their expiry unless they
+     * were used, so a session found there that is still unexpired has been
+     * used since and moves to the slot of its new expiry; if that is more
+     * than a lap of the wheel away, it is simply looked at again on a later
+     * lap. The tick in progress is left for the next sweep, as sessions due
+     * later in it would otherwise wait a whole lap.
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMillis - 1;
+        long from = Math.max(lastSweptTick + 1, currentTick - WHEEL_SLOTS + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            Set<Session> due = wheel.get((int) (tick & (WHEEL_SLOTS - 1)));
+            for (Session session : due) {
+                int slot = slot(session.getExpiresAt());
+                if (sessions.get(session.getToken()) != session) {
+                    // Ended after it had moved to a later slot
+                    due.remove(session);
+                } else if (session.isExpired(now)) {
+                    due.remove(session);
+                    sessions.remove(session.getToken(), session);
+                } else if (slot != (int) (tick & (WHEEL_SLOTS - 1))) {
+                    due.remove(session);
+                    wheel.get(slot).add(session);
+                }
+            }
+        }
+        lastSweptTick = currentTick;
+    }
+}
@@ -0,0 +1,201 @@
+package Server;
+
+import ENUM.Department;
+import Util.ReportChange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The push side of one connection. Changes waiting for delivery are kept in
+ * a small buffer keyed by report id, so repeated updates of a report fold
+ * into one event. When the buffer is full the subscriber drops everything
+ * and tells the client to resync instead, which bounds the memory a slow
+ * client can hold on the server.
+ * <p>
+ * Events are written by a delivery task on the hub's executor, never by the
+ * thread that published them, so a client that stops reading only stalls its
+ * own delivery.
+ *
+ * @author 12223508
+ */
+final class Subscriber {
+
+    private final EventSink sink;
+    private final int maxPending;
+
+    // Guarded by this.
+    private final LinkedHashMap<Integer, ReportChange> pending = new LinkedHashMap<>();
+    private boolean firehose;
+    private Set<Department> departments = EnumSet.noneOf(Department.class);
+    private boolean resync;
+    private boolean delivering;
+    private boolean closed;
+    private long delivered;
+    private long coalesced;
+    private long overflows;
+
+    /**
+     * Creates a subscriber for a connection.
+     *
+     * @param sink Writes events to the connection.
+     * @param maxPending The most distinct reports that may wait for delivery.
+     */
+    Subscriber(EventSink sink, int maxPending) {
+        this.sink = sink;
+        this.maxPending = maxPending;
+    }
+
+    synchronized void setTopics(boolean firehose, Set<Department> departments) {
+        this.firehose = firehose;
+        this.departments = departments.isEmpty() ? EnumSet.noneOf(Department.class) : EnumSet.copyOf(departments);
+    }
+
+    synchronized boolean isFirehose() {
+        return firehose;
+    }
+
+    synchronized Set<Department> getDepartments() {
+        return Collections.unmodifiableSet(EnumSet.copyOf(departments));
+    }
+
+    /**
+     * Checks whether a change belongs to one of this subscriber's topics.
+     *
+     * @param change The change.
+     * @param responsible The departments responsible for the report.
+     * @return true if it should be delivered.
+     */
+    synchronized boolean wants(ReportChange change, Set<Department> responsible) {
+        if (firehose) {
+            return true;
+        }
+        for (Department department : departments) {
+            if (responsible.contains(department)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues a change for delivery without blocking.
+     *
+     * @param change The change.
+     * @param executor Runs the delivery task if none is running.
+     */
+    void offer(ReportChange change, Executor executor) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            ReportChange earlier = pending.get(change.getReportId());
+            if (earlier != null) {
+                pending.put(change.getReportId(), earlier.merge(change));
+                coalesced++;
+            } else if (pending.size() >= maxPending) {
+                pending.clear();
+                resync = true;
+                overflows++;
+            } else {
+                pending.put(change.getReportId(), change);
+            }
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        startDelivery(executor);
+    }
+
+    /**
+     * Asks the client to re-read its report list because events were lost
+     * before they reached this subscriber.
+     *
+     * @param executor Runs the delivery task if none is running.
+     */
+    void requestResync(Executor executor) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pending.clear();
+            resync = true;
+            overflows++;
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        startDelivery(executor);
+    }
+
+    private void startDelivery(Executor executor) {
+        try {
+            executor.execute(this::deliver);
+        } catch (RejectedExecutionException e) {
+            close();
+        }
+    }
+
+    private void deliver() {
+        while (true) {
+            List<ReportChange> batch;
+            boolean sendResync;
+            synchronized (this) {
+                if (closed || (pending.isEmpty() && !resync)) {
+                    delivering = false;
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                sendResync = resync;
+                pending.clear();
+                resync = false;
+            }
+            try {
+                sink.send(batch, sendResync);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            synchronized (this) {
+                delivered += batch.size();
+            }
+        }
+    }
+
+    /**
+     * Stops delivery and drops anything still pending.
+     */
+    synchronized void close() {
+        closed = true;
+        delivering = false;
+        pending.clear();
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    synchronized long getDeliveredCount() {
+        return delivered;
+    }
+
+    synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    synchronized long getOverflowCount() {
+        return overflows;
+    }
+}
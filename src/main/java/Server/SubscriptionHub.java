@@ -0,0 +1,223 @@
+package Server;
+
+import ENUM.Department;
+import Util.DatabaseConnection;
+import Util.Log;
+import Util.ReportChange;
+import Util.ReportChangeListener;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes committed report changes to subscribed connections. Topics are the
+ * Department constant names, which receive changes to reports that
+ * department is responsible for, and {@value #FIREHOSE}, which receives
+ * every change.
+ * <p>
+ * Writers only hand the change to a single routing thread through a bounded
+ * queue. Routing looks up the report's departments when the writer did not
+ * know them (and only if someone subscribed to a department), then offers
+ * the change to each interested subscriber's coalescing buffer. If the
+ * routing queue ever fills up, the change is dropped and every subscriber is
+ * told to resync.
+ *
+ * @author 12223508
+ */
+public final class SubscriptionHub implements ReportChangeListener {
+
+    public static final String FIREHOSE = "ALL";
+
+    private static final int MAX_PENDING_PER_SUBSCRIBER = Integer.getInteger("drs.events.maxPending", 1024);
+    private static final int ROUTING_QUEUE_SIZE = Integer.getInteger("drs.events.queueSize", 10000);
+
+    /**
+     * Finds the departments responsible for a report.
+     */
+    interface DepartmentResolver {
+
+        Set<Department> resolve(int reportId) throws SQLException;
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final DepartmentResolver resolver;
+    private final ThreadPoolExecutor router;
+    private final ExecutorService delivery;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates a hub that looks up departments in the reports table.
+     */
+    public SubscriptionHub() {
+        this(DatabaseConnection::getResponsibleDepartments);
+    }
+
+    SubscriptionHub(DepartmentResolver resolver) {
+        this.resolver = resolver;
+        this.router = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ROUTING_QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "drs-events");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.delivery = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("drs-push-", 0).factory());
+    }
+
+    /**
+     * Creates a subscriber for a connection. It receives nothing until
+     * {@link #subscribe} is called.
+     *
+     * @param sink Writes events to the connection.
+     * @return The subscriber.
+     */
+    Subscriber newSubscriber(EventSink sink) {
+        return new Subscriber(sink, MAX_PENDING_PER_SUBSCRIBER);
+    }
+
+    /**
+     * Sets a subscriber's topics, replacing any earlier ones.
+     *
+     * @param subscriber The connection's subscriber.
+     * @param args Topic names: {@value #FIREHOSE} or Department constants.
+     * @return SUBSCRIBED followed by the topics.
+     * @throws IllegalArgumentException If no topic or an unknown one is given.
+     */
+    Reply subscribe(Subscriber subscriber, RequestArgs args) {
+        if (args.size() == 0) {
+            throw new IllegalArgumentException("No topic given");
+        }
+        boolean firehose = false;
+        Set<Department> departments = EnumSet.noneOf(Department.class);
+        for (int i = 0; i < args.size(); i++) {
+            String topic = args.getString(i);
+            if (FIREHOSE.equals(topic)) {
+                firehose = true;
+            } else {
+                departments.add(Department.valueOf(topic));
+            }
+        }
+        return subscribe(subscriber, firehose, departments);
+    }
+
+    /**
+     * Subscribes a connection to the given topics.
+     *
+     * @param subscriber The connection's subscriber.
+     * @param firehose Whether to receive every change.
+     * @param departments The departments to receive changes for.
+     * @return SUBSCRIBED with the topics.
+     */
+    Reply subscribe(Subscriber subscriber, boolean firehose, Set<Department> departments) {
+        subscriber.setTopics(firehose, departments);
+        subscribers.add(subscriber);
+
+        StringBuilder topics = new StringBuilder(firehose ? FIREHOSE : "");
+        for (Department department : departments) {
+            topics.append(topics.length() == 0 ? "" : ",").append(department.name());
+        }
+        return Reply.of("SUBSCRIBED", topics.toString());
+    }
+
+    /**
+     * Stops routing changes to a subscriber. It can subscribe again later.
+     *
+     * @param subscriber The connection's subscriber.
+     */
+    void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Unsubscribes and closes a subscriber whose connection has gone.
+     *
+     * @param subscriber The connection's subscriber.
+     */
+    void disconnect(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.close();
+    }
+
+    @Override
+    public void reportChanged(ReportChange change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        published.increment();
+        try {
+            router.execute(() -> route(change));
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.requestResync(delivery);
+            }
+        }
+    }
+
+    private void route(ReportChange change) {
+        Set<Department> responsible = change.getDepartments();
+        if (responsible == null && hasDepartmentSubscribers()) {
+            try {
+                responsible = resolver.resolve(change.getReportId());
+            } catch (SQLException e) {
+                Log.error("Could not look up departments of report {}: {}", change.getReportId(), e.getMessage());
+                for (Subscriber subscriber : subscribers) {
+                    if (!subscriber.isFirehose()) {
+                        subscriber.requestResync(delivery);
+                    }
+                }
+            }
+        }
+        if (responsible == null) {
+            responsible = EnumSet.noneOf(Department.class);
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isClosed()) {
+                subscribers.remove(subscriber);
+            } else if (subscriber.wants(change, responsible)) {
+                subscriber.offer(change, delivery);
+            }
+        }
+    }
+
+    private boolean hasDepartmentSubscribers() {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.isFirehose()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes every subscriber and stops the routing and delivery threads.
+     */
+    public void shutdown() {
+        router.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        subscribers.clear();
+        delivery.shutdownNow();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
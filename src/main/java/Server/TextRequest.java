@@ -0,0 +1,154 @@
+package Server;
+
+import Util.Span;
+import Util.Tracing;
+
+/**
+ * One line of the text protocol, optionally tagged for pipelining. A client
+ * that prefixes a request with {@code @<id>|} may send more requests without
+ * waiting; the server runs them concurrently and tags every line of the
+ * response with the same prefix so the client can match it up. Untagged
+ * requests keep the original one-at-a-time behaviour.
+ * <p>
+ * A request may also carry its caller's trace as a leading
+ * {@code ^<traceparent>|}, in the W3C trace context format, before any tag.
+ * Traced requests record how long they queued and ran; see {@link Tracing}.
+ *
+ * @author 12223508
+ */
+final class TextRequest {
+
+    private final String tag;
+    private final String body;
+    private final String orderingKey;
+    private final Command command;
+    private final Span trace;
+    private final Span queued;
+
+    private TextRequest(String traceParent, String tag, String body, String orderingKey) {
+        this.tag = tag;
+        this.body = body;
+        this.orderingKey = orderingKey;
+        int bar = body.indexOf('|');
+        String name = bar < 0 ? body : body.substring(0, bar);
+        this.command = Command.fromName(name);
+        this.trace = Tracing.continueTrace(traceParent, "DRS " + (command != null ? command.name() : "unknown"));
+        this.queued = trace != null ? trace.child("queue") : null;
+    }
+
+    /**
+     * Splits off the tag, if any, and works out how the request must be
+     * ordered against the connection's other requests.
+     *
+     * @param line The request line.
+     * @return The parsed request.
+     */
+    static TextRequest parse(String line) {
+        String traceParent = null;
+        if (line.startsWith("^")) {
+            int bar = line.indexOf('|');
+            if (bar > 1) {
+                traceParent = line.substring(1, bar);
+                line = line.substring(bar + 1);
+            }
+        }
+        if (line.startsWith("@")) {
+            int bar = line.indexOf('|');
+            if (bar > 1) {
+                String body = line.substring(bar + 1);
+                return new TextRequest(traceParent, line.substring(1, bar), body, RequestDispatcher.orderingKey(body));
+            }
+        }
+        return new TextRequest(traceParent, null, line, RequestPipeline.BARRIER);
+    }
+
+    /**
+     * Runs the request, tracing it if sampled.
+     *
+     * @param dispatcher The dispatcher to run it on.
+     * @param client The connection's context.
+     * @return The untagged response.
+     */
+    String process(RequestDispatcher dispatcher, ClientContext client) {
+        if (trace == null) {
+            return dispatcher.process(body, client);
+        }
+        queued.close();
+        String response = "SERVER_ERROR";
+        try {
+            response = Tracing.inSpan(trace.child("execute").activate(), () -> dispatcher.process(body, client));
+            return response;
+        } finally {
+            endTrace(response);
+        }
+    }
+
+    /**
+     * Turns the request away because the server is overloaded.
+     *
+     * @param retryAfterMillis How long the client should wait.
+     * @return The tagged BUSY response.
+     */
+    String busy(long retryAfterMillis) {
+        if (trace != null) {
+            queued.close();
+            endTrace("BUSY");
+        }
+        return respond(Reply.of("BUSY", retryAfterMillis).toText());
+    }
+
+    private void endTrace(String response) {
+        int end = response.indexOf('|');
+        int line = response.indexOf('\n');
+        if (line >= 0 && (end < 0 || line < end)) {
+            end = line;
+        }
+        trace.tag("drs.tag", tag).tag("drs.status", end < 0 ? response : response.substring(0, end)).close();
+    }
+
+    /**
+     * Gets the request without its tag.
+     *
+     * @return The request as the dispatcher expects it.
+     */
+    String getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the pipeline ordering key: a barrier for untagged requests,
+     * otherwise as decided by the dispatcher.
+     *
+     * @return The ordering key.
+     */
+    String getOrderingKey() {
+        return orderingKey;
+    }
+
+    /**
+     * Gets the command named by the request.
+     *
+     * @return The command, or null if the name is unknown.
+     */
+    Command getCommand() {
+        return command;
+    }
+
+    boolean isExit() {
+        return RequestDispatcher.isExit(body);
+    }
+
+    /**
+     * Tags a response for this request.
+     *
+     * @param response The dispatcher's response, possibly several lines.
+     * @return The response to write.
+     */
+    String respond(String response) {
+        if (tag == null) {
+            return response;
+        }
+        String prefix = "@" + tag + "|";
+        return prefix + response.replace("\n", "\n" + prefix);
+    }
+}
@@ -0,0 +1,94 @@
+package Util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends lines to a file on a daemon thread, so that callers never wait for
+ * the disk. Lines are queued up to a fixed capacity; if the writer falls
+ * behind, further lines are dropped and counted rather than queued without
+ * limit or blocking the caller.
+ *
+ * @author 12223508
+ */
+final class AsyncFileWriter {
+
+    private final Path file;
+    private final BlockingQueue<String> queue;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates a writer and starts its thread.
+     *
+     * @param threadName The name of the writing thread.
+     * @param file The file to append to; created if missing.
+     * @param capacity How many lines may wait to be written.
+     */
+    AsyncFileWriter(String threadName, Path file, int capacity) {
+        this.file = file;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Thread writer = new Thread(this::writeLoop, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a line.
+     *
+     * @param line The line, without its line separator.
+     * @return false if the line was dropped because the queue is full.
+     */
+    boolean write(String line) {
+        if (queue.offer(line)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void writeLoop() {
+        List<String> lines = new ArrayList<>();
+        while (true) {
+            try {
+                lines.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(lines);
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (String line : lines) {
+                    out.write(line);
+                    out.newLine();
+                }
+                written.add(lines.size());
+            } catch (IOException e) {
+                System.err.println("Could not write " + file + ": " + e.getMessage());
+                dropped.add(lines.size());
+            }
+            lines.clear();
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getWrittenCount() {
+        return written.sum();
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+}
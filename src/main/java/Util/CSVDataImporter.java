@@ -36,6 +36,9 @@ public class CSVDataImporter {
      */
     public static void importAllData() throws IOException, SQLException {
         importReportsData();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            SchemaMigrations.moveLateCommunicationLogs(conn);
+        }
         importUserData();
         importMeteorologicalData();
         importGeoscienceData();
@@ -128,7 +131,7 @@ public class CSVDataImporter {
                 }
             }
 
-            System.out.println("Data import completed successfully for " + tableName + ".");
+            Log.info("Data import completed successfully for {}.", tableName);
         }
     }
 
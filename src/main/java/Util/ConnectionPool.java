@@ -0,0 +1,557 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small bounded pool of JDBC connections. Borrowed connections are handed
+ * out behind a proxy whose close() returns the physical connection to the
+ * pool, so existing try-with-resources code keeps working unchanged.
+ * <p>
+ * The pool keeps between {@code minSize} and {@code maxSize} physical
+ * connections, validates a connection before lending it unless it was in use
+ * moments ago, evicts connections that stay idle too long, warns about
+ * connections held longer than the leak threshold and records how long
+ * callers wait for a connection. Where a leaked connection was borrowed is
+ * only recorded once a leak has been seen, or from the start when asked to,
+ * as capturing a stack trace on every borrow is not free. Statements
+ * created on a borrowed connection are timed per SQL template, see
+ * {@link SqlStats}, and emit Java Flight Recorder events, see {@link SqlEvent}.
+ *
+ * @author 12223508
+ */
+public class ConnectionPool {
+
+    /**
+     * Opens a new physical connection.
+     */
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // A connection returned this recently was working a moment ago, so it is
+    // lent without the round trip isValid() costs
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.SECONDS.toNanos(3);
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 5000;
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final long idleTimeoutNanos;
+    private final long leakThresholdNanos;
+    private volatile boolean captureBorrowSites;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // Most recently returned first, so busy periods reuse warm connections and
+    // the tail holds the ones that have been idle longest.
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private int totalConnections;
+    private int waitingThreads;
+    private boolean closed;
+
+    private final ScheduledExecutorService housekeeper;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanosSeen = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    /**
+     * Creates a pool and starts its housekeeping thread. Connections are opened
+     * lazily; the housekeeper tops the pool up to {@code minSize}.
+     *
+     * @param factory Opens physical connections.
+     * @param minSize The number of connections kept open while idle.
+     * @param maxSize The hard limit on open connections.
+     * @param maxWaitMillis How long borrow() waits before giving up.
+     * @param idleTimeoutMillis How long a connection above minSize may stay idle.
+     * @param leakThresholdMillis How long a connection may be held before a leak
+     * warning is logged, or 0 to disable leak detection.
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long maxWaitMillis,
+            long idleTimeoutMillis, long leakThresholdMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured maximum if the pool is
+     * exhausted. Closing the returned connection gives it back to the pool.
+     *
+     * @return A validated connection.
+     * @throws SQLException If no connection could be obtained in time or a new
+     * connection could not be opened.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + maxWaitNanos;
+
+        while (true) {
+            PooledConnection pooled = null;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    pooled = idle.pollFirst();
+                    if (pooled != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.increment();
+                        throw new SQLTimeoutException("Timed out after "
+                                + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms waiting for a database connection ("
+                                + maxSize + " in use)");
+                    }
+                    waitingThreads++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waitingThreads--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (pooled == null) {
+                pooled = openNew();
+            } else if (System.nanoTime() - pooled.lastReturnedAt > VALIDATION_BYPASS_NANOS && !isUsable(pooled.physical)) {
+                validationFailures.increment();
+                destroy(pooled);
+                continue;
+            }
+
+            long waitNanos = System.nanoTime() - start;
+            recordWait(waitNanos);
+            return pooled.lease(leakThresholdNanos > 0 && captureBorrowSites, waitNanos);
+        }
+    }
+
+    private PooledConnection openNew() throws SQLException {
+        try {
+            PooledConnection pooled = new PooledConnection(factory.create());
+            createdCount.increment();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                totalConnections--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isUsable(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanosSeen.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Takes a connection back from a proxy's close(). Connection state that a
+     * caller may have changed is reset so the next borrower gets a clean one.
+     */
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        if (!resetState(pooled.physical)) {
+            destroy(pooled);
+            return;
+        }
+        lock.lock();
+        try {
+            if (!closed) {
+                pooled.lastReturnedAt = System.nanoTime();
+                idle.addFirst(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroy(pooled);
+    }
+
+    private static boolean resetState(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (connection.isReadOnly()) {
+                connection.setReadOnly(false);
+            }
+            connection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // The connection is being discarded anyway.
+        }
+        destroyedCount.increment();
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts connections idle beyond the timeout, tops the pool up to the
+     * minimum size and reports connections held past the leak threshold.
+     */
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+            List<PooledConnection> evicted = new ArrayList<>();
+            int missing;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+                while (oldestFirst.hasNext() && totalConnections - evicted.size() > minSize) {
+                    PooledConnection pooled = oldestFirst.next();
+                    if (now - pooled.lastReturnedAt < idleTimeoutNanos) {
+                        break;
+                    }
+                    oldestFirst.remove();
+                    evicted.add(pooled);
+                }
+                missing = Math.max(0, minSize - (totalConnections - evicted.size()));
+                totalConnections += missing;
+            } finally {
+                lock.unlock();
+            }
+
+            for (PooledConnection pooled : evicted) {
+                destroy(pooled);
+            }
+            for (int i = 0; i < missing; i++) {
+                PooledConnection pooled;
+                try {
+                    pooled = openNew();
+                } catch (SQLException e) {
+                    // openNew() gave back its own reservation; give back the rest.
+                    lock.lock();
+                    try {
+                        totalConnections -= missing - i - 1;
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw e;
+                }
+                pooled.lastReturnedAt = System.nanoTime();
+                lock.lock();
+                try {
+                    idle.addLast(pooled);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            if (leakThresholdNanos > 0) {
+                for (PooledConnection pooled : borrowed) {
+                    if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdNanos) {
+                        pooled.leakReported = true;
+                        leakCount.increment();
+                        if (pooled.borrowSite != null) {
+                            Log.warn("Possible connection leak: connection held for {} ms, borrowed at:",
+                                    TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt), pooled.borrowSite);
+                        } else {
+                            Log.warn("Possible connection leak: connection held for {} ms; recording where "
+                                    + "connections are borrowed from now on", TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt));
+                            captureBorrowSites = true;
+                        }
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            Log.error("Connection pool housekeeping failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeper. Borrowed
+     * connections are closed as they are returned.
+     */
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pooled : toClose) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * Sets whether each borrow records where it came from, for the leak
+     * warning. Off by default; it is switched on by itself once a leak is
+     * seen.
+     *
+     * @param capture true to record borrow sites.
+     */
+    public void setCaptureBorrowSites(boolean capture) {
+        this.captureBorrowSites = capture;
+    }
+
+    public boolean isCapturingBorrowSites() {
+        return captureBorrowSites;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of open physical connections, borrowed or idle.
+     *
+     * @return The total connection count.
+     */
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    /**
+     * Gets the number of threads currently blocked in borrow().
+     *
+     * @return The waiting thread count.
+     */
+    public int getWaitingThreads() {
+        lock.lock();
+        try {
+            return waitingThreads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /**
+     * Gets the mean time callers spent in borrow().
+     *
+     * @return The average wait in milliseconds.
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.sum();
+        return borrows == 0 ? 0 : totalWaitNanos.sum() / (double) borrows / 1_000_000.0;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanosSeen.get() / 1_000_000.0;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount.sum();
+    }
+
+    public long getValidationFailures() {
+        return validationFailures.sum();
+    }
+
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, total=%d/%d, waiting=%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, timeouts=%d, leaks=%d]",
+                getActiveConnections(), getIdleConnections(), getTotalConnections(), maxSize, getWaitingThreads(),
+                getBorrowCount(), getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount(), getLeakCount());
+    }
+
+    /**
+     * A physical connection plus the bookkeeping for its current loan.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+        private volatile long lastReturnedAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        private volatile long leaseWaitNanos;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease(boolean trackBorrowSite, long waitNanos) {
+            borrowedAt = System.nanoTime();
+            leaseWaitNanos = waitNanos;
+            borrowSite = trackBorrowSite ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+            borrowed.add(this);
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Forwards calls to the physical connection until the lease is closed.
+     * Each borrow gets its own handler, so a stale reference to an earlier
+     * lease cannot touch a connection that has since been lent to someone
+     * else.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pooled.physical + (closed.get() ? ", closed" : "") + "]";
+                default:
+                    break;
+            }
+            if (closed.get()) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement && method.getReturnType().isInterface()) {
+                // createStatement, prepareStatement or prepareCall
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return InstrumentedStatement.wrap((Statement) result, method.getReturnType(), sql, pooled.leaseWaitNanos);
+            }
+            return result;
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package Util;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import ENUM.*;
+import Model.LogEntry;
 import Model.Report;
 import Model.User;
 import Server.DRSServer;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 
 /**
  * This class manages the database connection and operations for the disaster
@@ -58,7 +68,162 @@ public class DatabaseConnection {
     public static final int SERVER_PORT = 5000; // Port your server listens on
     public static final int TIMEOUT = 2000; // Timeout in milliseconds
 
+    // Connection pool settings, overridable with -Ddrs.db.pool.* properties
+    private static final int POOL_MIN_SIZE = Integer.getInteger("drs.db.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("drs.db.pool.maxSize", 20);
+    private static final long POOL_MAX_WAIT_MILLIS = Long.getLong("drs.db.pool.maxWaitMillis", 5000);
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = Long.getLong("drs.db.pool.idleTimeoutMillis", 300000);
+    private static final long POOL_LEAK_THRESHOLD_MILLIS = Long.getLong("drs.db.pool.leakThresholdMillis", 30000);
+    private static final boolean POOL_TRACE_LEAKS = Boolean.getBoolean("drs.db.pool.traceLeaks");
+
+    // Group commit of single report inserts and department status updates, overridable with -Ddrs.db.groupCommit.*
+    private static final long GROUP_COMMIT_WINDOW_MICROS = Long.getLong("drs.db.groupCommit.windowMicros", 2000);
+    private static final int GROUP_COMMIT_MAX_SIZE = Integer.getInteger("drs.db.groupCommit.maxSize", 256);
+    // How long a report writer may stay in flight; older report_versions rows are pruned
+    private static final String REPORT_VERSION_WINDOW = "INTERVAL 1 HOUR";
+
+    // Columns a client may change with UPDATE_REPORT; anything else would be spliced into SQL unchecked
+    private static final Set<String> UPDATABLE_REPORT_COLUMNS = Set.of(
+            "disaster_type", "location", "latitude", "longitude", "date_time", "reporter_name", "contact_info",
+            "fire_intensity", "affected_area_size", "nearby_infrastructure", "wind_speed", "flood_risk",
+            "evacuation_status", "magnitude", "depth", "aftershocks_expected", "water_level",
+            "flood_evacuation_status", "infrastructure_damage", "slope_stability", "blocked_roads",
+            "casualties_injuries", "disaster_description", "estimated_impact", "response_status",
+            "assigned_department", "resources_needed", "priority_level",
+            "fire_department_status", "health_department_status", "law_enforcement_status", "meteorology_status",
+            "geoscience_status", "gis_status", "utility_companies_status", "utility_electricity_status",
+            "utility_water_status", "utility_gas_status", "utility_telecommunications_status");
+
+    // Columns sent for each row of a report list; the TEXT columns are left out
+    private static final String REPORT_LIST_COLUMNS = "id, disaster_type, location, reporter_name, contact_info, response_status";
+
+    /**
+     * The columns the consoles' report tables show: no TEXT columns and no
+     * disaster specific fields. Read them with {@link #createReportSummary}
+     * and load the rest of a report with {@link #getReportDetail} when it is
+     * selected.
+     */
+    public static final String REPORT_SUMMARY_COLUMNS = "id, disaster_type, location, latitude, longitude, date_time, "
+            + "reporter_name, contact_info, response_status, priority_level, "
+            + "fire_department_status, health_department_status, law_enforcement_status, meteorology_status, "
+            + "geoscience_status, utility_companies_status, utility_electricity_status, utility_water_status, "
+            + "utility_gas_status, utility_telecommunications_status";
+
+    // Fully loaded reports behind the consoles' detail views, overridable with -Ddrs.db.reportCache.*
+    private static final ReportDetailCache REPORT_DETAILS = new ReportDetailCache(
+            Integer.getInteger("drs.db.reportCache.size", 64), Long.getLong("drs.db.reportCache.ttlMillis", 30000),
+            DatabaseConnection::getReportById);
+
     private static DRSServer server;
+    private static volatile ConnectionPool connectionPool;
+    private static volatile GroupCommitter<String[], Long> reportInserts;
+    private static volatile GroupCommitter<StatusUpdate, Void> statusUpdates;
+    private static final List<ReportChangeListener> changeListeners = new CopyOnWriteArrayList<>(List.of(REPORT_DETAILS));
+
+    /**
+     * Receives report rows one at a time from a streamed query.
+     */
+    public interface ReportRowHandler {
+
+        /**
+         * Handles the current row of the result set.
+         *
+         * @param rs The result set positioned on the row.
+         * @throws SQLException If reading the row fails.
+         * @throws IOException If passing the row on to a client fails.
+         */
+        void onRow(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * Makes a Report of the current row of a report query.
+     */
+    public interface ReportMapper {
+
+        /**
+         * Reads the row.
+         *
+         * @param rs The result set positioned on the row.
+         * @return The report.
+         * @throws SQLException If reading the row fails.
+         */
+        Report map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * The reports that changed after a version: those written since, which
+     * are either in the caller's view or have left it, and those deleted
+     * since.
+     */
+    public static final class ReportDelta {
+
+        private final long version;
+        private final boolean full;
+        private final List<Report> changed;
+        private final Set<Integer> removed;
+
+        ReportDelta(long version, boolean full, List<Report> changed, Set<Integer> removed) {
+            this.version = version;
+            this.full = full;
+            this.changed = changed;
+            this.removed = removed;
+        }
+
+        /**
+         * Gets the version the caller is up to date with after applying this
+         * delta, to pass to the next sync.
+         *
+         * @return The version.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Tells whether this is a full load, which replaces whatever the
+         * caller held, rather than a change list.
+         *
+         * @return true for a full load.
+         */
+        public boolean isFull() {
+            return full;
+        }
+
+        /**
+         * Gets the reports in the caller's view that were added or changed.
+         *
+         * @return The reports, in id order.
+         */
+        public List<Report> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Gets the ids of reports that were deleted or no longer match the
+         * caller's view.
+         *
+         * @return The ids.
+         */
+        public Set<Integer> getRemoved() {
+            return removed;
+        }
+    }
+
+    /**
+     * One department status change waiting for group commit.
+     */
+    private static final class StatusUpdate {
+
+        final int reportId;
+        final String column;
+        final String status;
+
+        StatusUpdate(int reportId, String column, String status) {
+            this.reportId = reportId;
+            this.column = column;
+            this.status = status;
+        }
+    }
 
     /**
      * Private constructor to prevent instantiation of this utility class.
@@ -72,27 +237,157 @@ public class DatabaseConnection {
     }
 
     /**
-     * Establishes and returns a connection to the database.
+     * Borrows a connection to the database from the shared pool. Closing the
+     * returned connection hands it back to the pool rather than closing the
+     * underlying MySQL session.
      *
      * @return A Connection object representing the database connection.
      * @throws SQLException If a database access error occurs or the URL is
      * null.
      */
     public static Connection getConnection() throws SQLException {
+        // Fails fast while the liveness monitor has the circuit open.
         if (isServerRunning()) {
-            return DriverManager.getConnection(DB_URL + DB_NAME, USER, PASS);
+            return getConnectionPool().borrow();
         } else {
             throw new SQLException("Cannot connect to the database because the server is not running.");
         }
     }
 
-    public static boolean isServerRunning() {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(SERVER_HOST, SERVER_PORT), TIMEOUT);
-            return true;
-        } catch (Exception e) {
-            return false;
+    /**
+     * Gets the shared connection pool, creating it on first use.
+     *
+     * @return The connection pool used by every getConnection() caller.
+     */
+    public static ConnectionPool getConnectionPool() {
+        ConnectionPool pool = connectionPool;
+        if (pool == null) {
+            synchronized (DatabaseConnection.class) {
+                pool = connectionPool;
+                if (pool == null) {
+                    pool = new ConnectionPool(() -> DriverManager.getConnection(DB_URL + DB_NAME, USER, PASS),
+                            POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_MAX_WAIT_MILLIS,
+                            POOL_IDLE_TIMEOUT_MILLIS, POOL_LEAK_THRESHOLD_MILLIS);
+                    pool.setCaptureBorrowSites(POOL_TRACE_LEAKS);
+                    connectionPool = pool;
+                }
+            }
         }
+        return pool;
+    }
+
+    /**
+     * Gets the shared connection pool without creating it, for monitoring.
+     *
+     * @return The pool, or null if no connection has been requested yet.
+     */
+    public static ConnectionPool peekConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Closes the shared connection pool. A later getConnection() call opens a
+     * fresh one.
+     */
+    public static void shutdownConnectionPool() {
+        synchronized (DatabaseConnection.class) {
+            if (reportInserts != null) {
+                reportInserts.shutdown();
+                reportInserts = null;
+            }
+            if (statusUpdates != null) {
+                statusUpdates.shutdown();
+                statusUpdates = null;
+            }
+            if (connectionPool != null) {
+                connectionPool.shutdown();
+                connectionPool = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the group committer for single report inserts, creating it on
+     * first use.
+     *
+     * @return The committer used by addReport.
+     */
+    public static GroupCommitter<String[], Long> getReportInserts() {
+        GroupCommitter<String[], Long> committer = reportInserts;
+        if (committer == null) {
+            synchronized (DatabaseConnection.class) {
+                committer = reportInserts;
+                if (committer == null) {
+                    committer = new GroupCommitter<>("inserts", DatabaseConnection::insertReportGroup,
+                            GROUP_COMMIT_WINDOW_MICROS, GROUP_COMMIT_MAX_SIZE);
+                    reportInserts = committer;
+                }
+            }
+        }
+        return committer;
+    }
+
+    /**
+     * Gets the group committer for department status updates, creating it on
+     * first use.
+     *
+     * @return The committer used by updateDepartmentStatus.
+     */
+    public static GroupCommitter<?, ?> getStatusUpdates() {
+        return statusUpdateCommitter();
+    }
+
+    private static GroupCommitter<StatusUpdate, Void> statusUpdateCommitter() {
+        GroupCommitter<StatusUpdate, Void> committer = statusUpdates;
+        if (committer == null) {
+            synchronized (DatabaseConnection.class) {
+                committer = statusUpdates;
+                if (committer == null) {
+                    committer = new GroupCommitter<>("status", DatabaseConnection::updateStatusGroup,
+                            GROUP_COMMIT_WINDOW_MICROS, GROUP_COMMIT_MAX_SIZE);
+                    statusUpdates = committer;
+                }
+            }
+        }
+        return committer;
+    }
+
+    /**
+     * Registers a listener for committed report inserts and updates.
+     *
+     * @param listener The listener to add.
+     */
+    public static void addReportChangeListener(ReportChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with addReportChangeListener.
+     *
+     * @param listener The listener to remove.
+     */
+    public static void removeReportChangeListener(ReportChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private static void fireReportChanged(ReportChange change) {
+        for (ReportChangeListener listener : changeListeners) {
+            try {
+                listener.reportChanged(change);
+            } catch (RuntimeException e) {
+                Log.error("Report change listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the DRS server is up, using the state cached by the
+     * background liveness monitor. No socket is opened.
+     *
+     * @return true if the server was reachable at the last heartbeat.
+     */
+    public static boolean isServerRunning() {
+        return ServerLivenessMonitor.getInstance().isServerRunning();
     }
 
     /**
@@ -104,38 +399,56 @@ public class DatabaseConnection {
      * @return A string indicating the login result.
      */
     public static String validateLogin(String username, String password, String role) {
+        String result = checkLogin(username, password, role);
+        return result.startsWith("LOGIN_SUCCESS|") ? "LOGIN_SUCCESS" : result;
+    }
+
+    /**
+     * Validates user login credentials and, if they are valid, returns the
+     * user's stored role as well, so that callers need not look it up again.
+     *
+     * @param username The username to validate.
+     * @param password The password to validate.
+     * @param role The role to validate.
+     * @return "LOGIN_SUCCESS|storedRole", or the failure as for
+     * {@link #validateLogin(String, String, String)}.
+     */
+    public static String checkLogin(String username, String password, String role) {
+        return Metrics.time("db.validateLogin", () -> checkLoginUntimed(username, password, role));
+    }
+
+    private static String checkLoginUntimed(String username, String password, String role) {
         if (server != null && !server.isRunning()) {
             return "SERVER_NOT_RUNNING";
         }
 
-        String sql = "SELECT * FROM users WHERE username = ?";
+        String sql = "SELECT password, role FROM users WHERE username = ?";
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String storedPassword = rs.getString("password");
-                String storedRole = rs.getString("role");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String storedPassword = rs.getString("password");
+                    String storedRole = rs.getString("role");
 
-                if (!password.equals(storedPassword)) {
-                    return "INCORRECT_PASSWORD";
-                }
+                    if (!password.equals(storedPassword)) {
+                        return "INCORRECT_PASSWORD";
+                    }
 
-                // Check if the stored role matches the selected role
-                // Allow admin to access any role
-                if (storedRole.equalsIgnoreCase("admin")
-                        || storedRole.equalsIgnoreCase(role)) {
-                    return "LOGIN_SUCCESS";
-                }else if(storedRole.startsWith("Utility_") 
-                        && role.equals("UtilityCompanies")){
-                        return "LOGIN_SUCCESS"; 
-                 } else {
-                    return "ROLE_MISMATCH";
+                    // Check if the stored role matches the selected role
+                    // Allow admin to access any role
+                    if (storedRole.equalsIgnoreCase("admin")
+                            || storedRole.equalsIgnoreCase(role)
+                            || (storedRole.startsWith("Utility_") && role.equals("UtilityCompanies"))) {
+                        return "LOGIN_SUCCESS|" + storedRole;
+                    } else {
+                        return "ROLE_MISMATCH";
+                    }
+                } else {
+                    return "USER_NOT_FOUND";
                 }
-            } else {
-                return "USER_NOT_FOUND";
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Login check failed", e);
             return "DATABASE_ERROR: " + e.getMessage();
         }
     }
@@ -147,6 +460,10 @@ public class DatabaseConnection {
      * @return The role of the user, or an empty string if not found.
      */
     public static String getUserRole(String username) {
+        return Metrics.time("db.getUserRole", () -> getUserRoleUntimed(username));
+    }
+
+    private static String getUserRoleUntimed(String username) {
         if (server != null && !server.isRunning()) {
             return "SERVER_NOT_RUNNING";
         }
@@ -159,7 +476,7 @@ public class DatabaseConnection {
                 return rs.getString("role");
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Could not look up user role", e);
         }
         return "";
     }
@@ -171,15 +488,19 @@ public class DatabaseConnection {
      * @throws SQLException If a database access error occurs.
      */
     public static List<Report> getAllReports() throws SQLException {
+        return Metrics.time("db.getAllReports", DatabaseConnection::getAllReportsUntimed);
+    }
+
+    private static List<Report> getAllReportsUntimed() throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
 
         List<Report> reports = new ArrayList<>();
-        String sql = "SELECT * FROM reports";
+        String sql = "SELECT " + REPORT_SUMMARY_COLUMNS + " FROM reports";
         try (Connection conn = getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                reports.add(createReportFromResultSet(rs));
+                reports.add(createReportSummary(rs));
             }
         }
         return reports;
@@ -192,15 +513,19 @@ public class DatabaseConnection {
      * @throws SQLException If a database access error occurs.
      */
     public static List<Report> getDisasterStatusReports() throws SQLException {
+        return Metrics.time("db.getDisasterStatusReports", DatabaseConnection::getDisasterStatusReportsUntimed);
+    }
+
+    private static List<Report> getDisasterStatusReportsUntimed() throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
 
         List<Report> reports = new ArrayList<>();
-        String sql = "SELECT * FROM reports WHERE response_status IN ('Pending', 'In Progress')";
+        String sql = "SELECT " + REPORT_SUMMARY_COLUMNS + " FROM reports WHERE response_status IN ('Pending', 'In Progress')";
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                reports.add(createReportFromResultSet(rs));
+                reports.add(createReportSummary(rs));
             }
         }
         return reports;
@@ -215,6 +540,10 @@ public class DatabaseConnection {
      * @throws SQLException If a database access error occurs.
      */
     public static void updateDepartmentAssignments(int reportId, Map<Department, ResponseStatus> assignments) throws SQLException {
+        Metrics.time("db.updateDepartmentAssignments", () -> updateDepartmentAssignmentsUntimed(reportId, assignments));
+    }
+
+    private static void updateDepartmentAssignmentsUntimed(int reportId, Map<Department, ResponseStatus> assignments) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
@@ -232,6 +561,18 @@ public class DatabaseConnection {
             pstmt.setInt(7, reportId);
             pstmt.executeUpdate();
         }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        Set<Department> responsible = EnumSet.noneOf(Department.class);
+        for (Department department : new Department[]{Department.FIRE_DEPARTMENT, Department.HEALTH_DEPARTMENT,
+            Department.LAW_ENFORCEMENT, Department.METEOROLOGY, Department.GEOSCIENCE, Department.UTILITY_COMPANIES}) {
+            String status = getStatusString(assignments, department);
+            fields.put(department.name().toLowerCase() + "_status", status);
+            if (!status.equals(ResponseStatus.NOT_RESPONSIBLE.name())) {
+                responsible.add(department);
+            }
+        }
+        fireReportChanged(new ReportChange(reportId, false, fields, responsible));
     }
 
     private static String getStatusString(Map<Department, ResponseStatus> assignments, Department department) {
@@ -240,28 +581,53 @@ public class DatabaseConnection {
     }
 
     /**
-     * Updates a report in the database.
+     * Updates a report's response status and priority level in the database.
+     * Resources and the communication log are only appended to, with
+     * {@link #addResourceNeeded} and {@link #appendLogEntry}, so that saving a
+     * report cannot undo someone else's addition.
      *
      * @param report The Report object to update.
      * @throws SQLException If a database access error occurs.
      */
     public static void updateReport(Report report) throws SQLException {
+        Metrics.time("db.updateReport", () -> updateReportUntimed(report));
+    }
+
+    private static void updateReportUntimed(Report report) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
 
-        String sql = "UPDATE reports SET response_status = ?, resources_needed = ?, communication_log = ?, priority_level = ? WHERE id = ?";
+        String sql = "UPDATE reports SET response_status = ?, priority_level = ? WHERE id = ?";
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, report.getResponseStatus());
-            pstmt.setString(2, report.getResourcesNeeded());
-            pstmt.setString(3, report.getCommunicationLog());
-            pstmt.setString(4, report.getPriorityLevel());
-            pstmt.setInt(5, report.getId());
+            pstmt.setString(2, report.getPriorityLevel());
+            pstmt.setInt(3, report.getId());
             pstmt.executeUpdate();
         }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("response_status", report.getResponseStatus());
+        fields.put("priority_level", report.getPriorityLevel());
+        fireReportChanged(new ReportChange(report.getId(), false, fields, null));
     }
 
+    /**
+     * Saves every field of a report changed in the edit window. The
+     * resources needed are only written if no resource was added since the
+     * report was loaded, as the save would overwrite it otherwise; changing
+     * them counts as a new resources_version, like an addition.
+     *
+     * @param report The report, as loaded and then edited. Its resources
+     * version is brought up to date.
+     * @throws SQLException If the report does not exist, resources were
+     * added to it since it was loaded, or a database access error occurs.
+     */
     public static void updateReportFromEditWindow(Report report) throws SQLException {
+        Metrics.time("db.updateReportFromEditWindow", () -> updateReportFromEditWindowUntimed(report));
+    }
+
+    private static void updateReportFromEditWindowUntimed(Report report) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
@@ -274,13 +640,15 @@ public class DatabaseConnection {
                 + "flood_evacuation_status = ?, infrastructure_damage = ?, slope_stability = ?, "
                 + "blocked_roads = ?, casualties_injuries = ?, disaster_description = ?, "
                 + "estimated_impact = ?, response_status = ?, assigned_department = ?, "
-                + "resources_needed = ?, communication_log = ?, priority_level = ?, "
+                + "resources_version = LAST_INSERT_ID(resources_version + IF(resources_needed <=> ?, 0, 1)), "
+                + "resources_needed = ?, priority_level = ?, "
                 + "fire_department_status = ?, health_department_status = ?, law_enforcement_status = ?, "
                 + "meteorology_status = ?, geoscience_status = ?, utility_companies_status = ?, "
                 + "utility_electricity_status = ?, utility_water_status = ?, utility_gas_status = ?, "
                 + "utility_telecommunications_status = ? "
-                + "WHERE id = ?";
+                + "WHERE id = ? AND resources_version = ?";
 
+        long resourcesVersion;
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, report.getDisasterType());
@@ -310,7 +678,7 @@ public class DatabaseConnection {
             pstmt.setString(25, report.getResponseStatus());
             pstmt.setString(26, report.getAssignedDepartment());
             pstmt.setString(27, report.getResourcesNeeded());
-            pstmt.setString(28, report.getCommunicationLog());
+            pstmt.setString(28, report.getResourcesNeeded());
             pstmt.setString(29, report.getPriorityLevel());
             pstmt.setString(30, report.getDepartmentStatus(Department.FIRE_DEPARTMENT).name());
             pstmt.setString(31, report.getDepartmentStatus(Department.HEALTH_DEPARTMENT).name());
@@ -323,53 +691,180 @@ public class DatabaseConnection {
             pstmt.setString(38, report.getDepartmentStatus(Department.UTILITY_GAS).name());
             pstmt.setString(39, report.getDepartmentStatus(Department.UTILITY_TELECOMMUNICATIONS).name());
             pstmt.setInt(40, report.getId());
+            pstmt.setLong(41, report.getResourcesVersion());
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
-                throw new SQLException("Updating report failed, no rows affected.");
+                throw new SQLException(reportExists(conn, report.getId())
+                        ? "Resources were added to the report since it was opened. Reopen it to edit it."
+                        : "Updating report failed, no rows affected.");
+            }
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                resourcesVersion = rs.next() ? rs.getLong(1) : report.getResourcesVersion();
+            }
+            Log.info("Report updated successfully in the database.");
+        }
+
+        // Only the list columns are named; consoles re-read the report for the rest
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("disaster_type", report.getDisasterType());
+        fields.put("location", report.getLocation());
+        fields.put("reporter_name", report.getReporterName());
+        fields.put("contact_info", report.getContactInfo());
+        fields.put("response_status", report.getResponseStatus());
+        fields.put("priority_level", report.getPriorityLevel());
+        Set<Department> responsible = EnumSet.noneOf(Department.class);
+        for (Department department : Department.values()) {
+            ResponseStatus status = report.getDepartmentStatus(department);
+            fields.put(department.name().toLowerCase() + "_status", status.name());
+            if (status != ResponseStatus.NOT_RESPONSIBLE) {
+                responsible.add(department);
+            }
+        }
+        if (resourcesVersion != report.getResourcesVersion()) {
+            fields.put("resources_version", String.valueOf(resourcesVersion));
+            report.setResourcesVersion(resourcesVersion);
+        }
+        fireReportChanged(new ReportChange(report.getId(), false, fields, responsible));
+    }
+
+    private static boolean reportExists(Connection conn, int reportId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM reports WHERE id = ?")) {
+            pstmt.setInt(1, reportId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
             }
-            System.out.println("Report updated successfully in the database.");
         }
     }
 
     /**
-     * Updates the communication log for a report in the database.
+     * Appends an entry to a report's communication log. This is a single
+     * insert into report_log_entries, so entries from several departments
+     * cannot overwrite each other. The entry's id grows with every entry and
+     * serves clients as the log's version.
      *
-     * @param reportId The ID of the report to update.
-     * @param log The updated communication log.
+     * @param reportId The ID of the report.
+     * @param department The writing Department's constant name, or
+     * {@link LogEntry#COORDINATOR}.
+     * @param author The user who wrote the entry.
+     * @param text The entry.
+     * @return The stored entry, or null if there is no such report.
      * @throws SQLException If a database access error occurs.
      */
-    public static void updateCommunicationLog(int reportId, String log) throws SQLException {
+    public static LogEntry appendLogEntry(int reportId, String department, String author, String text) throws SQLException {
+        return Metrics.time("db.appendLogEntry", () -> appendLogEntryUntimed(reportId, department, author, text));
+    }
+
+    private static LogEntry appendLogEntryUntimed(int reportId, String department, String author, String text) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
 
-        String sql = "UPDATE reports SET communication_log = ? WHERE id = ?";
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        // Selecting from reports inserts nothing for a report that does not exist
+        String sql = "INSERT INTO report_log_entries (report_id, ts, department, author, text) "
+                + "SELECT id, ?, ?, ?, ? FROM reports WHERE id = ?";
+        long id;
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(timestamp));
+            pstmt.setString(2, department);
+            pstmt.setString(3, author);
+            pstmt.setString(4, text);
+            pstmt.setInt(5, reportId);
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                id = keys.next() ? keys.getLong(1) : 0;
+            }
+        }
+        LogEntry entry = new LogEntry(id, reportId, timestamp, department, author, text);
+        fireReportChanged(ReportChange.updated(reportId, "log_entry", entry.toString()));
+        return entry;
+    }
+
+    /**
+     * Gets one page of a report's communication log, newest entry first. Pass
+     * the last entry of a page as {@code before} to get the page after it.
+     *
+     * @param reportId The ID of the report.
+     * @param before The entry to continue after, or null for the newest page.
+     * @param limit The page size.
+     * @return Up to limit entries older than before, newest first.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static List<LogEntry> getLogEntries(int reportId, LogEntry before, int limit) throws SQLException {
+        return Metrics.time("db.getLogEntries", () -> getLogEntriesUntimed(reportId, before, limit));
+    }
+
+    private static List<LogEntry> getLogEntriesUntimed(int reportId, LogEntry before, int limit) throws SQLException {
+        String sql = "SELECT id, ts, department, author, text FROM report_log_entries WHERE report_id = ?"
+                + (before != null ? " AND (ts < ? OR (ts = ? AND id < ?))" : "")
+                + " ORDER BY ts DESC, id DESC LIMIT ?";
+        List<LogEntry> entries = new ArrayList<>();
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, log);
-            pstmt.setInt(2, reportId);
-            pstmt.executeUpdate();
+            int index = 1;
+            pstmt.setInt(index++, reportId);
+            if (before != null) {
+                Timestamp ts = Timestamp.valueOf(before.getTimestamp());
+                pstmt.setTimestamp(index++, ts);
+                pstmt.setTimestamp(index++, ts);
+                pstmt.setLong(index++, before.getId());
+            }
+            pstmt.setInt(index, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new LogEntry(rs.getLong("id"), reportId, rs.getTimestamp("ts").toLocalDateTime(),
+                            rs.getString("department"), rs.getString("author"), rs.getString("text")));
+                }
+            }
         }
+        return entries;
     }
 
     /**
-     * Updates the resources needed for a report in the database.
+     * Adds a resource to the resources needed for a report. The text is
+     * appended inside the database with one UPDATE, so only the new resource
+     * is sent and concurrent additions cannot overwrite each other. Each
+     * addition increments the report's resources_version; MySQL's
+     * LAST_INSERT_ID(expr) hands the new value back on the same connection.
      *
      * @param reportId The ID of the report to update.
-     * @param resources The updated resources needed.
+     * @param resource The resource to add, as one line.
+     * @return The report's new resources_version, or 0 if there is no such
+     * report.
      * @throws SQLException If a database access error occurs.
      */
-    public static void updateResourcesNeeded(int reportId, String resources) throws SQLException {
+    public static long addResourceNeeded(int reportId, String resource) throws SQLException {
+        return Metrics.time("db.addResourceNeeded", () -> addResourceNeededUntimed(reportId, resource));
+    }
+
+    private static long addResourceNeededUntimed(int reportId, String resource) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
 
-        String sql = "UPDATE reports SET resources_needed = ? WHERE id = ?";
+        String sql = "UPDATE reports SET resources_needed = IF(resources_needed IS NULL OR resources_needed = '', ?, "
+                + "CONCAT(resources_needed, ?)), resources_version = LAST_INSERT_ID(resources_version + 1) WHERE id = ?";
+        long version;
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, resources);
-            pstmt.setInt(2, reportId);
-            pstmt.executeUpdate();
+            pstmt.setString(1, resource);
+            pstmt.setString(2, "\n" + resource);
+            pstmt.setInt(3, reportId);
+            if (pstmt.executeUpdate() == 0) {
+                return 0;
+            }
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                version = rs.next() ? rs.getLong(1) : 0;
+            }
         }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("resource_added", resource);
+        fields.put("resources_version", String.valueOf(version));
+        fireReportChanged(new ReportChange(reportId, false, fields, null));
+        return version;
     }
 
     /**
@@ -381,6 +876,10 @@ public class DatabaseConnection {
      * @throws SQLException If a database access error occurs.
      */
     public static void updateCoordinates(int reportId, double latitude, double longitude) throws SQLException {
+        Metrics.time("db.updateCoordinates", () -> updateCoordinatesUntimed(reportId, latitude, longitude));
+    }
+
+    private static void updateCoordinatesUntimed(int reportId, double latitude, double longitude) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
@@ -392,6 +891,11 @@ public class DatabaseConnection {
             pstmt.setInt(3, reportId);
             pstmt.executeUpdate();
         }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("latitude", Double.toString(latitude));
+        fields.put("longitude", Double.toString(longitude));
+        fireReportChanged(new ReportChange(reportId, false, fields, null));
     }
 
     /**
@@ -403,17 +907,118 @@ public class DatabaseConnection {
      * @throws SQLException If a database access error occurs.
      */
     public static void updateDepartmentStatus(int reportId, Department department, ResponseStatus status) throws SQLException {
+        Metrics.time("db.updateDepartmentStatus", () -> updateDepartmentStatusUntimed(reportId, department, status));
+    }
+
+    private static void updateDepartmentStatusUntimed(int reportId, Department department, ResponseStatus status) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
 
         String columnName = department.name().toLowerCase() + "_status";
-        String sql = "UPDATE reports SET " + columnName + " = ? WHERE id = ?";
-        try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, status.name());
-            pstmt.setInt(2, reportId);
-            pstmt.executeUpdate();
+        // Waits for the commit of the group this update was gathered into
+        statusUpdateCommitter().submit(new StatusUpdate(reportId, columnName, status.name()));
+        fireReportChanged(ReportChange.updated(reportId, columnName, status.name()));
+    }
+
+    /**
+     * Writes a group of department status updates in one transaction, with
+     * one multi-row UPDATE per status column. When a report's column is
+     * updated more than once in the group, the latest value wins, as it
+     * would had the updates run one by one.
+     */
+    private static List<Void> updateStatusGroup(List<StatusUpdate> group) throws SQLException {
+        return Metrics.time("db.updateStatusGroup", () -> updateStatusGroupUntimed(group));
+    }
+
+    private static List<Void> updateStatusGroupUntimed(List<StatusUpdate> group) throws SQLException {
+        Map<String, Map<Integer, String>> byColumn = new LinkedHashMap<>();
+        for (StatusUpdate update : group) {
+            byColumn.computeIfAbsent(update.column, c -> new LinkedHashMap<>()).put(update.reportId, update.status);
+        }
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, Map<Integer, String>> column : byColumn.entrySet()) {
+                    Map<Integer, String> values = column.getValue();
+                    StringBuilder sql = new StringBuilder("UPDATE reports SET ").append(column.getKey()).append(" = CASE id");
+                    for (int i = 0; i < values.size(); i++) {
+                        sql.append(" WHEN ? THEN ?");
+                    }
+                    sql.append(" END WHERE id IN (");
+                    for (int i = 0; i < values.size(); i++) {
+                        sql.append(i == 0 ? "?" : ", ?");
+                    }
+                    sql.append(')');
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                        int index = 1;
+                        for (Map.Entry<Integer, String> value : values.entrySet()) {
+                            pstmt.setInt(index++, value.getKey());
+                            pstmt.setString(index++, value.getValue());
+                        }
+                        for (int reportId : values.keySet()) {
+                            pstmt.setInt(index++, reportId);
+                        }
+                        pstmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return Collections.nCopies(group.size(), null);
+    }
+
+    /**
+     * Gets the departments responsible for a report, i.e. those whose status
+     * column is set to something other than NOT_RESPONSIBLE.
+     *
+     * @param reportId The ID of the report.
+     * @return The departments; empty if the report does not exist.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static Set<Department> getResponsibleDepartments(int reportId) throws SQLException {
+        return Metrics.time("db.getResponsibleDepartments", () -> getResponsibleDepartmentsUntimed(reportId));
+    }
+
+    private static Set<Department> getResponsibleDepartmentsUntimed(int reportId) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        Department[] departments = Department.values();
+        for (int i = 0; i < departments.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append(departments[i].name().toLowerCase()).append("_status");
+        }
+        sql.append(" FROM reports WHERE id = ?");
+
+        Set<Department> responsible = EnumSet.noneOf(Department.class);
+        try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            pstmt.setInt(1, reportId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    for (int i = 0; i < departments.length; i++) {
+                        String status = rs.getString(i + 1);
+                        if (status != null && !status.isEmpty() && !status.equals(ResponseStatus.NOT_RESPONSIBLE.name())) {
+                            responsible.add(departments[i]);
+                        }
+                    }
+                }
+            }
         }
+        return responsible;
+    }
+
+    /**
+     * Gets the SQL condition choosing the active reports a department is
+     * responsible for.
+     *
+     * @param department The department.
+     * @return The condition on the reports columns.
+     */
+    public static String activeReportsCondition(Department department) {
+        String columnName = department.name().toLowerCase() + "_status";
+        return "response_status IN ('Pending', 'In Progress') "
+                + "AND " + columnName + " IS NOT NULL AND " + columnName + " != 'NOT_RESPONSIBLE'";
     }
 
     /**
@@ -424,17 +1029,19 @@ public class DatabaseConnection {
      * @throws SQLException If a database access error occurs.
      */
     public static List<Report> getActiveReportsForDepartment(Department department) throws SQLException {
+        return Metrics.time("db.getActiveReportsForDepartment", () -> getActiveReportsForDepartmentUntimed(department));
+    }
+
+    private static List<Report> getActiveReportsForDepartmentUntimed(Department department) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
 
         List<Report> reports = new ArrayList<>();
-        String columnName = department.name().toLowerCase() + "_status";
-        String sql = "SELECT * FROM reports WHERE response_status IN ('Pending', 'In Progress') "
-                + "AND " + columnName + " IS NOT NULL AND " + columnName + " != 'NOT_RESPONSIBLE'";
+        String sql = "SELECT " + REPORT_SUMMARY_COLUMNS + " FROM reports WHERE " + activeReportsCondition(department);
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                reports.add(createReportFromResultSet(rs));
+                reports.add(createReportSummary(rs));
             }
         }
         return reports;
@@ -448,6 +1055,10 @@ public class DatabaseConnection {
      * @throws SQLException If a database access error occurs.
      */
     public static Report getReportById(int reportId) throws SQLException {
+        return Metrics.time("db.getReportById", () -> getReportByIdUntimed(reportId));
+    }
+
+    private static Report getReportByIdUntimed(int reportId) throws SQLException {
         if (server != null && !server.isRunning()) {
             throw new SQLException("SERVER_NOT_RUNNING");
         }
@@ -463,6 +1074,245 @@ public class DatabaseConnection {
         return null;
     }
 
+    /**
+     * Gets the report summaries that changed since a version, for refreshing
+     * a report list without reading the whole table. Passing 0 loads every
+     * report.
+     *
+     * @param version The version returned by the previous sync, or 0.
+     * @return The changes, and the version to pass next time.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static ReportDelta getReportsChangedSince(long version) throws SQLException {
+        return getReportsChangedSince(version, null, DatabaseConnection::createReportSummary);
+    }
+
+    /**
+     * Gets the changes since a version to a filtered report list. Changed
+     * reports that no longer match the condition are listed as removed, so
+     * the caller can drop them. Every write to reports gives the row the next
+     * row_version, and deleted reports leave a tombstone with one, so only
+     * rows written since the last sync are read, through the row_version
+     * index. The rows and tombstones are read in one transaction and so agree
+     * with each other.
+     * <p>
+     * Versions are handed out when a row is written but only become visible
+     * when the writer commits, which need not be in version order. The
+     * version returned therefore stops below the first version still in
+     * flight, so that the next sync asks again for anything committed later
+     * (see {@link #lowWaterMark}).
+     *
+     * @param version The version returned by the previous sync, or 0 to load
+     * every matching report.
+     * @param condition An SQL condition on the reports columns choosing the
+     * reports in view, or null for all. It is put into the SQL as is, so it
+     * must never come from a client.
+     * @param mapper Reads a report from a row of
+     * {@link #REPORT_SUMMARY_COLUMNS}.
+     * @return The changes, and the version to pass next time.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static ReportDelta getReportsChangedSince(long version, String condition, ReportMapper mapper) throws SQLException {
+        return Metrics.time("db.getReportsChangedSince", () -> getReportsChangedSinceUntimed(version, condition, mapper));
+    }
+
+    private static ReportDelta getReportsChangedSinceUntimed(long version, String condition, ReportMapper mapper) throws SQLException {
+        if (server != null && !server.isRunning()) {
+            throw new SQLException("SERVER_NOT_RUNNING");
+        }
+
+        String inView = condition == null ? "TRUE" : "(" + condition + ")";
+        List<Report> changed = new ArrayList<>();
+        Set<Integer> removed = new TreeSet<>();
+        long newest;
+        Set<Long> committed;
+        List<Long> allocated;
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // The first read fixes the transaction's snapshot
+                newest = readNewestReportVersion(conn, version);
+                committed = new HashSet<>(readRecentReportVersions(conn, version));
+                if (version <= 0) {
+                    String sql = "SELECT " + REPORT_SUMMARY_COLUMNS + " FROM reports WHERE " + inView + " ORDER BY id";
+                    try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+                        while (rs.next()) {
+                            changed.add(mapper.map(rs));
+                        }
+                    }
+                } else {
+                    String sql = "SELECT " + REPORT_SUMMARY_COLUMNS + ", " + inView + " AS in_view "
+                            + "FROM reports WHERE row_version > ? ORDER BY id";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setLong(1, version);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                if (rs.getBoolean("in_view")) {
+                                    changed.add(mapper.map(rs));
+                                } else {
+                                    removed.add(rs.getInt("id"));
+                                }
+                            }
+                        }
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "SELECT report_id FROM report_tombstones WHERE row_version > ?")) {
+                        pstmt.setLong(1, version);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                removed.add(rs.getInt(1));
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            // A dirty read, after the snapshot, also sees the versions
+            // of writers that have not committed yet
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);
+            try {
+                allocated = readRecentReportVersions(conn, version);
+            } finally {
+                conn.setTransactionIsolation(isolation);
+            }
+        }
+        return new ReportDelta(lowWaterMark(version, newest, committed, allocated), version <= 0, changed, removed);
+    }
+
+    private static long readNewestReportVersion(Connection conn, long since) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT MAX(version) FROM report_versions WHERE version > ?")) {
+            pstmt.setLong(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Math.max(since, rs.getLong(1)) : since;
+            }
+        }
+    }
+
+    /**
+     * Reads the versions handed out within the last
+     * {@link #REPORT_VERSION_WINDOW}, the only ones whose writers may still
+     * be in flight. A later read's window starts later, so the dirty read
+     * never sees a version that the snapshot would have left out for being
+     * too old.
+     */
+    private static List<Long> readRecentReportVersions(Connection conn, long since) throws SQLException {
+        List<Long> versions = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT version FROM report_versions "
+                + "WHERE version > ? AND allocated_at >= NOW(3) - " + REPORT_VERSION_WINDOW)) {
+            pstmt.setLong(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    versions.add(rs.getLong(1));
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Works out the version a sync has seen every change up to. Versions are
+     * handed out in increasing order, so any version handed out before the
+     * sync's snapshot was taken is either in the snapshot, or was still in
+     * flight then and shows up in the dirty read taken after it. The sync has
+     * therefore seen everything below the first version that the dirty read
+     * has and the snapshot lacks. Versions of writers that rolled back leave
+     * gaps, which are simply skipped. Only recent versions are compared, as a
+     * writer is not expected to stay in flight longer than
+     * {@link #REPORT_VERSION_WINDOW}.
+     *
+     * @param since The version the sync started from.
+     * @param newest The newest version in the snapshot, or since if none.
+     * @param committed The recent versions after since in the snapshot.
+     * @param allocated The recent versions after since in the dirty read.
+     * @return The version to sync from next time.
+     */
+    static long lowWaterMark(long since, long newest, Set<Long> committed, List<Long> allocated) {
+        long mark = Math.max(since, newest);
+        for (long version : allocated) {
+            if (!committed.contains(version)) {
+                mark = Math.min(mark, version - 1);
+            }
+        }
+        return mark;
+    }
+
+    /**
+     * Deletes the report_versions rows older than
+     * {@link #REPORT_VERSION_WINDOW}, which no sync looks at any more. The
+     * newest row is kept, so that the AUTO_INCREMENT does not start over
+     * after a MySQL restart. The DRS server runs this on a schedule.
+     *
+     * @return The number of rows deleted.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static int pruneReportVersions() throws SQLException {
+        return Metrics.time("db.pruneReportVersions", () -> {
+            try (Connection conn = getConnection()) {
+                return pruneReportVersions(conn);
+            }
+        });
+    }
+
+    static int pruneReportVersions(Connection conn) throws SQLException {
+        String sql = "DELETE FROM report_versions WHERE allocated_at < NOW(3) - " + REPORT_VERSION_WINDOW + " "
+                + "AND version < (SELECT newest FROM (SELECT MAX(version) AS newest FROM report_versions) AS v)";
+        try (Statement stmt = conn.createStatement()) {
+            return stmt.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Gets a report with all its fields, for showing the one selected in a
+     * report list. Reports are cached for a short while and dropped from the
+     * cache when they are written to.
+     *
+     * @param reportId The ID of the report.
+     * @return The report, or null if there is none. It is shared with other
+     * callers and must not be changed.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static Report getReportDetail(int reportId) throws SQLException {
+        return REPORT_DETAILS.get(reportId);
+    }
+
+    /**
+     * Creates a Report from a row of {@link #REPORT_SUMMARY_COLUMNS}. Fields
+     * outside the summary keep their defaults.
+     *
+     * @param rs The ResultSet positioned on the row.
+     * @return A new Report object.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static Report createReportSummary(ResultSet rs) throws SQLException {
+        Report report = new Report(
+                rs.getInt("id"),
+                rs.getString("disaster_type"),
+                rs.getString("location"),
+                rs.getDouble("latitude"),
+                rs.getDouble("longitude"),
+                rs.getString("date_time"),
+                rs.getString("reporter_name"),
+                rs.getString("contact_info"),
+                rs.getString("response_status")
+        );
+        report.setPriorityLevel(rs.getString("priority_level"));
+        setDepartmentStatuses(report, rs);
+        return report;
+    }
+
+    private static void setDepartmentStatuses(Report report, ResultSet rs) throws SQLException {
+        for (Department dept : Department.values()) {
+            String statusString = rs.getString(dept.name().toLowerCase() + "_status");
+            ResponseStatus status = (statusString != null && !statusString.isEmpty())
+                    ? ResponseStatus.valueOf(statusString)
+                    : ResponseStatus.NOT_RESPONSIBLE;
+            report.setDepartmentStatus(dept, status);
+        }
+    }
+
     /**
      * Creates a Report object from a ResultSet.
      *
@@ -502,54 +1352,94 @@ public class DatabaseConnection {
         report.setDisasterDescription(rs.getString("disaster_description"));
         report.setEstimatedImpact(rs.getString("estimated_impact"));
         report.setResourcesNeeded(rs.getString("resources_needed"));
+        report.setResourcesVersion(rs.getLong("resources_version"));
         report.setCommunicationLog(rs.getString("communication_log"));
         report.setPriorityLevel(rs.getString("priority_level"));
-
-        for (Department dept : Department.values()) {
-            String statusString = rs.getString(dept.name().toLowerCase() + "_status");
-            ResponseStatus status = (statusString != null && !statusString.isEmpty())
-                    ? ResponseStatus.valueOf(statusString)
-                    : ResponseStatus.NOT_RESPONSIBLE;
-            report.setDepartmentStatus(dept, status);
-        }
-
+        setDepartmentStatuses(report, rs);
         return report;
     }
 
     public String addReport(String disasterType, String location, String reporterName, String contactInfo, String details) {
+        return Metrics.time("db.addReport", () -> addReportUntimed(disasterType, location, reporterName, contactInfo, details));
+    }
+
+    private String addReportUntimed(String disasterType, String location, String reporterName, String contactInfo, String details) {
         if (server != null && !server.isRunning()) {
             return "SERVER_NOT_RUNNING";
         }
 
-        String sql = "INSERT INTO reports (disaster_type, location, reporter_name, contact_info, details) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, disasterType);
-            pstmt.setString(2, location);
-            pstmt.setString(3, reporterName);
-            pstmt.setString(4, contactInfo);
-            pstmt.setString(5, details);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
+        try {
+            // Waits for the commit of the group this insert was gathered into
+            long id = getReportInserts().submit(new String[]{disasterType, location, reporterName, contactInfo, details});
+            if (id == 0) {
+                return "REPORT_FAILED";
+            }
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("disaster_type", disasterType);
+            fields.put("location", location);
+            fields.put("reporter_name", reporterName);
+            fields.put("contact_info", contactInfo);
+            fireReportChanged(new ReportChange((int) id, true, fields, EnumSet.noneOf(Department.class)));
+            return "REPORT_ADDED|" + id;
+        } catch (SQLException e) {
+            Log.error("Could not add report", e);
+            return "DATABASE_ERROR";
+        }
+    }
+
+    /**
+     * Inserts a group of reports in one transaction with a single multi-row
+     * INSERT. MySQL hands out consecutive ids to the rows of one statement,
+     * which the driver returns as generated keys in row order.
+     */
+    private static List<Long> insertReportGroup(List<String[]> group) throws SQLException {
+        return Metrics.time("db.insertReportGroup", () -> insertReportGroupUntimed(group));
+    }
+
+    private static List<Long> insertReportGroupUntimed(List<String[]> group) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO reports (disaster_type, location, date_time, reporter_name, contact_info, disaster_description) VALUES ");
+        for (int i = 0; i < group.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, NOW(), ?, ?, ?)");
+        }
+        List<Long> ids = new ArrayList<>(group.size());
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                int index = 1;
+                for (String[] row : group) {
+                    for (String value : row) {
+                        pstmt.setString(index++, value);
+                    }
+                }
+                pstmt.executeUpdate();
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        return "REPORT_ADDED|" + generatedKeys.getLong(1);
+                    while (ids.size() < group.size() && generatedKeys.next()) {
+                        ids.add(generatedKeys.getLong(1));
                     }
                 }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-            return "REPORT_FAILED";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "DATABASE_ERROR";
         }
+        while (ids.size() < group.size()) {
+            ids.add(0L);
+        }
+        return ids;
     }
 
     public String getReports() {
+        return Metrics.time("db.getReports", this::getReportsUntimed);
+    }
+
+    private String getReportsUntimed() {
         if (server != null && !server.isRunning()) {
             return "SERVER_NOT_RUNNING";
         }
 
         StringBuilder result = new StringBuilder();
-        String sql = "SELECT * FROM reports";
+        String sql = "SELECT " + REPORT_LIST_COLUMNS + " FROM reports";
         try (Connection conn = getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 result.append(rs.getInt("id")).append("|")
@@ -557,32 +1447,265 @@ public class DatabaseConnection {
                         .append(rs.getString("location")).append("|")
                         .append(rs.getString("reporter_name")).append("|")
                         .append(rs.getString("contact_info")).append("|")
-                        .append(rs.getString("details")).append("\n");
+                        .append(rs.getString("response_status")).append("\n");
             }
             return result.toString();
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Could not load reports", e);
             return "DATABASE_ERROR";
         }
     }
 
+    /**
+     * Streams one page of the report list to a handler row by row instead of
+     * collecting it in memory. The columns are id, disaster_type, location,
+     * reporter_name, contact_info and response_status, ordered by id.
+     *
+     * @param query The page and filters to read.
+     * @param handler Receives each row.
+     * @return The continuation token for the next page, or null if this was
+     * the last one.
+     * @throws SQLException If a database access error occurs.
+     * @throws IOException If the handler fails to pass a row on.
+     */
+    public String streamReports(ReportQuery query, ReportRowHandler handler) throws SQLException, IOException {
+        // Two checked exceptions, which Metrics.time cannot pass through
+        long start = System.nanoTime();
+        try {
+            return streamReportsUntimed(query, handler);
+        } finally {
+            Metrics.record("db.streamReports", start);
+        }
+    }
+
+    private String streamReportsUntimed(ReportQuery query, ReportRowHandler handler) throws SQLException, IOException {
+        if (server != null && !server.isRunning()) {
+            throw new SQLException("SERVER_NOT_RUNNING");
+        }
+
+        int limit = query.getLimit();
+        try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query.toSql(REPORT_LIST_COLUMNS),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            int index = 1;
+            pstmt.setInt(index++, query.getAfterId());
+            if (query.getStatus() != null) {
+                pstmt.setString(index++, query.getStatus());
+            }
+            if (query.getDisasterType() != null) {
+                pstmt.setString(index++, query.getDisasterType());
+            }
+            if (limit > 0) {
+                // One row past the page tells us whether another page follows
+                pstmt.setInt(index, limit + 1);
+            }
+            // Makes Connector/J stream rows instead of buffering the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int rows = 0;
+                int lastId = 0;
+                while (rs.next()) {
+                    if (limit > 0 && rows == limit) {
+                        return ReportQuery.encodeToken(lastId);
+                    }
+                    lastId = rs.getInt(1);
+                    handler.onRow(rs);
+                    rows++;
+                }
+                return null;
+            }
+        }
+    }
+
     public String updateReport(String reportId, String field, String value) {
+        return Metrics.time("db.updateReportField", () -> updateReportUntimed(reportId, field, value));
+    }
+
+    private String updateReportUntimed(String reportId, String field, String value) {
         if (server != null && !server.isRunning()) {
             return "SERVER_NOT_RUNNING";
         }
+        if (!isUpdatableReportColumn(field)) {
+            return "INVALID_FIELD";
+        }
 
         String sql = "UPDATE reports SET " + field + " = ? WHERE id = ?";
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, value);
             pstmt.setInt(2, Integer.parseInt(reportId));
             int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0 ? "REPORT_UPDATED" : "UPDATE_FAILED";
+            if (affectedRows == 0) {
+                return "UPDATE_FAILED";
+            }
+            fireReportChanged(ReportChange.updated(Integer.parseInt(reportId), field, value));
+            return "REPORT_UPDATED";
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Could not update report", e);
             return "DATABASE_ERROR";
         }
     }
 
+    /**
+     * Checks whether a column may be set through UPDATE_REPORT.
+     *
+     * @param field The column name.
+     * @return true if it is a client-updatable column of the reports table.
+     */
+    public static boolean isUpdatableReportColumn(String field) {
+        return field != null && UPDATABLE_REPORT_COLUMNS.contains(field);
+    }
+
+    /**
+     * Inserts several reports with one JDBC batch in a single transaction.
+     * Each row holds disaster type, location, reporter name, contact info and
+     * details, as for {@link #addReport}. A row the database rejects does not
+     * stop the others; the rows that succeeded are committed together.
+     *
+     * @param rows The reports to insert.
+     * @return The generated id of each row, in order, or 0 where the insert
+     * failed.
+     * @throws SQLException If the batch as a whole could not be run.
+     */
+    public long[] addReports(List<String[]> rows) throws SQLException {
+        return Metrics.time("db.addReports", () -> addReportsUntimed(rows));
+    }
+
+    private long[] addReportsUntimed(List<String[]> rows) throws SQLException {
+        if (server != null && !server.isRunning()) {
+            throw new SQLException("SERVER_NOT_RUNNING");
+        }
+
+        long[] ids = new long[rows.size()];
+        String sql = "INSERT INTO reports (disaster_type, location, date_time, reporter_name, contact_info, disaster_description) "
+                + "VALUES (?, ?, NOW(), ?, ?, ?)";
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (String[] row : rows) {
+                    for (int i = 0; i < 5; i++) {
+                        pstmt.setString(i + 1, row[i]);
+                    }
+                    pstmt.addBatch();
+                }
+                int[] counts = executeBatch(pstmt, rows.size());
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    // Keys come back only for the rows that were inserted, in order
+                    for (int i = 0; i < counts.length; i++) {
+                        if (succeeded(counts[i]) && generatedKeys.next()) {
+                            ids[i] = generatedKeys.getLong(1);
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != 0) {
+                String[] row = rows.get(i);
+                Map<String, String> fields = new LinkedHashMap<>();
+                fields.put("disaster_type", row[0]);
+                fields.put("location", row[1]);
+                fields.put("reporter_name", row[2]);
+                fields.put("contact_info", row[3]);
+                fireReportChanged(new ReportChange((int) ids[i], true, fields, EnumSet.noneOf(Department.class)));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Applies several single-column updates in one transaction, batching the
+     * updates of each column into one statement. Each update holds a report
+     * id, a column name and the new value; the columns must already have been
+     * checked with {@link #isUpdatableReportColumn}. Updates of the same
+     * column run in the given order.
+     *
+     * @param updates The updates to apply.
+     * @return For each update, in order, the number of rows changed (0 if the
+     * report does not exist) or -1 if the database rejected it.
+     * @throws SQLException If the batch as a whole could not be run.
+     */
+    public int[] updateReports(List<String[]> updates) throws SQLException {
+        return Metrics.time("db.updateReports", () -> updateReportsUntimed(updates));
+    }
+
+    private int[] updateReportsUntimed(List<String[]> updates) throws SQLException {
+        if (server != null && !server.isRunning()) {
+            throw new SQLException("SERVER_NOT_RUNNING");
+        }
+
+        Map<String, List<Integer>> byField = new LinkedHashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            String field = updates.get(i)[1];
+            if (!isUpdatableReportColumn(field)) {
+                throw new SQLException("Not an updatable column: " + field);
+            }
+            byField.computeIfAbsent(field, f -> new ArrayList<>()).add(i);
+        }
+
+        int[] results = new int[updates.size()];
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, List<Integer>> group : byField.entrySet()) {
+                    String sql = "UPDATE reports SET " + group.getKey() + " = ? WHERE id = ?";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int index : group.getValue()) {
+                            String[] update = updates.get(index);
+                            pstmt.setString(1, update[2]);
+                            pstmt.setInt(2, Integer.parseInt(update[0]));
+                            pstmt.addBatch();
+                        }
+                        int[] counts = executeBatch(pstmt, group.getValue().size());
+                        for (int i = 0; i < counts.length; i++) {
+                            int count = counts[i];
+                            results[group.getValue().get(i)] = count == Statement.SUCCESS_NO_INFO ? 1
+                                    : count == Statement.EXECUTE_FAILED ? -1 : count;
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0) {
+                String[] update = updates.get(i);
+                fireReportChanged(ReportChange.updated(Integer.parseInt(update[0]), update[1], update[2]));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs a batch and returns one update count per statement, treating
+     * statements the driver never got to as failed.
+     */
+    private static int[] executeBatch(PreparedStatement pstmt, int size) throws SQLException {
+        int[] counts;
+        try {
+            counts = pstmt.executeBatch();
+        } catch (BatchUpdateException e) {
+            counts = e.getUpdateCounts();
+        }
+        if (counts.length < size) {
+            int done = counts.length;
+            counts = Arrays.copyOf(counts, size);
+            Arrays.fill(counts, done, size, Statement.EXECUTE_FAILED);
+        }
+        return counts;
+    }
+
+    private static boolean succeeded(int count) {
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+
     /**
      * Registers a new user in the database.
      *
@@ -590,6 +1713,10 @@ public class DatabaseConnection {
      * @return true if registration is successful, false otherwise.
      */
     public static boolean registerUser(User user) {
+        return Metrics.time("db.registerUser", () -> registerUserUntimed(user));
+    }
+
+    private static boolean registerUserUntimed(User user) {
         String sql = "INSERT INTO users (username, password, role, email, full_name) VALUES (?, ?, ?, ?, ?)";
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, user.getUsername());
@@ -601,7 +1728,7 @@ public class DatabaseConnection {
             return true;
         } catch (SQLException e) {
             // Handle duplicate username or email constraint
-            e.printStackTrace();
+            Log.error("Could not register user", e);
             return false;
         }
     }
@@ -613,13 +1740,17 @@ public class DatabaseConnection {
      * @return true if the username exists, false otherwise.
      */
     public static boolean usernameExists(String username) {
+        return Metrics.time("db.usernameExists", () -> usernameExistsUntimed(username));
+    }
+
+    private static boolean usernameExistsUntimed(String username) {
         String sql = "SELECT id FROM users WHERE username = ?";
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
             return rs.next();
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Could not check username", e);
             return true;
         }
     }
@@ -631,13 +1762,17 @@ public class DatabaseConnection {
      * @return true if the email exists, false otherwise.
      */
     public static boolean emailExists(String email) {
+        return Metrics.time("db.emailExists", () -> emailExistsUntimed(email));
+    }
+
+    private static boolean emailExistsUntimed(String email) {
         String sql = "SELECT id FROM users WHERE email = ?";
         try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, email);
             ResultSet rs = pstmt.executeQuery();
             return rs.next();
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Could not check email", e);
             return true;
         }
     }
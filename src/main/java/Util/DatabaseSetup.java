@@ -29,35 +29,42 @@ public class DatabaseSetup {
 
         try {
             // Step 1: Check connection
-            System.out.println("Checking database connection...");
+            Log.info("Checking database connection...");
             conn = DriverManager.getConnection(DatabaseConnection.getDB_URL(), DatabaseConnection.getUSER(), DatabaseConnection.getPASS());
-            System.out.println("   OK");
+            Log.info("   OK");
 
             // Step 2: Check if database exists, create if not
-            System.out.println("Creating new database...");
+            Log.info("Creating new database...");
             stmt = conn.createStatement();
             stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DatabaseConnection.getDB_NAME());
-            System.out.println("   diseaster_response = OK");
+            Log.info("   diseaster_response = OK");
 
             // Select the database
             stmt.executeUpdate("USE " + DatabaseConnection.getDB_NAME());
 
             // Step 3: Check if necessary tables exists, create if not
-            System.out.println("Creating necessary tables...");
+            Log.info("Creating necessary tables...");
 
             createReportsTable(stmt);
             createUsersTable(stmt);
             createMeteorologyDataTable(stmt);
             createGeoscienceDataTable(stmt);
 
-            System.out.println("Database setup completed successfully!");
+            // Step 4: Bring the tables up to the current schema version
+            Log.info("Migrating schema...");
+            SchemaMigrations.migrate(conn);
+            pruneReportVersions(conn);
+
+            // Step 5: Check that the hot queries can use their indexes
+            Log.info("Checking query plans...");
+            checkQueryPlans(conn);
+
+            Log.info("Database setup completed successfully!");
 
         } catch (SQLException se) {
-            System.out.println("SQL Error: " + se.getMessage());
-            se.printStackTrace();
+            Log.error("Database setup failed with an SQL error", se);
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Database setup failed", e);
         } finally {
             closeResources(stmt, conn);
         }
@@ -123,7 +130,7 @@ public class DatabaseSetup {
                 + "utility_telecommunications_status VARCHAR(50)"
                 + ")";
         stmt.execute(createReportsTable);
-        System.out.println("   reports = OK");
+        Log.info("   reports = OK");
     }
 
     /**
@@ -142,7 +149,7 @@ public class DatabaseSetup {
                 + "full_name VARCHAR(100) NOT NULL"
                 + ")";
         stmt.execute(createUsersTable);
-        System.out.println("   users = OK");
+        Log.info("   users = OK");
     }
 
     /**
@@ -166,7 +173,7 @@ public class DatabaseSetup {
                 + "UNIQUE KEY location_coords (latitude, longitude)"
                 + ")";
         stmt.execute(createMeteorologyTable);
-        System.out.println("   meteorology_data = OK");
+        Log.info("   meteorology_data = OK");
     }
 
     /**
@@ -187,7 +194,35 @@ public class DatabaseSetup {
                 + "UNIQUE KEY location_coords (latitude, longitude)"
                 + ")";
         stmt.execute(createGeoscienceDataTable);
-        System.out.println("   geoscience_data = OK");
+        Log.info("   geoscience_data = OK");
+    }
+
+    /**
+     * Deletes the report_versions rows no sync needs any more. The DRS
+     * server also does this on a schedule. A failed prune is only logged.
+     *
+     * @param conn The connection, with the database selected.
+     */
+    private static void pruneReportVersions(Connection conn) {
+        try {
+            Log.info("   pruned {} report versions", DatabaseConnection.pruneReportVersions(conn));
+        } catch (SQLException e) {
+            Log.warn("Could not prune report versions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Logs whether the hot queries can use the indexes meant for them. A
+     * failing check is only logged, as the system works without it.
+     *
+     * @param conn The connection, with the database selected.
+     */
+    private static void checkQueryPlans(Connection conn) {
+        try {
+            QueryPlanCheck.check(conn);
+        } catch (SQLException e) {
+            Log.warn("Could not check query plans: {}", e.getMessage());
+        }
     }
 
     /**
@@ -205,7 +240,7 @@ public class DatabaseSetup {
                 conn.close();
             }
         } catch (SQLException se) {
-            se.printStackTrace();
+            Log.error("Could not close database setup resources", se);
         }
     }
 }
@@ -0,0 +1,222 @@
+package Util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gathers small writes from concurrent callers into groups that share one
+ * transaction. A caller hands its write to {@link #submit} and blocks; a
+ * single flushing thread takes the first waiting write, keeps collecting
+ * until the window has passed or the group is full, then writes the whole
+ * group at once and wakes every caller after the commit.
+ * <p>
+ * If a group fails, its writes are retried one at a time so that a single
+ * bad row only fails its own caller.
+ *
+ * @param <T> The write handed in by a caller.
+ * @param <R> The result handed back to that caller.
+ * @author 12223508
+ */
+public class GroupCommitter<T, R> {
+
+    /**
+     * Writes a group in one transaction.
+     */
+    public interface GroupWriter<T, R> {
+
+        /**
+         * Writes and commits the group.
+         *
+         * @param group The writes, in arrival order.
+         * @return One result per write, in the same order.
+         * @throws SQLException If the transaction was rolled back.
+         */
+        List<R> write(List<T> group) throws SQLException;
+    }
+
+    private static final class Pending<T, R> {
+
+        final T item;
+        final CompletableFuture<R> result = new CompletableFuture<>();
+
+        Pending(T item) {
+            this.item = item;
+        }
+    }
+
+    private final GroupWriter<T, R> writer;
+    private final long windowNanos;
+    private final int maxGroupSize;
+    private final BlockingQueue<Pending<T, R>> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    private final LongAdder groupCount = new LongAdder();
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder fallbackCount = new LongAdder();
+    private final AtomicLong largestGroup = new AtomicLong();
+
+    /**
+     * Creates a committer and starts its flushing thread.
+     *
+     * @param name Names the flushing thread.
+     * @param writer Writes each group.
+     * @param windowMicros How long to keep collecting after the first write
+     * of a group arrives.
+     * @param maxGroupSize The most writes in one group.
+     */
+    public GroupCommitter(String name, GroupWriter<T, R> writer, long windowMicros, int maxGroupSize) {
+        if (maxGroupSize < 1) {
+            throw new IllegalArgumentException("maxGroupSize must be positive");
+        }
+        this.writer = writer;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+        this.maxGroupSize = maxGroupSize;
+        this.flusher = new Thread(this::flushLoop, "drs-group-commit-" + name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a write and waits until its group has been committed.
+     *
+     * @param item The write.
+     * @return The writer's result for this write.
+     * @throws SQLException If the write failed or the committer is shut down.
+     */
+    public R submit(T item) throws SQLException {
+        if (closed) {
+            throw new SQLException("Group commit is shut down");
+        }
+        Pending<T, R> pending = new Pending<>(item);
+        queue.add(pending);
+        if (closed) {
+            // Lost a race with shutdown(); make sure nobody waits forever.
+            failAll(new SQLException("Group commit is shut down"));
+        }
+        try {
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException("Group commit failed", e.getCause());
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending<T, R>> group = new ArrayList<>(maxGroupSize);
+        while (!closed) {
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroupSize) {
+                    if (queue.drainTo(group, maxGroupSize - group.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (closed) {
+                    break;
+                }
+                continue;
+            }
+            flush(group);
+            group.clear();
+        }
+        SQLException shutDown = new SQLException("Group commit is shut down");
+        // Writes already taken from the queue for a group that was never flushed
+        for (Pending<T, R> pending : group) {
+            pending.result.completeExceptionally(shutDown);
+        }
+        failAll(shutDown);
+    }
+
+    private void flush(List<Pending<T, R>> group) {
+        List<T> items = new ArrayList<>(group.size());
+        for (Pending<T, R> pending : group) {
+            items.add(pending.item);
+        }
+        groupCount.increment();
+        writeCount.add(group.size());
+        largestGroup.accumulateAndGet(group.size(), Math::max);
+        try {
+            complete(group, writer.write(items));
+        } catch (SQLException | RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e);
+                return;
+            }
+            fallbackCount.increment();
+            Log.error("Group write of {} failed, retrying one at a time: {}", group.size(), e.getMessage());
+            for (Pending<T, R> pending : group) {
+                try {
+                    complete(List.of(pending), writer.write(List.of(pending.item)));
+                } catch (SQLException | RuntimeException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private void complete(List<Pending<T, R>> group, List<R> results) throws SQLException {
+        if (results.size() != group.size()) {
+            throw new SQLException("Expected " + group.size() + " results but got " + results.size());
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).result.complete(results.get(i));
+        }
+    }
+
+    private void failAll(SQLException e) {
+        Pending<T, R> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stops the flushing thread. A group being written finishes; writes
+     * still queued, or collected for a group not written yet, fail.
+     */
+    public void shutdown() {
+        closed = true;
+        flusher.interrupt();
+    }
+
+    public long getGroupCount() {
+        return groupCount.sum();
+    }
+
+    public long getWriteCount() {
+        return writeCount.sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    public long getLargestGroup() {
+        return largestGroup.get();
+    }
+}
@@ -0,0 +1,233 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Wraps the statements created on a pooled connection so that every execute
+ * call is timed into {@link SqlStats}, together with the shape of its bind
+ * parameters, and emits an {@link SqlEvent} while a flight recording is
+ * running. A query counts until its result set or statement is closed, so
+ * its time and row count include reading the rows.
+ *
+ * @author 12223508
+ */
+final class InstrumentedStatement implements InvocationHandler {
+
+    private final Statement statement;
+    private final String sql;
+    private final long connectionWaitNanos;
+
+    // The simple type name of each bind parameter set so far, by index - 1
+    private String[] parameterTypes = new String[8];
+    private int parameterCount;
+    private int batchSize;
+
+    // The last query whose result set is still open
+    private Execution openQuery;
+
+    private InstrumentedStatement(Statement statement, String sql, long connectionWaitNanos) {
+        this.statement = statement;
+        this.sql = sql;
+        this.connectionWaitNanos = connectionWaitNanos;
+    }
+
+    /**
+     * Wraps a statement.
+     *
+     * @param statement The driver's statement.
+     * @param type The interface to expose: Statement, PreparedStatement or
+     * CallableStatement.
+     * @param sql The SQL it was prepared with, or null for a plain Statement.
+     * @param connectionWaitNanos How long the borrower waited for the
+     * connection.
+     * @return The wrapped statement.
+     */
+    static Statement wrap(Statement statement, Class<?> type, String sql, long connectionWaitNanos) {
+        return (Statement) Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(), new Class<?>[]{type},
+                new InstrumentedStatement(statement, sql, connectionWaitNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("execute")) {
+            return execute(method, args);
+        }
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            rememberParameter((Integer) args[0], name, args[1]);
+        } else if (name.equals("addBatch") && (args == null || args.length == 0)) {
+            batchSize++;
+        } else if (name.equals("clearParameters")) {
+            parameterCount = 0;
+        } else if (name.equals("clearBatch")) {
+            batchSize = 0;
+        } else if (name.equals("close")) {
+            finishQuery();
+        }
+        return forward(statement, method, args);
+    }
+
+    private void rememberParameter(int index, String setter, Object value) {
+        if (index < 1 || index > 4096) {
+            return;
+        }
+        if (index > parameterTypes.length) {
+            parameterTypes = Arrays.copyOf(parameterTypes, Math.max(index, parameterTypes.length * 2));
+        }
+        String type = setter.substring(3);
+        if (setter.equals("setObject")) {
+            type = value == null ? "Null" : value.getClass().getSimpleName();
+        }
+        parameterTypes[index - 1] = type;
+        parameterCount = Math.max(parameterCount, index);
+    }
+
+    private String parameterShape() {
+        StringBuilder shape = new StringBuilder("(");
+        for (int i = 0; i < parameterCount; i++) {
+            if (i > 0) {
+                shape.append(", ");
+            }
+            shape.append(parameterTypes[i] == null ? "?" : parameterTypes[i]);
+        }
+        shape.append(')');
+        if (batchSize > 0) {
+            shape.append(" x ").append(batchSize);
+        }
+        return shape.toString();
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable {
+        finishQuery();
+        String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+        Execution execution = new Execution(executed, parameterShape());
+        if (method.getName().endsWith("Batch")) {
+            batchSize = 0;
+        }
+        try {
+            Object result = forward(statement, method, args);
+            if (result instanceof ResultSet) {
+                execution.rows = 0;
+                openQuery = execution;
+                return Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                        new CountingResultSet((ResultSet) result, execution));
+            }
+            execution.rows = rowsChanged(result);
+            return result;
+        } finally {
+            if (openQuery != execution) {
+                execution.finish();
+            }
+        }
+    }
+
+    private static long rowsChanged(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+        } else {
+            return -1;
+        }
+        return rows;
+    }
+
+    private void finishQuery() {
+        Execution execution = openQuery;
+        if (execution != null) {
+            openQuery = null;
+            execution.finish();
+        }
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One execute call, from its start until it is done or its result set is
+     * closed.
+     */
+    private final class Execution {
+
+        private final String sql;
+        private final String parameters;
+        private final long start = System.nanoTime();
+        private final SqlEvent event = new SqlEvent();
+        private final Span span = Tracing.child("sql");
+        private long rows = -1;
+
+        private Execution(String sql, String parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+            event.begin();
+        }
+
+        private void finish() {
+            SqlStats.record(sql, System.nanoTime() - start, rows, parameters);
+            if (span != null) {
+                span.tag("db.statement", SqlStats.template(sql)).tag("db.parameters", parameters)
+                        .tag("db.rows", rows).tag("db.connectionWaitMicros", connectionWaitNanos / 1000).close();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.sql = sql;
+                event.rows = rows;
+                event.connectionWait = connectionWaitNanos;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Counts the rows a query reads and finishes it when closed.
+     */
+    private final class CountingResultSet implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final Execution execution;
+
+        private CountingResultSet(ResultSet resultSet, Execution execution) {
+            this.resultSet = resultSet;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = forward(resultSet, method, args);
+            switch (method.getName()) {
+                case "next":
+                    if (Boolean.TRUE.equals(result)) {
+                        execution.rows++;
+                    }
+                    break;
+                case "close":
+                    if (openQuery == execution) {
+                        finishQuery();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+    }
+}
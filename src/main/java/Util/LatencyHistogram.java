@@ -0,0 +1,185 @@
+package Util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram in the style of HdrHistogram. Values up to
+ * 127 ns get a bucket each; above that every power of two is split into 64
+ * linear buckets, so any recorded value is known to within about 1.6% while
+ * the whole range up to {@link #MAX_VALUE_NANOS} fits in a few thousand
+ * counters. Recording is a couple of atomic adds and never allocates.
+ *
+ * @author 12223508
+ */
+public final class LatencyHistogram {
+
+    /** Larger values are recorded as this, about 18 minutes. */
+    public static final long MAX_VALUE_NANOS = 1L << 40;
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE_NANOS));
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Copies the current counts, from which percentiles can be read while
+     * recording carries on.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the largest value that falls into a bucket.
+     */
+    static long highestValueIn(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * The counts of a histogram at one moment.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of values recorded.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the total of all values recorded.
+         *
+         * @return The sum in nanoseconds.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the largest value recorded since the histogram was created.
+         *
+         * @return The maximum in nanoseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the value below which the given fraction of recorded values
+         * fall, rounded up to the top of its bucket.
+         *
+         * @param quantile Between 0 and 1, e.g. 0.99 for p99.
+         * @return The value in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return max > 0 ? Math.min(highestValueIn(i), max) : highestValueIn(i);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Gets what was recorded between an earlier snapshot and this one,
+         * for percentiles over the last interval rather than since start-up.
+         *
+         * @param earlier A snapshot of the same histogram taken before this one.
+         * @return The difference; its maximum is this snapshot's.
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] difference = new long[counts.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                difference[i] = Math.max(0, counts[i] - earlier.counts[i]);
+                total += difference[i];
+            }
+            return new Snapshot(difference, total, Math.max(0, sum - earlier.sum), max);
+        }
+
+        /**
+         * Combines two snapshots, e.g. of several commands into one.
+         *
+         * @param other Another snapshot.
+         * @return The sum of both.
+         */
+        public Snapshot plus(Snapshot other) {
+            long[] combined = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                combined[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(combined, count + other.count, sum + other.sum, Math.max(max, other.max));
+        }
+    }
+
+    /**
+     * Gets an empty snapshot to start a sum from.
+     *
+     * @return A snapshot with nothing recorded.
+     */
+    public static Snapshot emptySnapshot() {
+        return new Snapshot(new long[BUCKET_COUNT], 0, 0, 0);
+    }
+}
@@ -0,0 +1,405 @@
+package Util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous logging for the server, database and model layers. Callers
+ * only claim a slot in a preallocated ring buffer and store the message
+ * template and its arguments; a background thread formats the line and
+ * writes it to a rolling log file and, unless disabled, the console. No
+ * caller waits for the disk or the console lock, and a caller below the
+ * configured level returns without allocating.
+ * <p>
+ * Messages use {@code {}} placeholders, filled in on the writer thread, so
+ * arguments should not be changed after they are logged. A {@link Throwable}
+ * passed as the last argument that no placeholder uses is logged with its
+ * stack trace. Repeated warnings and errors with the same template are
+ * limited to a burst per time window; the rest are counted and reported with
+ * the next one let through. If the writer falls behind and the buffer fills
+ * up, further messages are dropped and counted rather than blocking.
+ * <p>
+ * Settings: {@code drs.log.level} (INFO), {@code drs.log.file}
+ * ({@code drs.log}), {@code drs.log.maxBytes} (10 MiB) and
+ * {@code drs.log.maxFiles} (5) for rolling, {@code drs.log.console} (true),
+ * {@code drs.log.bufferSize} (8192), and {@code drs.log.burst} (10)
+ * messages per template per {@code drs.log.windowMillis} (10000).
+ *
+ * @author 12223508
+ */
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final Level LEVEL = level(System.getProperty("drs.log.level", "INFO"));
+    private static final Path FILE = Paths.get(System.getProperty("drs.log.file", "drs.log"));
+    private static final long MAX_BYTES = Long.getLong("drs.log.maxBytes", 10L * 1024 * 1024);
+    private static final int MAX_FILES = Math.max(1, Integer.getInteger("drs.log.maxFiles", 5));
+    private static final boolean CONSOLE = Boolean.parseBoolean(System.getProperty("drs.log.console", "true"));
+    private static final int BURST = Integer.getInteger("drs.log.burst", 10);
+    private static final long WINDOW_MILLIS = Long.getLong("drs.log.windowMillis", 10_000);
+    private static final int MAX_LIMITED_TEMPLATES = 1024;
+
+    private static final Entry[] RING = ring(Integer.getInteger("drs.log.bufferSize", 8192));
+    private static final int MASK = RING.length - 1;
+    private static final AtomicLong TAIL = new AtomicLong();
+    private static final Map<String, RateWindow> WINDOWS = new ConcurrentHashMap<>();
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final LongAdder SUPPRESSED = new LongAdder();
+
+    private static final Thread WRITER = new Thread(Log::writeLoop, "drs-log-writer");
+    private static volatile boolean writerParked;
+    private static volatile long flushed;
+
+    static {
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(1000), "drs-log-flush"));
+    }
+
+    private Log() {
+    }
+
+    private static Level level(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid drs.log.level: " + name);
+            return Level.INFO;
+        }
+    }
+
+    private static Entry[] ring(int requested) {
+        int capacity = Integer.highestOneBit(Math.max(64, requested - 1) << 1);
+        Entry[] ring = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Entry(i);
+        }
+        return ring;
+    }
+
+    /**
+     * One slot of the ring. Its sequence says whose turn it is: equal to a
+     * position when free for the producer that claims that position, one
+     * more once that producer has filled it in.
+     */
+    private static final class Entry {
+
+        private volatile long sequence;
+        private Level level;
+        private long timeMillis;
+        private String thread;
+        private String message;
+        private Object arg0;
+        private Object arg1;
+        private Object arg2;
+        private int argCount;
+        private long suppressed;
+
+        private Entry(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Counts one template's warnings or errors in the current window.
+     */
+    private static final class RateWindow {
+
+        private long start;
+        private int count;
+        private long suppressed;
+
+        /**
+         * @return -1 if the message is suppressed, otherwise how many were
+         * suppressed before it.
+         */
+        private synchronized long admit(long now) {
+            if (now - start >= WINDOW_MILLIS) {
+                start = now;
+                count = 0;
+            }
+            if (++count > BURST) {
+                suppressed++;
+                return -1;
+            }
+            long before = suppressed;
+            suppressed = 0;
+            return before;
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message, 0, null, null, null);
+    }
+
+    public static void debug(String message, Object arg) {
+        log(Level.DEBUG, message, 1, arg, null, null);
+    }
+
+    public static void debug(String message, Object arg0, Object arg1) {
+        log(Level.DEBUG, message, 2, arg0, arg1, null);
+    }
+
+    public static void debug(String message, Object arg0, Object arg1, Object arg2) {
+        log(Level.DEBUG, message, 3, arg0, arg1, arg2);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message, 0, null, null, null);
+    }
+
+    public static void info(String message, Object arg) {
+        log(Level.INFO, message, 1, arg, null, null);
+    }
+
+    public static void info(String message, Object arg0, Object arg1) {
+        log(Level.INFO, message, 2, arg0, arg1, null);
+    }
+
+    public static void info(String message, Object arg0, Object arg1, Object arg2) {
+        log(Level.INFO, message, 3, arg0, arg1, arg2);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message, 0, null, null, null);
+    }
+
+    public static void warn(String message, Object arg) {
+        log(Level.WARN, message, 1, arg, null, null);
+    }
+
+    public static void warn(String message, Object arg0, Object arg1) {
+        log(Level.WARN, message, 2, arg0, arg1, null);
+    }
+
+    public static void warn(String message, Object arg0, Object arg1, Object arg2) {
+        log(Level.WARN, message, 3, arg0, arg1, arg2);
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message, 0, null, null, null);
+    }
+
+    public static void error(String message, Object arg) {
+        log(Level.ERROR, message, 1, arg, null, null);
+    }
+
+    public static void error(String message, Object arg0, Object arg1) {
+        log(Level.ERROR, message, 2, arg0, arg1, null);
+    }
+
+    public static void error(String message, Object arg0, Object arg1, Object arg2) {
+        log(Level.ERROR, message, 3, arg0, arg1, arg2);
+    }
+
+    private static void log(Level level, String message, int argCount, Object arg0, Object arg1, Object arg2) {
+        if (level.compareTo(LEVEL) < 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long suppressed = 0;
+        if (level.compareTo(Level.WARN) >= 0) {
+            RateWindow window = WINDOWS.get(message);
+            if (window == null && WINDOWS.size() < MAX_LIMITED_TEMPLATES) {
+                window = WINDOWS.computeIfAbsent(message, m -> new RateWindow());
+            }
+            if (window != null) {
+                suppressed = window.admit(now);
+                if (suppressed < 0) {
+                    SUPPRESSED.increment();
+                    return;
+                }
+            }
+        }
+        Entry entry;
+        long position;
+        while (true) {
+            position = TAIL.get();
+            entry = RING[(int) position & MASK];
+            long difference = entry.sequence - position;
+            if (difference == 0) {
+                if (TAIL.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                // Full: the writer has not yet freed the slot from one lap ago
+                DROPPED.increment();
+                return;
+            }
+        }
+        entry.level = level;
+        entry.timeMillis = now;
+        entry.thread = Thread.currentThread().getName();
+        entry.message = message;
+        entry.arg0 = arg0;
+        entry.arg1 = arg1;
+        entry.arg2 = arg2;
+        entry.argCount = argCount;
+        entry.suppressed = suppressed;
+        entry.sequence = position + 1;
+        if (writerParked) {
+            LockSupport.unpark(WRITER);
+        }
+    }
+
+    private static void writeLoop() {
+        StringBuilder line = new StringBuilder(256);
+        BufferedWriter out = null;
+        long bytes = 0;
+        long head = 0;
+        while (true) {
+            Entry entry = RING[(int) head & MASK];
+            if (entry.sequence != head + 1) {
+                // Nothing waiting: flush, then sleep until a producer wakes us
+                if (out != null) {
+                    try {
+                        out.flush();
+                    } catch (IOException e) {
+                        System.err.println("Could not write " + FILE + ": " + e.getMessage());
+                    }
+                }
+                flushed = head;
+                writerParked = true;
+                if (entry.sequence != head + 1) {
+                    LockSupport.parkNanos(100_000_000L);
+                }
+                writerParked = false;
+                continue;
+            }
+            line.setLength(0);
+            format(entry, line);
+            Level level = entry.level;
+            entry.thread = null;
+            entry.message = null;
+            entry.arg0 = null;
+            entry.arg1 = null;
+            entry.arg2 = null;
+            entry.sequence = head + RING.length;
+            head++;
+
+            String text = line.toString();
+            if (CONSOLE) {
+                (level.compareTo(Level.WARN) >= 0 ? System.err : System.out).println(text);
+            }
+            try {
+                if (out == null || bytes >= MAX_BYTES) {
+                    if (out != null) {
+                        out.close();
+                        roll();
+                    }
+                    out = Files.newBufferedWriter(FILE, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    bytes = Files.size(FILE);
+                }
+                out.write(text);
+                out.newLine();
+                bytes += text.length() + 1;
+            } catch (IOException e) {
+                System.err.println("Could not write " + FILE + ": " + e.getMessage());
+                out = null;
+            }
+        }
+    }
+
+    /**
+     * Shifts drs.log to drs.log.1, drs.log.1 to drs.log.2 and so on,
+     * deleting the oldest.
+     */
+    private static void roll() throws IOException {
+        Path oldest = FILE.resolveSibling(FILE.getFileName() + "." + MAX_FILES);
+        Files.deleteIfExists(oldest);
+        for (int i = MAX_FILES - 1; i >= 1; i--) {
+            Path from = FILE.resolveSibling(FILE.getFileName() + "." + i);
+            if (Files.exists(from)) {
+                Files.move(from, FILE.resolveSibling(FILE.getFileName() + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(FILE, FILE.resolveSibling(FILE.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void format(Entry entry, StringBuilder line) {
+        line.append(Instant.ofEpochMilli(entry.timeMillis)).append(' ').append(entry.level.name());
+        for (int i = entry.level.name().length(); i < 6; i++) {
+            line.append(' ');
+        }
+        line.append('[').append(entry.thread).append("] ");
+        String message = entry.message;
+        int used = 0;
+        int from = 0;
+        int placeholder;
+        while (used < entry.argCount && (placeholder = message.indexOf("{}", from)) >= 0) {
+            line.append(message, from, placeholder).append(arg(entry, used++));
+            from = placeholder + 2;
+        }
+        line.append(message, from, message.length());
+        if (entry.suppressed > 0) {
+            line.append(" (").append(entry.suppressed).append(" similar messages suppressed)");
+        }
+        if (used < entry.argCount && arg(entry, entry.argCount - 1) instanceof Throwable) {
+            StringWriter trace = new StringWriter();
+            ((Throwable) arg(entry, entry.argCount - 1)).printStackTrace(new PrintWriter(trace));
+            line.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+    }
+
+    private static Object arg(Entry entry, int index) {
+        return index == 0 ? entry.arg0 : index == 1 ? entry.arg1 : entry.arg2;
+    }
+
+    /**
+     * Waits until everything logged so far has been written.
+     *
+     * @param timeoutMillis How long to wait at most.
+     * @return false if the writer did not catch up in time.
+     */
+    public static boolean flush(long timeoutMillis) {
+        long target = TAIL.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (flushed < target) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(1_000_000L);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the file the log is written to.
+     *
+     * @return The current log file.
+     */
+    public static Path getFile() {
+        return FILE;
+    }
+
+    public static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    public static long getSuppressedCount() {
+        return SUPPRESSED.sum();
+    }
+}
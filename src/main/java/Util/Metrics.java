@@ -0,0 +1,151 @@
+package Util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The process-wide registry of counters and latency histograms. Names are
+ * dotted, e.g. {@code command.LOGIN} for the time the server spends on each
+ * LOGIN, {@code command.LOGIN.errors} for the ones that failed and
+ * {@code db.addReport} for DatabaseConnection calls. Counters and histograms
+ * are created on first use and only ever updated with lock-free operations,
+ * so instrumenting a hot path costs a map lookup and an atomic increment.
+ *
+ * @author 12223508
+ */
+public final class Metrics {
+
+    /**
+     * Work whose time is recorded, returning a result.
+     *
+     * @param <T> The result.
+     * @param <E> The exception the work may throw.
+     */
+    public interface TimedCall<T, E extends Exception> {
+
+        T call() throws E;
+    }
+
+    /**
+     * Work whose time is recorded, returning nothing.
+     *
+     * @param <E> The exception the work may throw.
+     */
+    public interface TimedRun<E extends Exception> {
+
+        void run() throws E;
+    }
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final long STARTED_MILLIS = System.currentTimeMillis();
+
+    private Metrics() {
+    }
+
+    /**
+     * Gets a counter, creating it on first use.
+     *
+     * @param name The counter name.
+     * @return The counter.
+     */
+    public static LongAdder counter(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter != null ? counter : COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Gets a latency histogram, creating it on first use.
+     *
+     * @param name The histogram name.
+     * @return The histogram.
+     */
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+        return histogram != null ? histogram : HISTOGRAMS.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * Records the time since {@code startNanos} in a histogram.
+     *
+     * @param name The histogram name.
+     * @param startNanos A {@link System#nanoTime()} taken when the work began.
+     */
+    public static void record(String name, long startNanos) {
+        histogram(name).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Runs some work and records how long it took, whether it returned or
+     * threw.
+     *
+     * @param <T> The result.
+     * @param <E> The exception the work may throw.
+     * @param name The histogram name.
+     * @param call The work.
+     * @return The work's result.
+     * @throws E If the work throws it.
+     */
+    public static <T, E extends Exception> T time(String name, TimedCall<T, E> call) throws E {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    /**
+     * Runs some work that returns nothing and records how long it took.
+     *
+     * @param <E> The exception the work may throw.
+     * @param name The histogram name.
+     * @param run The work.
+     * @throws E If the work throws it.
+     */
+    public static <E extends Exception> void time(String name, TimedRun<E> run) throws E {
+        long start = System.nanoTime();
+        try {
+            run.run();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    /**
+     * Reads every counter.
+     *
+     * @return Counter values by name, in name order.
+     */
+    public static Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+        return values;
+    }
+
+    /**
+     * Takes a snapshot of every histogram.
+     *
+     * @return Snapshots by name, in name order.
+     */
+    public static Map<String, LatencyHistogram.Snapshot> histograms() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Gets how long the registry has been collecting.
+     *
+     * @return Milliseconds since the class was loaded.
+     */
+    public static long uptimeMillis() {
+        return System.currentTimeMillis() - STARTED_MILLIS;
+    }
+}
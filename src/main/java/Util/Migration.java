@@ -0,0 +1,133 @@
+package Util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * One versioned step of the database schema: a list of SQL statements run in
+ * order, or Java code for data changes SQL cannot express. Once applied, a
+ * migration is recorded in schema_version with a checksum of its statements,
+ * so that editing a migration that has already run is detected instead of
+ * silently leaving databases apart. Changes to the schema go into a new
+ * migration.
+ *
+ * @author 12223508
+ */
+public final class Migration {
+
+    /**
+     * A migration written in Java.
+     */
+    public interface Step {
+
+        /**
+         * Runs the step.
+         *
+         * @param conn The connection, with the database selected.
+         * @throws SQLException If the step fails. It must be safe to run
+         * again after failing partway.
+         */
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+    private final Step step;
+    private final String checksum;
+
+    /**
+     * Creates a migration.
+     *
+     * @param version The version, unique and increasing in the order the
+     * migrations run.
+     * @param description What the migration does, for the log and
+     * schema_version.
+     * @param statements The SQL statements, each safe to run again after a
+     * partly applied attempt (see {@link SchemaMigrations}).
+     */
+    public Migration(int version, String description, String... statements) {
+        if (version < 1 || statements.length == 0) {
+            throw new IllegalArgumentException("A migration needs a positive version and at least one statement");
+        }
+        this.version = version;
+        this.description = description;
+        this.statements = List.of(statements);
+        this.step = null;
+        this.checksum = checksum(this.statements);
+    }
+
+    /**
+     * Creates a migration that runs Java code. Its checksum only covers the
+     * description, as the code cannot be compared; a step that has shipped
+     * is changed by adding a new migration, as for SQL ones.
+     *
+     * @param version The version, unique and increasing in the order the
+     * migrations run.
+     * @param description What the migration does, for the log and
+     * schema_version.
+     * @param step The code to run.
+     */
+    public Migration(int version, String description, Step step) {
+        if (version < 1 || step == null) {
+            throw new IllegalArgumentException("A migration needs a positive version and a step");
+        }
+        this.version = version;
+        this.description = description;
+        this.statements = List.of();
+        this.step = step;
+        this.checksum = checksum(List.of("step: " + description));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the SQL statements.
+     *
+     * @return The statements, empty for a migration written in Java.
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Gets the Java code of the migration.
+     *
+     * @return The step, or null for a migration of SQL statements.
+     */
+    public Step getStep() {
+        return step;
+    }
+
+    /**
+     * Gets the checksum of the statements.
+     *
+     * @return The CRC-32 of the statements, in hex.
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    private static String checksum(List<String> statements) {
+        CRC32 crc = new CRC32();
+        for (String statement : statements) {
+            crc.update(statement.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    @Override
+    public String toString() {
+        return version + " (" + description + ")";
+    }
+}
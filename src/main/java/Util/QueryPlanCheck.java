@@ -0,0 +1,159 @@
+package Util;
+
+import ENUM.Department;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks with EXPLAIN that the queries the consoles and the server run most
+ * can use the indexes meant for them, so that a dropped index or a query
+ * rewritten past its index shows up at setup rather than as a slow console
+ * once the tables have grown.
+ *
+ * @author 12223508
+ */
+public final class QueryPlanCheck {
+
+    /**
+     * How a query's plan relates to the indexes meant for it.
+     */
+    public enum Verdict {
+        /**
+         * The plan reads through one of the indexes.
+         */
+        USES_INDEX,
+        /**
+         * One of the indexes could be used, but the optimizer prefers to read
+         * the table, as it does while the table is small.
+         */
+        INDEX_NOT_CHOSEN,
+        /**
+         * None of the indexes can be used.
+         */
+        NO_INDEX
+    }
+
+    private static final class HotQuery {
+
+        final String sql;
+        final Set<String> indexes;
+        final Object[] params;
+
+        HotQuery(String sql, Set<String> indexes, Object... params) {
+            this.sql = sql;
+            this.indexes = indexes;
+            this.params = params;
+        }
+    }
+
+    private static final Map<String, HotQuery> HOT_QUERIES = hotQueries();
+
+    private QueryPlanCheck() {
+    }
+
+    private static Map<String, HotQuery> hotQueries() {
+        Department[] departments = {Department.FIRE_DEPARTMENT, Department.HEALTH_DEPARTMENT,
+            Department.LAW_ENFORCEMENT, Department.METEOROLOGY, Department.GEOSCIENCE, Department.UTILITY_COMPANIES};
+        Set<String> statusIndexes = new HashSet<>();
+        for (Department department : departments) {
+            statusIndexes.add(statusIndex(department));
+        }
+        Map<String, HotQuery> queries = new LinkedHashMap<>();
+        queries.put("active reports", new HotQuery(
+                "SELECT id FROM reports WHERE response_status IN ('Pending', 'In Progress')", statusIndexes));
+        for (Department department : departments) {
+            queries.put("active reports of " + department.getDisplayName(), new HotQuery(
+                    "SELECT id FROM reports WHERE " + DatabaseConnection.activeReportsCondition(department),
+                    Set.of(statusIndex(department))));
+        }
+        queries.put("reports changed since a version", new HotQuery(
+                "SELECT id FROM reports WHERE row_version > ?",
+                Set.of("idx_reports_row_version"), 0L));
+        queries.put("reports deleted since a version", new HotQuery(
+                "SELECT report_id FROM report_tombstones WHERE row_version > ?",
+                Set.of("idx_report_tombstones_row_version"), 0L));
+        queries.put("communication log page", new HotQuery(
+                "SELECT id FROM report_log_entries WHERE report_id = ? ORDER BY ts DESC, id DESC LIMIT ?",
+                Set.of("idx_report_log_entries_report_ts"), 1, 100));
+        queries.put("user by username", new HotQuery(
+                "SELECT password, role FROM users WHERE username = ?",
+                Set.of("username"), "coordinator"));
+        return queries;
+    }
+
+    private static String statusIndex(Department department) {
+        return "idx_reports_status_" + department.name().toLowerCase();
+    }
+
+    /**
+     * Explains every hot query and logs the ones that cannot use their index.
+     *
+     * @param conn The connection, with the database selected.
+     * @return The verdict for each query, by name.
+     * @throws SQLException If a query cannot be explained.
+     */
+    public static Map<String, Verdict> check(Connection conn) throws SQLException {
+        Map<String, Verdict> verdicts = new LinkedHashMap<>();
+        for (Map.Entry<String, HotQuery> entry : HOT_QUERIES.entrySet()) {
+            HotQuery query = entry.getValue();
+            List<String> keys = new ArrayList<>();
+            List<String> possibleKeys = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + query.sql)) {
+                for (int i = 0; i < query.params.length; i++) {
+                    pstmt.setObject(i + 1, query.params[i]);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        keys.add(rs.getString("key"));
+                        possibleKeys.add(rs.getString("possible_keys"));
+                    }
+                }
+            }
+            Verdict verdict = Verdict.NO_INDEX;
+            for (int i = 0; i < keys.size(); i++) {
+                Verdict row = verdict(query.indexes, keys.get(i), possibleKeys.get(i));
+                if (row.compareTo(verdict) < 0) {
+                    verdict = row;
+                }
+            }
+            verdicts.put(entry.getKey(), verdict);
+            if (verdict == Verdict.NO_INDEX) {
+                Log.warn("   query plan: {} cannot use {}: {}", entry.getKey(), query.indexes, query.sql);
+            } else {
+                Log.info("   query plan: {} = {}", entry.getKey(), verdict);
+            }
+        }
+        return verdicts;
+    }
+
+    /**
+     * Judges one row of EXPLAIN output.
+     *
+     * @param indexes The indexes meant for the query.
+     * @param key The index the plan uses, or null for none.
+     * @param possibleKeys The indexes the plan could use, comma separated, or
+     * null for none.
+     * @return The verdict.
+     */
+    static Verdict verdict(Set<String> indexes, String key, String possibleKeys) {
+        if (key != null && indexes.contains(key)) {
+            return Verdict.USES_INDEX;
+        }
+        if (possibleKeys != null) {
+            for (String possible : possibleKeys.split(",")) {
+                if (indexes.contains(possible.trim())) {
+                    return Verdict.INDEX_NOT_CHOSEN;
+                }
+            }
+        }
+        return Verdict.NO_INDEX;
+    }
+}
@@ -0,0 +1,118 @@
+package Util;
+
+import ENUM.Department;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A committed insert or update of one report: its id and the columns that
+ * changed. Short values travel with the change; long or multi-line values
+ * (logs, descriptions) are recorded by name only, with a null value, so that
+ * change events stay small and clients fetch the report if they need them.
+ *
+ * @author 12223508
+ */
+public final class ReportChange {
+
+    private static final int MAX_INLINE_VALUE_LENGTH = 100;
+
+    private final int reportId;
+    private final boolean inserted;
+    private final Map<String, String> fields;
+    private final Set<Department> departments;
+
+    /**
+     * Creates a change.
+     *
+     * @param reportId The id of the report.
+     * @param inserted true for a new report, false for an update.
+     * @param fields Changed column names mapped to their new values.
+     * @param departments The departments responsible for the report, or null
+     * if the writer does not know them.
+     */
+    public ReportChange(int reportId, boolean inserted, Map<String, String> fields, Set<Department> departments) {
+        this.reportId = reportId;
+        this.inserted = inserted;
+        Map<String, String> compact = new LinkedHashMap<>();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            compact.put(field.getKey(), inline(field.getValue()));
+        }
+        this.fields = Collections.unmodifiableMap(compact);
+        this.departments = departments == null ? null : Collections.unmodifiableSet(EnumSet.copyOf(departments));
+    }
+
+    /**
+     * Creates an update of a single column.
+     *
+     * @param reportId The id of the report.
+     * @param field The column name.
+     * @param value The new value.
+     * @return The change.
+     */
+    public static ReportChange updated(int reportId, String field, String value) {
+        return new ReportChange(reportId, false, Collections.singletonMap(field, value), null);
+    }
+
+    private static String inline(String value) {
+        if (value == null || value.length() > MAX_INLINE_VALUE_LENGTH
+                || value.indexOf('|') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Folds a later change of the same report into this one. The result is an
+     * insert if either was, and later values win.
+     *
+     * @param later The later change.
+     * @return The combined change.
+     */
+    public ReportChange merge(ReportChange later) {
+        Map<String, String> merged = new LinkedHashMap<>(fields);
+        merged.putAll(later.fields);
+        Set<Department> mergedDepartments = null;
+        if (departments != null && later.departments != null) {
+            mergedDepartments = EnumSet.noneOf(Department.class);
+            mergedDepartments.addAll(departments);
+            mergedDepartments.addAll(later.departments);
+        }
+        return new ReportChange(reportId, inserted || later.inserted, merged, mergedDepartments);
+    }
+
+    public int getReportId() {
+        return reportId;
+    }
+
+    public boolean isInserted() {
+        return inserted;
+    }
+
+    /**
+     * Gets the changed columns. A null value means the column changed but its
+     * value is too large to include.
+     *
+     * @return The changed columns in the order they were written.
+     */
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Gets the departments responsible for the report, if the writer knew
+     * them.
+     *
+     * @return The departments, or null if unknown.
+     */
+    public Set<Department> getDepartments() {
+        return departments;
+    }
+
+    @Override
+    public String toString() {
+        return (inserted ? "INSERT " : "UPDATE ") + reportId + " " + fields.keySet();
+    }
+}
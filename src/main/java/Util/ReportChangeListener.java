@@ -0,0 +1,17 @@
+package Util;
+
+/**
+ * Notified by DatabaseConnection after a report write has committed.
+ *
+ * @author 12223508
+ */
+public interface ReportChangeListener {
+
+    /**
+     * Called on the writing thread right after the commit, so implementations
+     * must return quickly and must not throw.
+     *
+     * @param change What changed.
+     */
+    void reportChanged(ReportChange change);
+}
@@ -0,0 +1,119 @@
+package Util;
+
+import Model.Report;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small cache of fully loaded reports, so that selecting a row of a report
+ * list again does not re-read the report's TEXT columns. The least recently
+ * used report is evicted once the cache is full. A report is dropped when a
+ * write to it commits in this process, and otherwise kept for a limited time
+ * since other consoles may change it too.
+ *
+ * @author 12223508
+ */
+public final class ReportDetailCache implements ReportChangeListener {
+
+    /**
+     * Reads a full report from the database.
+     */
+    public interface Loader {
+
+        /**
+         * Loads a report.
+         *
+         * @param reportId The report's id.
+         * @return The report, or null if there is none.
+         * @throws SQLException If a database access error occurs.
+         */
+        Report load(int reportId) throws SQLException;
+    }
+
+    private static final class Entry {
+
+        final Report report;
+        final long loadedNanos;
+
+        Entry(Report report, long loadedNanos) {
+            this.report = report;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+
+    private final Loader loader;
+    private final long ttlNanos;
+    private final Map<Integer, Entry> entries;
+    // Bumped by every invalidation, so that a load racing a write is not cached
+    private long invalidations;
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity The number of reports kept at most.
+     * @param ttlMillis How long a report is kept without being written to.
+     * @param loader Reads reports that are not cached.
+     */
+    public ReportDetailCache(int capacity, long ttlMillis, Loader loader) {
+        this.loader = loader;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets a full report, from the cache if it is there and fresh. The
+     * returned report is shared, so callers copy from it rather than change
+     * it.
+     *
+     * @param reportId The report's id.
+     * @return The report, or null if there is none.
+     * @throws SQLException If a database access error occurs.
+     */
+    public Report get(int reportId) throws SQLException {
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(reportId);
+            if (entry != null && System.nanoTime() - entry.loadedNanos < ttlNanos) {
+                Metrics.counter("db.reportDetail.hits").increment();
+                return entry.report;
+            }
+            generation = invalidations;
+        }
+        Metrics.counter("db.reportDetail.misses").increment();
+        long loadedNanos = System.nanoTime();
+        Report report = loader.load(reportId);
+        if (report != null) {
+            synchronized (this) {
+                if (generation == invalidations) {
+                    entries.put(reportId, new Entry(report, loadedNanos));
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Drops a report, e.g. after it was written to.
+     *
+     * @param reportId The report's id.
+     */
+    public synchronized void invalidate(int reportId) {
+        invalidations++;
+        entries.remove(reportId);
+    }
+
+    @Override
+    public void reportChanged(ReportChange change) {
+        invalidate(change.getReportId());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
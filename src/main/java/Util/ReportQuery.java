@@ -0,0 +1,180 @@
+package Util;
+
+import ENUM.Department;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * One page of a report listing: the keyset position to continue after, how
+ * many rows to return and optional filters. Pages are read with
+ * {@code WHERE id > ? ORDER BY id LIMIT ?}, so every page costs the same no
+ * matter how deep into the table it is, and reports added while a client is
+ * paging do not shift the rows it has still to read.
+ * <p>
+ * Clients never see the raw id; they pass back the opaque continuation token
+ * returned with the previous page.
+ *
+ * @author 12223508
+ */
+public final class ReportQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Every report, unfiltered and in one unbounded stream.
+     */
+    public static final ReportQuery ALL = new ReportQuery(0, 0, null, null, null);
+
+    private static final String TOKEN_PREFIX = "r1:";
+
+    private final int afterId;
+    private final int limit;
+    private final String status;
+    private final String disasterType;
+    private final Department department;
+
+    /**
+     * Creates a query.
+     *
+     * @param afterId Only reports with a larger id are returned.
+     * @param limit The page size, or 0 for no limit.
+     * @param status The response_status to match, or null for any.
+     * @param disasterType The disaster_type to match, or null for any.
+     * @param department Only reports this department is responsible for, or
+     * null for any.
+     */
+    public ReportQuery(int afterId, int limit, String status, String disasterType, Department department) {
+        if (limit < 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be at most " + MAX_PAGE_SIZE);
+        }
+        this.afterId = afterId;
+        this.limit = limit;
+        this.status = status;
+        this.disasterType = disasterType;
+        this.department = department;
+    }
+
+    /**
+     * Builds a query from a continuation token and a list of
+     * {@code key=value} filters, as sent by clients. Recognised keys are
+     * status, type and department (a Department constant name).
+     *
+     * @param token The token from the previous page, or null/empty to start.
+     * @param limit The page size.
+     * @param filters The filters; null and empty entries are ignored.
+     * @return The query.
+     * @throws IllegalArgumentException If the token or a filter is invalid.
+     */
+    public static ReportQuery parse(String token, int limit, String... filters) {
+        String status = null;
+        String disasterType = null;
+        Department department = null;
+        for (String filter : filters) {
+            if (filter == null || filter.isEmpty()) {
+                continue;
+            }
+            int eq = filter.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid filter: " + filter);
+            }
+            String value = filter.substring(eq + 1);
+            switch (filter.substring(0, eq)) {
+                case "status":
+                    status = value;
+                    break;
+                case "type":
+                    disasterType = value;
+                    break;
+                case "department":
+                    department = Department.valueOf(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown filter: " + filter);
+            }
+        }
+        return new ReportQuery(decodeToken(token), limit, status, disasterType, department);
+    }
+
+    /**
+     * Encodes the position after a report as an opaque continuation token.
+     *
+     * @param lastId The id of the last report on the page.
+     * @return The token.
+     */
+    public static String encodeToken(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((TOKEN_PREFIX + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static int decodeToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+        if (!decoded.startsWith(TOKEN_PREFIX)) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        return Integer.parseInt(decoded.substring(TOKEN_PREFIX.length()));
+    }
+
+    /**
+     * Gets the page that follows this one, with the same filters.
+     *
+     * @param token The continuation token returned with this page.
+     * @param limit The page size of the next page.
+     * @return The query for the next page.
+     * @throws IllegalArgumentException If the token is invalid.
+     */
+    public ReportQuery next(String token, int limit) {
+        return new ReportQuery(decodeToken(token), limit, status, disasterType, department);
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getDisasterType() {
+        return disasterType;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    /**
+     * Builds the SELECT for this page. The parameters are, in order: afterId,
+     * then status and disasterType if set, then the limit if set. One extra
+     * row is requested so the caller can tell whether another page follows.
+     *
+     * @param columns The column list to select.
+     * @return The SQL text.
+     */
+    String toSql(String columns) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM reports WHERE id > ?");
+        if (status != null) {
+            sql.append(" AND response_status = ?");
+        }
+        if (disasterType != null) {
+            sql.append(" AND disaster_type = ?");
+        }
+        if (department != null) {
+            // Column name comes from the enum, never from client text
+            String column = department.name().toLowerCase() + "_status";
+            sql.append(" AND ").append(column).append(" IS NOT NULL AND ").append(column).append(" <> 'NOT_RESPONSIBLE'");
+        }
+        sql.append(" ORDER BY id");
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+}
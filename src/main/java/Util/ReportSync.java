@@ -0,0 +1,98 @@
+package Util;
+
+import Model.Report;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps one report list up to date by asking only for the reports changed
+ * since the last refresh. The first refresh loads the whole list; later ones
+ * apply the changed and removed reports to the copy held here.
+ *
+ * @author 12223508
+ */
+public final class ReportSync {
+
+    /**
+     * Reads the changes to the list since a version.
+     */
+    public interface Source {
+
+        /**
+         * Gets the changes.
+         *
+         * @param version The version of the last refresh, or 0 for a full
+         * load.
+         * @return The changes.
+         * @throws SQLException If a database access error occurs.
+         */
+        DatabaseConnection.ReportDelta changedSince(long version) throws SQLException;
+    }
+
+    private final Source source;
+    private final Map<Integer, Report> reports = new TreeMap<>();
+    private long version;
+
+    /**
+     * Creates a sync for the reports matching a condition.
+     *
+     * @param condition An SQL condition on the reports columns, or null for
+     * all reports.
+     * @param mapper Reads a report summary row.
+     */
+    public ReportSync(String condition, DatabaseConnection.ReportMapper mapper) {
+        this(since -> DatabaseConnection.getReportsChangedSince(since, condition, mapper));
+    }
+
+    /**
+     * Creates a sync reading from a source.
+     *
+     * @param source The source of changes.
+     */
+    public ReportSync(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Brings the list up to date.
+     *
+     * @return The reports in the list, in id order.
+     * @throws SQLException If a database access error occurs. The list is
+     * left as it was, and the next refresh asks for the same changes again.
+     */
+    public synchronized List<Report> refresh() throws SQLException {
+        DatabaseConnection.ReportDelta delta = source.changedSince(version);
+        if (delta.isFull()) {
+            reports.clear();
+        }
+        for (Integer id : delta.getRemoved()) {
+            reports.remove(id);
+        }
+        for (Report report : delta.getChanged()) {
+            reports.put(report.getId(), report);
+        }
+        version = delta.getVersion();
+        Metrics.counter(delta.isFull() ? "db.reportSync.full" : "db.reportSync.delta").increment();
+        return new ArrayList<>(reports.values());
+    }
+
+    /**
+     * Forgets the list, so that the next refresh loads it whole.
+     */
+    public synchronized void reset() {
+        reports.clear();
+        version = 0;
+    }
+
+    /**
+     * Gets the version of the last refresh.
+     *
+     * @return The version, or 0 before the first refresh.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,313 @@
+package Util;
+
+import Model.LogEntry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the schema up to date by running the migrations a database has not
+ * had yet, in version order, and recording each in the schema_version table.
+ * <p>
+ * MySQL commits every DDL statement on its own, so a migration that fails
+ * halfway cannot be rolled back. Instead, statements that find their work
+ * already done (a table, column or index that exists, one that is already
+ * gone) are skipped, so the migration is simply run again from the start
+ * next time. The same lets migrations run on databases whose tables were
+ * created with the columns already there.
+ *
+ * @author 12223508
+ */
+public final class SchemaMigrations {
+
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    // ER_TABLE_EXISTS_ERROR, ER_DUP_FIELDNAME, ER_DUP_KEYNAME, ER_CANT_DROP_FIELD_OR_KEY
+    private static final Set<Integer> ALREADY_DONE = Set.of(1050, 1060, 1061, 1091);
+
+    private static final String ALLOCATE_REPORT_VERSION = "INSERT INTO report_versions () VALUES (); ";
+
+    /**
+     * The migrations, in the order they run. Never edit one that has shipped;
+     * add a new one instead.
+     */
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Add resources_version to reports",
+                    "ALTER TABLE reports ADD COLUMN resources_version INT NOT NULL DEFAULT 0"),
+            new Migration(2, "Add row versions to reports",
+                    "ALTER TABLE reports ADD COLUMN row_version BIGINT NOT NULL DEFAULT 0",
+                    "ALTER TABLE reports ADD COLUMN updated_at TIMESTAMP(3) NOT NULL "
+                    + "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)",
+                    "CREATE INDEX idx_reports_row_version ON reports (row_version)"),
+            // report_versions hands out row versions from its AUTO_INCREMENT;
+            // report_tombstones remembers deleted reports so that consoles
+            // syncing by version learn of the deletion
+            new Migration(3, "Create report version tables",
+                    "CREATE TABLE IF NOT EXISTS report_versions ("
+                    + "version BIGINT AUTO_INCREMENT PRIMARY KEY,"
+                    + "allocated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)"
+                    + ")",
+                    "CREATE TABLE IF NOT EXISTS report_tombstones ("
+                    + "report_id INT PRIMARY KEY,"
+                    + "row_version BIGINT NOT NULL,"
+                    + "deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),"
+                    + "INDEX idx_report_tombstones_row_version (row_version)"
+                    + ")"),
+            // Triggers cover every write to reports, whichever code runs it.
+            // An AUTO_INCREMENT locks nothing past the insert, so report
+            // writes do not wait for each other, but versions may commit out
+            // of order; readers stop below the first one still in flight
+            // (see DatabaseConnection.getReportsChangedSince).
+            new Migration(4, "Create report version triggers",
+                    "DROP TRIGGER IF EXISTS reports_version_insert",
+                    "CREATE TRIGGER reports_version_insert BEFORE INSERT ON reports FOR EACH ROW BEGIN "
+                    + ALLOCATE_REPORT_VERSION
+                    + "SET NEW.row_version = LAST_INSERT_ID(); "
+                    + "DELETE FROM report_tombstones WHERE report_id = NEW.id; "
+                    + "END",
+                    "DROP TRIGGER IF EXISTS reports_version_update",
+                    "CREATE TRIGGER reports_version_update BEFORE UPDATE ON reports FOR EACH ROW BEGIN "
+                    + ALLOCATE_REPORT_VERSION
+                    + "SET NEW.row_version = LAST_INSERT_ID(); "
+                    + "END",
+                    "DROP TRIGGER IF EXISTS reports_version_delete",
+                    "CREATE TRIGGER reports_version_delete AFTER DELETE ON reports FOR EACH ROW BEGIN "
+                    + ALLOCATE_REPORT_VERSION
+                    + "INSERT INTO report_tombstones (report_id, row_version) VALUES (OLD.id, LAST_INSERT_ID()) "
+                    + "ON DUPLICATE KEY UPDATE row_version = VALUES(row_version), deleted_at = CURRENT_TIMESTAMP(3); "
+                    + "END"),
+            // The active lists of the departments filter on response_status
+            // and their own status column. The coordinator's filters on
+            // response_status alone, which any of these indexes serves.
+            new Migration(5, "Index the active report lists",
+                    "CREATE INDEX idx_reports_status_fire_department ON reports (response_status, fire_department_status)",
+                    "CREATE INDEX idx_reports_status_health_department ON reports (response_status, health_department_status)",
+                    "CREATE INDEX idx_reports_status_law_enforcement ON reports (response_status, law_enforcement_status)",
+                    "CREATE INDEX idx_reports_status_meteorology ON reports (response_status, meteorology_status)",
+                    "CREATE INDEX idx_reports_status_geoscience ON reports (response_status, geoscience_status)",
+                    "CREATE INDEX idx_reports_status_utility_companies ON reports (response_status, utility_companies_status)"),
+            // A report's communication log, one row per entry, read back a
+            // page at a time, newest first, through the (report_id, ts) index
+            new Migration(6, "Create report_log_entries",
+                    "CREATE TABLE IF NOT EXISTS report_log_entries ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+                    + "report_id INT NOT NULL,"
+                    + "ts DATETIME(3) NOT NULL,"
+                    + "department VARCHAR(50),"
+                    + "author VARCHAR(100),"
+                    + "text TEXT NOT NULL"
+                    + ")",
+                    "CREATE INDEX idx_report_log_entries_report_ts ON report_log_entries (report_id, ts)"),
+            new Migration(7, "Move communication logs to report_log_entries", SchemaMigrations::moveCommunicationLogs));
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Runs the migrations the database has not had yet. A lock on the
+     * database keeps servers starting at the same time from running them
+     * twice.
+     *
+     * @param conn The connection, with the database selected.
+     * @throws SQLException If a migration fails, or one that was applied has
+     * been changed since.
+     */
+    public static void migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT PRIMARY KEY,"
+                    + "description VARCHAR(200) NOT NULL,"
+                    + "checksum VARCHAR(16) NOT NULL,"
+                    + "applied_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),"
+                    + "execution_ms INT NOT NULL"
+                    + ")");
+        }
+        lock(conn);
+        try {
+            List<Migration> pending = pending(MIGRATIONS, appliedChecksums(conn));
+            for (Migration migration : pending) {
+                apply(conn, migration);
+            }
+            if (pending.isEmpty()) {
+                Log.info("   schema is at version {}", MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion());
+            }
+        } finally {
+            unlock(conn);
+        }
+    }
+
+    /**
+     * Works out which migrations still have to run.
+     *
+     * @param migrations All migrations, in version order.
+     * @param applied The checksums of the applied migrations by version.
+     * @return The migrations not applied yet, in order.
+     * @throws SQLException If an applied migration's statements have changed
+     * since it ran.
+     * @throws IllegalStateException If the migrations are not in strictly
+     * increasing version order.
+     */
+    static List<Migration> pending(List<Migration> migrations, Map<Integer, String> applied) throws SQLException {
+        List<Migration> pending = new ArrayList<>();
+        int previous = 0;
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= previous) {
+                throw new IllegalStateException("Migration " + migration + " is out of order");
+            }
+            previous = migration.getVersion();
+            String checksum = applied.get(migration.getVersion());
+            if (checksum == null) {
+                pending.add(migration);
+            } else if (!checksum.equals(migration.getChecksum())) {
+                throw new SQLException("Migration " + migration + " was changed after it was applied");
+            }
+        }
+        return pending;
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        if (migration.getStep() != null) {
+            try {
+                migration.getStep().apply(conn);
+            } catch (SQLException e) {
+                throw new SQLException("Migration " + migration + " failed: " + e.getMessage(), e);
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.getStatements()) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_DONE.contains(e.getErrorCode())) {
+                        throw new SQLException("Migration " + migration + " failed: " + e.getMessage(), e);
+                    }
+                    Log.info("   migration {}: already done: {}", migration.getVersion(), e.getMessage());
+                }
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setString(3, migration.getChecksum());
+            pstmt.setLong(4, millis);
+            pstmt.executeUpdate();
+        }
+        Log.info("   migration {} = OK ({} ms)", migration, millis);
+    }
+
+    /**
+     * Moves communication logs written to the reports.communication_log column
+     * after the migrations ran, e.g. by the sample data import, to
+     * report_log_entries. Holds the migration lock meanwhile, so that no other
+     * server moves the same logs.
+     *
+     * @param conn The connection, with the database selected.
+     * @throws SQLException If there's an error executing the SQL statements.
+     */
+    static void moveLateCommunicationLogs(Connection conn) throws SQLException {
+        lock(conn);
+        try {
+            moveCommunicationLogs(conn);
+        } finally {
+            unlock(conn);
+        }
+    }
+
+    /**
+     * Moves communication logs kept in the reports.communication_log column
+     * into report_log_entries, one row per entry, and clears the column. Each
+     * report is moved in one transaction, so running the move again only picks
+     * up reports not moved yet.
+     *
+     * @param conn The connection, with the database selected.
+     * @throws SQLException If there's an error executing the SQL statements.
+     */
+    private static void moveCommunicationLogs(Connection conn) throws SQLException {
+        String select = "SELECT id, communication_log, created_at FROM reports "
+                + "WHERE communication_log IS NOT NULL AND communication_log <> ''";
+        String insert = "INSERT INTO report_log_entries (report_id, ts, department, author, text) VALUES (?, ?, ?, ?, ?)";
+        String clear = "UPDATE reports SET communication_log = NULL WHERE id = ?";
+        int migrated = 0;
+        boolean autoCommit = conn.getAutoCommit();
+        try (Statement query = conn.createStatement(); ResultSet rs = query.executeQuery(select);
+                PreparedStatement insertStmt = conn.prepareStatement(insert);
+                PreparedStatement clearStmt = conn.prepareStatement(clear)) {
+            conn.setAutoCommit(false);
+            while (rs.next()) {
+                int reportId = rs.getInt("id");
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                LocalDateTime fallback = createdAt != null ? createdAt.toLocalDateTime() : LocalDateTime.now();
+                for (LogEntry entry : LogEntry.parseLegacyLog(reportId, rs.getString("communication_log"), fallback)) {
+                    insertStmt.setInt(1, reportId);
+                    insertStmt.setTimestamp(2, Timestamp.valueOf(entry.getTimestamp()));
+                    insertStmt.setString(3, entry.getDepartment());
+                    insertStmt.setString(4, entry.getAuthor());
+                    insertStmt.setString(5, entry.getText());
+                    insertStmt.addBatch();
+                }
+                insertStmt.executeBatch();
+                clearStmt.setInt(1, reportId);
+                clearStmt.executeUpdate();
+                conn.commit();
+                migrated++;
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        if (migrated > 0) {
+            Log.info("   moved the communication logs of {} reports to report_log_entries", migrated);
+        }
+    }
+
+    private static String lockName() {
+        // GET_LOCK names are server wide, so one is taken per database
+        return DatabaseConnection.getDB_NAME() + ".schema_migrations";
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, lockName());
+            pstmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another server to migrate the schema");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, lockName());
+            pstmt.executeQuery().close();
+        } catch (SQLException e) {
+            Log.warn("Could not release the schema migration lock: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package Util;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks whether the DRS server is reachable. A background heartbeat probes
+ * the server port and keeps a cached state that callers read without any I/O,
+ * so checking liveness before a query or a button action costs a volatile
+ * read instead of a TCP connect.
+ * <p>
+ * The cached state behaves as a circuit breaker. While CLOSED, calls are
+ * allowed. After {@code FAILURE_THRESHOLD} failed heartbeats in a row the
+ * circuit OPENs and calls fail fast. While OPEN the heartbeat backs off, and
+ * each probe acts as the half-open trial: one success closes the circuit
+ * again.
+ *
+ * @author 12223508
+ */
+public final class ServerLivenessMonitor {
+
+    /**
+     * The circuit breaker state.
+     */
+    public enum State {
+        CLOSED,
+        OPEN
+    }
+
+    private static final long HEARTBEAT_INTERVAL_MILLIS = Long.getLong("drs.liveness.intervalMillis", 1000);
+    private static final long MAX_BACKOFF_MILLIS = Long.getLong("drs.liveness.maxBackoffMillis", 5000);
+    private static final int FAILURE_THRESHOLD = Integer.getInteger("drs.liveness.failureThreshold", 2);
+
+    private static volatile ServerLivenessMonitor instance;
+
+    private final String host;
+    private final int port;
+    private final int connectTimeoutMillis;
+    private final ScheduledExecutorService heartbeat;
+
+    private volatile State state;
+    private volatile long lastCheckedAt;
+    private int consecutiveFailures;
+    private long backoffMillis = HEARTBEAT_INTERVAL_MILLIS;
+
+    private ServerLivenessMonitor(String host, int port, int connectTimeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        // One synchronous probe so the first caller sees a real answer.
+        this.state = probe() ? State.CLOSED : State.OPEN;
+        this.lastCheckedAt = System.currentTimeMillis();
+        if (state == State.OPEN) {
+            consecutiveFailures = FAILURE_THRESHOLD;
+        }
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "drs-liveness-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.schedule(this::beat, HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the monitor for the configured DRS server, starting its heartbeat
+     * on first use.
+     *
+     * @return The shared monitor.
+     */
+    public static ServerLivenessMonitor getInstance() {
+        ServerLivenessMonitor monitor = instance;
+        if (monitor == null) {
+            synchronized (ServerLivenessMonitor.class) {
+                monitor = instance;
+                if (monitor == null) {
+                    monitor = new ServerLivenessMonitor(DatabaseConnection.getServerHost(),
+                            DatabaseConnection.getServerPort(), DatabaseConnection.getTimeout());
+                    instance = monitor;
+                }
+            }
+        }
+        return monitor;
+    }
+
+    /**
+     * Lets a DRS server running in this JVM report that it started or stopped,
+     * so the cached state flips immediately instead of on the next heartbeat.
+     * Does nothing if no monitor exists yet or the port is not the monitored
+     * one.
+     *
+     * @param serverPort The port the server is bound to.
+     * @param running Whether the server is now running.
+     */
+    public static void serverStateChanged(int serverPort, boolean running) {
+        ServerLivenessMonitor monitor = instance;
+        if (monitor != null && monitor.port == serverPort) {
+            if (running) {
+                monitor.record(true);
+            } else {
+                monitor.open();
+            }
+        }
+    }
+
+    /**
+     * Checks whether calls to the server should go ahead. Never blocks and
+     * never touches the network.
+     *
+     * @return true if the circuit is closed.
+     */
+    public boolean isServerRunning() {
+        return state == State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the time of the most recent heartbeat or state report.
+     *
+     * @return Milliseconds since the epoch.
+     */
+    public long getLastCheckedAt() {
+        return lastCheckedAt;
+    }
+
+    private void beat() {
+        long delay;
+        try {
+            delay = record(probe());
+        } catch (RuntimeException e) {
+            delay = HEARTBEAT_INTERVAL_MILLIS;
+        }
+        heartbeat.schedule(this::beat, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies a probe result and returns the delay before the next heartbeat.
+     */
+    private synchronized long record(boolean reachable) {
+        lastCheckedAt = System.currentTimeMillis();
+        if (reachable) {
+            consecutiveFailures = 0;
+            backoffMillis = HEARTBEAT_INTERVAL_MILLIS;
+            if (state != State.CLOSED) {
+                state = State.CLOSED;
+                Log.info("DRS server is reachable again at {}:{}", host, port);
+            }
+            return HEARTBEAT_INTERVAL_MILLIS;
+        }
+
+        consecutiveFailures++;
+        if (state == State.CLOSED && consecutiveFailures >= FAILURE_THRESHOLD) {
+            state = State.OPEN;
+            Log.warn("DRS server is not reachable at {}:{}; failing fast until it returns", host, port);
+        }
+        if (state == State.OPEN) {
+            long delay = backoffMillis;
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            return delay;
+        }
+        return HEARTBEAT_INTERVAL_MILLIS;
+    }
+
+    private synchronized void open() {
+        lastCheckedAt = System.currentTimeMillis();
+        consecutiveFailures = FAILURE_THRESHOLD;
+        state = State.OPEN;
+    }
+
+    private boolean probe() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
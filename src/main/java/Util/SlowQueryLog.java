@@ -0,0 +1,54 @@
+package Util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends slow SQL statements to a file on a background thread, so that a
+ * slow database does not also make its callers wait for the disk. Each line
+ * is {@code time|millis|rows|template|parameters|thread}, where parameters is
+ * the shape of the bind parameters, e.g. {@code (Int, String)}, never their
+ * values. The file is {@code drs.sql.slowLog} ({@code slow-queries.log} by
+ * default). If the writer falls behind, further entries are dropped and
+ * counted rather than queued without limit.
+ *
+ * @author 12223508
+ */
+public final class SlowQueryLog {
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final AsyncFileWriter WRITER = new AsyncFileWriter("drs-slow-query-log",
+            Paths.get(System.getProperty("drs.sql.slowLog", "slow-queries.log")), QUEUE_CAPACITY);
+    private static final LongAdder LOGGED = new LongAdder();
+
+    private SlowQueryLog() {
+    }
+
+    static void log(String template, long nanos, long rows, String parameters) {
+        String line = Instant.now() + "|" + nanos / 1_000_000 + "|" + rows + "|" + template + "|" + parameters
+                + "|" + Thread.currentThread().getName();
+        if (WRITER.write(line)) {
+            LOGGED.increment();
+        }
+    }
+
+    /**
+     * Gets the file slow statements are written to.
+     *
+     * @return The log file.
+     */
+    public static Path getFile() {
+        return WRITER.getFile();
+    }
+
+    public static long getLoggedCount() {
+        return LOGGED.sum();
+    }
+
+    public static long getDroppedCount() {
+        return WRITER.getDroppedCount();
+    }
+}
@@ -0,0 +1,141 @@
+package Util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed step of a sampled trace, such as a controller action, a server
+ * request, its wait for a worker or a JDBC statement. A span is written to
+ * the trace file when it is closed. Spans only exist for sampled traces, so
+ * code that traces should expect {@link Tracing} to hand it null, which
+ * try-with-resources accepts.
+ *
+ * @author 12223508
+ */
+public final class Span implements AutoCloseable {
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentId;
+    private final String name;
+    private final long startEpochMicros = System.currentTimeMillis() * 1000;
+    private final long startNanos = System.nanoTime();
+    private Map<String, String> tags;
+    private Span previous;
+    private boolean active;
+    private boolean closed;
+
+    Span(String traceId, String parentId, String name) {
+        this.traceId = traceId;
+        this.spanId = Tracing.newId();
+        this.parentId = parentId;
+        this.name = name;
+    }
+
+    /**
+     * Starts a span inside this one. The child is not made current; call
+     * {@link #activate()} for that.
+     *
+     * @param childName The child's name.
+     * @return The child span.
+     */
+    public Span child(String childName) {
+        return new Span(traceId, spanId, childName);
+    }
+
+    /**
+     * Makes this span the current one on the calling thread until it is
+     * closed, so that spans started there, e.g. for JDBC calls, become its
+     * children. It must be closed on the same thread.
+     *
+     * @return This span.
+     */
+    public Span activate() {
+        previous = Tracing.current();
+        Tracing.setCurrent(this);
+        active = true;
+        return this;
+    }
+
+    /**
+     * Adds a tag, e.g. the command or the SQL template.
+     *
+     * @param key The tag name.
+     * @param value The value; null is ignored.
+     * @return This span.
+     */
+    public synchronized Span tag(String key, Object value) {
+        if (value != null) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>();
+            }
+            tags.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Gets this span's W3C trace context, for passing the trace on over the
+     * DRS protocol.
+     *
+     * @return A {@code traceparent} value naming this span as the parent.
+     */
+    public String traceParent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Ends the span and writes it out. Closing it again does nothing.
+     */
+    @Override
+    public void close() {
+        long durationMicros = (System.nanoTime() - startNanos) / 1000;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (active) {
+            Tracing.setCurrent(previous);
+        }
+        Tracing.write(toJson(durationMicros));
+    }
+
+    /**
+     * Formats the span as a Zipkin v2 JSON span.
+     */
+    private synchronized String toJson(long durationMicros) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"traceId\":\"").append(traceId).append("\",\"id\":\"").append(spanId).append('"');
+        if (parentId != null) {
+            json.append(",\"parentId\":\"").append(parentId).append('"');
+        }
+        json.append(",\"name\":");
+        Tracing.appendJsonString(json, name);
+        json.append(",\"timestamp\":").append(startEpochMicros)
+                .append(",\"duration\":").append(Math.max(1, durationMicros))
+                .append(",\"localEndpoint\":{\"serviceName\":");
+        Tracing.appendJsonString(json, Tracing.SERVICE_NAME);
+        json.append('}');
+        if (tags != null) {
+            json.append(",\"tags\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> entry : tags.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                Tracing.appendJsonString(json, entry.getKey());
+                json.append(':');
+                Tracing.appendJsonString(json, entry.getValue());
+            }
+            json.append('}');
+        }
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,36 @@
+package Util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for one SQL statement run on a pooled
+ * connection. For queries the event lasts until the result set is closed, so
+ * its duration includes fetching the rows. The stack trace JFR records with
+ * the event shows which DatabaseConnection method ran the statement.
+ *
+ * @author 12223508
+ */
+@Name("drs.Sql")
+@Label("DRS SQL Statement")
+@Category({"DRS", "Database"})
+@Description("A JDBC statement run through the connection pool")
+final class SqlEvent extends Event {
+
+    @Label("SQL")
+    @Description("The statement as prepared, with ? for its parameters")
+    String sql;
+
+    @Label("Rows")
+    @Description("Rows read, or rows changed by an update or batch")
+    long rows;
+
+    @Label("Connection Wait")
+    @Description("How long the caller waited for the connection this statement ran on")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionWait;
+}
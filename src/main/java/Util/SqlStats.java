@@ -0,0 +1,161 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Timings of every SQL statement run through the connection pool, grouped by
+ * template: the statement with its literals replaced by {@code ?}, parameter
+ * lists such as {@code IN (?, ?, ?)} written as {@code (?...)} and repeated
+ * VALUES rows or CASE branches folded into one, so that statements differing only in their values or batch size
+ * count together. Statements slower than {@code drs.sql.slowMillis} (250 ms
+ * by default) also go to the {@link SlowQueryLog}.
+ *
+ * @author 12223508
+ */
+public final class SqlStats {
+
+    public static final long SLOW_THRESHOLD_NANOS = Long.getLong("drs.sql.slowMillis", 250) * 1_000_000L;
+
+    private static final int MAX_TEMPLATES = 1024;
+    private static final int MAX_CACHED_SQL = 4096;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(?:, ?\\?)*\\)");
+    private static final Pattern REPEATED_ROWS = Pattern.compile("(\\([^()]*\\))(?:, ?\\1)+");
+    private static final Pattern REPEATED_CASES = Pattern.compile("(WHEN \\? THEN \\? )(?:\\1)+", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, String> TEMPLATES = new ConcurrentHashMap<>();
+    private static final Map<String, TemplateStats> STATS = new ConcurrentHashMap<>();
+
+    private SqlStats() {
+    }
+
+    /**
+     * Reduces a statement to its template.
+     *
+     * @param sql The SQL as prepared or executed.
+     * @return The template.
+     */
+    public static String template(String sql) {
+        if (sql == null) {
+            return "(unknown)";
+        }
+        String template = TEMPLATES.get(sql);
+        if (template == null) {
+            template = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+            template = STRING_LITERAL.matcher(template).replaceAll("?");
+            template = NUMBER_LITERAL.matcher(template).replaceAll("?");
+            template = PARAMETER_LIST.matcher(template).replaceAll("(?...)");
+            template = REPEATED_ROWS.matcher(template).replaceAll("$1");
+            template = REPEATED_CASES.matcher(template).replaceAll("$1");
+            if (TEMPLATES.size() >= MAX_CACHED_SQL) {
+                // Dynamically built SQL could otherwise grow the cache without bound
+                TEMPLATES.clear();
+            }
+            TEMPLATES.put(sql, template);
+        }
+        return template;
+    }
+
+    /**
+     * Records one finished statement.
+     *
+     * @param sql The SQL as prepared or executed.
+     * @param nanos How long it took, including reading a query's rows.
+     * @param rows Rows read or changed, or -1 if unknown.
+     * @param parameters The shape of its bind parameters, e.g.
+     * {@code (Int, String)}.
+     */
+    static void record(String sql, long nanos, long rows, String parameters) {
+        String template = template(sql);
+        TemplateStats stats = STATS.get(template);
+        if (stats == null) {
+            stats = STATS.size() < MAX_TEMPLATES ? STATS.computeIfAbsent(template, TemplateStats::new)
+                    : STATS.computeIfAbsent("(other)", TemplateStats::new);
+        }
+        stats.latency.record(nanos);
+        stats.totalNanos.add(nanos);
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+        if (nanos >= SLOW_THRESHOLD_NANOS) {
+            stats.slow.increment();
+            SlowQueryLog.log(template, nanos, rows, parameters);
+        }
+    }
+
+    /**
+     * Gets the templates that took the most time altogether.
+     *
+     * @param limit How many to return.
+     * @return The templates, most total time first.
+     */
+    public static List<TemplateStats> top(int limit) {
+        // Read each total once; they keep changing while the list is sorted
+        Map<TemplateStats, Long> totals = new HashMap<>();
+        for (TemplateStats stats : STATS.values()) {
+            totals.put(stats, stats.getTotalNanos());
+        }
+        List<TemplateStats> all = new ArrayList<>(totals.keySet());
+        all.sort(Comparator.<TemplateStats, Long>comparing(totals::get).reversed());
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    /**
+     * Forgets every template's statistics.
+     */
+    public static void reset() {
+        STATS.clear();
+    }
+
+    /**
+     * The statistics of one template.
+     */
+    public static final class TemplateStats {
+
+        private final String template;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+
+        private TemplateStats(String template) {
+            this.template = template;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        /**
+         * Takes a snapshot of the template's latencies, for its count and
+         * percentiles.
+         *
+         * @return The snapshot.
+         */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getSlowCount() {
+            return slow.sum();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package Util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lightweight request tracing. A trace starts in a controller action, or in
+ * the server for a request that arrives without one, and is kept for a
+ * fraction {@code drs.trace.sampleRate} (0.1 by default) of those starts.
+ * Text protocol clients pass their trace on by prefixing a request with
+ * {@code ^<traceparent>|}, using the W3C trace context format, and the
+ * server continues it. Finished spans are appended as Zipkin v2 JSON, one
+ * per line, to {@code drs.trace.file} ({@code traces.jsonl} by default) by a
+ * background thread.
+ * <p>
+ * While the calling thread is not inside a sampled trace, every method here
+ * returns null and costs a thread-local read.
+ *
+ * @author 12223508
+ */
+public final class Tracing {
+
+    public static final double SAMPLE_RATE = sampleRate(System.getProperty("drs.trace.sampleRate", "0.1"));
+    static final String SERVICE_NAME = System.getProperty("drs.trace.service", "drs");
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final Pattern TRACE_PARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static volatile AsyncFileWriter sink;
+
+    private Tracing() {
+    }
+
+    private static double sampleRate(String value) {
+        try {
+            return Math.max(0, Math.min(1, Double.parseDouble(value.trim())));
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid drs.trace.sampleRate: " + value);
+            return 0.1;
+        }
+    }
+
+    /**
+     * Starts a span for a user action and makes it current on the calling
+     * thread. Inside a trace the action becomes a child span; otherwise a
+     * new trace is started if sampled.
+     *
+     * @param name The action's name.
+     * @return The span, or null if the action is not traced.
+     */
+    public static Span startAction(String name) {
+        Span parent = CURRENT.get();
+        if (parent != null) {
+            return parent.child(name).activate();
+        }
+        return sampled() ? new Span(newTraceId(), null, name).activate() : null;
+    }
+
+    /**
+     * Starts a child of the calling thread's current span, without making it
+     * current.
+     *
+     * @param name The span's name.
+     * @return The span, or null if the thread is not inside a trace.
+     */
+    public static Span child(String name) {
+        Span parent = CURRENT.get();
+        return parent == null ? null : parent.child(name);
+    }
+
+    /**
+     * Starts a span for a request received from a client: a child of the
+     * client's span if it passed a sampled trace context, a new sampled
+     * trace if it passed none. The span is not made current, as the request
+     * runs on another thread.
+     *
+     * @param traceParent The client's {@code traceparent}, or null.
+     * @param name The span's name.
+     * @return The span, or null if the request is not traced.
+     */
+    public static Span continueTrace(String traceParent, String name) {
+        if (traceParent == null) {
+            return sampled() ? new Span(newTraceId(), null, name) : null;
+        }
+        Matcher matcher = TRACE_PARENT.matcher(traceParent);
+        if (!matcher.matches() || (Integer.parseInt(matcher.group(3), 16) & 1) == 0) {
+            return null;
+        }
+        return new Span(matcher.group(1), matcher.group(2), name);
+    }
+
+    /**
+     * Gets the calling thread's current span.
+     *
+     * @return The span, or null if the thread is not inside a trace.
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    static void setCurrent(Span span) {
+        if (span == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(span);
+        }
+    }
+
+    /**
+     * Runs code inside a span and closes the span once the code is done.
+     *
+     * @param span The span, or null if the code is not traced.
+     * @param body The code.
+     */
+    public static void inSpan(Span span, Runnable body) {
+        try {
+            body.run();
+        } finally {
+            if (span != null) {
+                span.close();
+            }
+        }
+    }
+
+    /**
+     * Computes a value inside a span and closes the span once it is done.
+     *
+     * @param <T> The type of the value.
+     * @param span The span, or null if the code is not traced.
+     * @param body Computes the value.
+     * @return The value.
+     */
+    public static <T> T inSpan(Span span, Supplier<T> body) {
+        try {
+            return body.get();
+        } finally {
+            if (span != null) {
+                span.close();
+            }
+        }
+    }
+
+    private static boolean sampled() {
+        return SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE;
+    }
+
+    private static String newTraceId() {
+        return newId() + newId();
+    }
+
+    static String newId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    static void write(String json) {
+        AsyncFileWriter writer = sink;
+        if (writer == null) {
+            synchronized (Tracing.class) {
+                writer = sink;
+                if (writer == null) {
+                    writer = new AsyncFileWriter("drs-trace-sink",
+                            Paths.get(System.getProperty("drs.trace.file", "traces.jsonl")), QUEUE_CAPACITY);
+                    sink = writer;
+                }
+            }
+        }
+        writer.write(json);
+    }
+
+    static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Gets the file spans are written to.
+     *
+     * @return The trace file.
+     */
+    public static Path getFile() {
+        AsyncFileWriter writer = sink;
+        return writer != null ? writer.getFile() : Paths.get(System.getProperty("drs.trace.file", "traces.jsonl"));
+    }
+
+    /**
+     * Gets the number of spans dropped because the writer fell behind.
+     *
+     * @return The dropped count.
+     */
+    public static long getDroppedCount() {
+        AsyncFileWriter writer = sink;
+        return writer != null ? writer.getDroppedCount() : 0;
+    }
+}
@@ -5,6 +5,9 @@ module coit20258assignment3 {
     requires javafx.web; 
     requires java.base;
     requires java.sql;
+    requires java.management;
+    requires jdk.httpserver;
+    requires jdk.jfr;
     requires org.apache.pdfbox;
     exports Controller;
     opens Controller to javafx.fxml;
@@ -0,0 +1,51 @@
+package Model;
+
+import ENUM.Department;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogEntryTest {
+
+    @Test
+    void LE001_testLegacyLogSplitsIntoEntriesAndRendersTheSame() {
+        // Test case: an old communication log with a multi-line entry, the coordinator and an unknown signature
+        // Expected: one entry per timestamped line with its department, and rendering gives the same text back
+        String log = "[2024-05-01 10:00:00] Fire Department: Crews dispatched\n"
+                + "[2024-05-01 10:05:30] Coordinator: Road closed\nuse the north access\n"
+                + "[2024-05-01 10:07:00] Volunteer: Shelter open";
+        LocalDateTime fallback = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+        List<LogEntry> entries = LogEntry.parseLegacyLog(7, log, fallback);
+
+        assertEquals(3, entries.size());
+        assertEquals(Department.FIRE_DEPARTMENT.name(), entries.get(0).getDepartment());
+        assertEquals("Crews dispatched", entries.get(0).getText());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 5, 30), entries.get(1).getTimestamp());
+        assertEquals(LogEntry.COORDINATOR, entries.get(1).getDepartment());
+        assertEquals("Road closed\nuse the north access", entries.get(1).getText());
+        assertNull(entries.get(2).getDepartment());
+        assertEquals("Volunteer: Shelter open", entries.get(2).getText());
+
+        List<LogEntry> newestFirst = new ArrayList<>(entries);
+        Collections.reverse(newestFirst);
+        assertEquals(log, LogEntry.render(newestFirst));
+    }
+
+    @Test
+    void LE002_testTextBeforeTheFirstTimestampGetsTheFallbackTime() {
+        // Test case: a log that starts with free text, as the sample data import may leave behind
+        // Expected: that text becomes its own entry at the fallback time
+        LocalDateTime fallback = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+        List<LogEntry> entries = LogEntry.parseLegacyLog(7, "\nInitial report received\n[2024-05-01 10:00:00] Meteorology: Storm easing", fallback);
+
+        assertEquals(2, entries.size());
+        assertEquals(fallback, entries.get(0).getTimestamp());
+        assertEquals("Initial report received", entries.get(0).getText());
+        assertEquals("[2024-05-01 10:00:00] Meteorology: Storm easing", entries.get(1).toString());
+    }
+}
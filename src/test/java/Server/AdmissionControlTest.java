@@ -0,0 +1,161 @@
+package Server;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AdmissionControlTest {
+
+    @Test
+    void AC001_testFullQueueTurnsWorkAway() throws InterruptedException {
+        // Test case: one worker busy, one task queued, then one more task
+        // Expected: the extra task is refused with a retry delay and counted; queued work still runs
+        AdmissionControl workers = new AdmissionControl("test-worker-", 1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        try {
+            workers.execute(() -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            workers.execute(done::countDown);
+            assertEquals(1, workers.getQueueDepth());
+
+            AdmissionControl.Busy busy = assertThrows(AdmissionControl.Busy.class, () -> workers.execute(() -> { }));
+            assertTrue(busy.getRetryAfterMillis() > 0);
+            assertEquals(1, workers.getRejectedCount());
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    void AC002_testRejectedPipelinedRequestIsAnsweredBusy() throws InterruptedException {
+        // Test case: a pipeline whose worker pool is full
+        // Expected: the request is answered through reject() instead of run(), and the connection stays open
+        AdmissionControl workers = new AdmissionControl("test-worker-", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CountDownLatch running = new CountDownLatch(1);
+            workers.execute(() -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            workers.execute(() -> { });
+
+            RequestPipeline pipeline = new RequestPipeline(workers, () -> { });
+            long[] retryAfter = new long[1];
+            pipeline.submit(null, new RequestPipeline.Task() {
+                @Override
+                public boolean run() {
+                    fail("A rejected request should not run");
+                    return false;
+                }
+
+                @Override
+                public boolean reject(long retryAfterMillis) {
+                    retryAfter[0] = retryAfterMillis;
+                    return false;
+                }
+            });
+            assertTrue(retryAfter[0] > 0);
+            assertFalse(pipeline.isClosing());
+            assertEquals(0, pipeline.size());
+        } finally {
+            release.countDown();
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    void AC003_testSaturatedBulkReadsDoNotBlockLogins() throws InterruptedException {
+        // Test case: the bulk read pool has one worker stuck on a slow report list and a full queue
+        // Expected: another report list is refused BUSY while a login still runs straight away
+        System.setProperty("drs.bulkhead.bulk_read.threads", "1");
+        System.setProperty("drs.bulkhead.bulk_read.queueLimit", "1");
+        Bulkheads bulkheads;
+        try {
+            bulkheads = new Bulkheads();
+        } finally {
+            System.clearProperty("drs.bulkhead.bulk_read.threads");
+            System.clearProperty("drs.bulkhead.bulk_read.queueLimit");
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            AdmissionControl reads = bulkheads.forCommand(Command.GET_REPORTS);
+            CountDownLatch running = new CountDownLatch(1);
+            reads.execute(() -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            reads.execute(() -> { });
+            assertThrows(AdmissionControl.Busy.class, () -> reads.execute(() -> { }));
+
+            CountDownLatch login = new CountDownLatch(1);
+            bulkheads.forCommand(Command.LOGIN).execute(login::countDown);
+            assertTrue(login.await(5, TimeUnit.SECONDS), "Logins should not wait behind report lists");
+            assertEquals(1, bulkheads.getRejectedCount());
+        } finally {
+            release.countDown();
+            bulkheads.shutdown();
+        }
+    }
+
+    @Test
+    void AC004_testVirtualPoolBoundsConcurrencyWithPermits() throws InterruptedException {
+        // Test case: a virtual thread pool with one permit, one task running, one waiting, then one more
+        // Expected: only one task runs at a time, the extra task is refused and the waiting one still runs
+        AdmissionControl workers = new AdmissionControl("test-virtual-", 1, 1, true);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        try {
+            workers.execute(() -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            boolean[] virtual = new boolean[1];
+            workers.execute(() -> {
+                virtual[0] = Thread.currentThread().isVirtual();
+                done.countDown();
+            });
+            assertEquals(1, workers.getActiveCount());
+            assertEquals(1, workers.getQueueDepth());
+            assertThrows(AdmissionControl.Busy.class, () -> workers.execute(() -> { }));
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(virtual[0], "Tasks should run on virtual threads");
+        } finally {
+            workers.shutdown();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package Server;
+
+import ENUM.UserRole;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppendCommandTest {
+
+    @Test
+    void AC001_testMalformedAppendsAreRejected() {
+        // Test case: appends without text, with blank text, and with a report id that is not positive
+        // Expected: each is rejected before the database is touched
+        SessionStore store = new SessionStore();
+        RequestDispatcher dispatcher = new RequestDispatcher(store);
+        try {
+            ClientContext client = new ClientContext(null);
+            client.setSession(store.create("coordinator", UserRole.Coordinator, false));
+            assertEquals("INVALID_REQUEST", dispatcher.process("APPEND_LOG|7", client));
+            assertEquals("INVALID_REQUEST", dispatcher.process("APPEND_LOG|7|  ", client));
+            assertEquals("INVALID_REQUEST", dispatcher.process("ADD_RESOURCE|0|Sandbags x200", client));
+            assertEquals("INVALID_REQUEST", dispatcher.process("ADD_RESOURCE|abc|Sandbags x200", client));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void AC002_testAppendsToOneReportKeepTheirOrder() {
+        // Test case: pipelined appends and updates to the same report and to another one
+        // Expected: the same report shares an ordering key, so entries land in the order they were sent
+        assertEquals("report:7", RequestDispatcher.orderingKey("APPEND_LOG|7|Crews on site"));
+        assertEquals("report:7", RequestDispatcher.orderingKey("ADD_RESOURCE|7|Water tanker"));
+        assertEquals("report:7", RequestDispatcher.orderingKey("UPDATE_REPORT|7|priority_level|High"));
+        assertEquals("report:8", RequestDispatcher.orderingKey("APPEND_LOG|8|Road closed"));
+    }
+}
@@ -0,0 +1,43 @@
+package Server;
+
+import ENUM.UserRole;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchCommandTest {
+
+    @Test
+    void BC001_testInvalidItemsAreReportedPerItem() {
+        // Test case: batches whose items all fail validation, so the database is never touched
+        // Expected: the batch completes with INVALID_ITEM in each item's position
+        SessionStore store = new SessionStore();
+        RequestDispatcher dispatcher = new RequestDispatcher(store);
+        try {
+            ClientContext client = new ClientContext(null);
+            client.setSession(store.create("coordinator", UserRole.Coordinator, false));
+            assertEquals("BATCH_DONE|2|INVALID_ITEM|INVALID_ITEM",
+                    dispatcher.process("ADD_REPORTS_BATCH|2|FIRE||Bob|0400|smoke| |Perth|Ann|0411|flood"));
+            assertEquals("BATCH_DONE|2|INVALID_ITEM|INVALID_ITEM",
+                    dispatcher.process("UPDATE_REPORTS_BATCH|2|7|id|8|abc|priority_level|High", client));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void BC002_testMalformedBatchesAreRejected() {
+        // Test case: a zero count, a count that does not match the fields, and a non-numeric count
+        // Expected: the whole request is rejected as invalid
+        SessionStore store = new SessionStore();
+        RequestDispatcher dispatcher = new RequestDispatcher(store);
+        try {
+            ClientContext client = new ClientContext(null);
+            client.setSession(store.create("coordinator", UserRole.Coordinator, false));
+            assertEquals("INVALID_REQUEST", dispatcher.process("ADD_REPORTS_BATCH|0"));
+            assertEquals("INVALID_REQUEST", dispatcher.process("ADD_REPORTS_BATCH|2|FIRE|Darwin|Bob|0400|smoke"));
+            assertEquals("INVALID_REQUEST", dispatcher.process("UPDATE_REPORTS_BATCH|x|1|priority_level|High", client));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+}
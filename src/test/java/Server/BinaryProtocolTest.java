@@ -0,0 +1,185 @@
+package Server;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import Util.DatabaseConnection;
+import Util.ReportQuery;
+
+public class BinaryProtocolTest {
+
+    @Test
+    void BP001_testFrameRoundTrip() {
+        // Test case: every field type written by FrameWriter and read back
+        // Expected: FrameReader returns the same header and values
+        FrameWriter writer = new FrameWriter();
+        writer.begin(BinaryProtocol.FRAME_REQUEST, 42, Command.LOGIN.getOpcode())
+                .putString("Responder")
+                .putInt(-7)
+                .putLong(1L << 40)
+                .putDouble(2.5)
+                .putBoolean(true)
+                .putNull()
+                .putString("Flut über Brücke 🌊")
+                .end();
+        ByteBuffer frames = writer.drain();
+        int length = frames.getInt();
+        assertEquals(frames.remaining(), length);
+
+        FrameReader reader = new FrameReader();
+        reader.reset(frames);
+        assertEquals(BinaryProtocol.FRAME_REQUEST, reader.getFrameType());
+        assertEquals(42, reader.getRequestId());
+        assertEquals(Command.LOGIN, Command.fromOpcode(reader.getOpcode()));
+        assertEquals(7, reader.size());
+        assertTrue(reader.stringEquals(0, "Responder"));
+        assertEquals(-7, reader.getInt(1));
+        assertEquals(1L << 40, reader.getLong(2));
+        assertEquals(2.5, reader.getDouble(3));
+        assertTrue(reader.getBoolean(4));
+        assertTrue(reader.isNull(5));
+        assertEquals("Flut über Brücke 🌊", reader.getString(6));
+    }
+
+    @Test
+    void BP002_testBinaryAndTextClientsShareThePort() throws Exception {
+        // Test case: a binary client negotiates on the selector front-end and the blocking one
+        // Expected: the preamble is echoed, PING gets a PONG frame and EXIT closes the connection
+        for (ExecutionMode mode : new ExecutionMode[]{ExecutionMode.SELECTOR, ExecutionMode.VIRTUAL_THREADS}) {
+            DRSServer server = startServer(mode);
+            try (Socket client = new Socket("localhost", server.getLocalPort())) {
+                client.setSoTimeout(10000);
+                OutputStream out = client.getOutputStream();
+                DataInputStream in = new DataInputStream(client.getInputStream());
+                FrameWriter writer = new FrameWriter();
+                out.write(BinaryProtocol.preamble(BinaryProtocol.CURRENT_VERSION));
+                writer.begin(BinaryProtocol.FRAME_REQUEST, 1, Command.PING.getOpcode()).end();
+                writer.begin(BinaryProtocol.FRAME_REQUEST, 2, Command.EXIT.getOpcode()).end();
+                writer.writeTo(out);
+                out.flush();
+
+                byte[] preamble = new byte[BinaryProtocol.PREAMBLE_LENGTH];
+                in.readFully(preamble);
+                assertArrayEquals(BinaryProtocol.preamble(BinaryProtocol.CURRENT_VERSION), preamble, mode.name());
+
+                FrameReader reader = readFrame(in);
+                assertEquals(BinaryProtocol.FRAME_RESPONSE, reader.getFrameType(), mode.name());
+                assertEquals(1, reader.getRequestId());
+                assertEquals("PONG", reader.getString(0));
+
+                reader = readFrame(in);
+                assertEquals(2, reader.getRequestId());
+                assertEquals("Goodbye!", reader.getString(0));
+                assertEquals(-1, in.read(), mode + ": EXIT should close the connection");
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    @Test
+    void BP003_testUnsupportedVersionRefused() throws Exception {
+        // Test case: a client asks for a protocol version the server does not speak
+        // Expected: the server answers with version 0 and closes
+        DRSServer server = startServer(ExecutionMode.SELECTOR);
+        try (Socket client = new Socket("localhost", server.getLocalPort())) {
+            client.setSoTimeout(10000);
+            client.getOutputStream().write(BinaryProtocol.preamble((byte) 99));
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            byte[] preamble = new byte[BinaryProtocol.PREAMBLE_LENGTH];
+            in.readFully(preamble);
+            assertEquals(0, preamble[3]);
+            assertEquals(-1, in.read());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static DRSServer startServer(ExecutionMode mode) throws InterruptedException {
+        DRSServer server = new DRSServer(0, mode);
+        Thread thread = new Thread(server::start, "drs-binary-server");
+        thread.setDaemon(true);
+        thread.start();
+        assertTrue(server.awaitStartup(10, TimeUnit.SECONDS), "Server should start listening");
+        return server;
+    }
+
+    private static FrameReader readFrame(DataInputStream in) throws IOException {
+        byte[] frame = new byte[in.readInt()];
+        in.readFully(frame);
+        FrameReader reader = new FrameReader();
+        reader.reset(ByteBuffer.wrap(frame));
+        return reader;
+    }
+
+    @Test
+    void BP004_testReportListIsSentOnlyAfterTheDatabaseIsReleased() throws Exception {
+        // Test case: an unpaged binary GET_REPORTS over a list two pages long
+        // Expected: it is read page by page, no frame is sent while a page is being read, and every row arrives before END
+        AtomicBoolean reading = new AtomicBoolean();
+        List<Integer> pagesAfter = new ArrayList<>();
+        RequestDispatcher dispatcher = new RequestDispatcher() {
+            @Override
+            public Reply streamReports(ReportQuery query, RequestPriority priority, DatabaseConnection.ReportRowHandler handler)
+                    throws IOException {
+                assertEquals(ReportQuery.MAX_PAGE_SIZE, query.getLimit());
+                pagesAfter.add(query.getAfterId());
+                boolean first = query.getAfterId() == 0;
+                reading.set(true);
+                try {
+                    for (int id = query.getAfterId() + 1; id <= (first ? 2 : 3); id++) {
+                        handler.onRow(row(id));
+                    }
+                } catch (SQLException e) {
+                    throw new IOException(e);
+                } finally {
+                    reading.set(false);
+                }
+                return Reply.of("OK", first ? ReportQuery.encodeToken(2) : null);
+            }
+        };
+        List<Byte> frameTypes = new ArrayList<>();
+        FrameOutput out = frames -> {
+            assertFalse(reading.get(), "Nothing may be sent while the database is held");
+            ByteBuffer buffer = frames.drain();
+            while (buffer.hasRemaining()) {
+                int length = buffer.getInt();
+                ByteBuffer frame = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                FrameReader reader = new FrameReader();
+                reader.reset(frame);
+                frameTypes.add(reader.getFrameType());
+            }
+        };
+        ByteBuffer request = new FrameWriter().begin(BinaryProtocol.FRAME_REQUEST, 1, Command.GET_REPORTS.getOpcode()).end().drain();
+        request.getInt();
+        byte[] body = new byte[request.remaining()];
+        request.get(body);
+        try {
+            new BinaryRequestHandler(dispatcher).handle(body, out, new ClientContext(null));
+        } finally {
+            dispatcher.shutdown();
+        }
+
+        assertEquals(List.of(0, 2), pagesAfter);
+        assertEquals(List.of(BinaryProtocol.FRAME_ROW, BinaryProtocol.FRAME_ROW, BinaryProtocol.FRAME_ROW, BinaryProtocol.FRAME_END),
+                frameTypes);
+    }
+
+    private static ResultSet row(int id) {
+        return (ResultSet) Proxy.newProxyInstance(BinaryProtocolTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> method.getName().equals("getInt") ? (Object) id : "value");
+    }
+}
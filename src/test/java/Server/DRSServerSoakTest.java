@@ -0,0 +1,122 @@
+package Server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class DRSServerSoakTest {
+
+    private static final int CONNECTIONS = 2000;
+
+    private DRSServer server;
+    private Thread serverThread;
+    private final List<Socket> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        server = new DRSServer(0);
+        serverThread = new Thread(server::start, "drs-soak-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        assertTrue(server.awaitStartup(10, TimeUnit.SECONDS), "Server should start listening");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (Socket client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // Ignore, the server is going away too.
+            }
+        }
+        server.stop();
+        serverThread.join(5000);
+    }
+
+    @Test
+    void SV001_test2000ConcurrentConnectionsServed() throws IOException {
+        // Test case: far more idle consoles than worker threads stay connected
+        // Expected: every connection gets its own PONG while all are open
+        List<BufferedReader> readers = new ArrayList<>();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            Socket client = new Socket("localhost", server.getLocalPort());
+            client.setSoTimeout(30000);
+            clients.add(client);
+            readers.add(new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8)));
+        }
+
+        for (Socket client : clients) {
+            OutputStream out = client.getOutputStream();
+            out.write("PING\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        int served = 0;
+        for (BufferedReader reader : readers) {
+            if ("PONG".equals(reader.readLine())) {
+                served++;
+            }
+        }
+        assertEquals(CONNECTIONS, served, "Every concurrent connection should be served");
+        assertEquals(CONNECTIONS, server.getOpenConnections(), "All connections should still be open");
+    }
+
+    @Test
+    void SV002_testResponsesKeepRequestOrder() throws IOException {
+        // Test case: several requests pipelined on one connection in one write
+        // Expected: responses come back in request order and EXIT closes it
+        Socket client = new Socket("localhost", server.getLocalPort());
+        client.setSoTimeout(10000);
+        clients.add(client);
+        client.getOutputStream().write("PING\nNOPE\r\nLOGIN\nEXIT\n".getBytes(StandardCharsets.UTF_8));
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals("PONG", reader.readLine());
+        assertEquals("Unknown command", reader.readLine());
+        assertEquals("INVALID_REQUEST", reader.readLine());
+        assertEquals("Goodbye!", reader.readLine());
+        assertNull(reader.readLine(), "Server should close the connection after EXIT");
+    }
+
+    @Test
+    void SV003_testVirtualThreadConnectionsKeepRequestOrder() throws IOException, InterruptedException {
+        // Test case: pipelined requests on a server running connections and bulkheads on virtual threads
+        // Expected: the connection thread writes the responses in request order and EXIT closes it, and the second
+        // server's metrics endpoint does not collide with the first one's
+        DRSServer virtualServer = new DRSServer(0, ExecutionMode.VIRTUAL_THREADS);
+        Thread virtualThread = new Thread(virtualServer::start, "drs-soak-virtual-server");
+        virtualThread.setDaemon(true);
+        virtualThread.start();
+        try {
+            assertTrue(virtualServer.awaitStartup(10, TimeUnit.SECONDS), "Server should start listening");
+            assertTrue(virtualServer.getMetricsPort() > 0 && virtualServer.getMetricsPort() != server.getMetricsPort(),
+                    "Servers on port 0 should serve metrics on ports of their own");
+            Socket client = new Socket("localhost", virtualServer.getLocalPort());
+            client.setSoTimeout(10000);
+            clients.add(client);
+            client.getOutputStream().write("PING\nNOPE\r\nLOGIN\nEXIT\n".getBytes(StandardCharsets.UTF_8));
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+            assertEquals("PONG", reader.readLine());
+            assertEquals("Unknown command", reader.readLine());
+            assertEquals("INVALID_REQUEST", reader.readLine());
+            assertEquals("Goodbye!", reader.readLine());
+            assertNull(reader.readLine(), "Server should close the connection after EXIT");
+        } finally {
+            virtualServer.stop();
+            virtualThread.join(5000);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares how many simultaneously open consoles each ExecutionMode can
+ * answer. For every mode and connection count it opens all connections, keeps
+ * them open, sends one PING on each and counts the PONGs that arrive before
+ * the deadline.
+ * <p>
+ * Not a unit test (surefire skips it by name). Run it after
+ * {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes Server.ExecutionModeBenchmark [counts...]}.
+ * Client and server share one JVM, so 10,000 connections need
+ * {@code ulimit -n} above 20,000.
+ *
+ * @author 12223508
+ */
+public class ExecutionModeBenchmark {
+
+    private static final int[] DEFAULT_COUNTS = {100, 1000, 10000};
+    private static final long DEADLINE_MILLIS = 10000;
+
+    public static void main(String[] args) throws Exception {
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0) {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%-16s %8s %8s %10s %12s%n", "mode", "conns", "served", "elapsed ms", "connect ms");
+        for (int count : counts) {
+            for (ExecutionMode mode : new ExecutionMode[]{ExecutionMode.PLATFORM_POOL, ExecutionMode.VIRTUAL_THREADS, ExecutionMode.SELECTOR}) {
+                run(mode, count);
+            }
+        }
+    }
+
+    private static void run(ExecutionMode mode, int count) throws Exception {
+        DRSServer server = new DRSServer(0, mode);
+        Thread serverThread = new Thread(server::start, "bench-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        if (!server.awaitStartup(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Server did not start in " + mode);
+        }
+
+        List<Socket> clients = new ArrayList<>(count);
+        try {
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                clients.add(new Socket("localhost", server.getLocalPort()));
+            }
+            long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+
+            long start = System.nanoTime();
+            byte[] ping = "PING\n".getBytes(StandardCharsets.UTF_8);
+            for (Socket client : clients) {
+                OutputStream out = client.getOutputStream();
+                out.write(ping);
+                out.flush();
+            }
+
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(DEADLINE_MILLIS);
+            int served = 0;
+            for (Socket client : clients) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                client.setSoTimeout((int) Math.max(1, remaining));
+                if (readPong(client.getInputStream())) {
+                    served++;
+                }
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.printf("%-16s %8d %8d %10d %12d%n", mode, count, served, elapsedMillis, connectMillis);
+        } finally {
+            for (Socket client : clients) {
+                client.close();
+            }
+            server.stop();
+            serverThread.join(5000);
+        }
+    }
+
+    private static boolean readPong(InputStream in) throws IOException {
+        byte[] expected = "PONG\n".getBytes(StandardCharsets.UTF_8);
+        try {
+            for (byte b : expected) {
+                if (in.read() != b) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package Server;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import Util.ConnectionPool;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderTest {
+
+    @Test
+    void FR001_testCommandsAndStatementsAreRecorded() throws Exception {
+        // Test case: run PING through the dispatcher and a query and an update through the pool while recording
+        // Expected: a drs.Command event for PING, and drs.Sql events with the SQL template and row counts
+        Path file = Files.createTempFile("drs", ".jfr");
+        ConnectionPool pool = new ConnectionPool(FlightRecorderTest::fakeConnection, 0, 1, 1000, 60000, 0);
+        RequestDispatcher dispatcher = new RequestDispatcher();
+        try (Recording recording = new Recording()) {
+            recording.enable("drs.Command").withoutThreshold();
+            recording.enable("drs.Sql").withoutThreshold();
+            recording.start();
+
+            assertEquals("PONG", dispatcher.process("PING"));
+            try (Connection connection = pool.borrow();
+                    PreparedStatement query = connection.prepareStatement("SELECT id FROM reports WHERE id > ?")) {
+                query.setInt(1, 0);
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        // Read every row
+                    }
+                }
+            }
+            try (Connection connection = pool.borrow();
+                    PreparedStatement update = connection.prepareStatement("UPDATE reports SET location = ? WHERE id = ?")) {
+                assertEquals(2, update.executeUpdate());
+            }
+
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("drs.Command")
+                    && "PING".equals(e.getString("command")) && "PONG".equals(e.getString("status"))));
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("drs.Sql")
+                    && "SELECT id FROM reports WHERE id > ?".equals(e.getString("sql")) && e.getLong("rows") == 3));
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("drs.Sql")
+                    && e.getString("sql").startsWith("UPDATE") && e.getLong("rows") == 2));
+        } finally {
+            dispatcher.shutdown();
+            pool.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * A connection whose queries return three rows and whose updates change
+     * two.
+     */
+    private static Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(FlightRecorderTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return fakeStatement();
+                        case "isValid":
+                        case "getAutoCommit":
+                            return true;
+                        default:
+                            return method.getReturnType() == boolean.class ? false : null;
+                    }
+                });
+    }
+
+    private static PreparedStatement fakeStatement() {
+        int[] rowsLeft = {3};
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(FlightRecorderTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> method.getName().equals("next") ? rowsLeft[0]-- > 0 : null);
+        return (PreparedStatement) Proxy.newProxyInstance(FlightRecorderTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeQuery":
+                            return rs;
+                        case "executeUpdate":
+                            return 2;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
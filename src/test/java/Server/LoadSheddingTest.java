@@ -0,0 +1,83 @@
+package Server;
+
+import ENUM.UserRole;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LoadSheddingTest {
+
+    @Test
+    void LS001_testSustainedOverloadShedsReadsByPriority() throws InterruptedException {
+        // Test case: load rises past the low and then the high watermark and stays there
+        // Expected: LOW reads go first, then NORMAL; intake is never shed; the report lists what was shed
+        AtomicInteger load = new AtomicInteger();
+        LoadShedder shedder = new LoadShedder(load::get, 10, 20, 50);
+
+        load.set(15);
+        assertTrue(shedder.admit(RequestPriority.LOW, Command.GET_REPORTS, null), "A brief spike should not shed");
+        Thread.sleep(80);
+        assertFalse(shedder.admit(RequestPriority.LOW, Command.GET_REPORTS, null));
+        assertTrue(shedder.admit(RequestPriority.NORMAL, Command.GET_REPORTS, UserRole.Coordinator));
+
+        load.set(25);
+        shedder.admit(RequestPriority.NORMAL, Command.GET_REPORTS, UserRole.Coordinator);
+        Thread.sleep(80);
+        assertFalse(shedder.admit(RequestPriority.NORMAL, Command.GET_REPORTS, UserRole.Coordinator));
+        assertTrue(shedder.admit(RequestPriority.CRITICAL, Command.ADD_REPORT, null));
+
+        load.set(0);
+        assertTrue(shedder.admit(RequestPriority.LOW, Command.GET_REPORTS, null), "Shedding should stop once load drops");
+        assertEquals(0, shedder.getLevel());
+        assertEquals(List.of("GET_REPORTS|Coordinator|NORMAL|1", "GET_REPORTS|anonymous|LOW|1"), shedder.getReport());
+        assertEquals(1, shedder.getEpisodeCount());
+    }
+
+    @Test
+    void LS002_testDatabasePermitsGoToHigherPriorityFirst() throws InterruptedException {
+        // Test case: the only permit is taken while a LOW and then a CRITICAL request wait for it
+        // Expected: the CRITICAL request gets the permit first although it arrived later
+        PriorityPermits permits = new PriorityPermits(1);
+        permits.acquire(RequestPriority.HIGH);
+        StringBuffer order = new StringBuffer();
+        CountDownLatch done = new CountDownLatch(2);
+        Thread low = waiter(permits, RequestPriority.LOW, order, done);
+        awaitQueueLength(permits, 1);
+        Thread critical = waiter(permits, RequestPriority.CRITICAL, order, done);
+        awaitQueueLength(permits, 2);
+
+        permits.release();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("CRITICAL LOW ", order.toString());
+        low.join();
+        critical.join();
+        assertEquals(1, permits.availablePermits());
+    }
+
+    private static Thread waiter(PriorityPermits permits, RequestPriority priority, StringBuffer order, CountDownLatch done) {
+        Thread thread = new Thread(() -> {
+            try {
+                permits.acquire(priority);
+                order.append(priority.name()).append(' ');
+                permits.release();
+                done.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitQueueLength(PriorityPermits permits, int length) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (permits.getQueueLength() < length && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(length, permits.getQueueLength());
+    }
+}
@@ -0,0 +1,42 @@
+package Server;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+public class MetricsEndpointTest {
+
+    @Test
+    void ME001_testScrapeReturnsPrometheusText() throws Exception {
+        // Test case: run a PING and a malformed batch through the dispatcher, then scrape /metrics
+        // Expected: 200 in Prometheus text format with request counts, errors, latency quantiles, pools and JVM memory
+        RequestDispatcher dispatcher = new RequestDispatcher();
+        MetricsEndpoint endpoint = new MetricsEndpoint(new DRSServer(0), dispatcher);
+        try {
+            dispatcher.process("PING");
+            dispatcher.process("ADD_REPORTS_BATCH|0");
+            assertTrue(endpoint.start(0));
+
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + endpoint.getPort() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            String body;
+            try (InputStream in = connection.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assertTrue(body.contains("# TYPE drs_requests_total counter"));
+            assertTrue(body.matches("(?s).*\ndrs_requests_total\\{command=\"PING\"\\} [1-9]\\d*\n.*"));
+            assertTrue(body.matches("(?s).*\ndrs_request_errors_total\\{command=\"ADD_REPORTS_BATCH\"\\} [1-9]\\d*\n.*"));
+            assertTrue(body.contains("drs_request_duration_seconds{command=\"PING\",quantile=\"0.99\"}"));
+            assertTrue(body.contains("drs_pool_queue_depth{pool=\"bulk_read\"} 0"));
+            assertTrue(body.contains("jvm_memory_bytes_used{area=\"heap\"}"));
+        } finally {
+            endpoint.stop();
+            dispatcher.shutdown();
+        }
+    }
+}
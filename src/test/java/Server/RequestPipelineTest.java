@@ -0,0 +1,119 @@
+package Server;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RequestPipelineTest {
+
+    @Test
+    void RP001_testIndependentRequestsRunConcurrently() throws InterruptedException {
+        // Test case: two requests without an ordering key, each waiting for the other
+        // Expected: both run at the same time, so neither times out
+        ExecutorService workers = Executors.newCachedThreadPool();
+        try {
+            RequestPipeline pipeline = new RequestPipeline(workers, () -> { });
+            CyclicBarrier meet = new CyclicBarrier(2);
+            CountDownLatch done = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                pipeline.submit(null, () -> {
+                    try {
+                        meet.await(5, TimeUnit.SECONDS);
+                        done.countDown();
+                    } catch (Exception e) {
+                        fail("Requests did not overlap");
+                    }
+                    return false;
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    void RP002_testSameReportWritesAndBarriersKeepOrder() throws InterruptedException {
+        // Test case: writes to one report, a write to another, then a barrier and a late request
+        // Expected: same-report writes run in order, the barrier runs after all of them and before the late one
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        try {
+            RequestPipeline pipeline = new RequestPipeline(workers, () -> { });
+            List<String> order = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int n = i;
+                pipeline.submit("report:1", () -> record(order, "r1-" + n));
+            }
+            pipeline.submit("report:2", () -> record(order, "r2"));
+            pipeline.submit(RequestPipeline.BARRIER, () -> record(order, "barrier"));
+            pipeline.submit(null, () -> record(order, "late"));
+            pipeline.awaitIdle();
+
+            List<String> reportOne = new ArrayList<>();
+            for (String entry : order) {
+                if (entry.startsWith("r1-")) {
+                    reportOne.add(entry);
+                }
+            }
+            for (int i = 0; i < 20; i++) {
+                assertEquals("r1-" + i, reportOne.get(i));
+            }
+            assertEquals("barrier", order.get(21));
+            assertEquals("late", order.get(22));
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static boolean record(List<String> order, String entry) {
+        synchronized (order) {
+            order.add(entry);
+        }
+        return false;
+    }
+
+    @Test
+    void RP003_testTaggedTextRequestsOverTheWire() throws Exception {
+        // Test case: tagged and untagged requests pipelined in one write, on both front-ends
+        // Expected: tagged responses carry their tag, the untagged one comes after them, EXIT closes
+        for (ExecutionMode mode : new ExecutionMode[]{ExecutionMode.SELECTOR, ExecutionMode.VIRTUAL_THREADS}) {
+            DRSServer server = new DRSServer(0, mode);
+            Thread thread = new Thread(server::start, "drs-pipeline-server");
+            thread.setDaemon(true);
+            thread.start();
+            assertTrue(server.awaitStartup(10, TimeUnit.SECONDS));
+            try (Socket client = new Socket("localhost", server.getLocalPort())) {
+                client.setSoTimeout(10000);
+                OutputStream out = client.getOutputStream();
+                out.write("@a|PING\n@b|NOPE\n@c|PING\nPING\nEXIT\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+
+                Set<String> tagged = new HashSet<>();
+                for (int i = 0; i < 3; i++) {
+                    tagged.add(in.readLine());
+                }
+                assertEquals(Set.of("@a|PONG", "@b|Unknown command", "@c|PONG"), tagged, mode.name());
+                assertEquals("PONG", in.readLine());
+                assertEquals("Goodbye!", in.readLine());
+                assertNull(in.readLine(), mode + ": EXIT should close the connection");
+            } finally {
+                server.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package Server;
+
+import ENUM.Department;
+import ENUM.UserRole;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionStoreTest {
+
+    @Test
+    void SS001_testIdleSessionsExpireAndUsedOnesLive() throws Exception {
+        // Test case: two sessions with a 200 ms time to live, one of which keeps being used
+        // Expected: the idle one is swept away, the used one lives on with its cached role and department
+        SessionStore store = new SessionStore(200, 10);
+        try {
+            Session idle = store.create("idle", UserRole.Meteorology, false);
+            Session used = store.create("used", UserRole.Utility_Water, false);
+            assertNotEquals(idle.getToken(), used.getToken());
+            assertEquals(Department.UTILITY_WATER, used.getDepartment());
+
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(50);
+                assertTrue(store.touch(used));
+            }
+            assertNull(store.get(idle.getToken()));
+            assertSame(used, store.get(used.getToken()));
+            assertEquals(1, store.size());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void SS002_testSessionIsResumedAndEndedOverTheProtocol() {
+        // Test case: a second connection resumes a session by its token, then logs out
+        // Expected: it gets the session's role, and the token stops working after LOGOUT
+        SessionStore store = new SessionStore();
+        RequestDispatcher dispatcher = new RequestDispatcher(store);
+        try {
+            Session session = store.create("jane", UserRole.FireDepartment, false);
+            ClientContext client = new ClientContext(null);
+
+            assertEquals("SESSION_RESUMED|jane|FireDepartment",
+                    dispatcher.execute(Command.RESUME, RequestArgs.ofText(new String[]{"RESUME", session.getToken()}), client).toText());
+            assertEquals(UserRole.FireDepartment, client.getRole());
+
+            assertEquals("LOGGED_OUT", dispatcher.execute(Command.LOGOUT, RequestArgs.ofText(new String[]{"LOGOUT"}), client).toText());
+            assertNull(client.getRole());
+            assertEquals("SESSION_EXPIRED", dispatcher.process("RESUME|" + session.getToken()));
+            assertEquals(0, store.size());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void SS003_testAdminAndDepartmentCommandsAreAuthorisedFromTheSession() {
+        // Test case: STATS and SUBSCRIBE without a session, as a department and as an admin
+        // Expected: only admins get STATS, and a department may only follow its own department
+        SessionStore store = new SessionStore();
+        RequestDispatcher dispatcher = new RequestDispatcher(store);
+        try {
+            ClientContext client = new ClientContext(dispatcher.getSubscriptions().newSubscriber((changes, resync) -> { }));
+            RequestArgs stats = RequestArgs.ofText(new String[]{"STATS"});
+            RequestArgs health = RequestArgs.ofText(new String[]{"SUBSCRIBE", "HEALTH_DEPARTMENT"});
+            assertEquals("NOT_AUTHORISED", dispatcher.execute(Command.STATS, stats, client).toText());
+            assertEquals("NOT_AUTHORISED", dispatcher.execute(Command.SUBSCRIBE, health, client).toText());
+
+            client.setSession(store.create("jane", UserRole.FireDepartment, false));
+            assertEquals("NOT_AUTHORISED", dispatcher.execute(Command.STATS, stats, client).toText());
+            assertEquals("NOT_AUTHORISED", dispatcher.execute(Command.SUBSCRIBE, health, client).toText());
+            assertEquals("SUBSCRIBED|FIRE_DEPARTMENT",
+                    dispatcher.execute(Command.SUBSCRIBE, RequestArgs.ofText(new String[]{"SUBSCRIBE"}), client).toText());
+
+            client.setSession(store.create("root", UserRole.Coordinator, true));
+            assertTrue(dispatcher.execute(Command.STATS, stats, client).toText().startsWith("STATS|"));
+            assertEquals("SUBSCRIBED|HEALTH_DEPARTMENT", dispatcher.execute(Command.SUBSCRIBE, health, client).toText());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void SS004_testReportWritesNeedASessionAndDepartmentsOnlySetTheirOwnStatus() {
+        // Test case: report writes without a session, and a department setting columns other than its own status
+        // Expected: all are refused before the database is touched
+        SessionStore store = new SessionStore();
+        RequestDispatcher dispatcher = new RequestDispatcher(store);
+        try {
+            ClientContext client = new ClientContext(null);
+            assertEquals("NOT_AUTHORISED", dispatcher.process("UPDATE_REPORT|7|priority_level|High", client));
+            assertEquals("NOT_AUTHORISED", dispatcher.process("UPDATE_REPORTS_BATCH|1|7|priority_level|High", client));
+            assertEquals("NOT_AUTHORISED", dispatcher.process("APPEND_LOG|7|Crews on site", client));
+            assertEquals("NOT_AUTHORISED", dispatcher.process("ADD_RESOURCE|7|Water tanker"));
+
+            client.setSession(store.create("jane", UserRole.FireDepartment, false));
+            assertEquals("NOT_AUTHORISED", dispatcher.process("UPDATE_REPORT|7|priority_level|High", client));
+            assertEquals("NOT_AUTHORISED", dispatcher.process("UPDATE_REPORT|7|health_department_status|RESOLVED", client));
+            assertEquals("BATCH_DONE|2|NOT_AUTHORISED|INVALID_ITEM",
+                    dispatcher.process("UPDATE_REPORTS_BATCH|2|7|response_status|Resolved|8|id|9", client));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package Server;
+
+import ENUM.Department;
+import Util.ReportChange;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class SubscriptionHubTest {
+
+    private static RequestArgs topics(String... names) {
+        String[] parts = new String[names.length + 1];
+        parts[0] = "SUBSCRIBE";
+        System.arraycopy(names, 0, parts, 1, names.length);
+        return RequestArgs.ofText(parts);
+    }
+
+    @Test
+    void SH001_testEventsRoutedByTopic() throws InterruptedException {
+        // Test case: firehose, fire and health subscribers; one change names its departments, one does not
+        // Expected: each subscriber only sees changes for its topics, unknown departments are looked up
+        SubscriptionHub hub = new SubscriptionHub(reportId -> EnumSet.of(Department.HEALTH_DEPARTMENT));
+        try {
+            BlockingQueue<String> all = new LinkedBlockingQueue<>();
+            BlockingQueue<String> fire = new LinkedBlockingQueue<>();
+            BlockingQueue<String> health = new LinkedBlockingQueue<>();
+            hub.subscribe(hub.newSubscriber((changes, resync) -> all.add(EventSink.toText(changes, resync))), topics("ALL"));
+            hub.subscribe(hub.newSubscriber((changes, resync) -> fire.add(EventSink.toText(changes, resync))), topics("FIRE_DEPARTMENT"));
+            hub.subscribe(hub.newSubscriber((changes, resync) -> health.add(EventSink.toText(changes, resync))), topics("HEALTH_DEPARTMENT"));
+
+            hub.reportChanged(new ReportChange(1, false, Map.of("fire_department_status", "MOBILIZING"),
+                    EnumSet.of(Department.FIRE_DEPARTMENT)));
+            hub.reportChanged(ReportChange.updated(2, "priority_level", "High"));
+
+            assertEquals("EVENT|UPDATE|1|fire_department_status=MOBILIZING", fire.poll(5, TimeUnit.SECONDS));
+            assertEquals("EVENT|UPDATE|2|priority_level=High", health.poll(5, TimeUnit.SECONDS));
+            List<String> firehose = new ArrayList<>();
+            while (firehose.size() < 2) {
+                String batch = all.poll(5, TimeUnit.SECONDS);
+                assertNotNull(batch, "The firehose should see both changes");
+                firehose.addAll(List.of(batch.split("\n")));
+            }
+            assertEquals(List.of("EVENT|UPDATE|1|fire_department_status=MOBILIZING", "EVENT|UPDATE|2|priority_level=High"), firehose);
+            assertNull(fire.poll(200, TimeUnit.MILLISECONDS), "Fire should not see the health change");
+        } finally {
+            hub.shutdown();
+        }
+    }
+
+    @Test
+    void SH002_testSlowSubscriberCoalescesThenResyncs() throws InterruptedException {
+        // Test case: a subscriber stalls while one report is updated repeatedly and then many reports change
+        // Expected: repeated updates fold into one event; overflowing the buffer turns into a single RESYNC
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Subscriber subscriber = new Subscriber((changes, resync) -> {
+            firstSendStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(EventSink.toText(changes, resync));
+        }, 3);
+        try {
+            subscriber.offer(ReportChange.updated(1, "response_status", "Pending"), executor);
+            assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+            subscriber.offer(ReportChange.updated(2, "response_status", "Pending"), executor);
+            subscriber.offer(ReportChange.updated(2, "priority_level", "High"), executor);
+            subscriber.offer(ReportChange.updated(2, "response_status", "In Progress"), executor);
+            assertEquals(1, subscriber.getPendingCount(), "Updates of one report should coalesce");
+            assertEquals(2, subscriber.getCoalescedCount());
+
+            subscriber.offer(ReportChange.updated(3, "location", "Darwin"), executor);
+            subscriber.offer(ReportChange.updated(4, "location", "Cairns"), executor);
+            subscriber.offer(ReportChange.updated(5, "location", "Perth"), executor);
+            assertEquals(0, subscriber.getPendingCount(), "Overflow should drop the buffered events");
+            assertEquals(1, subscriber.getOverflowCount());
+            subscriber.offer(ReportChange.updated(6, "location", "Hobart"), executor);
+
+            release.countDown();
+            assertEquals("EVENT|UPDATE|1|response_status=Pending", received.poll(5, TimeUnit.SECONDS));
+            assertEquals("EVENT|RESYNC\nEVENT|UPDATE|6|location=Hobart", received.poll(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package Util;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+
+    @Test
+    void CP001_testRecentlyReturnedConnectionIsLentWithoutValidation() throws Exception {
+        // Test case: a connection borrowed, returned and borrowed again straight away, with leak detection on
+        // Expected: the second borrow reuses it without calling isValid, and no borrow site is recorded by default
+        AtomicInteger validations = new AtomicInteger();
+        Connection physical = (Connection) Proxy.newProxyInstance(ConnectionPoolTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid":
+                            validations.incrementAndGet();
+                            return true;
+                        case "getAutoCommit":
+                            return true;
+                        default:
+                            return method.getReturnType() == boolean.class ? false : null;
+                    }
+                });
+        ConnectionPool pool = new ConnectionPool(() -> physical, 0, 1, 1000, 60000, 30000);
+        try {
+            pool.borrow().close();
+            pool.borrow().close();
+
+            assertEquals(0, validations.get());
+            assertEquals(1, pool.getCreatedCount());
+            assertFalse(pool.isCapturingBorrowSites());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package Util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class GroupCommitterTest {
+
+    @Test
+    void GC001_testConcurrentWritesShareGroups() throws Exception {
+        // Test case: 64 callers submit at once with a generous window
+        // Expected: each gets its own result, and the writes take far fewer groups than callers
+        GroupCommitter<Integer, Integer> committer = new GroupCommitter<>("test", group -> {
+            List<Integer> results = new ArrayList<>();
+            for (int value : group) {
+                results.add(value * 10);
+            }
+            return results;
+        }, 50000, 256);
+        ExecutorService callers = Executors.newFixedThreadPool(64);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                int value = i;
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return committer.submit(value);
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < 64; i++) {
+                assertEquals(i * 10, results.get(i).get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(64, committer.getWriteCount());
+            assertTrue(committer.getGroupCount() < 64, "Concurrent writes should be grouped");
+        } finally {
+            callers.shutdownNow();
+            committer.shutdown();
+        }
+    }
+
+    @Test
+    void GC002_testFailedGroupIsRetriedOneByOne() throws Exception {
+        // Test case: a group containing one write the database rejects
+        // Expected: only that caller sees the error, the others still succeed
+        GroupCommitter<String, String> committer = new GroupCommitter<>("test", group -> {
+            if (group.contains("bad")) {
+                throw new SQLException("Rejected");
+            }
+            return group;
+        }, 200000, 3);
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            Future<String> first = callers.submit(() -> committer.submit("a"));
+            Future<String> bad = callers.submit(() -> committer.submit("bad"));
+            Future<String> last = callers.submit(() -> committer.submit("b"));
+            assertEquals("a", first.get(10, TimeUnit.SECONDS));
+            assertEquals("b", last.get(10, TimeUnit.SECONDS));
+            Exception e = assertThrows(Exception.class, () -> bad.get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof SQLException);
+        } finally {
+            callers.shutdownNow();
+            committer.shutdown();
+        }
+        assertThrows(SQLException.class, () -> committer.submit("late"), "A shut down committer should refuse writes");
+    }
+
+    @Test
+    void GC003_testShutdownDuringWindowFailsCollectedWrites() throws Exception {
+        // Test case: a write is waiting in a group whose 10 second window is still open when the committer shuts down
+        // Expected: its caller gets an SQLException at once instead of waiting forever, and nothing is written
+        List<String> written = new ArrayList<>();
+        GroupCommitter<String, String> committer = new GroupCommitter<>("test", group -> {
+            written.addAll(group);
+            return group;
+        }, 10_000_000, 256);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> pending = callers.submit(() -> committer.submit("a"));
+            // Long enough for the flusher to take the write and open the window
+            Thread.sleep(200);
+            committer.shutdown();
+            Exception e = assertThrows(Exception.class, () -> pending.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof SQLException, "Expected an SQLException but got " + e);
+            assertTrue(written.isEmpty());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void LH001_testPercentilesWithinBucketPrecision() {
+        // Test case: record 1..100000 microseconds once each
+        // Expected: p50, p99 and p999 are within 2% of the exact values, and the max is exact
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000L, snapshot.getMax());
+        assertEquals(50_000_000L, snapshot.percentile(0.5), 50_000_000L * 0.02);
+        assertEquals(99_000_000L, snapshot.percentile(0.99), 99_000_000L * 0.02);
+        assertEquals(99_900_000L, snapshot.percentile(0.999), 99_900_000L * 0.02);
+        assertEquals(0, new LatencyHistogram().snapshot().percentile(0.99));
+    }
+
+    @Test
+    void LH002_testIntervalSnapshots() {
+        // Test case: a slow second interval after a fast first one
+        // Expected: the difference of the snapshots only holds the slow values
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(10_000);
+        }
+        LatencyHistogram.Snapshot first = histogram.snapshot();
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5_000_000);
+        }
+        LatencyHistogram.Snapshot interval = histogram.snapshot().minus(first);
+        assertEquals(10, interval.getCount());
+        assertEquals(5_000_000L, interval.percentile(0.5), 5_000_000L * 0.02);
+        assertEquals(1010, first.plus(interval).getCount());
+        assertEquals(10_000L, first.plus(interval).percentile(0.5), 10_000L * 0.02);
+    }
+}
@@ -0,0 +1,46 @@
+package Util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class LogTest {
+
+    // Fresh for each run, as the log file is appended to
+    private static final String RUN = Long.toHexString(System.nanoTime());
+
+    @Test
+    void LG001_testMessagesAreFormattedOnTheWriterThread() throws Exception {
+        // Test case: messages with placeholders, one with an exception as an extra last argument
+        // Expected: the placeholders are filled in, the exception's stack trace follows, and the levels are recorded
+        Log.info("LG001 {} report {} moved to {}", RUN, 42, "In Progress");
+        Log.error("LG001 {} update of report {} failed", RUN, 7, new IllegalStateException("LG001 cause"));
+        Log.debug("LG001 below the default level");
+        assertTrue(Log.flush(5000));
+
+        String log = Files.readString(Log.getFile());
+        assertTrue(log.contains("INFO  [" + Thread.currentThread().getName() + "] LG001 " + RUN + " report 42 moved to In Progress"));
+        assertTrue(log.contains("ERROR [" + Thread.currentThread().getName() + "] LG001 " + RUN + " update of report 7 failed"
+                + System.lineSeparator() + "java.lang.IllegalStateException: LG001 cause"));
+        assertFalse(log.contains("LG001 below the default level"));
+    }
+
+    @Test
+    void LG002_testRepeatedErrorsAreRateLimited() throws Exception {
+        // Test case: the same error logged 50 times in a burst
+        // Expected: only the first 10 are written and the rest are counted as suppressed
+        long suppressed = Log.getSuppressedCount();
+        for (int i = 0; i < 50; i++) {
+            Log.error("LG002 connection to {} lost", RUN);
+        }
+        assertTrue(Log.flush(5000));
+
+        List<String> lines = Files.readAllLines(Log.getFile()).stream()
+                .filter(l -> l.contains("LG002 connection to " + RUN + " lost")).collect(Collectors.toList());
+        assertEquals(10, lines.size());
+        assertEquals(suppressed + 40, Log.getSuppressedCount());
+    }
+}
@@ -0,0 +1,67 @@
+package Util;
+
+import Model.Report;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportDetailCacheTest {
+
+    private static Report report(int id) {
+        return new Report(id, "Flood", "Perth", 0.0, 0.0, "2024-05-01 10:00:00", "Ann", "0411", "Pending");
+    }
+
+    @Test
+    void RD001_testSelectedReportsAreCachedUntilWrittenOrEvicted() throws Exception {
+        // Test case: three reports selected in a cache of two, one of them selected twice, then written to
+        // Expected: repeated selections hit the cache, the least recently used report is evicted and a write drops it
+        AtomicInteger loads = new AtomicInteger();
+        ReportDetailCache cache = new ReportDetailCache(2, 60000, id -> {
+            loads.incrementAndGet();
+            return report(id);
+        });
+
+        Report first = cache.get(1);
+        assertSame(first, cache.get(1));
+        assertEquals(1, loads.get());
+
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+        assertEquals(2, cache.size());
+        cache.get(1);
+        assertEquals(3, loads.get(), "report 1 was used more recently than report 2, so it stays");
+        cache.get(2);
+        assertEquals(4, loads.get(), "report 2 was evicted");
+
+        cache.reportChanged(ReportChange.updated(2, "priority_level", "High"));
+        assertNotSame(first, cache.get(2));
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void RD002_testStaleAndRacingLoadsAreNotServed() throws Exception {
+        // Test case: a cache with a 50 ms time to live, and a load that a write overtakes
+        // Expected: a report is read again once its time is up, and a load that raced a write is not kept
+        AtomicInteger loads = new AtomicInteger();
+        ReportDetailCache[] holder = new ReportDetailCache[1];
+        holder[0] = new ReportDetailCache(8, 50, id -> {
+            if (loads.incrementAndGet() == 1) {
+                holder[0].invalidate(id);
+            }
+            return report(id);
+        });
+        ReportDetailCache cache = holder[0];
+
+        cache.get(7);
+        assertEquals(0, cache.size());
+        cache.get(7);
+        cache.get(7);
+        assertEquals(2, loads.get());
+
+        Thread.sleep(80);
+        cache.get(7);
+        assertEquals(3, loads.get());
+        assertNull(new ReportDetailCache(8, 50, id -> null).get(9));
+    }
+}
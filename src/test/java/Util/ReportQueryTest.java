@@ -0,0 +1,42 @@
+package Util;
+
+import ENUM.Department;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportQueryTest {
+
+    @Test
+    void RQ001_testContinuationTokenRoundTrip() {
+        // Test case: the token returned with one page is sent back for the next
+        // Expected: the next page starts after the same report id
+        String token = ReportQuery.encodeToken(12345);
+        ReportQuery query = ReportQuery.parse(token, 50);
+        assertEquals(12345, query.getAfterId());
+        assertEquals(50, query.getLimit());
+        assertEquals(0, ReportQuery.parse("", 50).getAfterId(), "An empty token starts at the beginning");
+    }
+
+    @Test
+    void RQ002_testFiltersBuildKeysetSql() {
+        // Test case: status, type and department filters together
+        // Expected: each filter adds its condition and the page stays keyset ordered
+        ReportQuery query = ReportQuery.parse(null, 20, "status=Pending", "type=Flood", "department=FIRE_DEPARTMENT");
+        assertEquals("Pending", query.getStatus());
+        assertEquals("Flood", query.getDisasterType());
+        assertEquals(Department.FIRE_DEPARTMENT, query.getDepartment());
+        assertEquals("SELECT id FROM reports WHERE id > ? AND response_status = ? AND disaster_type = ?"
+                + " AND fire_department_status IS NOT NULL AND fire_department_status <> 'NOT_RESPONSIBLE'"
+                + " ORDER BY id LIMIT ?", query.toSql("id"));
+    }
+
+    @Test
+    void RQ003_testInvalidInputRejected() {
+        // Test case: malformed tokens, unknown filters and oversized pages
+        // Expected: IllegalArgumentException, which the server reports as INVALID_REQUEST
+        assertThrows(IllegalArgumentException.class, () -> ReportQuery.parse("not-a-token", 10));
+        assertThrows(IllegalArgumentException.class, () -> ReportQuery.parse(null, 10, "colour=red"));
+        assertThrows(IllegalArgumentException.class, () -> ReportQuery.parse(null, 10, "department=fire"));
+        assertThrows(IllegalArgumentException.class, () -> ReportQuery.parse(null, ReportQuery.MAX_PAGE_SIZE + 1));
+    }
+}
@@ -0,0 +1,197 @@
+package Util;
+
+import Model.Report;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportSyncTest {
+
+    private static Report report(int id, String status) {
+        return new Report(id, "Flood", "Perth", 0.0, 0.0, "2024-05-01 10:00:00", "Ann", "0411", status);
+    }
+
+    @Test
+    void RS001_testRefreshAppliesOnlyTheChanges() throws Exception {
+        // Test case: a full load of three reports, then a delta changing one, adding one and removing one
+        // Expected: the list is patched in id order and each refresh asks for the changes since the previous version
+        List<Long> asked = new ArrayList<>();
+        Deque<DatabaseConnection.ReportDelta> deltas = new ArrayDeque<>(List.of(
+                new DatabaseConnection.ReportDelta(10, true, List.of(report(1, "Pending"), report(2, "Pending"), report(3, "Pending")), Set.of()),
+                new DatabaseConnection.ReportDelta(14, false, List.of(report(4, "Pending"), report(2, "In Progress")), Set.of(3))));
+        ReportSync sync = new ReportSync(since -> {
+            asked.add(since);
+            return deltas.poll();
+        });
+
+        assertEquals(3, sync.refresh().size());
+        List<Report> reports = sync.refresh();
+
+        assertEquals(List.of(0L, 10L), asked);
+        assertEquals(14, sync.getVersion());
+        assertEquals(List.of(1, 2, 4), reports.stream().map(Report::getId).toList());
+        assertEquals("In Progress", reports.get(1).getResponseStatus());
+    }
+
+    @Test
+    void RS002_testFailedOrResetRefreshStartsOver() throws Exception {
+        // Test case: a refresh that fails, then a reset after a successful one
+        // Expected: a failure keeps the version so the changes are asked for again, and a reset asks for a full load
+        List<Long> asked = new ArrayList<>();
+        ReportSync sync = new ReportSync(since -> {
+            asked.add(since);
+            if (asked.size() == 2) {
+                throw new SQLException("SERVER_NOT_RUNNING");
+            }
+            return new DatabaseConnection.ReportDelta(5, since == 0, List.of(report(1, "Pending")), Set.of());
+        });
+
+        sync.refresh();
+        assertThrows(SQLException.class, sync::refresh);
+        sync.refresh();
+        sync.reset();
+        assertEquals(0, sync.getVersion());
+        sync.refresh();
+
+        assertEquals(List.of(0L, 5L, 5L, 0L), asked);
+    }
+
+    /**
+     * Report writes as the version triggers see them: each write takes the
+     * next version straight away, but is only visible once its transaction
+     * commits.
+     */
+    private static final class FakeReports {
+
+        private long lastVersion;
+        private final Map<Long, Report> writes = new HashMap<>();
+        private final Set<Long> committed = new HashSet<>();
+
+        synchronized long write(Report report) {
+            writes.put(++lastVersion, report);
+            return lastVersion;
+        }
+
+        synchronized void commit(List<Long> versions) {
+            committed.addAll(versions);
+        }
+
+        synchronized Map<Integer, Report> committedRows(long since) {
+            Map<Integer, Report> rows = new TreeMap<>();
+            Map<Integer, Long> rowVersions = new HashMap<>();
+            for (long version : committed) {
+                Report report = writes.get(version);
+                if (version > since && rowVersions.getOrDefault(report.getId(), 0L) < version) {
+                    rowVersions.put(report.getId(), version);
+                    rows.put(report.getId(), report);
+                }
+            }
+            return rows;
+        }
+
+        // Only versions this recent are read back, like the allocated_at window
+        private static final long WINDOW = 50;
+
+        synchronized long newestCommitted(long since) {
+            long newest = since;
+            for (long version : committed) {
+                newest = Math.max(newest, version);
+            }
+            return newest;
+        }
+
+        synchronized Set<Long> recentCommittedVersions(long since) {
+            Set<Long> versions = new HashSet<>();
+            for (long version : committed) {
+                if (version > Math.max(since, lastVersion - WINDOW)) {
+                    versions.add(version);
+                }
+            }
+            return versions;
+        }
+
+        synchronized List<Long> recentAllocatedVersions(long since) {
+            List<Long> versions = new ArrayList<>();
+            for (long version = Math.max(since, lastVersion - WINDOW) + 1; version <= lastVersion; version++) {
+                versions.add(version);
+            }
+            return versions;
+        }
+
+        DatabaseConnection.ReportDelta changedSince(long since) {
+            long newest;
+            Set<Long> snapshot;
+            Map<Integer, Report> rows;
+            synchronized (this) {
+                newest = newestCommitted(since);
+                snapshot = recentCommittedVersions(since);
+                rows = committedRows(since);
+            }
+            Thread.yield();
+            long version = DatabaseConnection.lowWaterMark(since, newest, snapshot, recentAllocatedVersions(since));
+            return new DatabaseConnection.ReportDelta(version, since == 0, new ArrayList<>(rows.values()), Set.of());
+        }
+    }
+
+    @Test
+    void RS003_testSyncMissesNoWriteCommittedOutOfVersionOrder() throws Exception {
+        // Test case: group commits of three reports run alongside single report updates while a console keeps syncing
+        // Expected: versions still in flight hold the sync back, so it ends with every committed write
+        assertEquals(4, DatabaseConnection.lowWaterMark(4, 6, Set.of(6L), List.of(5L, 6L, 7L)));
+        assertEquals(7, DatabaseConnection.lowWaterMark(4, 7, Set.of(5L, 6L, 7L), List.of(5L, 6L, 7L)));
+        assertEquals(9, DatabaseConnection.lowWaterMark(7, 9, Set.of(9L), List.of(9L)), "A rolled back version leaves a gap");
+        assertEquals(900, DatabaseConnection.lowWaterMark(0, 1000, Set.of(1000L), List.of(901L, 1000L)),
+                "Only the recent versions are compared");
+
+        FakeReports db = new FakeReports();
+        ReportSync sync = new ReportSync(db::changedSince);
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> groups = writers.submit(() -> {
+                for (int round = 0; round < 300; round++) {
+                    List<Long> batch = new ArrayList<>();
+                    for (int id = 1; id <= 3; id++) {
+                        batch.add(db.write(report(id, "Group " + round)));
+                        Thread.yield();
+                    }
+                    db.commit(batch);
+                }
+            });
+            Future<?> singles = writers.submit(() -> {
+                for (int i = 0; i < 900; i++) {
+                    long version = db.write(report(4 + i % 3, "Single " + i));
+                    Thread.yield();
+                    db.commit(List.of(version));
+                }
+            });
+            while (!groups.isDone() || !singles.isDone()) {
+                sync.refresh();
+            }
+            groups.get(5, TimeUnit.SECONDS);
+            singles.get(5, TimeUnit.SECONDS);
+
+            List<Report> synced = sync.refresh();
+            Map<Integer, Report> expected = db.committedRows(0);
+            assertEquals(6, synced.size());
+            for (Report report : synced) {
+                assertEquals(expected.get(report.getId()).getResponseStatus(), report.getResponseStatus(),
+                        "Report " + report.getId() + " should end at its last committed write");
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+}
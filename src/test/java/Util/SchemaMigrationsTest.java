@@ -0,0 +1,59 @@
+package Util;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaMigrationsTest {
+
+    @Test
+    void SM001_testOnlyUnappliedMigrationsRunAndChangedOnesAreRefused() throws Exception {
+        // Test case: three migrations of which the first is applied, then the first edited after it was applied
+        // Expected: the other two are pending in order, and the edited one stops the run
+        Migration first = new Migration(1, "Add a column", "ALTER TABLE t ADD COLUMN c INT");
+        Migration second = new Migration(2, "Add an index", "CREATE INDEX idx_t_c ON t (c)");
+        Migration third = new Migration(3, "Add another index", "CREATE INDEX idx_t_d ON t (d)");
+        Migration edited = new Migration(1, "Add a column", "ALTER TABLE t ADD COLUMN c BIGINT");
+
+        assertEquals(List.of(second, third),
+                SchemaMigrations.pending(List.of(first, second, third), Map.of(1, first.getChecksum())));
+        assertNotEquals(first.getChecksum(), edited.getChecksum());
+        assertThrows(SQLException.class,
+                () -> SchemaMigrations.pending(List.of(edited, second), Map.of(1, first.getChecksum())));
+        assertThrows(IllegalStateException.class,
+                () -> SchemaMigrations.pending(List.of(second, first), Map.of()));
+    }
+
+    @Test
+    void SM002_testShippedMigrationsAreInOrderAndPlansAreJudged() throws Exception {
+        // Test case: the migrations shipped with the system, and EXPLAIN rows with and without the expected index
+        // Expected: a fresh database gets every migration, and a plan only fails the check when the index cannot be used
+        assertEquals(SchemaMigrations.MIGRATIONS, SchemaMigrations.pending(SchemaMigrations.MIGRATIONS, Map.of()));
+
+        Set<String> indexes = Set.of("idx_reports_row_version");
+        assertEquals(QueryPlanCheck.Verdict.USES_INDEX, QueryPlanCheck.verdict(indexes, "idx_reports_row_version", "idx_reports_row_version"));
+        assertEquals(QueryPlanCheck.Verdict.INDEX_NOT_CHOSEN, QueryPlanCheck.verdict(indexes, null, "PRIMARY,idx_reports_row_version"));
+        assertEquals(QueryPlanCheck.Verdict.NO_INDEX, QueryPlanCheck.verdict(indexes, "PRIMARY", "PRIMARY"));
+        assertEquals(QueryPlanCheck.Verdict.NO_INDEX, QueryPlanCheck.verdict(indexes, null, null));
+    }
+
+    @Test
+    void SM003_testLogMoveRunsAsACodeMigrationAfterItsTable() throws Exception {
+        // Test case: the shipped migrations that create report_log_entries and move the communication logs into it
+        // Expected: the table comes first, the move is a code step with a stable checksum, and a null step is refused
+        Migration table = SchemaMigrations.MIGRATIONS.get(5);
+        Migration move = SchemaMigrations.MIGRATIONS.get(6);
+        assertEquals(6, table.getVersion());
+        assertNull(table.getStep());
+        assertEquals(7, move.getVersion());
+        assertNotNull(move.getStep());
+        assertTrue(move.getStatements().isEmpty());
+
+        Migration.Step step = conn -> { };
+        assertEquals(move.getChecksum(), new Migration(7, move.getDescription(), step).getChecksum());
+        assertThrows(IllegalArgumentException.class, () -> new Migration(8, "Nothing", (Migration.Step) null));
+    }
+}
@@ -0,0 +1,97 @@
+package Util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+public class SqlStatsTest {
+
+    @Test
+    void SQ001_testStatementsReduceToTemplates() {
+        // Test case: statements that differ only in literals, whitespace, IN list length or batch size
+        // Expected: each pair reduces to the same template
+        assertEquals("SELECT * FROM reports WHERE response_status IN (?...) AND fire_status != ?",
+                SqlStats.template("SELECT * FROM reports\n  WHERE response_status IN ('Pending', 'In Progress') AND fire_status != 'NOT_RESPONSIBLE'"));
+        assertEquals(SqlStats.template("SELECT * FROM reports WHERE id = 7"), SqlStats.template("SELECT * FROM reports WHERE id = 12345"));
+        assertEquals(SqlStats.template("INSERT INTO reports (a, b) VALUES (?, ?), (?, ?), (?, ?)"),
+                SqlStats.template("INSERT INTO reports (a, b) VALUES (?, ?)"));
+        assertEquals(SqlStats.template("UPDATE reports SET x = CASE id WHEN ? THEN ? WHEN ? THEN ? END WHERE id IN (?, ?)"),
+                SqlStats.template("UPDATE reports SET x = CASE id WHEN ? THEN ? END WHERE id IN (?)"));
+        assertEquals("SELECT fire_status FROM reports", SqlStats.template("SELECT fire_status FROM reports"));
+    }
+
+    @Test
+    void SQ002_testSlowStatementIsTimedAndLogged() throws Exception {
+        // Test case: a query through the pool that takes longer than the slow threshold
+        // Expected: its template is counted with its rows and as slow, and the slow query log gets its parameter shape
+        long slowMillis = SqlStats.SLOW_THRESHOLD_NANOS / 1_000_000 + 20;
+        String sql = "SELECT * FROM reports WHERE id > ? AND location = ? /* SQ002 */";
+        ConnectionPool pool = new ConnectionPool(() -> fakeConnection(slowMillis), 0, 1, 1000, 60000, 0);
+        long logged = SlowQueryLog.getLoggedCount();
+        try (Connection connection = pool.borrow(); PreparedStatement query = connection.prepareStatement(sql)) {
+            query.setInt(1, 0);
+            query.setString(2, "Perth");
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    // Read every row
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        SqlStats.TemplateStats stats = SqlStats.top(Integer.MAX_VALUE).stream()
+                .filter(s -> s.getTemplate().equals(sql)).findFirst().orElseThrow();
+        assertEquals(1, stats.getLatency().getCount());
+        assertEquals(2, stats.getRows());
+        assertEquals(1, stats.getSlowCount());
+        assertTrue(stats.getLatency().getMax() >= slowMillis * 1_000_000);
+        assertEquals(logged + 1, SlowQueryLog.getLoggedCount());
+        String line = null;
+        for (int i = 0; i < 50 && line == null; i++) {
+            Thread.sleep(20);
+            if (Files.exists(SlowQueryLog.getFile())) {
+                line = Files.readAllLines(SlowQueryLog.getFile()).stream().filter(l -> l.contains("SQ002")).findFirst().orElse(null);
+            }
+        }
+        assertNotNull(line, "The slow statement should reach the log file");
+        assertTrue(line.contains("|2|" + sql + "|(Int, String)|"));
+    }
+
+    /**
+     * A connection whose queries return two rows after the given delay.
+     */
+    private static Connection fakeConnection(long delayMillis) {
+        return (Connection) Proxy.newProxyInstance(SqlStatsTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return fakeStatement(delayMillis);
+                        case "isValid":
+                        case "getAutoCommit":
+                            return true;
+                        default:
+                            return method.getReturnType() == boolean.class ? false : null;
+                    }
+                });
+    }
+
+    private static PreparedStatement fakeStatement(long delayMillis) {
+        int[] rowsLeft = {2};
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(SqlStatsTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> method.getName().equals("next") ? rowsLeft[0]-- > 0 : null);
+        return (PreparedStatement) Proxy.newProxyInstance(SqlStatsTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("executeQuery")) {
+                        Thread.sleep(delayMillis);
+                        return rs;
+                    }
+                    return null;
+                });
+    }
+}
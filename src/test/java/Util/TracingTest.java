@@ -0,0 +1,56 @@
+package Util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TracingTest {
+
+    // Fresh for each run, as the trace file is appended to
+    private static final String TRACE_ID = Tracing.newId() + Tracing.newId();
+    private static final String CALLER_SPAN = Tracing.newId();
+
+    @Test
+    void TR001_testTraceIsContinuedAndWritten() throws Exception {
+        // Test case: a request carrying a sampled traceparent, with a nested span made current while it runs
+        // Expected: both spans share the caller's trace id, nest by parent id, and reach the trace file as Zipkin JSON
+        Span request = Tracing.continueTrace("00-" + TRACE_ID + "-" + CALLER_SPAN + "-01", "DRS TR001");
+        assertNotNull(request);
+        assertEquals(TRACE_ID, request.getTraceId());
+        try (Span execute = request.child("execute").activate()) {
+            assertSame(execute, Tracing.current());
+            assertTrue(execute.traceParent().startsWith("00-" + TRACE_ID + "-"));
+            Tracing.child("sql").tag("db.statement", "SELECT \"x\"").close();
+        }
+        assertNull(Tracing.current());
+        request.tag("drs.status", "OK").close();
+        request.close();
+
+        List<String> lines = null;
+        for (int i = 0; i < 50 && (lines == null || lines.size() < 3); i++) {
+            Thread.sleep(20);
+            if (Files.exists(Tracing.getFile())) {
+                lines = Files.readAllLines(Tracing.getFile()).stream()
+                        .filter(l -> l.contains(TRACE_ID)).collect(Collectors.toList());
+            }
+        }
+        assertNotNull(lines);
+        assertEquals(3, lines.size(), "Each span should be written once");
+        String root = lines.stream().filter(l -> l.contains("\"DRS TR001\"")).findFirst().orElseThrow();
+        assertTrue(root.contains("\"parentId\":\"" + CALLER_SPAN + "\""));
+        assertTrue(root.contains("\"tags\":{\"drs.status\":\"OK\"}"));
+        assertTrue(lines.stream().anyMatch(l -> l.contains("\"name\":\"sql\"") && l.contains("\"SELECT \\\"x\\\"\"")));
+    }
+
+    @Test
+    void TR002_testUnsampledTraceIsNotRecorded() {
+        // Test case: traceparents the caller did not sample, or that are malformed
+        // Expected: no span is started, and nothing becomes current
+        assertNull(Tracing.continueTrace("00-" + TRACE_ID + "-" + CALLER_SPAN + "-00", "DRS TR002"));
+        assertNull(Tracing.continueTrace("not-a-traceparent", "DRS TR002"));
+        assertNull(Tracing.child("sql"));
+    }
+}